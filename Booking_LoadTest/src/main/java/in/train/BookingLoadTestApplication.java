@@ -0,0 +1,64 @@
+package in.train;
+
+import java.util.Map;
+
+import in.train.config.LoadTestConfig;
+import in.train.report.LoadTestReport;
+import in.train.report.OperationStats;
+import in.train.runner.LoadGenerator;
+import in.train.runner.Operation;
+import in.train.runner.ServiceLauncher;
+
+/**
+ * End to end load test for the booking flow.
+ *
+ * Steps:
+ * 1. Optionally start IRCTC Provider (embedded database) and MakeMyTrip Consumer
+ * 2. Book some seed tickets
+ * 3. Warm-up phase (not measured)
+ * 4. Measured phase at the target rate
+ * 5. Print the report (and write it as JSON if --report is given)
+ *
+ * Example:
+ * java -jar target/Booking_LoadTest-1.0.0.jar --rate=300 --duration=60 --report=target/run.json
+ */
+public class BookingLoadTestApplication {
+
+	public static void main(String[] args) throws Exception {
+		LoadTestConfig config = LoadTestConfig.fromArgs(args);
+
+		try (ServiceLauncher launcher = new ServiceLauncher()) {
+			if (config.isStartServices()) {
+				launcher.start("provider", config.getProviderJar(), config.getProviderArgs(),
+						config.getProviderHealthUrl());
+				launcher.start("consumer", config.getConsumerJar(), config.getConsumerArgs(),
+						config.getConsumerHealthUrl());
+			}
+
+			LoadGenerator generator = new LoadGenerator(config);
+
+			int seeded = generator.seed(config.getSeedTickets());
+			System.out.println("Seeded " + seeded + " of " + config.getSeedTickets() + " tickets");
+			if (config.getSeedTickets() > 0 && seeded == 0) {
+				throw new IllegalStateException("No ticket could be booked through " + config.getConsumerUrl());
+			}
+
+			if (config.getWarmupSeconds() > 0) {
+				System.out.println("Warming up for " + config.getWarmupSeconds() + "s");
+				generator.run(config.getWarmupSeconds());
+			}
+
+			System.out.println("Measuring for " + config.getDurationSeconds() + "s at " + config.getRate() + " req/s");
+			Map<Operation, OperationStats.Snapshot> snapshots = generator.run(config.getDurationSeconds());
+			if (generator.getInFlight() > 0) {
+				System.out.println(generator.getInFlight() + " requests still unanswered after the run");
+			}
+
+			LoadTestReport report = new LoadTestReport(config, snapshots, config.getDurationSeconds());
+			report.print();
+			if (!config.getReportFile().isBlank()) {
+				report.writeJson(config.getReportFile());
+			}
+		}
+	}
+}
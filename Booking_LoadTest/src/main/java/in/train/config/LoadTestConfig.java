@@ -0,0 +1,181 @@
+package in.train.config;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import in.train.runner.Operation;
+
+/**
+ * Settings for one load test run.
+ *
+ * Every setting can be overridden on the command line as --name=value,
+ * for example: --rate=500 --duration=120 --mix=book:20,get:70,search:10
+ */
+public class LoadTestConfig {
+
+	// Base URL of the MakeMyTrip Consumer API that receives the load
+	private String consumerUrl = "http://localhost:8081/api/makemytrip";
+
+	// Health URLs polled while the services start
+	private String providerHealthUrl = "http://localhost:8080/actuator/health";
+	private String consumerHealthUrl = "http://localhost:8081/actuator/health";
+
+	// Start both services locally before the run (false = use already running services)
+	private boolean startServices = true;
+
+	// Service jars and extra arguments used when startServices is true
+	private String providerJar = "../IRCTC_Provider/target/IRCTC_Provider-1.0.0.jar";
+	private String consumerJar = "../MakeMyTrip_Consumer/target/MakeMyTrip_Consumer-1.0.0.jar";
+	private String providerArgs = "--spring.profiles.active=embedded";
+	private String consumerArgs = "--spring.profiles.active=dev";
+
+	// Target arrival rate in requests per second (open model, independent of response times)
+	private double rate = 200;
+
+	// Poisson (exponential gaps) or uniform (fixed gaps) arrivals
+	private boolean poisson = true;
+
+	// Length of the unmeasured warm-up and of the measured run
+	private int warmupSeconds = 10;
+	private int durationSeconds = 60;
+
+	// Bookings made before warm-up so get/cancel/search have tickets to work on
+	private int seedTickets = 200;
+
+	// Requests allowed in flight; arrivals beyond this are counted as dropped
+	private int maxInFlight = 5000;
+
+	// Per-request timeout
+	private int timeoutMs = 10000;
+
+	// Operation weights
+	private Map<Operation, Integer> mix = parseMix("book:40,get:40,cancel:10,search:10");
+
+	// Optional JSON report file for comparing runs
+	private String reportFile = "";
+
+	/**
+	 * Build the config from --name=value command line arguments.
+	 *
+	 * @param args command line arguments
+	 * @return LoadTestConfig with defaults for anything not given
+	 */
+	public static LoadTestConfig fromArgs(String[] args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--") || !arg.contains("=")) {
+				throw new IllegalArgumentException("Arguments must look like --name=value: " + arg);
+			}
+			int split = arg.indexOf('=');
+			values.put(arg.substring(2, split), arg.substring(split + 1));
+		}
+
+		LoadTestConfig config = new LoadTestConfig();
+		config.consumerUrl = values.getOrDefault("consumerUrl", config.consumerUrl);
+		config.providerHealthUrl = values.getOrDefault("providerHealthUrl", config.providerHealthUrl);
+		config.consumerHealthUrl = values.getOrDefault("consumerHealthUrl", config.consumerHealthUrl);
+		config.startServices = Boolean.parseBoolean(values.getOrDefault("startServices", "" + config.startServices));
+		config.providerJar = values.getOrDefault("providerJar", config.providerJar);
+		config.consumerJar = values.getOrDefault("consumerJar", config.consumerJar);
+		config.providerArgs = values.getOrDefault("providerArgs", config.providerArgs);
+		config.consumerArgs = values.getOrDefault("consumerArgs", config.consumerArgs);
+		config.rate = Double.parseDouble(values.getOrDefault("rate", "" + config.rate));
+		config.poisson = !"uniform".equalsIgnoreCase(values.getOrDefault("arrival", "poisson"));
+		config.warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "" + config.warmupSeconds));
+		config.durationSeconds = Integer.parseInt(values.getOrDefault("duration", "" + config.durationSeconds));
+		config.seedTickets = Integer.parseInt(values.getOrDefault("seedTickets", "" + config.seedTickets));
+		config.maxInFlight = Integer.parseInt(values.getOrDefault("maxInFlight", "" + config.maxInFlight));
+		config.timeoutMs = Integer.parseInt(values.getOrDefault("timeoutMs", "" + config.timeoutMs));
+		if (values.containsKey("mix")) {
+			config.mix = parseMix(values.get("mix"));
+		}
+		config.reportFile = values.getOrDefault("report", config.reportFile);
+		return config;
+	}
+
+	/**
+	 * Parse a mix such as "book:40,get:40,cancel:10,search:10".
+	 */
+	private static Map<Operation, Integer> parseMix(String text) {
+		Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+		for (String part : text.split(",")) {
+			String[] pair = part.trim().split(":");
+			weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+		}
+		if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+			throw new IllegalArgumentException("Operation mix must have a positive total weight: " + text);
+		}
+		return weights;
+	}
+
+	// Getters
+
+	public String getConsumerUrl() {
+		return consumerUrl;
+	}
+
+	public String getProviderHealthUrl() {
+		return providerHealthUrl;
+	}
+
+	public String getConsumerHealthUrl() {
+		return consumerHealthUrl;
+	}
+
+	public boolean isStartServices() {
+		return startServices;
+	}
+
+	public String getProviderJar() {
+		return providerJar;
+	}
+
+	public String getConsumerJar() {
+		return consumerJar;
+	}
+
+	public String getProviderArgs() {
+		return providerArgs;
+	}
+
+	public String getConsumerArgs() {
+		return consumerArgs;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public boolean isPoisson() {
+		return poisson;
+	}
+
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public int getSeedTickets() {
+		return seedTickets;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public int getTimeoutMs() {
+		return timeoutMs;
+	}
+
+	public Map<Operation, Integer> getMix() {
+		return mix;
+	}
+
+	public String getReportFile() {
+		return reportFile;
+	}
+}
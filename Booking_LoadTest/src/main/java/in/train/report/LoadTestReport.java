@@ -0,0 +1,149 @@
+package in.train.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import in.train.config.LoadTestConfig;
+import in.train.runner.Operation;
+
+/**
+ * Summary of a measured load test phase.
+ *
+ * Printed as a table on the console and optionally written as JSON,
+ * so runs before and after a change can be compared.
+ */
+public class LoadTestReport {
+
+	private final LoadTestConfig config;
+
+	private final Map<Operation, OperationStats.Snapshot> snapshots;
+
+	private final int durationSeconds;
+
+	public LoadTestReport(LoadTestConfig config, Map<Operation, OperationStats.Snapshot> snapshots,
+			int durationSeconds) {
+		this.config = config;
+		this.snapshots = snapshots;
+		this.durationSeconds = durationSeconds;
+	}
+
+	/**
+	 * Print throughput, latency percentiles (milliseconds) and error rates per operation.
+	 */
+	public void print() {
+		System.out.println();
+		System.out.printf("Target rate %.0f req/s, %s arrivals, measured for %ds%n", config.getRate(),
+				config.isPoisson() ? "poisson" : "uniform", durationSeconds);
+		System.out.printf("%-8s %8s %9s %8s %8s %8s %8s %8s %8s %8s %8s%n", "op", "count", "req/s", "err%",
+				"dropped", "p50", "p90", "p99", "p99.9", "max", "mean");
+
+		Histogram all = null;
+		long allSucceeded = 0;
+		long allFailed = 0;
+		long allDropped = 0;
+		for (Map.Entry<Operation, OperationStats.Snapshot> entry : snapshots.entrySet()) {
+			OperationStats.Snapshot snapshot = entry.getValue();
+			if (snapshot.total() == 0) {
+				continue;
+			}
+			printRow(entry.getKey().name().toLowerCase(), snapshot.histogram(), snapshot.succeeded(),
+					snapshot.failed(), snapshot.dropped());
+
+			if (all == null) {
+				all = snapshot.histogram().copy();
+			} else {
+				all.add(snapshot.histogram());
+			}
+			allSucceeded += snapshot.succeeded();
+			allFailed += snapshot.failed();
+			allDropped += snapshot.dropped();
+		}
+		if (all != null) {
+			printRow("all", all, allSucceeded, allFailed, allDropped);
+		}
+		snapshots.forEach((operation, snapshot) -> {
+			if (!snapshot.failureCauses().isEmpty()) {
+				System.out.println("Failures of " + operation.name().toLowerCase() + ": " + snapshot.failureCauses());
+			}
+		});
+		System.out.println("Latencies in ms, measured from the scheduled start of each request.");
+	}
+
+	private void printRow(String name, Histogram histogram, long succeeded, long failed, long dropped) {
+		long completed = succeeded + failed;
+		System.out.printf("%-8s %8d %9.1f %8.2f %8d %8.2f %8.2f %8.2f %8.2f %8.2f %8.2f%n", name, completed,
+				(double) completed / durationSeconds, errorPercent(failed, completed), dropped,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getMaxValue()), histogram.getMean() / 1000.0);
+	}
+
+	/**
+	 * Write the report as JSON.
+	 *
+	 * @param path target file
+	 */
+	public void writeJson(String path) throws IOException {
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("consumerUrl", config.getConsumerUrl());
+		settings.put("rate", config.getRate());
+		settings.put("arrival", config.isPoisson() ? "poisson" : "uniform");
+		settings.put("warmupSeconds", config.getWarmupSeconds());
+		settings.put("durationSeconds", durationSeconds);
+		settings.put("mix", config.getMix());
+
+		Map<String, Object> operations = new LinkedHashMap<>();
+		snapshots.forEach((operation, snapshot) -> {
+			Histogram histogram = snapshot.histogram();
+			long completed = snapshot.succeeded() + snapshot.failed();
+			Map<String, Object> row = new LinkedHashMap<>();
+			row.put("count", completed);
+			row.put("succeeded", snapshot.succeeded());
+			row.put("failed", snapshot.failed());
+			row.put("dropped", snapshot.dropped());
+			row.put("failureCauses", snapshot.failureCauses());
+			row.put("throughput", (double) completed / durationSeconds);
+			row.put("errorPercent", errorPercent(snapshot.failed(), completed));
+			row.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+			row.put("p90Ms", millis(histogram.getValueAtPercentile(90)));
+			row.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+			row.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+			row.put("maxMs", millis(histogram.getMaxValue()));
+			row.put("meanMs", histogram.getMean() / 1000.0);
+			operations.put(operation.name().toLowerCase(), row);
+		});
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("time", LocalDateTime.now());
+		report.put("settings", settings);
+		report.put("operations", operations);
+
+		ObjectMapper objectMapper = new ObjectMapper()
+				.registerModule(new JavaTimeModule())
+				.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.enable(SerializationFeature.INDENT_OUTPUT);
+		File file = new File(path);
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		objectMapper.writeValue(file, report);
+		System.out.println("Report written to " + file);
+	}
+
+	private static double errorPercent(long failed, long completed) {
+		return completed == 0 ? 0 : 100.0 * failed / completed;
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+}
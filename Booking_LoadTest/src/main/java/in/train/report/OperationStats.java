@@ -0,0 +1,77 @@
+package in.train.report;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency and outcome counters for one operation.
+ *
+ * Latencies are recorded in microseconds into an HdrHistogram Recorder,
+ * which is safe to record into from many HTTP client threads at once.
+ */
+public class OperationStats {
+
+	// Highest latency the histogram can hold (anything above is clamped)
+	private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+	private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+
+	// 2xx responses
+	private final LongAdder succeeded = new LongAdder();
+
+	// Non 2xx responses, timeouts and connection errors
+	private final LongAdder failed = new LongAdder();
+
+	// Failures by cause: HTTP status code or exception name
+	private final Map<String, LongAdder> failureCauses = new ConcurrentHashMap<>();
+
+	// Arrivals that were not sent because too many requests were in flight
+	private final LongAdder dropped = new LongAdder();
+
+	public void recordSuccess(long latencyMicros) {
+		recorder.recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+		succeeded.increment();
+	}
+
+	public void recordFailure(long latencyMicros, String cause) {
+		recorder.recordValue(Math.min(latencyMicros, MAX_LATENCY_MICROS));
+		failed.increment();
+		failureCauses.computeIfAbsent(cause, key -> new LongAdder()).increment();
+	}
+
+	public void recordDropped() {
+		dropped.increment();
+	}
+
+	/**
+	 * Take what was recorded so far and start from zero again.
+	 * Used to throw away the warm-up phase.
+	 *
+	 * @return snapshot of the recorded interval
+	 */
+	public Snapshot reset() {
+		Histogram histogram = recorder.getIntervalHistogram();
+		Map<String, Long> causes = new TreeMap<>();
+		failureCauses.forEach((cause, count) -> causes.put(cause, count.sumThenReset()));
+		causes.values().removeIf(count -> count == 0);
+		return new Snapshot(histogram, succeeded.sumThenReset(), failed.sumThenReset(), dropped.sumThenReset(),
+				causes);
+	}
+
+	/**
+	 * Counters and histogram of one measured interval.
+	 */
+	public record Snapshot(Histogram histogram, long succeeded, long failed, long dropped,
+			Map<String, Long> failureCauses) {
+
+		public long total() {
+			return succeeded + failed + dropped;
+		}
+	}
+}
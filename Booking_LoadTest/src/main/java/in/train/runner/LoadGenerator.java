@@ -0,0 +1,267 @@
+package in.train.runner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.config.LoadTestConfig;
+import in.train.report.OperationStats;
+import in.train.runner.TicketPool.BookedTicket;
+
+/**
+ * Open model load generator for the MakeMyTrip Consumer API.
+ *
+ * Requests are started on a fixed schedule (uniform or Poisson arrivals at
+ * the configured rate), whether or not earlier requests have answered. A slow
+ * service therefore builds up a queue instead of quietly lowering the load.
+ *
+ * Latency is measured from the time a request was SCHEDULED to start, not
+ * from the time it was actually sent. If the generator itself falls behind,
+ * that delay is counted too (coordinated omission correction), so the
+ * reported percentiles are what a real user arriving at that moment would see.
+ */
+public class LoadGenerator {
+
+	private static final String[] FIRST_NAMES = { "Aarav", "Diya", "Kabir", "Meera", "Rohan", "Sana", "Vikram", "Zoya" };
+	private static final String[] LAST_NAMES = { "Sharma", "Verma", "Iyer", "Khan", "Patel", "Reddy", "Das", "Singh" };
+	private static final String[] GENDERS = { "Male", "Female", "Other" };
+	private static final String[][] ROUTES = { { "Delhi", "Mumbai", "12951" }, { "Chennai", "Bengaluru", "12007" },
+			{ "Kolkata", "Patna", "12309" }, { "Pune", "Hyderabad", "17031" }, { "Jaipur", "Ahmedabad", "12957" } };
+
+	private final LoadTestConfig config;
+
+	private final HttpClient httpClient;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	// Recently booked tickets used by get, cancel and search
+	private final TicketPool ticketPool = new TicketPool(10_000);
+
+	private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	// Operations and their cumulative weights, for picking from the mix
+	private final Operation[] mixOperations;
+	private final int[] mixCumulative;
+
+	public LoadGenerator(LoadTestConfig config) {
+		this.config = config;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofMillis(config.getTimeoutMs()))
+				.build();
+
+		for (Operation operation : Operation.values()) {
+			stats.put(operation, new OperationStats());
+		}
+
+		Map<Operation, Integer> mix = new LinkedHashMap<>(config.getMix());
+		mix.values().removeIf(weight -> weight <= 0);
+		this.mixOperations = mix.keySet().toArray(new Operation[0]);
+		this.mixCumulative = new int[mixOperations.length];
+		int total = 0;
+		for (int i = 0; i < mixOperations.length; i++) {
+			total += mix.get(mixOperations[i]);
+			mixCumulative[i] = total;
+		}
+	}
+
+	/**
+	 * Book tickets one by one so the run starts with tickets to read and cancel.
+	 *
+	 * @param count number of bookings
+	 * @return number of successful bookings
+	 */
+	public int seed(int count) throws InterruptedException {
+		int booked = 0;
+		for (int i = 0; i < count; i++) {
+			try {
+				HttpResponse<byte[]> response = httpClient.send(bookRequest(), HttpResponse.BodyHandlers.ofByteArray());
+				if (isSuccess(response)) {
+					remember(response.body());
+					booked++;
+				}
+			} catch (IOException ex) {
+				// Counted as not booked; the caller decides if that is fatal
+			}
+		}
+		return booked;
+	}
+
+	/**
+	 * Drive load for the given time and wait for outstanding requests.
+	 *
+	 * @param seconds how long new requests are started
+	 * @return what was recorded during this phase, per operation
+	 */
+	public Map<Operation, OperationStats.Snapshot> run(int seconds) throws InterruptedException {
+		// Start from clean counters so each phase is measured on its own
+		stats.values().forEach(OperationStats::reset);
+
+		double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(seconds);
+		long intendedStart = start;
+
+		while (intendedStart < end) {
+			long wait = intendedStart - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			Operation operation = nextOperation();
+			if (inFlight.get() >= config.getMaxInFlight()) {
+				stats.get(operation).recordDropped();
+			} else {
+				send(operation, intendedStart);
+			}
+
+			// Poisson arrivals have exponentially distributed gaps with the same mean
+			double gap = config.isPoisson()
+					? -Math.log(1.0 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos
+					: meanGapNanos;
+			intendedStart += (long) gap;
+		}
+
+		awaitInFlight();
+
+		Map<Operation, OperationStats.Snapshot> snapshots = new EnumMap<>(Operation.class);
+		stats.forEach((operation, operationStats) -> snapshots.put(operation, operationStats.reset()));
+		return snapshots;
+	}
+
+	/**
+	 * Send one request asynchronously and record its outcome when it completes.
+	 */
+	private void send(Operation operation, long intendedStart) {
+		BookedTicket ticket = null;
+		if (operation != Operation.BOOK) {
+			ticket = ticketPool.random();
+			if (ticket == null) {
+				// Nothing booked yet: book instead so the mix can get going
+				operation = Operation.BOOK;
+			}
+		}
+
+		HttpRequest request = switch (operation) {
+		case BOOK -> bookRequest();
+		case GET -> request("/ticket/" + ticket.ticketId()).GET().build();
+		case CANCEL -> request("/cancel/" + ticket.ticketId()).DELETE().build();
+		case SEARCH -> request("/tickets/search?pnr=" + ticket.pnr()).GET().build();
+		};
+
+		Operation sent = operation;
+		inFlight.incrementAndGet();
+		httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.whenComplete((response, error) -> {
+					long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart);
+					if (error == null && isSuccess(response)) {
+						stats.get(sent).recordSuccess(latencyMicros);
+						if (sent == Operation.BOOK) {
+							remember(response.body());
+						}
+					} else {
+						String cause = error != null ? rootCause(error).getClass().getSimpleName()
+								: "HTTP " + response.statusCode();
+						stats.get(sent).recordFailure(latencyMicros, cause);
+					}
+					inFlight.decrementAndGet();
+				});
+	}
+
+	private Operation nextOperation() {
+		int pick = ThreadLocalRandom.current().nextInt(mixCumulative[mixCumulative.length - 1]);
+		for (int i = 0; i < mixCumulative.length; i++) {
+			if (pick < mixCumulative[i]) {
+				return mixOperations[i];
+			}
+		}
+		return mixOperations[mixOperations.length - 1];
+	}
+
+	private HttpRequest bookRequest() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String[] route = ROUTES[random.nextInt(ROUTES.length)];
+
+		Map<String, String> passenger = new LinkedHashMap<>();
+		passenger.put("fname", FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+		passenger.put("lname", LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+		passenger.put("gender", GENDERS[random.nextInt(GENDERS.length)]);
+		passenger.put("from", route[0]);
+		passenger.put("to", route[1]);
+		passenger.put("doj", LocalDate.now().plusDays(1 + random.nextInt(90)).toString());
+		passenger.put("trainNum", route[2]);
+
+		try {
+			return request("/book")
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(passenger)))
+					.build();
+		} catch (IOException ex) {
+			throw new IllegalStateException("Cannot serialize passenger", ex);
+		}
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create(config.getConsumerUrl() + path))
+				.timeout(Duration.ofMillis(config.getTimeoutMs()));
+	}
+
+	/**
+	 * Keep the ID and PNR of a booked ticket for later requests.
+	 */
+	private void remember(byte[] body) {
+		try {
+			JsonNode ticket = objectMapper.readTree(body);
+			if (ticket.hasNonNull("ticketId") && ticket.hasNonNull("pnr")) {
+				ticketPool.add(new BookedTicket(ticket.get("ticketId").asInt(), ticket.get("pnr").asText()));
+			}
+		} catch (IOException ex) {
+			// Not a ticket body; the request itself was already counted
+		}
+	}
+
+	private static Throwable rootCause(Throwable error) {
+		while (error.getCause() != null && error.getCause() != error) {
+			error = error.getCause();
+		}
+		return error;
+	}
+
+	private static boolean isSuccess(HttpResponse<?> response) {
+		return response.statusCode() >= 200 && response.statusCode() < 300;
+	}
+
+	/**
+	 * Wait until every started request has answered or timed out.
+	 */
+	private void awaitInFlight() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMs() + 5000L);
+		while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+		}
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getBookedTickets() {
+		return ticketPool.size();
+	}
+}
@@ -0,0 +1,19 @@
+package in.train.runner;
+
+/**
+ * Operations the load generator sends to the MakeMyTrip Consumer API.
+ */
+public enum Operation {
+
+	// POST /book
+	BOOK,
+
+	// GET /ticket/{ticketId}
+	GET,
+
+	// DELETE /cancel/{ticketId}
+	CANCEL,
+
+	// GET /tickets/search?pnr=
+	SEARCH
+}
@@ -0,0 +1,109 @@
+package in.train.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the IRCTC Provider and MakeMyTrip Consumer jars for a load test
+ * and stops them again afterwards.
+ *
+ * Each service runs as its own JVM, like in production, with its output
+ * written to target/loadtest-logs/<name>.log.
+ */
+public class ServiceLauncher implements AutoCloseable {
+
+	private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+	private final Path logDirectory = Paths.get("target", "loadtest-logs");
+
+	// Started services, newest first, so they are stopped in reverse order
+	private final Deque<Process> processes = new ArrayDeque<>();
+
+	/**
+	 * Start a service jar and wait until its health endpoint reports UP.
+	 *
+	 * @param name      short name used for the log file
+	 * @param jar       path to the Spring Boot jar
+	 * @param arguments extra command line arguments, separated by spaces
+	 * @param healthUrl actuator health URL of the service
+	 */
+	public void start(String name, String jar, String arguments, String healthUrl)
+			throws IOException, InterruptedException {
+		if (!new File(jar).isFile()) {
+			throw new IllegalStateException("Jar not found: " + jar + " (run mvn package in the service first)");
+		}
+
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.add("-jar");
+		command.add(jar);
+		if (!arguments.isBlank()) {
+			command.addAll(Arrays.asList(arguments.trim().split("\\s+")));
+		}
+
+		Files.createDirectories(logDirectory);
+		File log = logDirectory.resolve(name + ".log").toFile();
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+		processes.push(process);
+
+		System.out.println("Starting " + name + " (log: " + log + ")");
+		waitUntilHealthy(name, process, healthUrl);
+	}
+
+	private void waitUntilHealthy(String name, Process process, String healthUrl) throws InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofSeconds(2)).GET().build();
+		long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+
+		while (System.nanoTime() < deadline) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException(name + " exited during startup, see its log file");
+			}
+			try {
+				HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+				if (response.statusCode() == 200 && response.body().contains("\"UP\"")) {
+					System.out.println(name + " is up");
+					return;
+				}
+			} catch (IOException ex) {
+				// Not listening yet
+			}
+			Thread.sleep(500);
+		}
+		throw new IllegalStateException(name + " did not become healthy within " + STARTUP_TIMEOUT.toSeconds() + "s");
+	}
+
+	/**
+	 * Stop every started service, newest first.
+	 */
+	@Override
+	public void close() {
+		while (!processes.isEmpty()) {
+			Process process = processes.pop();
+			process.destroy();
+			try {
+				if (!process.waitFor(30, TimeUnit.SECONDS)) {
+					process.destroyForcibly();
+				}
+			} catch (InterruptedException ex) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package in.train.runner;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size ring of recently booked tickets.
+ *
+ * Get, cancel and search requests pick a random ticket from here, so they
+ * work on real ticket IDs and PNRs without keeping every booking in memory.
+ */
+public class TicketPool {
+
+	/**
+	 * A booked ticket as seen by the load generator.
+	 */
+	public record BookedTicket(int ticketId, String pnr) {
+	}
+
+	private final AtomicReferenceArray<BookedTicket> slots;
+
+	// Total number of tickets ever added
+	private final AtomicLong added = new AtomicLong();
+
+	public TicketPool(int capacity) {
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	public void add(BookedTicket ticket) {
+		long index = added.getAndIncrement();
+		slots.set((int) (index % slots.length()), ticket);
+	}
+
+	/**
+	 * @return a random booked ticket, or null if nothing was booked yet
+	 */
+	public BookedTicket random() {
+		long filled = Math.min(added.get(), slots.length());
+		if (filled == 0) {
+			return null;
+		}
+		return slots.get(ThreadLocalRandom.current().nextInt((int) filled));
+	}
+
+	public long size() {
+		return Math.min(added.get(), slots.length());
+	}
+}
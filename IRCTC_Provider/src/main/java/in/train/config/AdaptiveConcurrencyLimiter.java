@@ -0,0 +1,197 @@
+package in.train.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrency limit that follows the latency of the work it protects.
+ *
+ * Instead of a fixed number of requests in flight, the limit is recomputed
+ * from every finished request (the "gradient" algorithm):
+ *  - a slow average of the latency (about the last 500 requests) is the
+ *    latency the database normally has
+ *  - a fast average (about the last 10 requests) is the latency right now
+ *  - gradient = tolerance * slow / fast, kept between 0.5 and 1: 1 while the
+ *    latency is within tolerance, smaller the slower the database gets
+ *  - new limit = limit * gradient + sqrt(limit), smoothed. With a healthy
+ *    database the limit grows by sqrt(limit) steps; when it slows down the
+ *    limit shrinks until the latency is back to normal
+ *
+ * When the connection pool already has threads waiting for a connection,
+ * the latency average has not caught up yet; then the limit is cut
+ * multiplicatively (AIMD backoff) right away.
+ *
+ * The limit only grows while at least half of it is in use, so an idle
+ * service does not end up with a limit it never tested.
+ *
+ * Requests whose latency depends on what they ask for (lists, searches,
+ * batches) say nothing about the database; they finish with releaseUnsampled
+ * and only count towards the pool-wait backoff.
+ *
+ * Everything is lock-free: the limit and both averages are one immutable
+ * State, replaced with compareAndSet (a release that loses the race simply
+ * applies its sample to the newer state).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // Weights of the newest latency sample in the fast and slow averages
+    private static final double FAST_ALPHA = 0.1;
+    private static final double SLOW_ALPHA = 0.002;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    // How much slower than normal the latency may get before the limit shrinks
+    private final double tolerance;
+
+    // Weight of each new limit (0..1); lower = calmer
+    private final double smoothing;
+
+    // Factor the limit is multiplied with while requests wait for a connection
+    private final double backoff;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicReference<State> state;
+
+    /**
+     * @param limit       requests allowed in flight
+     * @param fastLatency fast latency average in nanoseconds (0 = no sample yet)
+     * @param slowLatency slow latency average in nanoseconds (0 = no sample yet)
+     */
+    private record State(double limit, double fastLatency, double slowLatency) {
+    }
+
+    /**
+     * @param initialLimit requests in flight allowed before any latency is known
+     * @param minLimit     the limit never goes below this
+     * @param maxLimit     the limit never goes above this (e.g. the Tomcat thread count)
+     * @param tolerance    latency increase (>= 1) accepted without shrinking the limit
+     * @param smoothing    weight of each new limit (0..1)
+     * @param backoff      limit factor (0..1) while the connection pool has waiting threads
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+            double smoothing, double backoff) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1 || smoothing <= 0 || smoothing > 1
+                || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("Concurrency limit needs 1 <= minLimit <= maxLimit, tolerance >= 1, "
+                    + "0 < smoothing <= 1 and 0 < backoff < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoff = backoff;
+        this.state = new AtomicReference<>(new State(Math.max(minLimit, Math.min(maxLimit, initialLimit)), 0, 0));
+    }
+
+    /**
+     * Start a request if fewer than share * limit requests are in flight.
+     * Lower priority work gets a smaller share, so it is refused first.
+     *
+     * @param share part of the limit (0..1] this request may use
+     * @return true if the request may start; it must then call release
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (state.get().limit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Finish a request started with tryAcquire and adjust the limit.
+     *
+     * @param latencyNanos how long the request took
+     * @param poolWaiting  whether threads were waiting for a database connection
+     */
+    public void release(long latencyNanos, boolean poolWaiting) {
+        int current = inFlight.getAndDecrement();
+        while (true) {
+            State before = state.get();
+            if (state.compareAndSet(before, next(before, latencyNanos, poolWaiting, current))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finish a request started with tryAcquire without using its latency
+     * (it depends on the request, not on the database). Waiting threads in
+     * the connection pool still cut the limit.
+     *
+     * @param poolWaiting whether threads were waiting for a database connection
+     */
+    public void releaseUnsampled(boolean poolWaiting) {
+        inFlight.decrementAndGet();
+        if (!poolWaiting) {
+            return;
+        }
+        while (true) {
+            State before = state.get();
+            State after = new State(limited(before.limit() * backoff), before.fastLatency(), before.slowLatency());
+            if (state.compareAndSet(before, after)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * State after one latency sample.
+     */
+    private State next(State current, long latencyNanos, boolean poolWaiting, int inFlightBefore) {
+        double limit = current.limit();
+        double fastLatency;
+        double slowLatency;
+        if (current.slowLatency() == 0) {
+            fastLatency = latencyNanos;
+            slowLatency = latencyNanos;
+        } else {
+            fastLatency = current.fastLatency() + FAST_ALPHA * (latencyNanos - current.fastLatency());
+            slowLatency = current.slowLatency() + SLOW_ALPHA * (latencyNanos - current.slowLatency());
+        }
+
+        double newLimit;
+        if (poolWaiting) {
+            newLimit = limit * backoff;
+        } else {
+            // After a long slow period the normal latency has drifted up: let it come down faster
+            if (slowLatency > 2 * fastLatency) {
+                slowLatency *= 0.95;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * slowLatency / fastLatency));
+            if (gradient == 1.0 && inFlightBefore < limit / 2) {
+                // Not using the limit: nothing learned about a higher one (the averages still learn)
+                return new State(limit, fastLatency, slowLatency);
+            }
+            newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        }
+        return new State(limited(newLimit), fastLatency, slowLatency);
+    }
+
+    private double limited(double newLimit) {
+        return Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * @return requests currently allowed in flight
+     */
+    public int limit() {
+        return (int) state.get().limit();
+    }
+
+    /**
+     * @return requests currently in flight
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
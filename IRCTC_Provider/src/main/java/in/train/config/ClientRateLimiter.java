@@ -0,0 +1,111 @@
+package in.train.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client, without locks.
+ *
+ * Every client (API key or remote address) may send up to burst requests at
+ * once, and after that permitsPerSecond requests per second on average.
+ *
+ * Instead of a token count plus a refill time, each bucket stores a single
+ * long: the time at which it will be full again. A request pushes that time
+ * one interval (1 / permitsPerSecond) further, unless it would end up more
+ * than burst intervals in the future; then the bucket is empty and the
+ * request is refused. This behaves exactly like a token bucket, but needs one
+ * compare-and-set per request and no allocation for known clients.
+ *
+ * A bucket whose "full again" time has passed is full, so it is the same as
+ * a new bucket and can be dropped: evictIdle() removes those. At most
+ * maxClients buckets are kept; clients beyond that (e.g. a flood of made-up
+ * API keys) share one overflow bucket until idle buckets are evicted.
+ */
+public class ClientRateLimiter {
+
+    // Time for one token to come back
+    private final long intervalNanos;
+
+    // burst * intervalNanos: how far ahead of now a bucket may be booked
+    private final long burstNanos;
+
+    private final int maxClients;
+
+    // Client -> System.nanoTime() at which its bucket is full again
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // Shared by all clients that arrive while maxClients buckets are in use
+    private final AtomicLong overflow = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param permitsPerSecond average requests per second allowed per client
+     * @param burst            requests a client may send at once after being idle
+     * @param maxClients       clients tracked at the same time
+     */
+    public ClientRateLimiter(double permitsPerSecond, int burst, int maxClients) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rate limit needs permitsPerSecond > 0, burst >= 1 and maxClients >= 1");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Take one token from the client's bucket.
+     *
+     * @param client API key or remote address
+     * @return 0 if the request may go ahead, otherwise the nanoseconds until
+     *         the client's next request would be allowed
+     */
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long now) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = newBucket(client, now);
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            // An idle bucket is full: start from now, not from the past
+            long next = (fullAt - now > 0 ? fullAt : now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drop the buckets that are full again (clients idle for at least
+     * burst / permitsPerSecond seconds). Their next request starts with a
+     * new, equally full bucket.
+     *
+     * @return buckets removed
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    /**
+     * @return clients with a bucket of their own
+     */
+    public int trackedClients() {
+        return buckets.size();
+    }
+
+    private AtomicLong newBucket(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,231 @@
+package in.train.config;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import in.train.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Adaptive load shedding in front of the ticket API (registered in RateLimitConfig).
+ *
+ * When MySQL slows down, every request holds a Tomcat thread while it waits
+ * for a JDBC connection, until no thread is left and every request times out.
+ * Instead, the number of ticket requests in flight is capped by an
+ * AdaptiveConcurrencyLimiter that learns the limit from the latency of the
+ * ticket API (i.e. TicketService and its queries) and from the primary
+ * connection pools of all shards: as soon as threads wait for a connection,
+ * the limit goes down.
+ *
+ * Requests over the limit get 503 Service Unavailable with a Retry-After
+ * header (see GlobalExceptionHandler) right away, before they touch the
+ * database. Reads (GET, HEAD) may use the whole limit, bookings and
+ * cancellations only shedding.booking-share of it, so under load bookings
+ * are shed first and lookups keep working.
+ *
+ * Every request takes a slot, but only requests with a bounded amount of work
+ * (single ticket lookups, bookings, cancellations) teach the limiter their
+ * latency. Lists, searches and batch lookups (shedding.unsampled-reads) take
+ * as long as their result is big, so their latency would read as a slow
+ * database and shrink the limit for everyone.
+ *
+ * Requests of the RSocket streams (TicketStreamController) take their slots
+ * from the same limiter (see call), so bulk partners cannot get around it.
+ */
+@Component
+public class LoadSheddingInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadSheddingInterceptor.class);
+
+    // Request attribute: System.nanoTime() when the request got its slot
+    private static final String STARTED_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".started";
+
+    // Request attribute: set when the request's latency is not a sample for the limiter
+    private static final String UNSAMPLED_ATTRIBUTE = LoadSheddingInterceptor.class.getName() + ".unsampled";
+
+    @Value("${shedding.enabled:true}")
+    private boolean enabled;
+
+    @Value("${shedding.initial-limit:100}")
+    private int initialLimit;
+
+    @Value("${shedding.min-limit:10}")
+    private int minLimit;
+
+    // Should stay below the Tomcat thread count (server.tomcat.threads.max, 200)
+    @Value("${shedding.max-limit:180}")
+    private int maxLimit;
+
+    @Value("${shedding.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${shedding.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${shedding.pool-wait-backoff:0.9}")
+    private double poolWaitBackoff;
+
+    // Part of the limit bookings and cancellations may use
+    @Value("${shedding.booking-share:0.8}")
+    private double bookingShare;
+
+    @Value("${shedding.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    // Mapping patterns of GET endpoints whose latency depends on the size of their result
+    @Value("${shedding.unsampled-reads:/api/tickets,/api/tickets/search,/api/tickets/batch}")
+    private Set<String> unsampledReads;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    private final MeterRegistry meterRegistry;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    // Primary connection pool of every shard
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    private Counter bookingShed;
+
+    private Counter readShed;
+
+    public LoadSheddingInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyTolerance, smoothing,
+                poolWaitBackoff);
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            DataSource dataSource = shardRouter.dataSource(shard);
+            try {
+                // Outside of a read-only transaction the replica routing unwraps to the primary
+                if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                    pools.add(dataSource.unwrap(HikariDataSource.class));
+                }
+            } catch (SQLException ex) {
+                logger.warn("Connection pool of shard {} is not watched for load shedding", shard, ex);
+            }
+        }
+
+        bookingShed = shedCounter("booking");
+        readShed = shedCounter("read");
+        Gauge.builder("shedding.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Ticket API requests currently allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder("shedding.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Ticket API requests in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled) {
+            return true;
+        }
+
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        if (limiter.tryAcquire(read ? 1.0 : bookingShare)) {
+            request.setAttribute(STARTED_ATTRIBUTE, System.nanoTime());
+            if (read && unsampledReads.contains(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))) {
+                request.setAttribute(UNSAMPLED_ATTRIBUTE, Boolean.TRUE);
+            }
+            return true;
+        }
+
+        throw shed(read);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object started = request.getAttribute(STARTED_ATTRIBUTE);
+        if (started != null) {
+            request.removeAttribute(STARTED_ATTRIBUTE);
+            if (request.getAttribute(UNSAMPLED_ATTRIBUTE) != null) {
+                limiter.releaseUnsampled(poolWaiting());
+            } else {
+                limiter.release(System.nanoTime() - (Long) started, poolWaiting());
+            }
+        }
+    }
+
+    /**
+     * Run work that does not come through Spring MVC (RSocket streams) in a
+     * slot of the same limit as the ticket API requests.
+     *
+     * @param read lookup (true, whole limit) or booking (shedding.booking-share)
+     * @param work the work, run in the calling thread
+     * @return what the work returned
+     * @throws ServiceOverloadedException if the limit is reached
+     */
+    public <T> T call(boolean read, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        if (!limiter.tryAcquire(read ? 1.0 : bookingShare)) {
+            throw shed(read);
+        }
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            limiter.release(System.nanoTime() - started, poolWaiting());
+        }
+    }
+
+    // Count a refused request and build its 503
+    private ServiceOverloadedException shed(boolean read) {
+        (read ? readShed : bookingShed).increment();
+        return new ServiceOverloadedException("The service is overloaded, please retry after "
+                + retryAfterSeconds + " second(s)", retryAfterSeconds);
+    }
+
+    /**
+     * @return whether any request is waiting for a database connection
+     */
+    private boolean poolWaiting() {
+        for (HikariDataSource pool : pools) {
+            // Null until the pool has been started
+            HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+            if (poolBean != null && poolBean.getThreadsAwaitingConnection() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    private Counter shedCounter(String priority) {
+        return Counter.builder("shedding.rejected")
+                .description("Requests refused with 503 because the ticket API was over its concurrency limit")
+                .tag("priority", priority)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package in.train.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts the per-client rate limits (RateLimitInterceptor) and the adaptive
+ * load shedding (LoadSheddingInterceptor) in front of the ticket API.
+ * Actuator, Swagger and the admin endpoints are not limited.
+ *
+ * Rate limits run first, so a throttled client never takes one of the
+ * concurrency slots away from the others.
+ */
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @Autowired
+    private LoadSheddingInterceptor loadSheddingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/tickets", "/api/tickets/**");
+        registry.addInterceptor(loadSheddingInterceptor).addPathPatterns("/api/tickets", "/api/tickets/**");
+    }
+}
@@ -0,0 +1,220 @@
+package in.train.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import in.train.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Per-client rate limits in front of the ticket API (registered in RateLimitConfig).
+ *
+ * One partner's runaway retry loop should not take all database connections
+ * away from everybody else. Each client gets its own token bucket
+ * (ClientRateLimiter), with separate limits for:
+ *  - booking: POST and DELETE (book, cancel), which write to the database
+ *  - read:    GET (ticket by ID, lists, search)
+ *
+ * Partners send their API key in a header (ratelimit.client-header). Only
+ * the keys listed in ratelimit.api-keys count: such a request is limited per
+ * partner, with the partner limits (ratelimit.partner.*). A partner like
+ * MakeMyTrip forwards the traffic of all of its users with one key, so these
+ * limits are sized for a whole partner, not for one user. Any other request,
+ * with a made-up key or none at all, is limited per remote address with the
+ * default limits, so guessing keys neither drains a partner's bucket nor
+ * gets a fresh one. Addresses beyond ratelimit.max-clients share one bucket.
+ *
+ * The RSocket streams (TicketStreamController) only accept connections with
+ * a partner key and take every stream request from the same partner buckets
+ * (partnerForKey, checkPartner).
+ *
+ * Requests over the limit get 429 Too Many Requests with a Retry-After header
+ * (see GlobalExceptionHandler) and never reach the controller. Allowed
+ * requests cost two map lookups (key, bucket) and one compare-and-set (see
+ * RateLimiterBenchmark).
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    // Header carrying the partner's API key
+    @Value("${ratelimit.client-header:X-API-Key}")
+    private String clientHeader;
+
+    // Known partners as "name:key", comma separated
+    @Value("${ratelimit.api-keys:}")
+    private String[] apiKeys;
+
+    @Value("${ratelimit.partner.booking.per-second:500}")
+    private double partnerBookingPerSecond;
+
+    @Value("${ratelimit.partner.booking.burst:1000}")
+    private int partnerBookingBurst;
+
+    @Value("${ratelimit.partner.read.per-second:5000}")
+    private double partnerReadPerSecond;
+
+    @Value("${ratelimit.partner.read.burst:10000}")
+    private int partnerReadBurst;
+
+    @Value("${ratelimit.booking.per-second:50}")
+    private double bookingPerSecond;
+
+    @Value("${ratelimit.booking.burst:100}")
+    private int bookingBurst;
+
+    @Value("${ratelimit.read.per-second:500}")
+    private double readPerSecond;
+
+    @Value("${ratelimit.read.burst:1000}")
+    private int readBurst;
+
+    // Clients tracked per limit; more clients share one bucket
+    @Value("${ratelimit.max-clients:10000}")
+    private int maxClients;
+
+    private final MeterRegistry meterRegistry;
+
+    private ClientRateLimiter bookingLimiter;
+
+    private ClientRateLimiter readLimiter;
+
+    private ClientRateLimiter partnerBookingLimiter;
+
+    private ClientRateLimiter partnerReadLimiter;
+
+    // Partner name by API key
+    private final Map<String, String> partnersByKey = new HashMap<>();
+
+    private Counter bookingRejected;
+
+    private Counter readRejected;
+
+    public RateLimitInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        for (String entry : apiKeys) {
+            int colon = entry.indexOf(':');
+            if (colon < 1 || colon == entry.length() - 1) {
+                throw new IllegalArgumentException("ratelimit.api-keys entries have to be name:key, got '"
+                        + entry + "'");
+            }
+            partnersByKey.put(entry.substring(colon + 1).trim(), entry.substring(0, colon).trim());
+        }
+        bookingLimiter = new ClientRateLimiter(bookingPerSecond, bookingBurst, maxClients);
+        readLimiter = new ClientRateLimiter(readPerSecond, readBurst, maxClients);
+        partnerBookingLimiter = new ClientRateLimiter(partnerBookingPerSecond, partnerBookingBurst,
+                Math.max(1, partnersByKey.size()));
+        partnerReadLimiter = new ClientRateLimiter(partnerReadPerSecond, partnerReadBurst,
+                Math.max(1, partnersByKey.size()));
+        bookingRejected = rejectedCounter("booking");
+        readRejected = rejectedCounter("read");
+        clientsGauge(bookingLimiter, "booking", "address");
+        clientsGauge(readLimiter, "read", "address");
+        clientsGauge(partnerBookingLimiter, "booking", "partner");
+        clientsGauge(partnerReadLimiter, "read", "partner");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled) {
+            return true;
+        }
+
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        String apiKey = request.getHeader(clientHeader);
+        String partner = apiKey == null ? null : partnersByKey.get(apiKey);
+
+        long waitNanos;
+        if (partner != null) {
+            waitNanos = (read ? partnerReadLimiter : partnerBookingLimiter).tryAcquire(partner);
+        } else {
+            waitNanos = (read ? readLimiter : bookingLimiter).tryAcquire(request.getRemoteAddr());
+        }
+        if (waitNanos > 0) {
+            reject(read, waitNanos);
+        }
+        return true;
+    }
+
+    /**
+     * @param apiKey API key sent by a client
+     * @return name of the partner with this key, or null if it is not one of ratelimit.api-keys
+     */
+    public String partnerForKey(String apiKey) {
+        return apiKey == null ? null : partnersByKey.get(apiKey);
+    }
+
+    /**
+     * Count one request of a partner that does not come through Spring MVC
+     * (RSocket streams) against the partner limits.
+     *
+     * @param partner partner name (see partnerForKey)
+     * @param read    lookup (true) or booking
+     * @throws RateLimitExceededException if the partner is over its limit
+     */
+    public void checkPartner(String partner, boolean read) {
+        if (!enabled) {
+            return;
+        }
+        long waitNanos = (read ? partnerReadLimiter : partnerBookingLimiter).tryAcquire(partner);
+        if (waitNanos > 0) {
+            reject(read, waitNanos);
+        }
+    }
+
+    private void reject(boolean read, long waitNanos) {
+        (read ? readRejected : bookingRejected).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        throw new RateLimitExceededException("Too many " + (read ? "read" : "booking")
+                + " requests, please retry after " + retryAfterSeconds + " second(s)", retryAfterSeconds);
+    }
+
+    /**
+     * Forget clients whose buckets are full again, so the maps only hold
+     * clients that were active recently.
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.idle-sweep-ms:10000}")
+    public void evictIdleClients() {
+        int evicted = bookingLimiter.evictIdle() + readLimiter.evictIdle()
+                + partnerBookingLimiter.evictIdle() + partnerReadLimiter.evictIdle();
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    private void clientsGauge(ClientRateLimiter limiter, String limit, String clients) {
+        Gauge.builder("ratelimit.clients", limiter, ClientRateLimiter::trackedClients)
+                .description("Clients with their own rate limit bucket")
+                .tag("limit", limit)
+                .tag("clients", clients)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(String limit) {
+        return Counter.builder("ratelimit.rejected")
+                .description("Requests refused with 429 because the client was over its rate limit")
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,102 @@
+package in.train.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Read-your-writes for tickets when reads go to replicas.
+ *
+ * Replicas apply the primary's changes with a small delay. A client that
+ * books or cancels a ticket and reads it back right away could therefore get
+ * a 404 or the old status from a replica. TicketService records every written
+ * ticket here, and reads of that ticket (by ID or PNR) go to the primary for
+ * the next datasource.replicas.read-your-writes-ms milliseconds. The window
+ * should be longer than the usual replication lag.
+ *
+ * Lists and name searches are not tracked and may lag behind by the replication delay.
+ *
+ * The writes are remembered per provider instance (JVM). With several
+ * instances behind a load balancer, a client that books on one instance and
+ * reads through another one can still get the replica's older answer; use
+ * sticky sessions towards the provider, or keep such clients' reads on the
+ * primary, if that matters.
+ *
+ * Expired entries are removed by evictExpired() once per window, off the
+ * booking path, so the map holds about two windows' worth of writes.
+ */
+@Component
+public class ReadYourWrites {
+
+    // Key ("id:42" or "pnr:0123456789") -> System.nanoTime() when the window ends
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    // Nothing to track when all reads use the primary anyway
+    @Value("${datasource.replicas.urls:}")
+    private String replicaUrls;
+
+    @Value("${datasource.replicas.read-your-writes-ms:2000}")
+    private long windowMs;
+
+    /**
+     * Remember that a ticket was just written.
+     */
+    public void written(Integer ticketId, String pnr) {
+        if (replicaUrls.isBlank()) {
+            return;
+        }
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+        recentWrites.put("id:" + ticketId, until);
+        recentWrites.put("pnr:" + pnr, until);
+    }
+
+    /**
+     * Forget writes whose window has ended.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replicas.read-your-writes-ms:2000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        recentWrites.values().removeIf(end -> end - now < 0);
+    }
+
+    // Keys currently remembered
+    int trackedKeys() {
+        return recentWrites.size();
+    }
+
+    /**
+     * Read a ticket by ID, from the primary if it was written recently.
+     */
+    public <T> T readTicket(Integer ticketId, Supplier<T> query) {
+        return isRecent("id:" + ticketId) ? ReplicaRoutingDataSource.onPrimary(query) : query.get();
+    }
+
+    /**
+     * Read tickets by ID, from the primary if any of them was written recently.
+     */
+    public <T> T readTickets(Iterable<Integer> ticketIds, Supplier<T> query) {
+        for (Integer ticketId : ticketIds) {
+            if (isRecent("id:" + ticketId)) {
+                return ReplicaRoutingDataSource.onPrimary(query);
+            }
+        }
+        return query.get();
+    }
+
+    /**
+     * Read tickets by PNR, from the primary if a ticket with this PNR was written recently.
+     */
+    public <T> T readPnr(String pnr, Supplier<T> query) {
+        return isRecent("pnr:" + pnr) ? ReplicaRoutingDataSource.onPrimary(query) : query.get();
+    }
+
+    private boolean isRecent(String key) {
+        Long until = recentWrites.get(key);
+        return until != null && until - System.nanoTime() > 0;
+    }
+}
@@ -0,0 +1,96 @@
+package in.train.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration of the read replicas.
+ *
+ * Only active when datasource.replicas.urls is set, for example:
+ * datasource.replicas.urls=jdbc:mysql://replica1:3306/train_booking,jdbc:mysql://replica2:3306/train_booking
+ *
+ * The primary keeps using the normal spring.datasource.* settings. Every
+ * replica gets its own connection pool, and ReplicaRoutingDataSource picks
+ * the pool per transaction. Without replicas the application uses the single
+ * auto-configured DataSource as before.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourceConfig.class);
+
+    /**
+     * Pool of the primary database, built from spring.datasource.* and spring.datasource.hikari.*
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * The DataSource used by JPA, JdbcTemplate and Flyway.
+     *
+     * @param replicaUrls     JDBC URLs of the replicas, comma separated
+     * @param username        replica user (defaults to the primary user)
+     * @param password        replica password (defaults to the primary password)
+     * @param maximumPoolSize connections per replica pool
+     * @param migrate         run the Flyway migrations on the replicas too (only for
+     *                        local databases that do not replicate, see application-replica.properties)
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, DataSourceProperties properties,
+            @Value("${datasource.replicas.urls}") List<String> replicaUrls,
+            @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${datasource.replicas.migrate:false}") boolean migrate,
+            @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrationLocations) {
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            // Replicas only serve reads
+            replica.setReadOnly(true);
+
+            if (migrate) {
+                Flyway.configure().dataSource(replica).locations(migrationLocations).load().migrate();
+            }
+            replicas.add(replica);
+        }
+        logger.info("Read-only transactions are routed to {} replica(s)", replicas.size());
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas);
+        routingDataSource.afterPropertiesSet();
+
+        // Fetch the real connection only at the first statement, when it is
+        // known whether the transaction is read-only
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
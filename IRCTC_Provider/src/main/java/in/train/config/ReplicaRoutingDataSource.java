@@ -0,0 +1,81 @@
+package in.train.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that sends read-only transactions to the read replicas and
+ * everything else to the primary database.
+ *
+ * Connections of @Transactional(readOnly = true) methods (and of the read
+ * methods of Spring Data repositories, which are read-only too) are taken
+ * from the replica pools in turn (round robin). Writes, read-write
+ * transactions and code without a transaction always use the primary.
+ *
+ * The decision is made when the first statement of a transaction runs, which
+ * is why ReplicaDataSourceConfig wraps this class in a LazyConnectionDataSourceProxy.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    // Set while onPrimary(...) runs: read-only work that must see the latest writes
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary  pool of the primary database
+     * @param replicas one pool per replica (at least one)
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + (i + 1);
+            replicaKeys.add(key);
+            targets.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || FORCE_PRIMARY.get() != null) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    /**
+     * Run read-only database work on the primary instead of a replica,
+     * e.g. reading a ticket that was just booked (read-your-writes).
+     * Has no effect when replicas are not configured.
+     *
+     * @param work database work to run
+     * @return result of the work
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean outermost = FORCE_PRIMARY.get() == null;
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (outermost) {
+                FORCE_PRIMARY.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package in.train.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import in.train.repository.TicketArchiveRepository;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Aspect that creates a span around every TicketRepository and
+ * TicketArchiveRepository call (tagged with the repository, so lookups that
+ * fall through to the archive show up as their own hop).
+ *
+ * Repository methods are generated by Spring Data, so they cannot carry
+ * @Observed themselves. The span time is the time spent in JPA and MySQL.
+ */
+@Aspect
+@Component
+public class RepositoryObservationAspect {
+
+    private final ObservationRegistry observationRegistry;
+
+    public RepositoryObservationAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("this(in.train.repository.TicketRepository) || this(in.train.repository.TicketArchiveRepository)")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        String repository = joinPoint.getThis() instanceof TicketArchiveRepository
+                ? "ticket-archive-repository"
+                : "ticket-repository";
+        Observation observation = Observation.createNotStarted("ticket.repository", observationRegistry)
+                .contextualName(repository + "#" + method)
+                .lowCardinalityKeyValue("repository", repository)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            observation.error(ex);
+            throw ex;
+        } finally {
+            observation.stop();
+        }
+    }
+}
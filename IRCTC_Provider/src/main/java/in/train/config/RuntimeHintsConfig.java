@@ -0,0 +1,56 @@
+package in.train.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import in.train.api.ApiResponse;
+import in.train.entity.ArchivedTicketEntity;
+import in.train.entity.Gender;
+import in.train.entity.TicketEntity;
+import in.train.entity.TicketStatus;
+import in.train.request.Passenger;
+import in.train.responce.CacheRegionStats;
+import in.train.responce.ShardStats;
+import in.train.responce.SpanRecord;
+import in.train.responce.Ticket;
+import in.train.responce.TicketStreamReply;
+import in.train.responce.TrainMoveResult;
+
+/**
+ * Hints for the AOT / native image build (mvn -Paot, mvn -Pnative).
+ *
+ * A native image only keeps the reflection and resources it is told about.
+ * Spring works out most of that itself, but not:
+ *  - the DTOs Jackson reads and writes (JSON and Smile), including ApiResponse
+ *  - the entities Hibernate instantiates and fills field by field
+ *  - files that are loaded by name: ehcache.xml and the Flyway migrations
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.TicketHints.class)
+public class RuntimeHintsConfig {
+
+    static class TicketHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Getters, setters and constructors of every request/response body (and the types they contain)
+            new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                    ApiResponse.class, Passenger.class, Ticket.class, TicketStreamReply.class,
+                    CacheRegionStats.class, ShardStats.class, SpanRecord.class, TrainMoveResult.class);
+
+            // Hibernate reads and writes the entity fields directly
+            for (Class<?> entity : new Class<?>[] { TicketEntity.class, ArchivedTicketEntity.class,
+                    TicketStatus.class, Gender.class }) {
+                hints.reflection().registerType(entity, MemberCategory.values());
+            }
+
+            hints.resources().registerPattern("ehcache.xml");
+            hints.resources().registerPattern("db/migration/*.sql");
+            hints.resources().registerPattern("db/vendor/*/*.sql");
+        }
+    }
+}
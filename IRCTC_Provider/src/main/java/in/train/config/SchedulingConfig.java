@@ -0,0 +1,12 @@
+package in.train.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled methods (e.g. the nightly ticket archival job).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,33 @@
+package in.train.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+/**
+ * Gives Hibernate connections of the shard a session works on.
+ * Schema validation and other startup work uses shard 0.
+ */
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    // Index = shard number
+    private final transient List<DataSource> shards;
+
+    public ShardConnectionProvider(List<DataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return shards.get(0);
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return shards.get(Integer.parseInt(tenantIdentifier));
+    }
+}
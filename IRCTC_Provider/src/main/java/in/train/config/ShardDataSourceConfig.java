@@ -0,0 +1,96 @@
+package in.train.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration of the ticket shards.
+ *
+ * Shard 0 is the normal spring.datasource database. More shards are added
+ * with datasource.shards.urls, for example:
+ * datasource.shards.urls=jdbc:mysql://shard1:3306/train_booking,jdbc:mysql://shard2:3306/train_booking
+ *
+ * Every extra shard gets its own connection pool and the same Flyway
+ * migrations as shard 0. With more than one shard, Hibernate runs in
+ * multi-tenant mode: each shard is a tenant, and ShardRouter decides which
+ * shard a transaction works on. With a single shard nothing changes.
+ */
+@Configuration
+public class ShardDataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardDataSourceConfig.class);
+
+    /**
+     * All shard databases (index = shard number).
+     *
+     * @param dataSource      shard 0 (the application DataSource)
+     * @param shardUrls       JDBC URLs of the extra shards 1..n, comma separated
+     * @param username        shard user (defaults to the shard 0 user)
+     * @param password        shard password (defaults to the shard 0 password)
+     * @param maximumPoolSize connections per extra shard pool
+     */
+    @Bean
+    public ShardDataSources shardDataSources(DataSource dataSource, DataSourceProperties properties,
+            @Value("${datasource.shards.urls:}") List<String> shardUrls,
+            @Value("${datasource.shards.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.shards.password:${spring.datasource.password:}}") String password,
+            @Value("${datasource.shards.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrationLocations) {
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(dataSource);
+        for (String url : shardUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            if (shards.size() == ShardRouter.MAX_SHARDS) {
+                throw new IllegalStateException("At most " + ShardRouter.MAX_SHARDS + " shards are supported");
+            }
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + shards.size());
+            shard.setJdbcUrl(url.trim());
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setMaximumPoolSize(maximumPoolSize);
+
+            // Same schema on every shard (Spring Boot only migrates shard 0)
+            Flyway.configure().dataSource(shard).locations(migrationLocations)
+                    .baselineOnMigrate(true).baselineVersion("1").load().migrate();
+            shards.add(shard);
+        }
+        if (shards.size() > 1) {
+            logger.info("Tickets are sharded over {} databases", shards.size());
+        }
+        return new ShardDataSources(List.copyOf(shards));
+    }
+
+    /**
+     * Switches Hibernate to one tenant per shard when there is more than one shard.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardTenancyCustomizer(ShardDataSources shardDataSources) {
+        return hibernateProperties -> {
+            if (shardDataSources.count() > 1) {
+                hibernateProperties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER,
+                        new ShardConnectionProvider(shardDataSources.shards()));
+                hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+                        new ShardTenantResolver());
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package in.train.config;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * The databases of all shards, index = shard number.
+ * Shard 0 is the normal spring.datasource database (with its replicas, if any).
+ *
+ * @param shards one DataSource per shard
+ */
+public record ShardDataSources(List<DataSource> shards) {
+
+    public int count() {
+        return shards.size();
+    }
+
+    public DataSource get(int shard) {
+        return shards.get(shard);
+    }
+}
@@ -0,0 +1,450 @@
+package in.train.config;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Decides which shard a ticket lives on and runs database work there.
+ *
+ * - Bookings go to the shard of their train: floorMod(hash(trainNumber), shard count),
+ *   unless the train was moved with ShardRebalancer (table train_shards on shard 0).
+ * - PNRs end with the two digit shard number, so a PNR lookup hits one shard.
+ *   The three digits before it are the booking minute (TicketExistenceFilter).
+ * - Ticket IDs are interleaved: shard s hands out IDs with (id - 1) % 16 == s,
+ *   so a lookup by ticket ID hits one shard as well.
+ * - Tickets created before sharding, or moved to another shard, do not match
+ *   their encoded shard; lookups that miss their shard ask all other shards.
+ *
+ * With a single shard every method simply runs on shard 0 in the calling thread.
+ */
+@Component
+public class ShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    // Upper limit of shards; also the step of the ticket ID series
+    public static final int MAX_SHARDS = 16;
+
+    // IDs of the series skipped when the generator is moved while bookings run (H2):
+    // bookings between reading the generator and restarting it take IDs from this gap
+    private static final long RESTART_HEADROOM = 1_000;
+
+    // The booking minute in a PNR counts minutes since the epoch modulo this (about 16 hours)
+    public static final int PNR_MINUTE_CYCLE = 1_000;
+
+    // Shard of the current thread (read by ShardTenantResolver)
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    @Autowired
+    private ShardDataSources shardDataSources;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Trains that do not live on their default shard
+    private final Map<String, Integer> movedTrains = new ConcurrentHashMap<>();
+
+    // Latest moved_at in the directory at the last reload (null before the first one)
+    private volatile LocalDateTime lastMovedAt;
+
+    private TransactionTemplate readTransaction;
+
+    private TransactionTemplate writeTransaction;
+
+    // Used when a transaction of another shard is already running in this thread
+    private TransactionTemplate newReadTransaction;
+
+    private TransactionTemplate newWriteTransaction;
+
+    // Runs the per-shard queries of scatter-gather reads in parallel
+    private ExecutorService scatterExecutor;
+
+    @PostConstruct
+    void init() {
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        newReadTransaction = new TransactionTemplate(transactionManager);
+        newReadTransaction.setReadOnly(true);
+        newReadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newWriteTransaction = new TransactionTemplate(transactionManager);
+        newWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        if (shardCount() > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            scatterExecutor = Executors.newFixedThreadPool(shardCount() * 8, runnable -> {
+                Thread thread = new Thread(runnable, "shard-scatter-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloadDirectory();
+            alignAllIdSeries();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Shard the current thread works on (0 outside of onShard).
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public int shardCount() {
+        return shardDataSources.count();
+    }
+
+    /**
+     * Shard that new bookings of a train go to.
+     */
+    public int shardForTrain(String trainNumber) {
+        if (shardCount() == 1) {
+            return 0;
+        }
+        Integer moved = movedTrains.get(trainNumber);
+        return moved != null ? moved : Math.floorMod(trainNumber.hashCode(), shardCount());
+    }
+
+    /**
+     * Shard encoded in a ticket ID (0 for IDs from before sharding that do not fit).
+     */
+    public int shardForTicketId(Integer ticketId) {
+        if (shardCount() == 1 || ticketId == null) {
+            return 0;
+        }
+        int shard = Math.floorMod(ticketId - 1, MAX_SHARDS);
+        return shard < shardCount() ? shard : 0;
+    }
+
+    /**
+     * Shard encoded in the last two digits of a PNR (0 if they do not name a shard).
+     */
+    public int shardForPnr(String pnr) {
+        if (shardCount() == 1 || pnr == null || pnr.length() < 2) {
+            return 0;
+        }
+        char tens = pnr.charAt(pnr.length() - 2);
+        char ones = pnr.charAt(pnr.length() - 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return 0;
+        }
+        int shard = (tens - '0') * 10 + (ones - '0');
+        return shard < shardCount() ? shard : 0;
+    }
+
+    /**
+     * New 12 digit PNR for a ticket on the given shard: 7 random digits, the
+     * booking minute (3 digits, see pnrMinute) and the shard number.
+     * Longer than the 10 digit PNRs of seeded tickets and of bookings from before
+     * sharding, so it never collides with one of those.
+     */
+    public String newPnr(int shard) {
+        long minute = Math.floorMod(System.currentTimeMillis() / 60_000, PNR_MINUTE_CYCLE);
+        return String.format("%07d%03d%02d", ThreadLocalRandom.current().nextInt(10_000_000), minute, shard);
+    }
+
+    /**
+     * Booking minute encoded in a PNR: minutes since the epoch modulo PNR_MINUTE_CYCLE.
+     *
+     * @return the minute, or -1 for PNRs that do not carry one (10 digits)
+     */
+    public static int pnrMinute(String pnr) {
+        if (pnr == null || pnr.length() != 12) {
+            return -1;
+        }
+        int minute = 0;
+        for (int i = 7; i < 10; i++) {
+            char digit = pnr.charAt(i);
+            if (!Character.isDigit(digit)) {
+                return -1;
+            }
+            minute = minute * 10 + (digit - '0');
+        }
+        return minute;
+    }
+
+    /**
+     * Run work with the current thread bound to a shard. Transactions and
+     * repository calls started inside use that shard's database.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Run work in a read-only transaction on a shard.
+     */
+    public <T> T read(int shard, Supplier<T> work) {
+        TransactionTemplate transaction = joinsOtherShard(shard) ? newReadTransaction : readTransaction;
+        return onShard(shard, () -> transaction.execute(status -> work.get()));
+    }
+
+    /**
+     * Run work in a read-write transaction on a shard.
+     */
+    public <T> T write(int shard, Supplier<T> work) {
+        TransactionTemplate transaction = joinsOtherShard(shard) ? newWriteTransaction : writeTransaction;
+        return onShard(shard, () -> transaction.execute(status -> work.get()));
+    }
+
+    /**
+     * True if this thread is already in a transaction of another shard. Joining
+     * it would run the work on that shard, so a separate transaction is started.
+     */
+    private boolean joinsOtherShard(int shard) {
+        return TransactionSynchronizationManager.isActualTransactionActive() && currentShard() != shard;
+    }
+
+    /**
+     * Scatter-gather: run work for every shard in parallel.
+     *
+     * @return results in shard order
+     */
+    public <T> List<T> onAllShards(IntFunction<T> work) {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount(); shard++) {
+            shards.add(shard);
+        }
+        return onShards(shards, work);
+    }
+
+    /**
+     * Run work for the given shards in parallel (in the calling thread if there is only one).
+     *
+     * @return results in the order of the shards
+     */
+    public <T> List<T> onShards(Collection<Integer> shards, IntFunction<T> work) {
+        if (shards.size() == 1) {
+            return List.of(work.apply(shards.iterator().next()));
+        }
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> work.apply(shard), scatterExecutor))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Look something up on its home shard first and, if it is not there,
+     * on all other shards in parallel.
+     */
+    public <T> Optional<T> findFirst(int homeShard, IntFunction<Optional<T>> lookup) {
+        Optional<T> home = lookup.apply(homeShard);
+        if (home.isPresent() || shardCount() == 1) {
+            return home;
+        }
+        List<Integer> others = new ArrayList<>();
+        for (int shard = 0; shard < shardCount(); shard++) {
+            if (shard != homeShard) {
+                others.add(shard);
+            }
+        }
+        return onShards(others, lookup).stream().flatMap(Optional::stream).findFirst();
+    }
+
+    /**
+     * Database of a shard, for plain JDBC work (e.g. moving rows between shards).
+     */
+    public DataSource dataSource(int shard) {
+        return shardDataSources.get(shard);
+    }
+
+    /**
+     * Send new bookings of a train to another shard and remember this in the directory.
+     */
+    public void assignTrain(String trainNumber, int shard) {
+        JdbcTemplate directory = new JdbcTemplate(dataSource(0));
+        LocalDateTime now = LocalDateTime.now();
+        int updated = directory.update("UPDATE train_shards SET shard = ?, moved_at = ? WHERE train_number = ?",
+                shard, now, trainNumber);
+        if (updated == 0) {
+            directory.update("INSERT INTO train_shards (train_number, shard, moved_at) VALUES (?, ?, ?)",
+                    trainNumber, shard, now);
+        }
+        movedTrains.put(trainNumber, shard);
+    }
+
+    /**
+     * Set a moved train's moved_at to now, so every instance drops its cached
+     * tickets at its next directory reload (the rows were moved after the
+     * instances learned about the move).
+     */
+    public void touchTrain(String trainNumber) {
+        new JdbcTemplate(dataSource(0)).update("UPDATE train_shards SET moved_at = ? WHERE train_number = ?",
+                LocalDateTime.now(), trainNumber);
+    }
+
+    /**
+     * Drop this instance's cached tickets and query results, after tickets
+     * were moved between shards with plain SQL.
+     */
+    public void evictCachedTickets() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /**
+     * Reload the directory of moved trains (other instances may have moved trains).
+     * A newer moved_at than at the last reload means tickets were moved since, and
+     * the second-level cache may still hold them under their old shard.
+     */
+    @Scheduled(fixedDelayString = "${datasource.shards.directory-refresh-ms:30000}")
+    public void reloadDirectory() {
+        if (shardCount() == 1) {
+            return;
+        }
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+        LocalDateTime[] latest = { LocalDateTime.MIN };
+        new JdbcTemplate(dataSource(0)).query("SELECT train_number, shard, moved_at FROM train_shards", row -> {
+            LocalDateTime movedAt = row.getObject("moved_at", LocalDateTime.class);
+            if (movedAt.isAfter(latest[0])) {
+                latest[0] = movedAt;
+            }
+            int shard = row.getInt("shard");
+            if (shard < shardCount()) {
+                loaded.put(row.getString("train_number"), shard);
+            } else {
+                logger.warn("Train {} is assigned to shard {}, which is not configured", row.getString(1), shard);
+            }
+        });
+        movedTrains.keySet().retainAll(loaded.keySet());
+        movedTrains.putAll(loaded);
+
+        if (lastMovedAt != null && latest[0].isAfter(lastMovedAt)) {
+            logger.info("Trains were moved between shards, dropping cached tickets");
+            evictCachedTickets();
+        }
+        lastMovedAt = latest[0];
+    }
+
+    /**
+     * Point the ticket ID generator of a shard at its own ID series, after the
+     * highest ID stored on the shard. Needed after rows with IDs of another
+     * series were copied in (H2 then continues after the copied IDs).
+     *
+     * Safe while the shard takes bookings: the generator is never moved back
+     * (IDs it handed out to bookings not committed yet are not in MAX), and on
+     * H2 it skips RESTART_HEADROOM IDs of the series for the bookings that
+     * take an ID between reading it and restarting it.
+     */
+    public void alignIdSeries(int shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource(shard));
+        alignIdSeries(shard, highestTicketId(jdbcTemplate) + 1, RESTART_HEADROOM);
+    }
+
+    /**
+     * Start every shard's ID series above the highest ticket ID on any shard,
+     * so IDs from before sharding are never handed out again.
+     */
+    private void alignAllIdSeries() {
+        long highest = 0;
+        for (int shard = 0; shard < shardCount(); shard++) {
+            highest = Math.max(highest, highestTicketId(new JdbcTemplate(dataSource(shard))));
+        }
+        // At startup nothing is booked yet, no headroom needed
+        for (int shard = 0; shard < shardCount(); shard++) {
+            alignIdSeries(shard, highest + 1, 0);
+        }
+    }
+
+    private void alignIdSeries(int shard, long atLeast, long headroom) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource(shard));
+        boolean mySql = isMySql(jdbcTemplate);
+        if (!mySql) {
+            // MySQL never sets AUTO_INCREMENT below what it handed out, H2 restarts wherever it is told
+            Long generatorNext = jdbcTemplate.queryForObject("SELECT IDENTITY_BASE FROM INFORMATION_SCHEMA.COLUMNS"
+                    + " WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'TICKETS' AND COLUMN_NAME = 'TICKET_ID'",
+                    Long.class);
+            if (generatorNext != null) {
+                atLeast = Math.max(atLeast, generatorNext + headroom * MAX_SHARDS);
+            }
+        }
+        // First ID >= atLeast that belongs to this shard's series
+        long next = atLeast + Math.floorMod(shard + 1 - atLeast, MAX_SHARDS);
+
+        if (mySql) {
+            // MySQL steps AUTO_INCREMENT by server settings; each shard server needs its own offset
+            Map<String, Object> settings = jdbcTemplate.queryForMap(
+                    "SELECT @@auto_increment_increment AS step, @@auto_increment_offset AS start");
+            if (((Number) settings.get("step")).intValue() != MAX_SHARDS
+                    || ((Number) settings.get("start")).intValue() != shard + 1) {
+                throw new IllegalStateException("Shard " + shard + " must run with auto_increment_increment="
+                        + MAX_SHARDS + " and auto_increment_offset=" + (shard + 1));
+            }
+            jdbcTemplate.execute("ALTER TABLE tickets AUTO_INCREMENT = " + next);
+        } else {
+            jdbcTemplate.execute("ALTER TABLE tickets ALTER COLUMN ticket_id RESTART WITH " + next);
+            jdbcTemplate.execute("ALTER TABLE tickets ALTER COLUMN ticket_id SET INCREMENT BY " + MAX_SHARDS);
+        }
+    }
+
+    private static long highestTicketId(JdbcTemplate jdbcTemplate) {
+        Long hot = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ticket_id), 0) FROM tickets", Long.class);
+        Long archived = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ticket_id), 0) FROM tickets_archive",
+                Long.class);
+        return Math.max(hot, archived);
+    }
+
+    private static boolean isMySql(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection
+                .getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")));
+    }
+}
@@ -0,0 +1,25 @@
+package in.train.config;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Tells Hibernate which shard a new session (EntityManager) works on.
+ *
+ * Every shard is a Hibernate "tenant" named by its number ("0", "1", ...).
+ * The shard is taken from ShardRouter.currentShard(), which is set by
+ * ShardRouter.onShard(...) before a transaction starts. Second-level cache
+ * entries and cached queries are kept apart per tenant, so a ticket ID or
+ * PNR query cached for one shard is never returned for another.
+ */
+public class ShardTenantResolver implements CurrentTenantIdentifierResolver {
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return String.valueOf(ShardRouter.currentShard());
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
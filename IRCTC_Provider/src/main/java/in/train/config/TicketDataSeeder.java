@@ -0,0 +1,218 @@
+package in.train.config;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import in.train.entity.Gender;
+import in.train.entity.TicketStatus;
+
+/**
+ * Fills the tickets table with generated bookings for benchmarks.
+ *
+ * Runs at startup when seed.tickets.count is greater than 0, for example:
+ * java -jar IRCTC_Provider-1.0.0.jar --spring.profiles.active=embedded --seed.tickets.count=2000000
+ *
+ * The data looks like real traffic: a fixed catalog of trains with their own
+ * routes and fares, popular trains get most of the bookings, journey dates are
+ * spread around today and about one ticket in ten is cancelled. The same random
+ * seed always produces the same data, so benchmark runs are comparable.
+ *
+ * Seeding happens after all beans (and the schema) are created but before
+ * the web server starts, so health checks only pass once the data is there.
+ *
+ * Rows are written with plain JDBC batches because IDENTITY keys stop
+ * Hibernate from batching inserts. Seeding is skipped if the table already
+ * has data, so it never adds fake tickets to a real database.
+ */
+@Component
+public class TicketDataSeeder implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketDataSeeder.class);
+
+    private static final String INSERT_SQL = "INSERT INTO tickets (passenger_first_name, passenger_last_name, gender,"
+            + " from_station, to_station, journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] STATIONS = { "Delhi", "Mumbai", "Chennai", "Kolkata", "Bengaluru", "Hyderabad",
+            "Pune", "Ahmedabad", "Jaipur", "Lucknow", "Patna", "Bhopal", "Nagpur", "Indore", "Surat", "Kanpur",
+            "Varanasi", "Amritsar", "Guwahati", "Bhubaneswar", "Coimbatore", "Kochi", "Madurai", "Visakhapatnam",
+            "Vadodara", "Ranchi", "Raipur", "Dehradun", "Jammu", "Agra" };
+
+    private static final String[] FIRST_NAMES = { "Aarav", "Vivaan", "Aditya", "Arjun", "Sai", "Reyansh", "Krishna",
+            "Ishaan", "Rohan", "Kabir", "Vikram", "Rahul", "Amit", "Suresh", "Ravi", "Ananya", "Diya", "Saanvi",
+            "Aadhya", "Meera", "Pooja", "Priya", "Neha", "Kavya", "Isha", "Sana", "Zoya", "Fatima", "Lakshmi",
+            "Sunita" };
+
+    private static final String[] LAST_NAMES = { "Sharma", "Verma", "Gupta", "Singh", "Kumar", "Patel", "Shah",
+            "Iyer", "Nair", "Reddy", "Rao", "Das", "Bose", "Chatterjee", "Mukherjee", "Khan", "Ahmed", "Joshi",
+            "Kulkarni", "Desai", "Mehta", "Agarwal", "Jain", "Mishra", "Pandey", "Yadav", "Chauhan", "Thakur",
+            "Pillai", "Menon" };
+
+    // Seeded PNRs are 10 digits starting at 1000000000. Bookings made at runtime
+    // get 12 digit PNRs (ShardRouter.newPnr), and older bookings 10 digits below
+    // 1000000000 (leading zero), so seeded and live PNRs never collide
+    private static final long PNR_BASE = 1_000_000_000L;
+    private static final long PNR_RANGE = 9_000_000_000L;
+
+    // Multiplier with no common factor with PNR_RANGE: spreads sequence numbers
+    // over the whole range without repeating, so PNRs look random but stay unique
+    private static final long PNR_STEP = 7_919_000_003L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Number of tickets to generate (0 = seeder disabled)
+    @Value("${seed.tickets.count:0}")
+    private long count;
+
+    // Rows sent to the database per JDBC batch
+    @Value("${seed.tickets.batch-size:5000}")
+    private int batchSize;
+
+    // Size of the train catalog
+    @Value("${seed.tickets.trains:500}")
+    private int trainCount;
+
+    // Journey dates range from this many days ago ...
+    @Value("${seed.tickets.past-days:60}")
+    private int pastDays;
+
+    // ... to this many days ahead
+    @Value("${seed.tickets.future-days:120}")
+    private int futureDays;
+
+    // Same seed = same data on every run
+    @Value("${seed.tickets.random-seed:42}")
+    private long randomSeed;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (count <= 0) {
+            return;
+        }
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets", Long.class);
+        if (existing != null && existing > 0) {
+            logger.warn("Skipping ticket seeding: tickets table already has {} rows", existing);
+            return;
+        }
+
+        seed(count);
+    }
+
+    /**
+     * Insert generated tickets.
+     *
+     * @param total number of tickets to insert
+     * @return number of inserted tickets
+     */
+    public long seed(long total) {
+        Random random = new Random(randomSeed);
+        List<Train> trains = createTrains(random);
+        LocalDate today = LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+
+        long start = System.nanoTime();
+        long inserted = 0;
+        while (inserted < total) {
+            int size = (int) Math.min(batchSize, total - inserted);
+            long firstSequence = inserted;
+
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    // Squaring a uniform number favours the first trains: a few busy trains, a long quiet tail
+                    double popularity = random.nextDouble();
+                    Train train = trains.get((int) (popularity * popularity * trains.size()));
+
+                    LocalDate journeyDate = today.plusDays(random.nextInt(pastDays + futureDays + 1) - pastDays);
+                    LocalDateTime bookingTime = journeyDate.atTime(random.nextInt(24), random.nextInt(60))
+                            .minusDays(1 + random.nextInt(60));
+                    if (bookingTime.isAfter(now)) {
+                        bookingTime = now.minusMinutes(random.nextInt(60 * 24));
+                    }
+
+                    ps.setString(1, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                    ps.setString(2, LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                    ps.setByte(3, gender(random).getCode());
+                    ps.setString(4, train.from());
+                    ps.setString(5, train.to());
+                    ps.setDate(6, Date.valueOf(journeyDate));
+                    ps.setString(7, train.number());
+                    ps.setDouble(8, train.fare());
+                    TicketStatus status = random.nextInt(10) == 0 ? TicketStatus.CANCELLED : TicketStatus.CONFIRMED;
+                    ps.setByte(9, status.getCode());
+                    ps.setString(10, pnr(firstSequence + i));
+                    ps.setTimestamp(11, Timestamp.valueOf(bookingTime));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+
+            inserted += size;
+            if (inserted % (batchSize * 100L) == 0 || inserted == total) {
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                logger.info("Seeded {} of {} tickets ({} rows/s)", inserted, total, (long) (inserted / seconds));
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Build the train catalog: unique 5 digit numbers, a route and a fixed fare per train.
+     */
+    private List<Train> createTrains(Random random) {
+        List<Train> trains = new ArrayList<>();
+        Set<String> numbers = new HashSet<>();
+        while (trains.size() < trainCount) {
+            String number = String.valueOf(10000 + random.nextInt(90000));
+            if (!numbers.add(number)) {
+                continue;
+            }
+            int from = random.nextInt(STATIONS.length);
+            int to = (from + 1 + random.nextInt(STATIONS.length - 1)) % STATIONS.length;
+            double fare = 150 + random.nextInt(50) * 50;
+            trains.add(new Train(number, STATIONS[from], STATIONS[to], fare));
+        }
+        return trains;
+    }
+
+    private static Gender gender(Random random) {
+        int pick = random.nextInt(100);
+        if (pick < 52) {
+            return Gender.MALE;
+        }
+        return pick < 99 ? Gender.FEMALE : Gender.OTHER;
+    }
+
+    private static String pnr(long sequence) {
+        return String.valueOf(PNR_BASE + Math.floorMod(sequence * PNR_STEP, PNR_RANGE));
+    }
+
+    /**
+     * One train of the generated catalog.
+     */
+    private record Train(String number, String from, String to, double fare) {
+    }
+}
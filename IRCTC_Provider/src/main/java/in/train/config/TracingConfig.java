@@ -0,0 +1,60 @@
+package in.train.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.service.TicketServiceWarmup;
+import io.micrometer.observation.ObservationPredicate;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * Configuration class for distributed tracing.
+ * 
+ * Spans are created by Micrometer Tracing (OpenTelemetry bridge) for incoming
+ * HTTP requests, @Observed service methods and repository calls. The W3C
+ * traceparent header sent by the Consumer is picked up, so both services
+ * share one trace. Finished spans are handed to TraceCollector.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Enables @Observed on service classes.
+     * 
+     * @param observationRegistry registry that creates the spans
+     * @return ObservedAspect instance
+     */
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    /**
+     * Drops the observations of the JIT warm-up, so its synthetic bookings and
+     * lookups do not show up in the metrics or as traces.
+     * 
+     * @return predicate applied to every observation
+     */
+    @Bean
+    public ObservationPredicate warmupObservationFilter() {
+        return (name, context) -> !TicketServiceWarmup.isWarmingUp();
+    }
+
+    /**
+     * Span exporter that keeps recent traces in memory and writes slow ones to a file.
+     * 
+     * @return TraceCollector instance (picked up by the OpenTelemetry auto-configuration)
+     */
+    @Bean
+    public TraceCollector traceCollector(ObjectMapper objectMapper,
+            @Value("${spring.application.name}") String serviceName,
+            @Value("${tracing.export.file:traces/provider-spans.jsonl}") String exportFile,
+            @Value("${tracing.export.slow-threshold-ms:500}") long slowThresholdMs,
+            @Value("${tracing.memory.max-traces:1000}") int maxTraces) {
+        return new TraceCollector(serviceName, objectMapper, exportFile, slowThresholdMs, maxTraces);
+    }
+}
@@ -0,0 +1,86 @@
+package in.train.config;
+
+import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Binary wire format for calls from the MakeMyTrip Consumer.
+ *
+ * Every endpoint can read and write Smile (binary JSON, media type
+ * application/x-jackson-smile) next to JSON. A client that sends
+ * "Accept: application/x-jackson-smile" gets Smile back, everyone else
+ * (browsers, curl, Swagger UI) still gets JSON: the Smile converter keeps
+ * its default place after the JSON one, so a wildcard Accept header picks JSON.
+ *
+ * Compared to JSON, Smile:
+ *  - writes numbers and lengths in binary instead of text
+ *  - writes each field name once per message and refers back to it afterwards
+ *  - (here) also refers back to repeated short strings like station names
+ *  - (here) writes dates as numbers ([2024,5,1,10,30]) instead of ISO text
+ *
+ * The RSocket endpoint (TicketStreamController) takes Smile as well as JSON.
+ *
+ * See WireFormatBenchmark for size, CPU and allocation numbers.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    /**
+     * Smile converter for Spring MVC.
+     *
+     * Spring Boot puts it in the place of the default Smile converter,
+     * so JSON stays the first choice when the client has no preference.
+     *
+     * @param builder Spring Boot's Jackson builder (same modules and settings as the JSON mapper)
+     * @return Smile message converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    /**
+     * Smile codecs for RSocket streams, chosen when the client sets
+     * application/x-jackson-smile as its data MIME type.
+     *
+     * @param builder Spring Boot's Jackson builder
+     * @return customizer adding the Smile encoder and decoder
+     */
+    @Bean
+    public RSocketStrategiesCustomizer smileRSocketCodecs(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = smileMapper(builder);
+        // Without the explicit media type these codecs would claim application/json
+        return strategies -> strategies
+                .encoder(new Jackson2SmileEncoder(smileMapper, SMILE))
+                .decoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+    }
+
+    /**
+     * Smile ObjectMapper with the same settings as the JSON one, plus the compact options.
+     *
+     * @param builder Jackson builder to start from
+     * @return ObjectMapper reading and writing Smile
+     */
+    public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return builder.createXmlMapper(false)
+                .factory(smileFactory)
+                .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package in.train.controller;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import in.train.responce.CacheRegionStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * REST Controller for Hibernate second-level cache statistics.
+ * 
+ * Shows hits, misses and size for every cache region, e.g. "tickets"
+ * (tickets by ID) and "tickets-by-pnr" (PNR search results).
+ * The same numbers are published as hibernate.* metrics on /actuator/metrics.
+ */
+@RestController
+@RequestMapping("/api/cache")
+@Tag(name = "Cache API", description = "Second-level cache statistics of the IRCTC Provider")
+public class CacheStatsController {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Get hit/miss statistics for every second-level cache region.
+	 * 
+	 * @return One entry per region with HTTP 200 (OK)
+	 */
+	@GetMapping("/stats")
+	@Operation(summary = "Get cache statistics", description = "Retrieves hit/miss counters per cache region")
+	public ResponseEntity<List<CacheRegionStats>> getCacheStats() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		List<CacheRegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+				.sorted()
+				.map(region -> toStats(region, statistics.getCacheRegionStatistics(region)))
+				.toList();
+		return new ResponseEntity<>(regions, HttpStatus.OK);
+	}
+
+	private CacheRegionStats toStats(String region, CacheRegionStatistics regionStatistics) {
+		CacheRegionStats stats = new CacheRegionStats();
+		stats.setRegion(region);
+		if (regionStatistics == null) {
+			return stats;
+		}
+		long hits = regionStatistics.getHitCount();
+		long misses = regionStatistics.getMissCount();
+		stats.setHits(hits);
+		stats.setMisses(misses);
+		stats.setPuts(regionStatistics.getPutCount());
+		stats.setHitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+		// Hibernate reports Long.MIN_VALUE when the cache provider does not count entries
+		long size = regionStatistics.getElementCountInMemory();
+		stats.setSize(size < 0 ? -1 : size);
+		return stats;
+	}
+}
@@ -0,0 +1,73 @@
+package in.train.controller;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import in.train.api.ApiResponse;
+import in.train.responce.ShardStats;
+import in.train.responce.TrainMoveResult;
+import in.train.service.ShardRebalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * REST Controller for the ticket shards.
+ * 
+ * Shows how many tickets each shard holds and moves trains between shards
+ * to even out the load (see ShardRebalancer). A move takes at least one
+ * directory reload interval, so it runs in the background: the POST starts
+ * it and GET .../move shows its progress.
+ */
+@RestController
+@RequestMapping("/api/shards")
+@Tag(name = "Shard API", description = "Ticket shards of the IRCTC Provider")
+public class ShardController {
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	/**
+	 * Get the number of tickets per shard.
+	 * 
+	 * @return One entry per shard with HTTP 200 (OK)
+	 */
+	@GetMapping
+	@Operation(summary = "Get shard statistics", description = "Retrieves the number of tickets on every shard")
+	public ResponseEntity<List<ShardStats>> getShards() {
+		return new ResponseEntity<>(shardRebalancer.getShardStats(), HttpStatus.OK);
+	}
+
+	/**
+	 * Start moving a train and its current tickets to another shard.
+	 * 
+	 * @param trainNumber train to move
+	 * @param shard       target shard
+	 * @return The running move with HTTP 202 (ACCEPTED)
+	 */
+	@PostMapping("/trains/{trainNumber}")
+	@Operation(summary = "Move train to shard", description = "Starts sending a train's bookings to another shard and moving its current tickets there")
+	public ResponseEntity<ApiResponse<TrainMoveResult>> moveTrain(@PathVariable String trainNumber,
+			@RequestParam int shard) {
+		TrainMoveResult result = shardRebalancer.startMove(trainNumber, shard);
+		ApiResponse<TrainMoveResult> response = new ApiResponse<>(true, "Train move started", result,
+				LocalDateTime.now());
+		return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+	}
+
+	/**
+	 * Get the progress of a train's latest move on this instance.
+	 * 
+	 * @param trainNumber moved train
+	 * @return The move (RUNNING, DONE or FAILED) with HTTP 200 (OK)
+	 */
+	@GetMapping("/trains/{trainNumber}/move")
+	@Operation(summary = "Get train move", description = "Retrieves the progress or outcome of a train's latest move")
+	public ResponseEntity<TrainMoveResult> getMove(@PathVariable String trainNumber) {
+		return new ResponseEntity<>(shardRebalancer.getMove(trainNumber), HttpStatus.OK);
+	}
+}
@@ -35,20 +35,47 @@ public class TicketController {
 	private TicketService ticketService;
 
 	// Book a new train ticket for a passenger
+	// (repeating the request with the same Idempotency-Key returns the same ticket)
 
 	@PostMapping
 	@Operation(summary = "Book a train ticket", description = "Books a new train ticket for passenger")
-	public ResponseEntity<ApiResponse<Ticket>> bookTicket(@Valid @RequestBody Passenger passenger) {
+	public ResponseEntity<ApiResponse<Ticket>> bookTicket(@Valid @RequestBody Passenger passenger,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
 
 		// Call service layer to book ticket
 
-		Ticket ticket = ticketService.bookTicket(passenger);
+		Ticket ticket = ticketService.bookTicket(passenger, idempotencyKey);
 		// Wrap response in a standard ApiResponse object
 		ApiResponse<Ticket> response = new ApiResponse<Ticket>(true, "Ticket booked successfully", ticket,
 				LocalDateTime.now());
 		return new ResponseEntity<ApiResponse<Ticket>>(response, HttpStatus.OK);
 	}
 
+	/*
+	 * Hold a seat while the passenger pays. The ticket is HELD for
+	 * hold.ttl-minutes and released (EXPIRED) if it is not confirmed in time.
+	 */
+	@PostMapping("/hold")
+	@Operation(summary = "Hold a seat", description = "Reserves a seat for a few minutes until the ticket is confirmed")
+	public ResponseEntity<ApiResponse<Ticket>> holdTicket(@Valid @RequestBody Passenger passenger) {
+		// Call service layer to hold the seat
+		Ticket ticket = ticketService.holdTicket(passenger);
+		ApiResponse<Ticket> response = new ApiResponse<Ticket>(true, "Seat held until " + ticket.getHeldUntil(), ticket,
+				LocalDateTime.now());
+		return new ResponseEntity<ApiResponse<Ticket>>(response, HttpStatus.OK);
+	}
+
+	// Confirm a held ticket after payment.
+	@PostMapping("/{ticketId}/confirm")
+	@Operation(summary = "Confirm held ticket", description = "Confirms a held ticket before its hold expires")
+	public ResponseEntity<ApiResponse<Ticket>> confirmTicket(@PathVariable Integer ticketId) {
+		// Call service layer to confirm the ticket
+		Ticket ticket = ticketService.confirmTicket(ticketId);
+		ApiResponse<Ticket> response = new ApiResponse<Ticket>(true, "Ticket confirmed successfully", ticket,
+				LocalDateTime.now());
+		return new ResponseEntity<ApiResponse<Ticket>>(response, HttpStatus.OK);
+	}
+
 	// Get ticket details by Ticket ID.
 	@GetMapping("/{ticketId}")
 	@Operation(summary = "Get ticket by ID", description = "Retrieves ticket details by ticket ID")
@@ -58,6 +85,19 @@ public class TicketController {
 		return new ResponseEntity<>(ticket, HttpStatus.OK);
 	}
 
+	/*
+	 * Get many tickets by ID in one call. Used by the consumer to batch lookups
+	 * that arrive close together. IDs that are not found are left out of the
+	 * response list.
+	 */
+	@GetMapping("/batch")
+	@Operation(summary = "Get tickets by IDs", description = "Retrieves ticket details for a comma separated list of ticket IDs")
+	public ResponseEntity<List<Ticket>> getTickets(@RequestParam List<Integer> ids) {
+		// Fetch all requested tickets from service layer in one go
+		List<Ticket> tickets = ticketService.getTicketsByIds(ids);
+		return new ResponseEntity<List<Ticket>>(tickets, HttpStatus.OK);
+	}
+
 	// Cancel a booked ticket by Ticket ID.
 
 	@DeleteMapping("/{ticketId}")
@@ -0,0 +1,192 @@
+package in.train.controller;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.annotation.ConnectMapping;
+import org.springframework.stereotype.Controller;
+
+import in.train.config.LoadSheddingInterceptor;
+import in.train.config.RateLimitInterceptor;
+import in.train.exception.BadRequestException;
+import in.train.exception.RateLimitExceededException;
+import in.train.exception.ServiceOverloadedException;
+import in.train.exception.TicketConflictException;
+import in.train.exception.TicketNotFoundException;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import in.train.responce.TicketStreamReply;
+import in.train.service.TicketService;
+import io.rsocket.exceptions.RejectedException;
+import io.rsocket.exceptions.RejectedSetupException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * RSocket Controller for bulk partners that book or look up thousands
+ * of tickets per second.
+ *
+ * A partner opens one TCP connection (spring.rsocket.server.port) and sends a
+ * stream of requests on a route, getting a stream of TicketStreamReply back
+ * (RSocket request-channel, bidirectional streaming). Many streams can share
+ * the same connection.
+ *
+ * Flow control: each stream works on at most rpc.stream.max-in-flight requests
+ * at a time, and RSocket only lets the client send as many requests as the
+ * server has asked for. A client that sends faster than the database can book
+ * simply waits; it never fills up the provider's memory. The same applies the
+ * other way round when the client reads the replies slowly.
+ *
+ * Connections are only accepted with a partner API key (one of
+ * ratelimit.api-keys) as setup data. Every request of a stream counts against
+ * that partner's rate limits and takes a load shedding slot, like the same
+ * request on the REST API; a request over either limit gets an error reply
+ * ("retry after ...") instead of waiting.
+ *
+ * One failed request (unknown ticket, invalid passenger, limit reached) only
+ * produces an error reply; the stream stays open.
+ */
+@Controller
+public class TicketStreamController {
+
+	private static final Logger logger = LoggerFactory.getLogger(TicketStreamController.class);
+
+	// Injecting TicketService to handle business logic (same as the REST API)
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private Validator validator;
+
+	// Partner limits and load shedding of the REST API
+	@Autowired
+	private RateLimitInterceptor rateLimits;
+
+	@Autowired
+	private LoadSheddingInterceptor loadShedding;
+
+	// Partner of every open connection
+	private final Map<RSocketRequester, String> partners = new ConcurrentHashMap<>();
+
+	// Requests of one stream being worked on at the same time
+	@Value("${rpc.stream.max-in-flight:64}")
+	private int maxInFlight;
+
+	/**
+	 * Accept a connection from a partner.
+	 *
+	 * @param apiKey    the partner's API key, sent as setup data
+	 * @param requester the new connection
+	 * @return error (connection rejected) if the key is not a partner's
+	 */
+	@ConnectMapping
+	public Mono<Void> connect(@Payload(required = false) String apiKey, RSocketRequester requester) {
+		String partner = rateLimits.partnerForKey(apiKey);
+		if (partner == null) {
+			return Mono.error(new RejectedSetupException("Unknown API key"));
+		}
+		partners.put(requester, partner);
+		requester.rsocket().onClose()
+				.doFinally(signal -> partners.remove(requester))
+				.subscribe();
+		logger.debug("Stream connection of partner {} accepted", partner);
+		return Mono.empty();
+	}
+
+	/**
+	 * Reject the connection without logging a stack trace for every guessed key.
+	 */
+	@MessageExceptionHandler
+	public Mono<Void> rejected(RejectedSetupException ex) {
+		return Mono.error(ex);
+	}
+
+	/**
+	 * Book a ticket for every passenger in the stream.
+	 *
+	 * @param passengers passengers to book, in any number
+	 * @param requester  connection the stream came on
+	 * @return one reply per passenger, with the booked ticket
+	 */
+	@MessageMapping("tickets.book")
+	public Flux<TicketStreamReply> bookTickets(Flux<Passenger> passengers, RSocketRequester requester) {
+		String partner = partners.get(requester);
+		if (partner == null) {
+			// Only if the connection was closed meanwhile
+			return Flux.error(new RejectedException("Connection is not authenticated"));
+		}
+		return passengers.index()
+				.flatMap(request -> reply(request.getT1(), partner, false, () -> book(request.getT2())),
+						maxInFlight);
+	}
+
+	/**
+	 * Look up the current state of every ticket ID in the stream.
+	 *
+	 * @param ticketIds ticket IDs to look up, in any number
+	 * @param requester connection the stream came on
+	 * @return one reply per ID, with the ticket and its status
+	 */
+	@MessageMapping("tickets.status")
+	public Flux<TicketStreamReply> ticketStatus(Flux<Integer> ticketIds, RSocketRequester requester) {
+		String partner = partners.get(requester);
+		if (partner == null) {
+			// Only if the connection was closed meanwhile
+			return Flux.error(new RejectedException("Connection is not authenticated"));
+		}
+		return ticketIds.index()
+				.flatMap(request -> reply(request.getT1(), partner, true,
+						() -> ticketService.getTicketById(request.getT2())), maxInFlight);
+	}
+
+	private Ticket book(Passenger passenger) {
+		// Same checks as @Valid on the REST API
+		Set<ConstraintViolation<Passenger>> violations = validator.validate(passenger);
+		if (!violations.isEmpty()) {
+			throw new BadRequestException("Validation failed: " + violations.stream()
+					.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining(", ")));
+		}
+		return ticketService.bookTicket(passenger);
+	}
+
+	/**
+	 * Run one request off the network threads (TicketService blocks on the database),
+	 * within the partner's rate limit and a load shedding slot, and turn its outcome into a reply.
+	 */
+	private Mono<TicketStreamReply> reply(long sequence, String partner, boolean read, Supplier<Ticket> request) {
+		return Mono.fromCallable(() -> {
+			rateLimits.checkPartner(partner, read);
+			return loadShedding.call(read, request);
+		})
+				.subscribeOn(Schedulers.boundedElastic())
+				.map(ticket -> TicketStreamReply.success(sequence, ticket))
+				.onErrorResume(error -> Mono.just(TicketStreamReply.failure(sequence, message(error))));
+	}
+
+	private static String message(Throwable error) {
+		if (error instanceof TicketNotFoundException || error instanceof TicketConflictException
+				|| error instanceof BadRequestException || error instanceof RateLimitExceededException
+				|| error instanceof ServiceOverloadedException) {
+			return error.getMessage();
+		}
+		// Unexpected error: log it, but do not send internals to the partner
+		logger.error("Stream request failed", error);
+		return "Something went wrong. Please try again later.";
+	}
+}
@@ -0,0 +1,61 @@
+package in.train.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import in.train.config.TraceCollector;
+import in.train.exception.TraceNotFoundException;
+import in.train.responce.SpanRecord;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/**
+ * REST Controller for recent traces recorded by this service.
+ * 
+ * This controller exposes endpoints to:
+ *  - Break down one request by hop (span) using its trace ID
+ *  - List the slowest recent requests
+ * 
+ * The trace ID is the same in the Consumer and the Provider, so the
+ * Consumer's /api/traces/{traceId} shows the earlier hops of the request.
+ */
+@RestController
+@RequestMapping("/api/traces")
+@Tag(name = "Tracing API", description = "Recent request traces recorded by the IRCTC Provider")
+public class TraceController {
+
+	@Autowired
+	private TraceCollector traceCollector;
+
+	/**
+	 * Get all spans recorded for one trace, in start order.
+	 * 
+	 * @param traceId Trace ID (also printed in the application logs)
+	 * @return Spans with HTTP 200 (OK)
+	 */
+	@GetMapping("/{traceId}")
+	@Operation(summary = "Get trace by ID", description = "Retrieves all spans recorded for one trace")
+	public ResponseEntity<List<SpanRecord>> getTrace(@PathVariable String traceId) {
+		List<SpanRecord> spans = traceCollector.getTrace(traceId);
+		if (spans.isEmpty()) {
+			throw new TraceNotFoundException("Trace not found with ID: " + traceId);
+		}
+		return new ResponseEntity<>(spans, HttpStatus.OK);
+	}
+
+	/**
+	 * Get the slowest recent traces, slowest first.
+	 * 
+	 * @param limit maximum number of traces (default 10)
+	 * @return One list of spans per trace with HTTP 200 (OK)
+	 */
+	@GetMapping("/slowest")
+	@Operation(summary = "Get slowest traces", description = "Retrieves the slowest recent traces, slowest first")
+	public ResponseEntity<List<List<SpanRecord>>> getSlowestTraces(@RequestParam(defaultValue = "10") int limit) {
+		return new ResponseEntity<>(traceCollector.getSlowestTraces(limit), HttpStatus.OK);
+	}
+}
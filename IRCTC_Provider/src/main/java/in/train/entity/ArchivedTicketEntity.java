@@ -0,0 +1,124 @@
+package in.train.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing the "tickets_archive" table.
+ *
+ * Tickets of completed journeys are moved here from the "tickets" table by
+ * TicketArchiveService. Rows are written with SQL by the archival job and are
+ * never changed afterwards, so the entity is read-only (@Immutable).
+ */
+@Entity
+@Immutable
+@Table(name = "tickets_archive")
+public class ArchivedTicketEntity {
+
+    // Same ticket ID the ticket had in the tickets table
+    @Id
+    @Column(name = "ticket_id")
+    private Integer ticketId;
+
+    @Column(name = "passenger_first_name", nullable = false)
+    private String passengerFirstName;
+
+    @Column(name = "passenger_last_name", nullable = false)
+    private String passengerLastName;
+
+    @Column(name = "gender")
+    private Gender gender;
+
+    @Column(name = "from_station", nullable = false)
+    private String fromStation;
+
+    @Column(name = "to_station", nullable = false)
+    private String toStation;
+
+    @Column(name = "journey_date")
+    private LocalDate journeyDate;
+
+    @Column(name = "train_number", nullable = false)
+    private String trainNumber;
+
+    @Column(name = "ticket_cost")
+    private Double ticketCost;
+
+    @Column(name = "ticket_status", nullable = false)
+    private TicketStatus ticketStatus;
+
+    @Column(name = "pnr")
+    private String pnr;
+
+    @Column(name = "booking_time")
+    private LocalDateTime bookingTime;
+
+    // Time the ticket was moved to the archive
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Default constructor required by JPA
+    public ArchivedTicketEntity() {
+    }
+
+    // Getters (no setters: archived tickets are read-only)
+
+    public Integer getTicketId() {
+        return ticketId;
+    }
+
+    public String getPassengerFirstName() {
+        return passengerFirstName;
+    }
+
+    public String getPassengerLastName() {
+        return passengerLastName;
+    }
+
+    public Gender getGender() {
+        return gender;
+    }
+
+    public String getFromStation() {
+        return fromStation;
+    }
+
+    public String getToStation() {
+        return toStation;
+    }
+
+    public LocalDate getJourneyDate() {
+        return journeyDate;
+    }
+
+    public String getTrainNumber() {
+        return trainNumber;
+    }
+
+    public Double getTicketCost() {
+        return ticketCost;
+    }
+
+    public TicketStatus getTicketStatus() {
+        return ticketStatus;
+    }
+
+    public String getPnr() {
+        return pnr;
+    }
+
+    public LocalDateTime getBookingTime() {
+        return bookingTime;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
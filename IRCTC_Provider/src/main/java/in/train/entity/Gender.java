@@ -0,0 +1,73 @@
+package in.train.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Passenger gender.
+ *
+ * The API uses the labels "Male", "Female" and "Other"; the database stores
+ * a one-byte code in the tickets.gender column (TINYINT).
+ * The codes are part of the database schema: never change or reuse them.
+ */
+public enum Gender {
+
+    MALE((byte) 0, "Male"),
+    FEMALE((byte) 1, "Female"),
+    OTHER((byte) 2, "Other");
+
+    private final byte code;
+
+    private final String label;
+
+    Gender(byte code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static Gender fromCode(byte code) {
+        for (Gender gender : values()) {
+            if (gender.code == code) {
+                return gender;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gender code: " + code);
+    }
+
+    /**
+     * Find the gender for an API label such as "Female".
+     */
+    public static Gender fromLabel(String label) {
+        for (Gender gender : values()) {
+            if (gender.label.equals(label)) {
+                return gender;
+            }
+        }
+        throw new IllegalArgumentException("Unknown gender: " + label);
+    }
+
+    /**
+     * Maps Gender to its TINYINT code and back for every entity attribute of this type.
+     */
+    @Converter(autoApply = true)
+    public static class CodeConverter implements AttributeConverter<Gender, Byte> {
+
+        @Override
+        public Byte convertToDatabaseColumn(Gender gender) {
+            return gender == null ? null : gender.getCode();
+        }
+
+        @Override
+        public Gender convertToEntityAttribute(Byte code) {
+            return code == null ? null : fromCode(code);
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package in.train.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Entity class representing the "tickets" table in the database.
  * This class is used by JPA/Hibernate to map Java objects to database records.
+ *
+ * Tickets are kept in the "tickets" second-level cache region (see ehcache.xml),
+ * so findById does not hit the database for recently loaded tickets.
+ * READ_WRITE keeps the cached copy in step with updates such as cancellations.
+ *
+ * Updates are optimistic: Hibernate adds "WHERE version = ?" to every UPDATE
+ * and fails if another transaction changed the ticket in the meantime, so no
+ * row locks are held between reading and writing a ticket.
+ *
+ * The table itself is created and changed only by the Flyway migrations in
+ * src/main/resources/db/migration; Hibernate just validates the mapping.
  */
 @Entity
 @Table(name = "tickets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "tickets")
 public class TicketEntity {
 
     // Primary key of the tickets table
@@ -26,9 +41,9 @@ public class TicketEntity {
     @Column(name = "passenger_last_name", nullable = false)
     private String passengerLastName;
 
-    // Passenger gender
+    // Passenger gender (stored as a TINYINT code, see Gender)
     @Column(name = "gender")
-    private String gender;
+    private Gender gender;
 
     // Source station
     @Column(name = "from_station", nullable = false)
@@ -50,9 +65,9 @@ public class TicketEntity {
     @Column(name = "ticket_cost")
     private Double ticketCost;
 
-    // Ticket status (e.g., CONFIRMED, CANCELLED)
-    @Column(name = "ticket_status")
-    private String ticketStatus;
+    // Ticket status (stored as a TINYINT code, see TicketStatus)
+    @Column(name = "ticket_status", nullable = false)
+    private TicketStatus ticketStatus;
 
     // Unique PNR number for each ticket
     @Column(name = "pnr", unique = true)
@@ -62,6 +77,19 @@ public class TicketEntity {
     @Column(name = "booking_time")
     private LocalDateTime bookingTime;
 
+    // End of the hold while the ticket is HELD, null in every other status
+    @Column(name = "held_until")
+    private LocalDateTime heldUntil;
+
+    // Idempotency-Key of the booking request, null when the client sent none
+    @Column(name = "idempotency_key", length = 64, unique = true)
+    private String idempotencyKey;
+
+    // Optimistic lock version, incremented by Hibernate on every update
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Default constructor required by JPA
     public TicketEntity() {
     }
@@ -92,11 +120,11 @@ public class TicketEntity {
         this.passengerLastName = passengerLastName;
     }
 
-    public String getGender() {
+    public Gender getGender() {
         return gender;
     }
 
-    public void setGender(String gender) {
+    public void setGender(Gender gender) {
         this.gender = gender;
     }
 
@@ -140,11 +168,11 @@ public class TicketEntity {
         this.ticketCost = ticketCost;
     }
 
-    public String getTicketStatus() {
+    public TicketStatus getTicketStatus() {
         return ticketStatus;
     }
 
-    public void setTicketStatus(String ticketStatus) {
+    public void setTicketStatus(TicketStatus ticketStatus) {
         this.ticketStatus = ticketStatus;
     }
 
@@ -163,4 +191,28 @@ public class TicketEntity {
     public void setBookingTime(LocalDateTime bookingTime) {
         this.bookingTime = bookingTime;
     }
+
+    public LocalDateTime getHeldUntil() {
+        return heldUntil;
+    }
+
+    public void setHeldUntil(LocalDateTime heldUntil) {
+        this.heldUntil = heldUntil;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
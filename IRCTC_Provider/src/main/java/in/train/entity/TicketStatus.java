@@ -0,0 +1,71 @@
+package in.train.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Status of a ticket.
+ *
+ * Stored as a one-byte code in the tickets.ticket_status column (TINYINT),
+ * which keeps rows and the (train_number, journey_date, ticket_status) index small.
+ * The codes are part of the database schema: never change or reuse them.
+ */
+public enum TicketStatus {
+
+    CONFIRMED((byte) 0),
+    CANCELLED((byte) 1),
+    // Seat reserved while the passenger pays, until tickets.held_until
+    HELD((byte) 2),
+    // Hold that was not confirmed in time; the seat is free again
+    EXPIRED((byte) 3);
+
+    private final byte code;
+
+    TicketStatus(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Whether a ticket in this status may change to the given status.
+     * A HELD ticket is confirmed (paid), cancelled (released by the passenger)
+     * or expires; a CONFIRMED ticket can only be cancelled. CANCELLED and
+     * EXPIRED are final.
+     */
+    public boolean canChangeTo(TicketStatus target) {
+        return switch (this) {
+            case HELD -> target == CONFIRMED || target == CANCELLED || target == EXPIRED;
+            case CONFIRMED -> target == CANCELLED;
+            default -> false;
+        };
+    }
+
+    public static TicketStatus fromCode(byte code) {
+        for (TicketStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ticket status code: " + code);
+    }
+
+    /**
+     * Maps TicketStatus to its TINYINT code and back for every entity attribute of this type.
+     */
+    @Converter(autoApply = true)
+    public static class CodeConverter implements AttributeConverter<TicketStatus, Byte> {
+
+        @Override
+        public Byte convertToDatabaseColumn(TicketStatus status) {
+            return status == null ? null : status.getCode();
+        }
+
+        @Override
+        public TicketStatus convertToEntityAttribute(Byte code) {
+            return code == null ? null : fromCode(code);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when a request is well-formed but not acceptable,
+ * e.g. a shard number that does not exist or too many ticket IDs in a batch.
+ */
+public class BadRequestException extends RuntimeException {
+
+    /**
+     * Constructs a new BadRequestException with the specified detail message.
+     * 
+     * @param message the detail message explaining why the exception occurred
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
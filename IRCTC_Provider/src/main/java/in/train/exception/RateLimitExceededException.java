@@ -0,0 +1,30 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when a client sends more requests than its rate
+ * limit allows (see RateLimitInterceptor).
+ *
+ * A runaway client can trigger this thousands of times per second, so,
+ * like TicketNotFoundException, it does not record a stack trace.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    // Seconds the client should wait before sending the next request
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new RateLimitExceededException.
+     *
+     * @param message           the detail message explaining which limit was hit
+     * @param retryAfterSeconds seconds until the next request would be allowed
+     */
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        // No suppressed exceptions, no stack trace
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,30 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when the provider sheds a request because the
+ * database cannot keep up (see LoadSheddingInterceptor).
+ *
+ * Thrown for every shed request while overloaded, so, like
+ * RateLimitExceededException, it does not record a stack trace.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    // Seconds the client should wait before sending the request again
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new ServiceOverloadedException.
+     *
+     * @param message           the detail message explaining why the request was shed
+     * @param retryAfterSeconds seconds the client should wait before retrying
+     */
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        // No suppressed exceptions, no stack trace
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when a ticket could not be updated because other
+ * requests kept changing it at the same time.
+ * 
+ * The client can simply send the request again.
+ */
+public class TicketConflictException extends RuntimeException {
+
+    /**
+     * Constructs a new TicketConflictException with the specified detail message.
+     * 
+     * @param message the detail message explaining why the exception occurred
+     */
+    public TicketConflictException(String message) {
+        super(message);
+    }
+}
@@ -5,6 +5,11 @@ package in.train.exception;
  * 
  * This exception is used to indicate that the requested ticket ID
  * does not exist in the database.
+ *
+ * It is thrown for every unknown ticket a client asks for (often many per
+ * second from scrapers and retries) and always ends as a 404 response, so it
+ * does not record a stack trace: filling one in would cost more than the
+ * existence filter check that rejected the ticket.
  */
 public class TicketNotFoundException extends RuntimeException {
 
@@ -14,6 +19,7 @@ public class TicketNotFoundException extends RuntimeException {
      * @param message the detail message explaining why the exception occurred
      */
     public TicketNotFoundException(String message) {
-        super(message);
+        // No suppressed exceptions, no stack trace
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,19 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when no spans are recorded for a trace ID.
+ * 
+ * The trace may be unknown, or older than the traces kept in memory
+ * (tracing.memory.max-traces).
+ */
+public class TraceNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new TraceNotFoundException with the specified detail message.
+     * 
+     * @param message the detail message explaining why the exception occurred
+     */
+    public TraceNotFoundException(String message) {
+        super(message);
+    }
+}
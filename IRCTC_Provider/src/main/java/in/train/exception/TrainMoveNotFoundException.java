@@ -0,0 +1,19 @@
+package in.train.exception;
+
+/**
+ * Custom exception thrown when a train has no move to report.
+ * 
+ * Moves are only known to the instance that runs them, and only until
+ * it restarts.
+ */
+public class TrainMoveNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new TrainMoveNotFoundException with the specified detail message.
+     * 
+     * @param message the detail message explaining why the exception occurred
+     */
+    public TrainMoveNotFoundException(String message) {
+        super(message);
+    }
+}
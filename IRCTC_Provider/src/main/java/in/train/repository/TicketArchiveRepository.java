@@ -0,0 +1,62 @@
+package in.train.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import in.train.entity.ArchivedTicketEntity;
+
+/**
+ * Repository interface for ArchivedTicketEntity (tickets of completed journeys).
+ * Lookups return the same TicketView projection as TicketRepository, so the
+ * service converts hot and archived tickets the same way.
+ */
+@Repository
+public interface TicketArchiveRepository extends JpaRepository<ArchivedTicketEntity, Integer> {
+
+    // Columns needed for the Ticket response (archived tickets are never held, so no heldUntil)
+    String TICKET_VIEW = "select new in.train.repository.TicketView(t.ticketId, t.passengerFirstName,"
+            + " t.passengerLastName, t.fromStation, t.toStation, t.trainNumber, t.ticketCost, t.ticketStatus,"
+            + " t.pnr, t.bookingTime, cast(null as LocalDateTime)) from ArchivedTicketEntity t";
+
+    /**
+     * Archived ticket by ticket ID.
+     */
+    @Query(TICKET_VIEW + " where t.ticketId = :ticketId")
+    Optional<TicketView> findViewById(@Param("ticketId") Integer ticketId);
+
+    /**
+     * Archived tickets by ticket IDs (IDs that are not archived are left out).
+     */
+    @Query(TICKET_VIEW + " where t.ticketId in :ticketIds")
+    List<TicketView> findViewsByIds(@Param("ticketIds") Collection<Integer> ticketIds);
+
+    /**
+     * Archived tickets with the given PNR.
+     */
+    @Query(TICKET_VIEW + " where t.pnr = :pnr")
+    List<TicketView> findViewsByPnr(@Param("pnr") String pnr);
+
+    /**
+     * Copy tickets from the hot table into the archive.
+     * Must run in the same transaction as the delete from the hot table.
+     *
+     * @return number of copied rows
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO tickets_archive (ticket_id, passenger_first_name,"
+            + " passenger_last_name, gender, from_station, to_station, journey_date, train_number, ticket_cost,"
+            + " ticket_status, pnr, booking_time, archived_at)"
+            + " SELECT ticket_id, passenger_first_name, passenger_last_name, gender, from_station, to_station,"
+            + " journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time, :archivedAt"
+            + " FROM tickets WHERE ticket_id IN (:ticketIds)")
+    int copyFromTickets(@Param("ticketIds") Collection<Integer> ticketIds,
+            @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -1,11 +1,25 @@
 package in.train.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import in.train.entity.TicketEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repository interface for TicketEntity.
@@ -15,11 +29,80 @@ import in.train.entity.TicketEntity;
 @Repository
 public interface TicketRepository extends JpaRepository<TicketEntity, Integer> {
 
+    // Columns needed for the Ticket response, shared by the projection queries below
+    String TICKET_VIEW = "select new in.train.repository.TicketView(t.ticketId, t.passengerFirstName,"
+            + " t.passengerLastName, t.fromStation, t.toStation, t.trainNumber, t.ticketCost, t.ticketStatus,"
+            + " t.pnr, t.bookingTime, t.heldUntil) from TicketEntity t";
+
     /**
      * Find tickets by exact PNR number.
+     * Results are kept in the "tickets-by-pnr" query cache region; Hibernate
+     * discards them automatically whenever the tickets table changes.
      */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tickets-by-pnr")
+    })
     List<TicketEntity> findByPnr(String pnr);
 
+    /**
+     * Find the ticket booked by the request with this Idempotency-Key
+     * (uk_tickets_idempotency_key index).
+     */
+    Optional<TicketEntity> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * One page of tickets as read-only projections (used by the list endpoint).
+     * Ordered by booking time (oldest first), which walks the
+     * idx_tickets_booking_time (booking_time, ticket_id) index instead of sorting.
+     */
+    @Query(value = TICKET_VIEW + " order by t.bookingTime, t.ticketId",
+            countQuery = "select count(t) from TicketEntity t")
+    Page<TicketView> findAllViews(Pageable pageable);
+
+    /**
+     * All tickets as read-only projections (search without parameters).
+     */
+    @Query(TICKET_VIEW)
+    List<TicketView> findAllViews();
+
+    /**
+     * Tickets with the given PNR as read-only projections.
+     * Cached in the "tickets-by-pnr" query region like findByPnr.
+     */
+    @Query(TICKET_VIEW + " where t.pnr = :pnr")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "tickets-by-pnr")
+    })
+    List<TicketView> findViewsByPnr(@Param("pnr") String pnr);
+
+    /**
+     * Tickets whose passenger first or last name contains the given text
+     * (case-insensitive), as read-only projections.
+     * Derived query: Spring Data selects just the TicketView columns and binds
+     * the %name% pattern once, instead of building it for every row.
+     */
+    List<TicketView> findViewsByPassengerFirstNameContainingIgnoreCaseOrPassengerLastNameContainingIgnoreCase(
+            String firstName, String lastName);
+
+    /**
+     * IDs of tickets whose journey date is before the cutoff, oldest journeys first.
+     * The rows are locked (SELECT ... FOR UPDATE) so a cancellation cannot slip in
+     * between copying them to the archive and deleting them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.ticketId from TicketEntity t where t.journeyDate < :cutoff order by t.journeyDate")
+    List<Integer> findIdsWithJourneyBefore(@Param("cutoff") LocalDate cutoff, Limit limit);
+
+    /**
+     * Delete tickets by ID (used after they were copied to the archive).
+     * A JPQL bulk delete also removes them from the second-level cache.
+     */
+    @Modifying
+    @Query("delete from TicketEntity t where t.ticketId in :ticketIds")
+    int deleteByTicketIds(@Param("ticketIds") Collection<Integer> ticketIds);
+
     /**
      * Find tickets by passenger first name (case-insensitive and partial match).
      */
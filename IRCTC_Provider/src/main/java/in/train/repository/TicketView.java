@@ -0,0 +1,27 @@
+package in.train.repository;
+
+import java.time.LocalDateTime;
+
+import in.train.entity.TicketStatus;
+
+/**
+ * Read-only projection of a ticket row.
+ *
+ * Holds only the columns the Ticket response needs. Queries that return
+ * TicketView are plain column selects: Hibernate does not create managed
+ * entities, keep dirty-checking snapshots or fill the second-level cache,
+ * which makes large lists and pages much cheaper than loading TicketEntity.
+ */
+public record TicketView(
+        Integer ticketId,
+        String passengerFirstName,
+        String passengerLastName,
+        String fromStation,
+        String toStation,
+        String trainNumber,
+        Double ticketCost,
+        TicketStatus ticketStatus,
+        String pnr,
+        LocalDateTime bookingTime,
+        LocalDateTime heldUntil) {
+}
@@ -0,0 +1,83 @@
+package in.train.responce;
+
+/**
+ * Cache Region Stats DTO
+ *
+ * Hit/miss counters of one Hibernate second-level cache region
+ * (entity region such as "tickets" or query region such as "tickets-by-pnr").
+ * Counters are totals since the service started.
+ */
+public class CacheRegionStats {
+
+    // Region name as configured in ehcache.xml
+    private String region;
+
+    // Lookups answered from the cache
+    private long hits;
+
+    // Lookups that had to go to the database
+    private long misses;
+
+    // Entries written into the cache
+    private long puts;
+
+    // hits / (hits + misses), 0 when the region was never used
+    private double hitRatio;
+
+    // Entries currently held in memory (-1 if the cache provider does not report it)
+    private long size;
+
+    // Default constructor (required for serialization/deserialization)
+    public CacheRegionStats() {
+    }
+
+    // ================== Getters and Setters ==================
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public void setPuts(long puts) {
+        this.puts = puts;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public void setHitRatio(double hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,48 @@
+package in.train.responce;
+
+/**
+ * Shard Stats DTO
+ *
+ * Number of tickets stored on one shard.
+ */
+public class ShardStats {
+
+    // Shard number (0 = spring.datasource database)
+    private int shard;
+
+    // Tickets in the hot table
+    private long tickets;
+
+    // Tickets of completed journeys in tickets_archive
+    private long archivedTickets;
+
+    // Default constructor (required for serialization/deserialization)
+    public ShardStats() {
+    }
+
+    // ================== Getters and Setters ==================
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public long getTickets() {
+        return tickets;
+    }
+
+    public void setTickets(long tickets) {
+        this.tickets = tickets;
+    }
+
+    public long getArchivedTickets() {
+        return archivedTickets;
+    }
+
+    public void setArchivedTickets(long archivedTickets) {
+        this.archivedTickets = archivedTickets;
+    }
+}
@@ -27,7 +27,7 @@ public class Ticket {
     // Ticket cost
     private String tktCost;
 
-    // Ticket status (e.g., CONFIRMED, WAITING, CANCELLED)
+    // Ticket status (e.g., CONFIRMED, HELD, EXPIRED, CANCELLED)
     private String ticketStatus;
 
     // PNR number for the ticket
@@ -36,6 +36,9 @@ public class Ticket {
     // Ticket booking date and time
     private LocalDateTime bookingTime;
 
+    // Until when a HELD ticket's seat is reserved (only set for HELD tickets)
+    private LocalDateTime heldUntil;
+
     // Getters and Setters
 
     public Integer getTicketId() {
@@ -109,4 +112,12 @@ public class Ticket {
     public void setBookingTime(LocalDateTime bookingTime) {
         this.bookingTime = bookingTime;
     }
+
+    public LocalDateTime getHeldUntil() {
+        return heldUntil;
+    }
+
+    public void setHeldUntil(LocalDateTime heldUntil) {
+        this.heldUntil = heldUntil;
+    }
 }
@@ -0,0 +1,76 @@
+package in.train.responce;
+
+/**
+ * Ticket Stream Reply DTO
+ *
+ * One answer on a ticket stream (see TicketStreamController). Replies can
+ * arrive in a different order than the requests, so each one carries the
+ * position of its request in the stream.
+ */
+public class TicketStreamReply {
+
+    // Position of the request in the stream, starting at 0
+    private long sequence;
+
+    // True if the request succeeded, false if error is set
+    private boolean success;
+
+    // Booked or looked up ticket (null on error)
+    private Ticket ticket;
+
+    // Why the request failed (null on success)
+    private String error;
+
+    // Default constructor (required for serialization/deserialization)
+    public TicketStreamReply() {
+    }
+
+    public static TicketStreamReply success(long sequence, Ticket ticket) {
+        TicketStreamReply reply = new TicketStreamReply();
+        reply.setSequence(sequence);
+        reply.setSuccess(true);
+        reply.setTicket(ticket);
+        return reply;
+    }
+
+    public static TicketStreamReply failure(long sequence, String error) {
+        TicketStreamReply reply = new TicketStreamReply();
+        reply.setSequence(sequence);
+        reply.setError(error);
+        return reply;
+    }
+
+    // ================== Getters and Setters ==================
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
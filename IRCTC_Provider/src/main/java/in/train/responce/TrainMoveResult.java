@@ -0,0 +1,110 @@
+package in.train.responce;
+
+import java.time.LocalDateTime;
+
+/**
+ * Train Move Result DTO
+ *
+ * Progress or outcome of moving a train to another shard.
+ */
+public class TrainMoveResult {
+
+    public static final String RUNNING = "RUNNING";
+
+    public static final String DONE = "DONE";
+
+    public static final String FAILED = "FAILED";
+
+    // Train that was moved
+    private String trainNumber;
+
+    // Shard the train's bookings went to before the move
+    private int fromShard;
+
+    // Shard that gets the train's bookings from now on
+    private int toShard;
+
+    // Current tickets copied to the new shard so far
+    private long movedTickets;
+
+    // RUNNING, DONE or FAILED
+    private String status;
+
+    // Why the move failed (FAILED only); starting the move again finishes it
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    // Not set while the move is running
+    private LocalDateTime finishedAt;
+
+    // Default constructor (required for serialization/deserialization)
+    public TrainMoveResult() {
+    }
+
+    // ================== Getters and Setters ==================
+
+    public String getTrainNumber() {
+        return trainNumber;
+    }
+
+    public void setTrainNumber(String trainNumber) {
+        this.trainNumber = trainNumber;
+    }
+
+    public int getFromShard() {
+        return fromShard;
+    }
+
+    public void setFromShard(int fromShard) {
+        this.fromShard = fromShard;
+    }
+
+    public int getToShard() {
+        return toShard;
+    }
+
+    public void setToShard(int toShard) {
+        this.toShard = toShard;
+    }
+
+    public long getMovedTickets() {
+        return movedTickets;
+    }
+
+    public void setMovedTickets(long movedTickets) {
+        this.movedTickets = movedTickets;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,304 @@
+package in.train.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import in.train.config.ShardRouter;
+import in.train.exception.BadRequestException;
+import in.train.exception.TrainMoveNotFoundException;
+import in.train.responce.ShardStats;
+import in.train.responce.TrainMoveResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service class that moves trains (and their current tickets) between shards.
+ *
+ * A move first points new bookings of the train at the target shard, then
+ * copies the train's tickets over in batches. Each batch locks the rows on
+ * the source shard (so they cannot be cancelled half way), inserts them on
+ * the target shard with the same ticket ID and PNR, and deletes them from the
+ * source. A move that stopped half way can simply be started again: rows that
+ * are already on the target are not inserted twice.
+ *
+ * Other provider instances learn about the move when they next reload the
+ * train directory (datasource.shards.directory-refresh-ms), and keep booking
+ * the train on its old shard until then. So after the first pass the move
+ * waits one reload interval plus datasource.shards.move-settle-ms (bookings
+ * still running) and moves what was booked on the old shard meanwhile.
+ *
+ * Moves run in the background, one pass at a time in a single thread (the
+ * wait between the passes does not hold the thread). startMove returns at
+ * once; getMove shows how far the move got.
+ *
+ * Moved rows are changed with plain SQL, so every pass drops this instance's
+ * second-level cache. Other instances drop theirs when their next directory
+ * reload sees the train's moved_at change (ShardRouter.reloadDirectory); the
+ * move touches moved_at again after the last pass for this.
+ *
+ * Ticket IDs and PNRs keep pointing at the old shard; lookups that miss there
+ * ask the other shards. Archived tickets stay where they are.
+ */
+@Service
+public class ShardRebalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final String COLUMNS = "ticket_id, passenger_first_name, passenger_last_name, gender,"
+            + " from_station, to_station, journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time,"
+            + " held_until, idempotency_key, version";
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Tickets moved per batch
+    @Value("${datasource.shards.move-batch-size:1000}")
+    private int batchSize;
+
+    // How often every instance reloads the train directory (ShardRouter)
+    @Value("${datasource.shards.directory-refresh-ms:30000}")
+    private long directoryRefreshMs;
+
+    // Longest booking that may still commit on the old shard after an instance reloaded the directory
+    @Value("${datasource.shards.move-settle-ms:2000}")
+    private long settleMs;
+
+    // Latest move of every train moved by this instance, running or finished
+    private final Map<String, TrainMoveResult> moves = new ConcurrentHashMap<>();
+
+    // Runs the passes of all moves
+    private ScheduledExecutorService mover;
+
+    @PostConstruct
+    void init() {
+        mover = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-mover");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        mover.shutdownNow();
+    }
+
+    /**
+     * Start moving a train to another shard. A move of the same train that is
+     * still running is returned instead of starting a second one.
+     *
+     * @param trainNumber train to move
+     * @param targetShard shard that gets the train
+     * @return the move, RUNNING
+     */
+    public TrainMoveResult startMove(String trainNumber, int targetShard) {
+        if (targetShard < 0 || targetShard >= shardRouter.shardCount()) {
+            throw new BadRequestException("Shard " + targetShard + " does not exist (shards: 0 to "
+                    + (shardRouter.shardCount() - 1) + ")");
+        }
+        TrainMoveResult started = new TrainMoveResult();
+        started.setTrainNumber(trainNumber);
+        started.setFromShard(shardRouter.shardForTrain(trainNumber));
+        started.setToShard(targetShard);
+        started.setStatus(TrainMoveResult.RUNNING);
+        started.setStartedAt(LocalDateTime.now());
+
+        TrainMoveResult move = moves.compute(trainNumber, (train, previous) ->
+                previous != null && TrainMoveResult.RUNNING.equals(previous.getStatus()) ? previous : started);
+        if (move == started) {
+            mover.execute(() -> firstPass(started));
+        }
+        return move;
+    }
+
+    /**
+     * Progress or outcome of the latest move of a train.
+     */
+    public TrainMoveResult getMove(String trainNumber) {
+        TrainMoveResult move = moves.get(trainNumber);
+        if (move == null) {
+            throw new TrainMoveNotFoundException("No move of train " + trainNumber + " on this instance");
+        }
+        return move;
+    }
+
+    private void firstPass(TrainMoveResult move) {
+        try {
+            // New bookings of this instance go to the target from now on
+            shardRouter.assignTrain(move.getTrainNumber(), move.getToShard());
+            long moved = drain(move.getTrainNumber(), move.getToShard());
+            update(move, moved, TrainMoveResult.RUNNING, null);
+
+            // Other instances book on the old shard until they reload the directory
+            mover.schedule(() -> secondPass(moves.get(move.getTrainNumber())), directoryRefreshMs + settleMs,
+                    TimeUnit.MILLISECONDS);
+        } catch (RuntimeException ex) {
+            failed(move, ex);
+        }
+    }
+
+    private void secondPass(TrainMoveResult move) {
+        try {
+            long late = drain(move.getTrainNumber(), move.getToShard());
+            if (late > 0) {
+                logger.info("Moved {} tickets of train {} booked on other instances during the move", late,
+                        move.getTrainNumber());
+            }
+            // Makes the other instances drop their cached tickets of the train
+            shardRouter.touchTrain(move.getTrainNumber());
+
+            long moved = move.getMovedTickets() + late;
+            update(move, moved, TrainMoveResult.DONE, null);
+            logger.info("Moved train {} from shard {} to shard {} ({} tickets)", move.getTrainNumber(),
+                    move.getFromShard(), move.getToShard(), moved);
+        } catch (RuntimeException ex) {
+            failed(move, ex);
+        }
+    }
+
+    private void failed(TrainMoveResult move, RuntimeException ex) {
+        logger.error("Moving train {} to shard {} failed, start the move again to finish it",
+                move.getTrainNumber(), move.getToShard(), ex);
+        update(move, move.getMovedTickets(), TrainMoveResult.FAILED, ex.getMessage());
+    }
+
+    /**
+     * Replace the move's entry (entries are never changed once readers may see them).
+     */
+    private void update(TrainMoveResult move, long movedTickets, String status, String error) {
+        TrainMoveResult next = new TrainMoveResult();
+        next.setTrainNumber(move.getTrainNumber());
+        next.setFromShard(move.getFromShard());
+        next.setToShard(move.getToShard());
+        next.setStartedAt(move.getStartedAt());
+        next.setMovedTickets(movedTickets);
+        next.setStatus(status);
+        next.setError(error);
+        if (!TrainMoveResult.RUNNING.equals(status)) {
+            next.setFinishedAt(LocalDateTime.now());
+        }
+        moves.put(move.getTrainNumber(), next);
+    }
+
+    /**
+     * Move every ticket of the train that is not on the target shard yet.
+     *
+     * @return number of moved tickets
+     */
+    private long drain(String trainNumber, int targetShard) {
+        // Tickets can be on any shard (default shard, earlier moves), so check all of them
+        long moved = 0;
+        for (int sourceShard = 0; sourceShard < shardRouter.shardCount(); sourceShard++) {
+            if (sourceShard == targetShard) {
+                continue;
+            }
+            while (true) {
+                int batch = moveBatch(trainNumber, sourceShard, targetShard);
+                if (batch == 0) {
+                    break;
+                }
+                moved += batch;
+            }
+        }
+
+        if (moved > 0) {
+            // The copied IDs may have pushed the target's ID generator out of its series
+            shardRouter.alignIdSeries(targetShard);
+
+            // Moved rows were changed with plain SQL, so drop cached tickets and query results
+            shardRouter.evictCachedTickets();
+        }
+        return moved;
+    }
+
+    /**
+     * Number of current and archived tickets per shard.
+     */
+    public List<ShardStats> getShardStats() {
+        return shardRouter.onAllShards(shard -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRouter.dataSource(shard));
+            ShardStats stats = new ShardStats();
+            stats.setShard(shard);
+            stats.setTickets(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets", Long.class));
+            stats.setArchivedTickets(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets_archive", Long.class));
+            return stats;
+        });
+    }
+
+    /**
+     * Move one batch of a train's tickets from one shard to another.
+     *
+     * @return number of moved tickets (0 when the source has none left)
+     */
+    private int moveBatch(String trainNumber, int sourceShard, int targetShard) {
+        DataSource source = shardRouter.dataSource(sourceShard);
+        NamedParameterJdbcTemplate target = new NamedParameterJdbcTemplate(shardRouter.dataSource(targetShard));
+        JdbcTemplate sourceJdbc = new JdbcTemplate(source);
+
+        // The source transaction keeps the rows locked until they are deleted
+        Integer moved = new TransactionTemplate(new DataSourceTransactionManager(source)).execute(status -> {
+            List<Map<String, Object>> rows = sourceJdbc.queryForList("SELECT " + COLUMNS
+                    + " FROM tickets WHERE train_number = ? ORDER BY ticket_id LIMIT ? FOR UPDATE",
+                    trainNumber, batchSize);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<Object> ticketIds = rows.stream().map(row -> row.get("ticket_id")).toList();
+
+            // Skip rows a previous, interrupted move already copied
+            List<Integer> existing = target.queryForList("SELECT ticket_id FROM tickets WHERE ticket_id IN (:ids)",
+                    new MapSqlParameterSource("ids", ticketIds), Integer.class);
+            List<Map<String, Object>> missing = rows.stream()
+                    .filter(row -> !existing.contains(((Number) row.get("ticket_id")).intValue()))
+                    .toList();
+            insert(target.getJdbcTemplate(), missing);
+
+            new NamedParameterJdbcTemplate(sourceJdbc).update("DELETE FROM tickets WHERE ticket_id IN (:ids)",
+                    new MapSqlParameterSource("ids", ticketIds));
+            return rows.size();
+        });
+        return moved == null ? 0 : moved;
+    }
+
+    private static void insert(JdbcTemplate target, List<Map<String, Object>> rows) {
+        String[] columns = COLUMNS.split(",\\s*");
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        target.batchUpdate("INSERT INTO tickets (" + COLUMNS + ") VALUES (" + placeholders + ")",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Map<String, Object> row = rows.get(i);
+                        for (int column = 0; column < columns.length; column++) {
+                            ps.setObject(column + 1, row.get(columns[column]));
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+}
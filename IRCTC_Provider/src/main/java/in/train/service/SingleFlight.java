@@ -0,0 +1,127 @@
+package in.train.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collapses concurrent identical lookups into one database query.
+ *
+ * When a train's chart is prepared, thousands of clients check the same
+ * tickets within seconds. Without this, each of them runs the same SELECT.
+ * With it, the first caller for a key (the leader) runs the query and every
+ * caller that asks for the same key while it is running (the followers)
+ * waits for that query and gets the same result, or the same exception.
+ * A caller that arrives after the query finished starts a new one, so
+ * nothing is cached here.
+ *
+ * TicketService calls forget() after changing a ticket, so a client that
+ * reads its own change never joins a query that started before the change.
+ *
+ * Metrics (tag "key" is the lookup, e.g. "id" or "pnr"):
+ *  - tickets.lookup.flights{role=leader|follower}: callers that ran or joined a query
+ *  - tickets.lookup.coalescing.ratio: share of callers that joined another caller's query
+ */
+final class SingleFlight<K, V> {
+
+    // Key -> result of the query running for it
+    private final ConcurrentHashMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final Counter leaders;
+
+    private final Counter followers;
+
+    /**
+     * @param name          lookup name, used as the "key" tag of the metrics
+     * @param enabled       false runs every lookup on its own (metrics stay at 0)
+     * @param meterRegistry where the metrics are registered
+     */
+    SingleFlight(String name, boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        leaders = Counter.builder("tickets.lookup.flights")
+                .description("Lookups that ran a database query (leader) or shared one already running (follower)")
+                .tag("key", name)
+                .tag("role", "leader")
+                .register(meterRegistry);
+        followers = Counter.builder("tickets.lookup.flights")
+                .description("Lookups that ran a database query (leader) or shared one already running (follower)")
+                .tag("key", name)
+                .tag("role", "follower")
+                .register(meterRegistry);
+        Gauge.builder("tickets.lookup.coalescing.ratio", this, SingleFlight::coalescingRatio)
+                .description("Share of lookups that shared a query already running")
+                .tag("key", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the query for the key, or wait for the one already running for it.
+     *
+     * @param key   what is looked up (ticket ID, PNR)
+     * @param query the lookup, run by at most one caller per key at a time
+     * @return the query's result
+     */
+    V run(K key, Supplier<V> query) {
+        if (!enabled) {
+            return query.get();
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            followers.increment();
+            return await(running);
+        }
+
+        leaders.increment();
+        try {
+            V result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            // Only our own flight: forget() may already have replaced it
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Let the next caller for the key start a new query instead of joining
+     * the running one (called after the looked up data changed).
+     */
+    void forget(K key) {
+        flights.remove(key);
+    }
+
+    /**
+     * @return followers / all callers, since startup
+     */
+    double coalescingRatio() {
+        double all = leaders.count() + followers.count();
+        return all == 0 ? 0 : followers.count() / all;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            // Same exception as the leader got (e.g. TicketNotFoundException -> 404)
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
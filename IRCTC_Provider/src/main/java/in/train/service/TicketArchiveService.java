@@ -0,0 +1,112 @@
+package in.train.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import in.train.config.ShardRouter;
+import in.train.repository.TicketArchiveRepository;
+import in.train.repository.TicketRepository;
+
+/**
+ * Service class that moves tickets of completed journeys from the "tickets"
+ * table to the "tickets_archive" table.
+ *
+ * Most traffic (booking, cancelling, listing) is about upcoming journeys, so
+ * keeping old journeys out of the hot table keeps its indexes and the pages
+ * the database has to cache small. Archived tickets can still be fetched by
+ * ticket ID or PNR (TicketService falls back to the archive), but they can no
+ * longer be cancelled.
+ *
+ * The job runs every night (archive.cron) and works in small batches, each in
+ * its own transaction, so it never holds locks on many rows at once.
+ */
+@Service
+public class TicketArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketArchiveService.class);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TicketArchiveRepository ticketArchiveRepository;
+
+    // Runs each batch in its own transaction, on every shard
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Switch for the scheduled run (archiveCompletedJourneys can still be called directly)
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    // Tickets stay in the hot table until this many days after the journey date
+    @Value("${archive.retention-days:1}")
+    private int retentionDays;
+
+    // Tickets moved per transaction
+    @Value("${archive.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Nightly archival run (2:30 AM by default).
+     */
+    @Scheduled(cron = "${archive.cron:0 30 2 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archiveCompletedJourneys();
+        }
+    }
+
+    /**
+     * Move all tickets whose journey date is older than the retention period.
+     * Each shard archives into its own tickets_archive table.
+     *
+     * @return number of archived tickets
+     */
+    public long archiveCompletedJourneys() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        long start = System.nanoTime();
+        long archived = 0;
+
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            while (true) {
+                int moved = shardRouter.write(shard, () -> archiveBatch(cutoff));
+                if (moved == 0) {
+                    break;
+                }
+                archived += moved;
+            }
+        }
+
+        logger.info("Archived {} tickets with journey date before {} in {} ms", archived, cutoff,
+                (System.nanoTime() - start) / 1_000_000);
+        return archived;
+    }
+
+    /**
+     * Copy one batch of old tickets to the archive and delete them from the
+     * hot table. Runs inside a transaction, so a batch moves completely or not at all.
+     *
+     * @return number of moved tickets (0 when nothing is left)
+     */
+    private int archiveBatch(LocalDate cutoff) {
+        // Rows are locked until the end of the transaction
+        List<Integer> ticketIds = ticketRepository.findIdsWithJourneyBefore(cutoff, Limit.of(batchSize));
+        if (ticketIds.isEmpty()) {
+            return 0;
+        }
+
+        ticketArchiveRepository.copyFromTickets(ticketIds, LocalDateTime.now());
+        ticketRepository.deleteByTicketIds(ticketIds);
+        return ticketIds.size();
+    }
+}
@@ -0,0 +1,506 @@
+package in.train.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import in.train.config.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory Bloom filter over every issued ticket ID and PNR.
+ *
+ * Scrapers and retrying clients ask for lots of tickets that do not exist.
+ * Without the filter each of those costs a database round trip (or one per
+ * shard). With it, TicketService answers "not found" straight away when the
+ * filter has never seen the ID or PNR. A Bloom filter can say "maybe" for a
+ * ticket that does not exist (about lookup.filter.false-positive-rate of the
+ * time, then the database is asked as before), but never "no" for a ticket it
+ * was given. Tickets booked on other instances are not given to it right
+ * away, so a "no" is only trusted where the filter has caught up (below).
+ *
+ * The filter is:
+ *  - built at startup from the tickets and tickets_archive tables of every shard
+ *    (after the seeder, before the web server takes requests)
+ *  - updated on every booking, before its transaction commits
+ *  - caught up every lookup.filter.refresh-ms with tickets booked by other
+ *    provider instances on the same databases (by booking time)
+ *
+ * Tickets booked on another instance, before the refresh has read them:
+ *  - IDs above the highest ID read by the refresh before the last one are
+ *    always looked up. Not the highest ID this instance booked: another
+ *    instance may still commit 101 after this one booked 102. A booking
+ *    taking longer than a refresh interval to commit can still be missed,
+ *    the same limit the refresh overlap has.
+ *  - PNRs carry their booking minute (ShardRouter.newPnr). PNRs booked from
+ *    one minute before the last refresh's watermark up to one minute ahead of
+ *    this clock are always looked up: a few minutes out of the 1000 minute
+ *    cycle, so most unknown PNRs are still rejected without a query, lock or
+ *    refresh. If refreshes stop (database down) that window grows until
+ *    every PNR is looked up. 10 digit PNRs (seeded and older tickets) are all
+ *    in the tables the filter was built from. A 12 digit PNR from a provider
+ *    version without the minute can be rejected until the next refresh.
+ *
+ * Tickets are never deleted (only archived or moved between shards, with
+ * the same ID and PNR), so nothing ever has to be removed from the filter.
+ *
+ * Building the filter reads every ticket, which takes minutes on a large
+ * database. So every lookup.filter.snapshot.interval-ms (and on shutdown) the
+ * filter is written to lookup.filter.snapshot.path together with its refresh
+ * watermark (TicketFilterSnapshot). At startup the snapshot is mapped,
+ * checked and taken over, and only the tickets booked since the watermark are
+ * read (the same indexed query as the refresh), so startup time depends on
+ * the bookings since the last snapshot, not on the size of the tables.
+ * The filter is built from the tables as before when:
+ *  - there is no snapshot, or it is damaged (checksum) or of another version
+ *  - it is smaller than lookup.filter.expected-tickets asks for, or so full
+ *    that it would miss lookup.filter.false-positive-rate
+ *  - a shard has a ticket ID above the highest one the snapshot and the
+ *    tickets booked since explain (e.g. the provider now uses other databases)
+ */
+@Component
+public class TicketExistenceFilter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketExistenceFilter.class);
+
+    // Different seeds keep ticket 1234567890 and PNR "1234567890" apart
+    private static final long ID_SEED = 0x9E3779B97F4A7C15L;
+    private static final long PNR_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Turns the filter off: every lookup goes to the database
+    @Value("${lookup.filter.enabled:true}")
+    private boolean enabled;
+
+    // Tickets the filter is sized for (at least twice the tickets found at startup)
+    @Value("${lookup.filter.expected-tickets:1000000}")
+    private long expectedTickets;
+
+    // Share of unknown IDs/PNRs still sent to the database while the filter is within its size
+    @Value("${lookup.filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Each refresh also reads tickets booked this long before the previous one
+    // (covers clock differences between instances and slow commits)
+    @Value("${lookup.filter.refresh-overlap-ms:5000}")
+    private long refreshOverlapMs;
+
+    // Start from a snapshot instead of reading every ticket
+    @Value("${lookup.filter.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+
+    @Value("${lookup.filter.snapshot.path:snapshots/ticket-filter.snapshot}")
+    private String snapshotFile;
+
+    // Null until built: everything "might exist" and is looked up in the database
+    private volatile BloomFilter filter;
+
+    // Highest ticket ID read from the tables (not the bookings of this instance)
+    private final AtomicLong highestTicketId = new AtomicLong();
+
+    // IDs above this are looked up in the database: highestTicketId as it was
+    // when the last refresh started, so that refresh has read everything below it again
+    private volatile long idWatermark;
+
+    // PNRs booked in this minute (since the epoch) or later are looked up in the
+    // database: the watermark of the last refresh, one minute early for clock differences
+    private volatile long pnrWatermarkMinute;
+
+    // One refresh at a time
+    private final Object refreshLock = new Object();
+
+    // Booking time the next refresh starts reading from
+    private volatile LocalDateTime refreshFrom;
+
+    private volatile boolean running;
+
+    private final Counter rejectedIds;
+
+    private final Counter rejectedPnrs;
+
+    public TicketExistenceFilter(MeterRegistry meterRegistry) {
+        rejectedIds = Counter.builder("tickets.filter.rejected")
+                .description("Lookups answered as not found by the existence filter, without a database query")
+                .tag("key", "id")
+                .register(meterRegistry);
+        rejectedPnrs = Counter.builder("tickets.filter.rejected")
+                .description("Lookups answered as not found by the existence filter, without a database query")
+                .tag("key", "pnr")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param ticketId ticket ID asked for
+     * @return false only if no ticket with this ID exists
+     */
+    public boolean mightContainTicketId(Integer ticketId) {
+        BloomFilter current = filter;
+        if (current == null || ticketId > idWatermark || current.mightContain(idHash(ticketId))) {
+            return true;
+        }
+        rejectedIds.increment();
+        return false;
+    }
+
+    /**
+     * @param pnr PNR asked for
+     * @return false only if no ticket with this PNR exists
+     */
+    public boolean mightContainPnr(String pnr) {
+        BloomFilter current = filter;
+        if (current == null || bookedSinceRefresh(pnr) || current.mightContain(pnrHash(pnr))) {
+            return true;
+        }
+        rejectedPnrs.increment();
+        return false;
+    }
+
+    // Whether the PNR's booking minute is not yet covered by the refresh (maybe booked on another instance)
+    private boolean bookedSinceRefresh(String pnr) {
+        int minute = ShardRouter.pnrMinute(pnr);
+        if (minute < 0) {
+            return false;
+        }
+        long watermark = pnrWatermarkMinute;
+        long window = System.currentTimeMillis() / 60_000 + 1 - watermark;
+        if (window >= ShardRouter.PNR_MINUTE_CYCLE) {
+            // No refresh for a whole cycle: the minute no longer tells
+            return true;
+        }
+        return Math.floorMod(minute - watermark, ShardRouter.PNR_MINUTE_CYCLE) <= window;
+    }
+
+    /**
+     * Record a new ticket. Called before the booking commits, so nobody can
+     * read the ticket from the database before the filter knows it.
+     */
+    public void add(Integer ticketId, String pnr) {
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(idHash(ticketId));
+            current.put(pnrHash(pnr));
+        }
+    }
+
+    /**
+     * Build a new filter from the ticket tables of every shard and start using it.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        LocalDateTime startedAt = LocalDateTime.now();
+
+        long tickets = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRouter.dataSource(shard));
+            tickets += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets", Long.class);
+            tickets += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets_archive", Long.class);
+        }
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTickets, tickets * 2), falsePositiveRate);
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRouter.dataSource(shard));
+            jdbcTemplate.setFetchSize(10_000);
+            jdbcTemplate.query("SELECT ticket_id, pnr FROM tickets",
+                    addingTo(rebuilt));
+            jdbcTemplate.query("SELECT ticket_id, pnr FROM tickets_archive",
+                    addingTo(rebuilt));
+        }
+
+        // Bookings made while scanning are picked up by the next refresh, new IDs looked up until then
+        refreshFrom = startedAt.minusNanos(refreshOverlapMs * 1_000_000);
+        pnrWatermarkMinute = minuteOf(refreshFrom);
+        idWatermark = 0;
+        filter = rebuilt;
+        logger.info("Ticket existence filter built from {} tickets in {} ms ({} KB)", tickets,
+                (System.nanoTime() - start) / 1_000_000, rebuilt.sizeInBytes() / 1024);
+    }
+
+    /**
+     * Start from the snapshot file and add the tickets booked since it was written.
+     *
+     * @return false if there is no usable snapshot (the filter has to be rebuilt)
+     */
+    boolean restoreSnapshot() {
+        Path snapshotPath = Path.of(snapshotFile);
+        if (!enabled || !snapshotEnabled || !Files.exists(snapshotPath)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        TicketFilterSnapshot snapshot;
+        try {
+            snapshot = TicketFilterSnapshot.read(snapshotPath);
+        } catch (IOException ex) {
+            logger.warn("Ticket existence filter snapshot {} not used: {}", snapshotPath, ex.getMessage());
+            return false;
+        }
+
+        BloomFilter restored = snapshot.filter();
+        if (restored.wordCount() < BloomFilter.wordCountFor(expectedTickets, falsePositiveRate)
+                || restored.estimatedFalsePositiveRate() > falsePositiveRate) {
+            logger.info("Ticket existence filter snapshot is smaller or fuller than lookup.filter.* asks for, rebuilding");
+            return false;
+        }
+        // Before the replay, so every ticket up to it has been booked before the replay reads
+        long highestInDatabase = highestTicketIdInDatabase();
+        // Higher IDs in the snapshot are gone from the databases: look new ones up again
+        highestTicketId.set(Math.min(snapshot.highestTicketId(), highestInDatabase));
+        refreshFrom = snapshot.refreshFrom();
+        pnrWatermarkMinute = minuteOf(refreshFrom);
+        idWatermark = 0;
+        filter = restored;
+
+        // Replay only the tickets booked since the snapshot
+        refresh();
+        if (highestInDatabase > highestTicketId.get()) {
+            logger.warn("Ticket existence filter snapshot does not match the databases (ticket {} is missing), "
+                    + "rebuilding", highestInDatabase);
+            filter = null;
+            highestTicketId.set(0);
+            idWatermark = 0;
+            return false;
+        }
+        logger.info("Ticket existence filter restored from {} (watermark {}) in {} ms ({} KB)", snapshotPath,
+                snapshot.refreshFrom(), (System.nanoTime() - start) / 1_000_000, restored.sizeInBytes() / 1024);
+        return true;
+    }
+
+    /**
+     * Write the filter to the snapshot file, for the next startup.
+     */
+    @Scheduled(fixedDelayString = "${lookup.filter.snapshot.interval-ms:300000}",
+            initialDelayString = "${lookup.filter.snapshot.interval-ms:300000}")
+    public synchronized void writeSnapshot() {
+        BloomFilter current = filter;
+        if (current == null || !snapshotEnabled) {
+            return;
+        }
+        // Watermark first: the bits only grow, so everything before it is in them
+        LocalDateTime watermark = refreshFrom;
+        long highest = highestTicketId.get();
+        long start = System.nanoTime();
+        try {
+            new TicketFilterSnapshot(current, highest, watermark).write(Path.of(snapshotFile));
+            logger.debug("Ticket existence filter snapshot written in {} ms",
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException ex) {
+            // The previous snapshot stays; startup just replays more tickets
+            logger.warn("Could not write the ticket existence filter snapshot {}", snapshotFile, ex);
+        }
+    }
+
+    /**
+     * Add tickets booked since the last refresh, on this or any other instance.
+     */
+    @Scheduled(fixedDelayString = "${lookup.filter.refresh-ms:1000}")
+    public void refresh() {
+        synchronized (refreshLock) {
+            BloomFilter current = filter;
+            if (current == null) {
+                return;
+            }
+            long highestBefore = highestTicketId.get();
+            LocalDateTime startedAt = LocalDateTime.now();
+            Timestamp from = Timestamp.valueOf(refreshFrom);
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                new JdbcTemplate(shardRouter.dataSource(shard)).query(
+                        "SELECT ticket_id, pnr FROM tickets WHERE booking_time >= ?",
+                        addingTo(current), from);
+            }
+            refreshFrom = startedAt.minusNanos(refreshOverlapMs * 1_000_000);
+            // Everything booked before refreshFrom has been read now
+            pnrWatermarkMinute = minuteOf(refreshFrom);
+            idWatermark = highestBefore;
+        }
+    }
+
+    // Minutes since the epoch of a booking time, one minute early for clock differences between instances
+    private static long minuteOf(LocalDateTime bookingTime) {
+        return bookingTime.atZone(ZoneId.systemDefault()).toEpochSecond() / 60 - 1;
+    }
+
+    // Primary key lookups: one index read per table and shard
+    private long highestTicketIdInDatabase() {
+        long highest = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shardRouter.dataSource(shard));
+            for (String table : new String[] { "tickets", "tickets_archive" }) {
+                Long max = jdbcTemplate.queryForObject("SELECT MAX(ticket_id) FROM " + table, Long.class);
+                highest = Math.max(highest, max == null ? 0 : max);
+            }
+        }
+        return highest;
+    }
+
+    // Adds each (ticket_id, pnr) row of a query to the given filter
+    private RowCallbackHandler addingTo(BloomFilter target) {
+        return rs -> add(target, rs.getInt(1), rs.getString(2));
+    }
+
+    private void add(BloomFilter target, int ticketId, String pnr) {
+        target.put(idHash(ticketId));
+        target.put(pnrHash(pnr));
+        highestTicketId.accumulateAndGet(ticketId, Math::max);
+    }
+
+    // Built after the seeder (afterSingletonsInstantiated) and before the web and RSocket servers start
+    @Override
+    public void start() {
+        if (!restoreSnapshot()) {
+            rebuild();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        // The next startup replays only what is booked after this
+        writeSnapshot();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private static long idHash(long ticketId) {
+        return mix(ticketId ^ ID_SEED);
+    }
+
+    private static long pnrHash(String pnr) {
+        // FNV-1a over the characters, then mixed like the IDs
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < pnr.length(); i++) {
+            hash = (hash ^ pnr.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash ^ PNR_SEED);
+    }
+
+    // Spreads the bits of a 64 bit value (finalizer of SplitMix64)
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Fixed size Bloom filter over 64 bit hashes, safe for concurrent use.
+     *
+     * Each key sets k bits picked with double hashing (h1 + i * h2). The bits
+     * live in an AtomicLongArray, so adds from many threads never lose a bit
+     * and reads need no lock.
+     */
+    static final class BloomFilter {
+
+        private final AtomicLongArray words;
+
+        private final long bitCount;
+
+        private final int hashCount;
+
+        /**
+         * @param expectedTickets   tickets the filter should hold (two keys each: ID and PNR)
+         * @param falsePositiveRate wanted share of "maybe" answers for keys never added
+         */
+        BloomFilter(long expectedTickets, double falsePositiveRate) {
+            long keys = Math.max(1, expectedTickets * 2);
+            int wordCount = wordCountFor(expectedTickets, falsePositiveRate);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = wordCount * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        }
+
+        /**
+         * Filter with the given bits (read from a snapshot).
+         */
+        BloomFilter(AtomicLongArray words, int hashCount) {
+            this.words = words;
+            this.bitCount = words.length() * 64L;
+            this.hashCount = hashCount;
+        }
+
+        // Optimal size for the wanted false positive rate, in 64 bit words
+        static int wordCountFor(long expectedTickets, double falsePositiveRate) {
+            long keys = Math.max(1, expectedTickets * 2);
+            long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        }
+
+        void put(long hash) {
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = words.get(word);
+                while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                    current = words.get(word);
+                }
+            }
+        }
+
+        boolean mightContain(long hash) {
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long sizeInBytes() {
+            return bitCount / 8;
+        }
+
+        int wordCount() {
+            return words.length();
+        }
+
+        long word(int index) {
+            return words.get(index);
+        }
+
+        int hashCount() {
+            return hashCount;
+        }
+
+        /**
+         * @return share of keys never added that get a "maybe", from how many bits are set
+         */
+        double estimatedFalsePositiveRate() {
+            long setBits = 0;
+            for (int i = 0; i < words.length(); i++) {
+                setBits += Long.bitCount(words.get(i));
+            }
+            return Math.pow((double) setBits / bitCount, hashCount);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package in.train.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.CRC32C;
+
+import in.train.service.TicketExistenceFilter.BloomFilter;
+
+/**
+ * File format of the existence filter snapshot (TicketExistenceFilter).
+ *
+ * Layout (little endian), so the file can be memory-mapped as it is:
+ *  - header, 48 bytes: magic, version, hash count, word count, highest
+ *    ticket ID, refresh watermark (epoch seconds + nanos, UTC), time written
+ *  - the filter bits: word count * 8 bytes
+ *  - CRC32C of everything before it, 4 bytes
+ *
+ * Written through a small direct (off-heap) buffer into a temporary file
+ * that replaces the old snapshot only once it is complete and on disk, so a
+ * crash while writing leaves the previous snapshot in place.
+ *
+ * Read by mapping the file in regions of up to 1 GB: the checksum is
+ * computed straight on the mapped pages and the bits are copied into the
+ * filter, without reading the file through the heap.
+ *
+ * @param filter          the filter bits
+ * @param highestTicketId highest ticket ID added to the filter
+ * @param refreshFrom     booking time the next refresh has to start reading from
+ */
+record TicketFilterSnapshot(BloomFilter filter, long highestTicketId, LocalDateTime refreshFrom) {
+
+    private static final int MAGIC = 0x544B4246; // "TKBF"
+    private static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 48;
+    private static final int CHECKSUM_BYTES = 4;
+
+    // Filter words written per buffer, and mapped per region when reading
+    private static final int WRITE_WORDS = 128 * 1024;
+    private static final int MAP_WORDS = 128 * 1024 * 1024;
+
+    /**
+     * Write the snapshot to the given file, replacing it when done.
+     */
+    void write(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(HEADER_BYTES, WRITE_WORDS * 8))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                CRC32C crc = new CRC32C();
+
+                buffer.putInt(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(filter.hashCount())
+                        .putInt(filter.wordCount())
+                        .putLong(highestTicketId)
+                        .putLong(refreshFrom.toEpochSecond(ZoneOffset.UTC))
+                        .putInt(refreshFrom.getNano())
+                        .putInt(0)
+                        .putLong(System.currentTimeMillis());
+                for (int word = 0; word < filter.wordCount(); word++) {
+                    if (!buffer.hasRemaining()) {
+                        flush(buffer, crc, channel);
+                    }
+                    buffer.putLong(filter.word(word));
+                }
+                flush(buffer, crc, channel);
+
+                buffer.putInt((int) crc.getValue());
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // On disk before it replaces the previous snapshot
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Map and check a snapshot file.
+     *
+     * @throws IOException if the file cannot be read, is not a snapshot of
+     *                     this version, or its checksum does not match
+     */
+    static TicketFilterSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES) {
+                throw new IOException("Snapshot is truncated (" + size + " bytes)");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a ticket filter snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Snapshot version " + version + " is not supported");
+            }
+            int hashCount = header.getInt();
+            int wordCount = header.getInt();
+            long highestTicketId = header.getLong();
+            long refreshFromSeconds = header.getLong();
+            int refreshFromNanos = header.getInt();
+            if (hashCount < 1 || wordCount < 1 || refreshFromNanos < 0 || refreshFromNanos > 999_999_999) {
+                throw new IOException("Snapshot header is invalid");
+            }
+            if (size != HEADER_BYTES + wordCount * 8L + CHECKSUM_BYTES) {
+                throw new IOException("Snapshot is " + size + " bytes, its header says "
+                        + (HEADER_BYTES + wordCount * 8L + CHECKSUM_BYTES));
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(header.rewind());
+            AtomicLongArray words = new AtomicLongArray(wordCount);
+            long position = HEADER_BYTES;
+            int word = 0;
+            while (word < wordCount) {
+                int count = Math.min(wordCount - word, MAP_WORDS);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, count * 8L);
+                crc.update(region.duplicate());
+                LongBuffer longs = region.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+                for (int i = 0; i < count; i++) {
+                    words.set(word++, longs.get(i));
+                }
+                position += count * 8L;
+            }
+            int checksum = channel.map(FileChannel.MapMode.READ_ONLY, position, CHECKSUM_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .getInt();
+            if (checksum != (int) crc.getValue()) {
+                throw new IOException("Snapshot checksum does not match");
+            }
+
+            LocalDateTime refreshFrom = LocalDateTime.ofEpochSecond(refreshFromSeconds, refreshFromNanos,
+                    ZoneOffset.UTC);
+            return new TicketFilterSnapshot(new BloomFilter(words, hashCount), highestTicketId, refreshFrom);
+        }
+    }
+
+    // Checksum and write what is in the buffer, then empty it
+    private static void flush(ByteBuffer buffer, CRC32C crc, FileChannel channel) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
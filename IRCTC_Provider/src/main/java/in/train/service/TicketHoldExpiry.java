@@ -0,0 +1,214 @@
+package in.train.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import in.train.config.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Releases seat holds that were not confirmed in time.
+ *
+ * Every HELD ticket gets a timeout on an in-memory hierarchical timing wheel
+ * (TimingWheel). One thread advances the wheel every hold.wheel.tick-ms and
+ * hands each expired ticket ID to TicketService, which changes the ticket
+ * from HELD to EXPIRED. Adding, cancelling (on confirm or cancel) and expiring
+ * a hold is O(1), however many holds are waiting, and the database is only
+ * touched for holds that actually expire.
+ *
+ * The wheel only lives in memory, so:
+ *  - at startup every live hold (tickets.held_until set) is loaded from all
+ *    shards; holds that ran out while the provider was down expire at once
+ *  - every hold.sweep-ms one indexed query picks up holds that are overdue by
+ *    more than hold.sweep-grace-ms: holds of a provider instance that stopped
+ *    for good. This is only a backstop; it does not drive normal expiry.
+ *
+ * Expiry runs one hold after the other on the wheel thread, which also keeps
+ * a burst of expiring holds from flooding the database.
+ */
+@Component
+public class TicketHoldExpiry implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketHoldExpiry.class);
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Expiry precision: holds expire at most one tick late
+    @Value("${hold.wheel.tick-ms:100}")
+    private long tickMs;
+
+    // How long a hold may be overdue before the backstop sweep expires it
+    @Value("${hold.sweep-grace-ms:60000}")
+    private long sweepGraceMs;
+
+    // Ticket ID -> its timeout on the wheel
+    private final Map<Integer, TimingWheel.Timeout<Integer>> holds = new ConcurrentHashMap<>();
+
+    private final Counter expiredHolds;
+
+    private final Counter sweptHolds;
+
+    // Set by TicketService: changes an expired hold to EXPIRED
+    private volatile IntConsumer expiryHandler;
+
+    private volatile TimingWheel<Integer> wheel;
+
+    private volatile long startNanos;
+
+    private ScheduledExecutorService ticker;
+
+    private volatile boolean running;
+
+    public TicketHoldExpiry(MeterRegistry meterRegistry) {
+        expiredHolds = Counter.builder("tickets.holds.expired")
+                .description("Seat holds released because they were not confirmed in time")
+                .register(meterRegistry);
+        sweptHolds = Counter.builder("tickets.holds.swept")
+                .description("Overdue seat holds found by the backstop sweep instead of the timing wheel")
+                .register(meterRegistry);
+        Gauge.builder("tickets.holds.pending", holds, Map::size)
+                .description("Seat holds waiting on this instance's timing wheel")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param handler called with the ID of every hold that ran out
+     */
+    public void setExpiryHandler(IntConsumer handler) {
+        this.expiryHandler = handler;
+    }
+
+    /**
+     * Expire the hold on a ticket at the given time, unless it is confirmed
+     * or cancelled before.
+     */
+    public void schedule(Integer ticketId, LocalDateTime heldUntil) {
+        TimingWheel<Integer> current = wheel;
+        if (current == null) {
+            // Not started yet: start() loads the hold from the database
+            return;
+        }
+        long delayNanos = Duration.between(LocalDateTime.now(), heldUntil).toNanos();
+        // Rounded up: a hold never expires before heldUntil
+        long deadlineTick = (System.nanoTime() - startNanos + Math.max(0, delayNanos) + tickNanos() - 1) / tickNanos();
+        TimingWheel.Timeout<Integer> previous = holds.put(ticketId, current.schedule(ticketId, deadlineTick));
+        if (previous != null) {
+            current.cancel(previous);
+        }
+    }
+
+    /**
+     * Forget the hold on a ticket (it was confirmed or cancelled).
+     */
+    public void unschedule(Integer ticketId) {
+        TimingWheel.Timeout<Integer> timeout = holds.remove(ticketId);
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    /**
+     * Backstop for holds whose provider instance stopped before they ran out.
+     */
+    @Scheduled(fixedDelayString = "${hold.sweep-ms:300000}", initialDelayString = "${hold.sweep-ms:300000}")
+    public void sweepOverdueHolds() {
+        Timestamp overdue = Timestamp.valueOf(LocalDateTime.now().minusNanos(sweepGraceMs * 1_000_000));
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<Integer> ticketIds = new JdbcTemplate(shardRouter.dataSource(shard))
+                    .queryForList("SELECT ticket_id FROM tickets WHERE held_until < ?", Integer.class, overdue);
+            for (Integer ticketId : ticketIds) {
+                sweptHolds.increment();
+                unschedule(ticketId);
+                expire(ticketId);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        startNanos = System.nanoTime();
+        wheel = new TimingWheel<>(0);
+
+        // Live holds from before the restart (and of other instances)
+        int loaded = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            List<Map<String, Object>> rows = new JdbcTemplate(shardRouter.dataSource(shard))
+                    .queryForList("SELECT ticket_id, held_until FROM tickets WHERE held_until IS NOT NULL");
+            for (Map<String, Object> row : rows) {
+                schedule(((Number) row.get("ticket_id")).intValue(),
+                        ((Timestamp) row.get("held_until")).toLocalDateTime());
+                loaded++;
+            }
+        }
+        logger.info("Seat hold expiry started with {} live holds", loaded);
+
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hold-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    // Process the ticks that passed since the last run
+    private void tick() {
+        List<Integer> expired = wheel.advance((System.nanoTime() - startNanos) / tickNanos());
+        for (Integer ticketId : expired) {
+            holds.remove(ticketId);
+            expiredHolds.increment();
+            expire(ticketId);
+        }
+    }
+
+    private void expire(Integer ticketId) {
+        try {
+            expiryHandler.accept(ticketId);
+        } catch (RuntimeException ex) {
+            // Picked up again by the next sweep
+            logger.warn("Could not release the hold on ticket {}", ticketId, ex);
+        }
+    }
+
+    private long tickNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(tickMs);
+    }
+}
@@ -3,24 +3,55 @@ package in.train.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import in.train.config.ReadYourWrites;
+import in.train.config.ShardRouter;
+import in.train.entity.Gender;
 import in.train.entity.TicketEntity;
+import in.train.entity.TicketStatus;
+import in.train.exception.BadRequestException;
+import in.train.exception.TicketConflictException;
 import in.train.exception.TicketNotFoundException;
+import in.train.repository.TicketArchiveRepository;
 import in.train.repository.TicketRepository;
+import in.train.repository.TicketView;
 import in.train.request.Passenger;
 import in.train.responce.Ticket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PostConstruct;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Service class that contains all business logic related to
  * ticket booking, fetching, cancelling and searching tickets.
+ *
+ * Tickets are spread over shards by train number (see ShardRouter). Every
+ * database call runs on a shard: single-ticket lookups on the shard encoded
+ * in the ticket ID or PNR, lists and name searches on all shards in parallel.
+ * With one shard (the default) this is the same as before.
  */
 @Service
 public class TicketService {
@@ -32,12 +63,177 @@ public class TicketService {
     @Autowired
     private TicketRepository ticketRepository;
 
+    // Tickets of completed journeys (moved there by TicketArchiveService)
+    @Autowired
+    private TicketArchiveRepository ticketArchiveRepository;
+
+    // Sends reads of just written tickets to the primary database (when replicas are used)
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    // Picks the shard of a ticket and runs the database calls there
+    @Autowired
+    private ShardRouter shardRouter;
+
+    // Knows every issued ticket ID and PNR, so lookups of unknown tickets skip the database
+    @Autowired
+    private TicketExistenceFilter existenceFilter;
+
+    // Concurrent lookups of the same ticket ID or PNR share one database query
+    @Value("${lookup.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SingleFlight<Integer, Ticket> ticketLookups;
+
+    private SingleFlight<String, List<TicketView>> pnrLookups;
+
+    // Releases seat holds that are not confirmed in time
+    @Autowired
+    private TicketHoldExpiry holdExpiry;
+
+    // How long a held seat stays reserved for payment
+    @Value("${hold.ttl-minutes:10}")
+    private long holdTtlMinutes;
+
+    // Attempts of an update that keeps hitting concurrent changes (optimistic lock conflicts)
+    @Value("${ticket.update.max-attempts:3}")
+    private int maxUpdateAttempts;
+
+    // Most ticket IDs one batch lookup may ask for
+    @Value("${lookup.batch.max-ids:200}")
+    private int maxBatchIds;
+
+    // Random PNRs drawn before giving up when each one is already taken
+    private static final int PNR_ATTEMPTS = 5;
+
+    // Same order as the list query: booking time, then ticket ID
+    private static final Comparator<TicketView> BOOKING_ORDER = Comparator
+            .comparing(TicketView::bookingTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TicketView::ticketId);
+
+    @PostConstruct
+    void init() {
+        ticketLookups = new SingleFlight<>("id", singleFlightEnabled, meterRegistry);
+        pnrLookups = new SingleFlight<>("pnr", singleFlightEnabled, meterRegistry);
+        holdExpiry.setExpiryHandler(this::expireHold);
+    }
+
     /**
      * This method books a new ticket for a passenger.
      * It converts Passenger request to TicketEntity,
      * saves it into database and returns Ticket response DTO.
      */
+    @Observed(name = "ticket.service")
     public Ticket bookTicket(Passenger passenger) {
+        return bookTicket(passenger, null);
+    }
+
+    /**
+     * Same as bookTicket(passenger), but safe to repeat: a request sent again
+     * with the same idempotency key (a client retrying after a timeout or a
+     * 5xx, not knowing whether the first one was booked) gets the ticket the
+     * first request booked instead of a second ticket.
+     *
+     * @param idempotencyKey Idempotency-Key header of the request (null = none)
+     */
+    @Observed(name = "ticket.service")
+    public Ticket bookTicket(Passenger passenger, String idempotencyKey) {
+        if (idempotencyKey != null && idempotencyKey.length() > 64) {
+            throw new BadRequestException("Idempotency-Key must not be longer than 64 characters");
+        }
+
+        // Booked before under this key: return that ticket
+        if (idempotencyKey != null) {
+            Optional<TicketEntity> earlier = findByIdempotencyKey(passenger.getTrainNum(), idempotencyKey);
+            if (earlier.isPresent()) {
+                logger.info("Booking with idempotency key {} was already made, ticket ID: {}", idempotencyKey,
+                        earlier.get().getTicketId());
+                return convertToResponse(earlier.get());
+            }
+        }
+
+        // Paid right away: CONFIRMED without a hold
+        TicketEntity savedEntity;
+        try {
+            savedEntity = saveNewTicket(passenger, TicketStatus.CONFIRMED, null, idempotencyKey);
+        } catch (DataIntegrityViolationException ex) {
+            // A concurrent request with the same key booked it first
+            if (idempotencyKey == null || !isConstraintViolation(ex, "uk_tickets_idempotency_key")) {
+                throw ex;
+            }
+            return convertToResponse(findByIdempotencyKey(passenger.getTrainNum(), idempotencyKey)
+                    .orElseThrow(() -> ex));
+        }
+
+        // Log booking information
+        logger.info("Booking ticket for passenger: {} {}", passenger.getFname(), passenger.getLname());
+        logger.info("Ticket booked successfully with ID: {}", savedEntity.getTicketId());
+
+        // Convert saved entity to response DTO and return
+        return convertToResponse(savedEntity);
+    }
+
+    /**
+     * This method holds a seat for a passenger who still has to pay.
+     * The ticket is saved as HELD until now + hold.ttl-minutes. confirmTicket
+     * turns it into CONFIRMED; otherwise TicketHoldExpiry releases the seat
+     * when the hold runs out (EXPIRED).
+     */
+    @Observed(name = "ticket.service")
+    public Ticket holdTicket(Passenger passenger) {
+        LocalDateTime heldUntil = LocalDateTime.now().plusMinutes(holdTtlMinutes);
+        TicketEntity savedEntity = saveNewTicket(passenger, TicketStatus.HELD, heldUntil, null);
+        holdExpiry.schedule(savedEntity.getTicketId(), heldUntil);
+
+        logger.info("Seat held with ticket ID {} until {}", savedEntity.getTicketId(), heldUntil);
+        return convertToResponse(savedEntity);
+    }
+
+    /**
+     * Converts the passenger request to a TicketEntity with the given status
+     * and saves it on the train's shard.
+     */
+    private TicketEntity saveNewTicket(Passenger passenger, TicketStatus status, LocalDateTime heldUntil,
+            String idempotencyKey) {
+        TicketEntity entity = newTicket(passenger, status, heldUntil, idempotencyKey);
+
+        // The train decides the shard; the PNR records it
+        int shard = shardRouter.shardForTrain(passenger.getTrainNum());
+
+        for (int attempt = 1; ; attempt++) {
+            // Generate unique PNR number (random, so another ticket may already have it)
+            entity.setPnr(shardRouter.newPnr(shard));
+            try {
+                // Save ticket details into database
+                // (the existence filter learns the ticket before the transaction commits)
+                TicketEntity savedEntity = shardRouter.write(shard, () -> {
+                    TicketEntity saved = ticketRepository.save(entity);
+                    existenceFilter.add(saved.getTicketId(), saved.getPnr());
+                    return saved;
+                });
+                written(savedEntity);
+                return savedEntity;
+            } catch (DataIntegrityViolationException ex) {
+                if (attempt >= PNR_ATTEMPTS || !isConstraintViolation(ex, "uk_tickets_pnr")) {
+                    throw ex;
+                }
+                // Rolled back: insert it again as a new ticket with another PNR
+                logger.warn("PNR {} is already taken, drawing a new one", entity.getPnr());
+                entity.setTicketId(null);
+                entity.setVersion(null);
+            }
+        }
+    }
+
+    /**
+     * Converts the passenger request to a TicketEntity with the given status
+     * (not saved yet, no PNR).
+     */
+    private TicketEntity newTicket(Passenger passenger, TicketStatus status, LocalDateTime heldUntil,
+            String idempotencyKey) {
 
         // Create entity object from passenger request
         TicketEntity entity = new TicketEntity();
@@ -45,7 +241,7 @@ public class TicketService {
         // Set passenger details
         entity.setPassengerFirstName(passenger.getFname());
         entity.setPassengerLastName(passenger.getLname());
-        entity.setGender(passenger.getGender());
+        entity.setGender(Gender.fromLabel(passenger.getGender()));
 
         // Set journey details
         entity.setFromStation(passenger.getFrom());
@@ -56,90 +252,357 @@ public class TicketService {
         // Calculate and set ticket cost
         entity.setTicketCost(calculateFare(passenger.getFrom(), passenger.getTo()));
 
-        // Set ticket status as CONFIRMED
-        entity.setTicketStatus("CONFIRMED");
-
-        // Generate unique PNR number
-        entity.setPnr(generatePNR());
+        // Set ticket status (CONFIRMED, or HELD until heldUntil)
+        entity.setTicketStatus(status);
+        entity.setHeldUntil(heldUntil);
 
         // Set current booking time
         entity.setBookingTime(LocalDateTime.now());
+        entity.setIdempotencyKey(idempotencyKey);
+        return entity;
+    }
 
-        // Save ticket details into database
-        TicketEntity savedEntity = ticketRepository.save(entity);
+    /**
+     * Everything a booking and the lookups after it do, except writing:
+     * the ticket is built like saveNewTicket builds it but never saved, and
+     * the lookups by ID, IDs and PNR run for a probe ticket ID and the new
+     * PNR on the train's shard. Used by TicketServiceWarmup, so it takes no
+     * ticket ID, adds nothing to the existence filter and logs nothing.
+     */
+    Ticket warmUpBooking(Passenger passenger, Integer probeTicketId) {
+        TicketEntity entity = newTicket(passenger, TicketStatus.CONFIRMED, null, null);
+        int shard = shardRouter.shardForTrain(passenger.getTrainNum());
+        entity.setPnr(shardRouter.newPnr(shard));
+
+        findTicketOnShard(shard, probeTicketId);
+        findTicketsOnShard(shard, List.of(probeTicketId));
+        findByPnrOnShard(shard, entity.getPnr());
+        return convertToResponse(entity);
+    }
 
-        // Log booking information
-        logger.info("Booking ticket for passenger: {} {}", passenger.getFname(), passenger.getLname());
-        logger.info("Ticket booked successfully with ID: {}", savedEntity.getTicketId());
+    /**
+     * Ticket booked under an idempotency key, on the shard of its train
+     * (moved trains take their tickets, and the keys, along).
+     */
+    private Optional<TicketEntity> findByIdempotencyKey(String trainNumber, String idempotencyKey) {
+        return shardRouter.read(shardRouter.shardForTrain(trainNumber),
+                () -> ticketRepository.findByIdempotencyKey(idempotencyKey));
+    }
 
-        // Convert saved entity to response DTO and return
-        return convertToResponse(savedEntity);
+    // Whether the insert failed on the given unique constraint (e.g. uk_tickets_pnr)
+    private static boolean isConstraintViolation(DataIntegrityViolationException ex, String constraint) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null && message.toLowerCase().contains(constraint)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
      * This method fetches ticket details by ticket ID.
+     * Tickets of completed journeys are looked up in the archive.
      * If ticket is not found, it throws TicketNotFoundException.
+     * IDs the existence filter has never seen are rejected without a query.
+     * Concurrent lookups of the same ID share one query (SingleFlight).
      */
+    @Observed(name = "ticket.service")
     public Ticket getTicketById(Integer ticketId) {
-        TicketEntity entity = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new TicketNotFoundException("Ticket not found with ID: " + ticketId));
+        if (!existenceFilter.mightContainTicketId(ticketId)) {
+            throw new TicketNotFoundException("Ticket not found with ID: " + ticketId);
+        }
+        // Shard encoded in the ID first, the other shards only if it is not there
+        return ticketLookups.run(ticketId, () -> shardRouter
+                .findFirst(shardRouter.shardForTicketId(ticketId), shard -> findTicketOnShard(shard, ticketId))
+                .orElseThrow(() -> new TicketNotFoundException("Ticket not found with ID: " + ticketId)));
+    }
 
-        // Convert entity to response DTO
-        return convertToResponse(entity);
+    /**
+     * This method fetches many tickets with one query per shard.
+     * Ticket IDs that do not exist are simply left out of the result,
+     * so the caller can decide how to report them.
+     * A list of more than lookup.batch.max-ids IDs is rejected (400).
+     */
+    @Observed(name = "ticket.service")
+    public List<Ticket> getTicketsByIds(List<Integer> ticketIds) {
+        if (ticketIds.size() > maxBatchIds) {
+            throw new BadRequestException(
+                    "At most " + maxBatchIds + " ticket IDs per batch, got " + ticketIds.size());
+        }
+        // Group the IDs by the shard encoded in them
+        Map<Integer, List<Integer>> idsByShard = new LinkedHashMap<>();
+        for (Integer ticketId : new HashSet<>(ticketIds)) {
+            // Skip IDs that certainly do not exist
+            if (!existenceFilter.mightContainTicketId(ticketId)) {
+                continue;
+            }
+            idsByShard.computeIfAbsent(shardRouter.shardForTicketId(ticketId), shard -> new ArrayList<>()).add(ticketId);
+        }
+        if (idsByShard.isEmpty()) {
+            return List.of();
+        }
+
+        List<Ticket> tickets = new ArrayList<>();
+        shardRouter.onShards(idsByShard.keySet(), shard -> findTicketsOnShard(shard, idsByShard.get(shard)))
+                .forEach(tickets::addAll);
+
+        // IDs not found on their shard (created before sharding or moved): ask every shard
+        Set<Integer> missing = new HashSet<>();
+        idsByShard.values().forEach(missing::addAll);
+        tickets.forEach(ticket -> missing.remove(ticket.getTicketId()));
+        if (!missing.isEmpty() && shardRouter.shardCount() > 1) {
+            shardRouter.onAllShards(shard -> findTicketsOnShard(shard, missing)).forEach(tickets::addAll);
+        }
+        return tickets;
     }
 
     /**
      * This method cancels a ticket by changing its status to CANCELLED.
+     * Archived tickets (completed journeys) cannot be cancelled, so only
+     * the hot table is checked.
+     *
+     * Only a CONFIRMED or HELD ticket is changed; cancelling it again does
+     * nothing. Cancelling a HELD ticket releases the seat right away.
      */
+    @Observed(name = "ticket.service")
     public void cancelTicket(Integer ticketId) {
-        TicketEntity entity = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new TicketNotFoundException("Ticket not found with ID: " + ticketId));
+        if (!existenceFilter.mightContainTicketId(ticketId)) {
+            throw new TicketNotFoundException("Ticket not found with ID: " + ticketId);
+        }
+        changeStatus(ticketId, TicketStatus.CANCELLED);
+        holdExpiry.unschedule(ticketId);
+    }
+
+    /**
+     * This method confirms a HELD ticket once the passenger has paid.
+     * Confirming a CONFIRMED ticket again does nothing. A hold that expired
+     * or was cancelled cannot be confirmed: the seat may be gone.
+     */
+    @Observed(name = "ticket.service")
+    public Ticket confirmTicket(Integer ticketId) {
+        if (!existenceFilter.mightContainTicketId(ticketId)) {
+            throw new TicketNotFoundException("Ticket not found with ID: " + ticketId);
+        }
+        TicketEntity entity = changeStatus(ticketId, TicketStatus.CONFIRMED);
+        if (entity.getTicketStatus() != TicketStatus.CONFIRMED) {
+            throw new TicketConflictException("Ticket " + ticketId + " is " + entity.getTicketStatus()
+                    + " and can no longer be confirmed");
+        }
+        holdExpiry.unschedule(ticketId);
+        return convertToResponse(entity);
+    }
 
-        // Update ticket status
-        entity.setTicketStatus("CANCELLED");
+    /**
+     * Releases a hold that ran out (called by TicketHoldExpiry).
+     * Does nothing if the ticket was confirmed or cancelled in the meantime.
+     */
+    private void expireHold(int ticketId) {
+        try {
+            if (changeStatus(ticketId, TicketStatus.EXPIRED).getTicketStatus() == TicketStatus.EXPIRED) {
+                logger.info("Hold on ticket {} expired, seat released", ticketId);
+            }
+        } catch (TicketNotFoundException ex) {
+            // Archived (journey date passed) or never committed: nothing to release
+            logger.debug("Expired hold on ticket {} not found", ticketId);
+        }
+    }
 
-        // Save updated entity
-        ticketRepository.save(entity);
+    /**
+     * Changes the status of a ticket if its current status allows it
+     * (TicketStatus.canChangeTo), otherwise leaves it as it is. Leaving HELD
+     * also ends the hold (held_until is cleared).
+     * Runs in one read-write transaction on the ticket's shard, so the
+     * ticket is read from the primary database.
+     *
+     * The UPDATE only succeeds if nobody changed the ticket since it was read
+     * (version check). On a conflict the ticket is read again and the
+     * change retried, up to ticket.update.max-attempts times.
+     *
+     * @return the ticket after the change
+     */
+    private TicketEntity changeStatus(Integer ticketId, TicketStatus target) {
+        TicketEntity entity = retryOnConflict(ticketId, () -> shardRouter
+                .findFirst(shardRouter.shardForTicketId(ticketId), shard -> shardRouter.write(shard, () -> {
+                    Optional<TicketEntity> found = ticketRepository.findById(ticketId);
+
+                    // Update ticket status (written with the version check when the transaction commits)
+                    found.filter(ticket -> ticket.getTicketStatus().canChangeTo(target))
+                            .ifPresent(ticket -> {
+                                ticket.setTicketStatus(target);
+                                ticket.setHeldUntil(null);
+                            });
+                    return found;
+                }))
+                .orElseThrow(() -> new TicketNotFoundException("Ticket not found with ID: " + ticketId)));
+        written(entity);
+        return entity;
+    }
+
+    /**
+     * After a ticket was written: reads of it go to the primary for a while,
+     * and lookups started before the write are not shared with later callers.
+     */
+    private void written(TicketEntity entity) {
+        readYourWrites.written(entity.getTicketId(), entity.getPnr());
+        ticketLookups.forget(entity.getTicketId());
+        pnrLookups.forget(entity.getPnr());
+    }
+
+    /**
+     * Run a ticket update again when it lost against a concurrent change of
+     * the same ticket. Each attempt is a new transaction that reads the
+     * current state, so no database locks are held between attempts.
+     */
+    private <T> T retryOnConflict(Integer ticketId, Supplier<T> update) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return update.get();
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxUpdateAttempts) {
+                    logger.warn("Ticket {} still changed concurrently after {} attempts", ticketId, attempt);
+                    throw new TicketConflictException("Ticket " + ticketId + " is being changed by another request, please try again");
+                }
+                logger.debug("Concurrent change of ticket {}, retrying (attempt {})", ticketId, attempt + 1);
+                try {
+                    // Short random pause so the competing requests do not collide again right away
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * attempt + 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new TicketConflictException("Interrupted while retrying an update of ticket " + ticketId);
+                }
+            }
+        }
     }
 
     /**
      * This method returns all tickets with pagination support.
+     * Only the needed columns are selected (TicketView), in a read-only
+     * transaction, so no entities are tracked for a large page.
+     *
+     * With several shards, every shard returns its first (page + 1) * size
+     * tickets in booking order and the results are merged; the total is the
+     * sum of the shard totals.
      */
+    @Observed(name = "ticket.service")
     public Page<Ticket> getAllTickets(Pageable pageable) {
-        // Fetch paginated data from database and convert to response DTO
-        return ticketRepository.findAll(pageable).map(this::convertToResponse);
+        if (shardRouter.shardCount() == 1) {
+            // Fetch paginated projections from database and convert to response DTO
+            return shardRouter.read(0, () -> ticketRepository.findAllViews(pageable)).map(this::convertToResponse);
+        }
+
+        long offset = pageable.getOffset();
+        Pageable firstRows = PageRequest.of(0, (int) offset + pageable.getPageSize());
+        List<Page<TicketView>> pages = shardRouter
+                .onAllShards(shard -> shardRouter.read(shard, () -> ticketRepository.findAllViews(firstRows)));
+
+        List<Ticket> content = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(BOOKING_ORDER)
+                .skip(offset)
+                .limit(pageable.getPageSize())
+                .map(this::convertToResponse)
+                .toList();
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(content, pageable, total);
     }
 
     /**
      * This method searches tickets by PNR or by passenger name.
      * If both are empty, it returns all tickets.
+     * Like getAllTickets, it reads read-only projections instead of entities.
+     * A PNR search hits the shard encoded in the PNR; name searches and
+     * the full list ask all shards in parallel.
      */
+    @Observed(name = "ticket.service")
     public List<Ticket> searchTickets(String pnr, String passengerName) {
 
-        List<TicketEntity> results;
+        List<TicketView> results;
 
         // Search by PNR if provided
         if (pnr != null && !pnr.isBlank()) {
-            results = ticketRepository.findByPnr(pnr);
+            // A PNR the existence filter has never seen is not looked up;
+            // concurrent searches for the same PNR share one query
+            results = !existenceFilter.mightContainPnr(pnr) ? List.of() : pnrLookups.run(pnr, () -> shardRouter
+                    .findFirst(shardRouter.shardForPnr(pnr), shard -> findByPnrOnShard(shard, pnr))
+                    .orElse(List.of()));
         }
         // Otherwise search by passenger first or last name
         else if (passengerName != null && !passengerName.isBlank()) {
-            results = ticketRepository
-                    .findByPassengerFirstNameContainingIgnoreCaseOrPassengerLastNameContainingIgnoreCase(
+            results = readAllShards(shard -> ticketRepository
+                    .findViewsByPassengerFirstNameContainingIgnoreCaseOrPassengerLastNameContainingIgnoreCase(
                             passengerName, passengerName
-                    );
+                    ));
         }
         // If no search parameter is provided, fetch all tickets
         else {
-            results = ticketRepository.findAll();
+            results = readAllShards(shard -> ticketRepository.findAllViews());
         }
 
-        // Convert entity list to response DTO list
+        // Convert projection list to response DTO list
         return results.stream()
                 .map(this::convertToResponse)
                 .toList();
     }
 
+    /**
+     * Ticket by ID on one shard: hot table first, then the archive.
+     */
+    private Optional<Ticket> findTicketOnShard(int shard, Integer ticketId) {
+        return readYourWrites.readTicket(ticketId, () -> shardRouter.read(shard, () -> {
+            Optional<TicketEntity> entity = ticketRepository.findById(ticketId);
+            if (entity.isPresent()) {
+                // Convert entity to response DTO
+                return entity.map(this::convertToResponse);
+            }
+
+            // Not in the hot table: the journey may be over and the ticket archived
+            return ticketArchiveRepository.findViewById(ticketId).map(this::convertToResponse);
+        }));
+    }
+
+    /**
+     * Tickets by IDs on one shard: one IN (...) query on the hot table,
+     * and one on the archive for the IDs that were not found.
+     */
+    private List<Ticket> findTicketsOnShard(int shard, Collection<Integer> ticketIds) {
+        return readYourWrites.readTickets(ticketIds, () -> shardRouter.read(shard, () -> {
+            List<Ticket> tickets = new ArrayList<>();
+            ticketRepository.findAllById(ticketIds).forEach(entity -> tickets.add(convertToResponse(entity)));
+            if (tickets.size() == ticketIds.size()) {
+                return tickets;
+            }
+
+            // Look up the missing IDs in the archive, again with one query
+            Set<Integer> missing = new HashSet<>(ticketIds);
+            tickets.forEach(ticket -> missing.remove(ticket.getTicketId()));
+            ticketArchiveRepository.findViewsByIds(missing).forEach(view -> tickets.add(convertToResponse(view)));
+            return tickets;
+        }));
+    }
+
+    /**
+     * Tickets with a PNR on one shard (empty if none): hot table first, then the archive.
+     */
+    private Optional<List<TicketView>> findByPnrOnShard(int shard, String pnr) {
+        List<TicketView> results = readYourWrites.readPnr(pnr, () -> shardRouter.read(shard, () -> {
+            List<TicketView> hot = ticketRepository.findViewsByPnr(pnr);
+            // Not found among current bookings: check completed journeys
+            return hot.isEmpty() ? ticketArchiveRepository.findViewsByPnr(pnr) : hot;
+        }));
+        return results.isEmpty() ? Optional.empty() : Optional.of(results);
+    }
+
+    /**
+     * Scatter-gather: run a read-only query on every shard in parallel and concatenate the results.
+     */
+    private List<TicketView> readAllShards(IntFunction<List<TicketView>> query) {
+        List<TicketView> results = new ArrayList<>();
+        shardRouter.onAllShards(shard -> shardRouter.read(shard, () -> query.apply(shard)))
+                .forEach(results::addAll);
+        return results;
+    }
+
     /**
      * This method calculates fare between two stations.
      * Currently it returns a fixed price.
@@ -149,14 +612,6 @@ public class TicketService {
         return 500.00;
     }
 
-    /**
-     * This method generates a random 10-digit PNR number.
-     */
-    private String generatePNR() {
-        Random random = new Random();
-        return String.format("%010d", random.nextInt(1000000000));
-    }
-
     /**
      * This method converts TicketEntity to Ticket response DTO.
      */
@@ -170,9 +625,31 @@ public class TicketService {
         ticket.setTo(entity.getToStation());
         ticket.setTrainNum(entity.getTrainNumber());
         ticket.setTktCost(entity.getTicketCost() + " INR");
-        ticket.setTicketStatus(entity.getTicketStatus());
+        ticket.setTicketStatus(entity.getTicketStatus().name());
         ticket.setPnr(entity.getPnr());
         ticket.setBookingTime(entity.getBookingTime());
+        ticket.setHeldUntil(entity.getHeldUntil());
+
+        return ticket;
+    }
+
+    /**
+     * This method converts a TicketView projection to Ticket response DTO.
+     */
+    private Ticket convertToResponse(TicketView view) {
+        Ticket ticket = new Ticket();
+
+        // Set response fields from projection
+        ticket.setTicketId(view.ticketId());
+        ticket.setPassengerName(view.passengerFirstName() + " " + view.passengerLastName());
+        ticket.setFrom(view.fromStation());
+        ticket.setTo(view.toStation());
+        ticket.setTrainNum(view.trainNumber());
+        ticket.setTktCost(view.ticketCost() + " INR");
+        ticket.setTicketStatus(view.ticketStatus().name());
+        ticket.setPnr(view.pnr());
+        ticket.setBookingTime(view.bookingTime());
+        ticket.setHeldUntil(view.heldUntil());
 
         return ticket;
     }
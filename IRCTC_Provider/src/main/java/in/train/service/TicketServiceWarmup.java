@@ -0,0 +1,189 @@
+package in.train.service;
+
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.api.ApiResponse;
+import in.train.config.ShardRouter;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+/**
+ * Warms up the JIT before the provider reports itself ready.
+ *
+ * A freshly started JVM runs bookTicket, Hibernate and Jackson in the
+ * interpreter at first, so the first few thousand bookings are 5-10x
+ * slower than normal. This runner repeats what a booking request does,
+ * without writing anything (TicketService.warmUpBooking):
+ *  - build a ticket like a booking does, look tickets up by ID, by IDs and
+ *    by PNR (all primary key / unique index reads, of random ticket IDs of
+ *    the warm-up train's shard)
+ *  - write the response as JSON and Smile, read a Passenger request body
+ * Nothing is inserted, so no ticket ID (IDENTITY value) is used up, no
+ * ticket ID or PNR is added to the existence filter and nothing is logged;
+ * only the INSERT itself stays cold. The passenger name search is left out:
+ * it is a LIKE '%name%' scan of the whole tickets table on every shard, far
+ * too expensive to repeat thousands of times on every pod start.
+ *
+ * Observations (metrics and spans) are switched off for the warm-up thread
+ * (see isWarmingUp and TracingConfig), so the ticket.service and
+ * ticket.repository metrics only show real requests.
+ *
+ * Rounds are repeated until compilation settles: the JIT compile time
+ * stops growing (less than warmup.settled-compile-ms per batch), or
+ * warmup.max-duration-ms is reached (checked after every round).
+ *
+ * Spring Boot only switches readiness (/actuator/health/readiness) to
+ * ACCEPTING_TRAFFIC after all ApplicationRunners have finished, so the
+ * load balancer sends traffic to this instance only once it is warm.
+ * A native image is compiled ahead of time and is not warmed up.
+ */
+@Component
+public class TicketServiceWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketServiceWarmup.class);
+
+    // Train number used by the warm-up bookings (never saved)
+    static final String WARMUP_TRAIN = "00000";
+
+    // Ticket IDs of a shard looked up by the warm-up: shard + 1 + MAX_SHARDS * (0 .. this - 1)
+    private static final int PROBE_IDS = 10_000;
+
+    // Set while the current thread runs the warm-up
+    private static final ThreadLocal<Boolean> WARMING_UP = new ThreadLocal<>();
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    // Upper limit, however busy the JIT still is
+    @Value("${warmup.max-duration-ms:60000}")
+    private long maxDurationMs;
+
+    // Rounds between two checks of the JIT compile time
+    @Value("${warmup.batch-size:200}")
+    private int batchSize;
+
+    // Batches that always run
+    @Value("${warmup.min-batches:3}")
+    private int minBatches;
+
+    // A batch that adds less JIT compile time than this counts as settled
+    @Value("${warmup.settled-compile-ms:20}")
+    private long settledCompileMs;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    /**
+     * Whether the current thread runs the warm-up (its observations are not recorded).
+     */
+    public static boolean isWarmingUp() {
+        return WARMING_UP.get() != null;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        if (!enabled || NativeDetector.inNativeImage() || compiler == null) {
+            return;
+        }
+        boolean measurable = compiler.isCompilationTimeMonitoringSupported();
+        WARMING_UP.set(Boolean.TRUE);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDurationMs * 1_000_000;
+        long compileMsBefore = measurable ? compiler.getTotalCompilationTime() : 0;
+        int batches = 0;
+        try {
+            int shard = shardRouter.shardForTrain(WARMUP_TRAIN);
+            int settledBatches = 0;
+            int rounds = 0;
+            while (System.nanoTime() < deadline) {
+                long compileMs = measurable ? compiler.getTotalCompilationTime() : 0;
+                for (int i = 0; i < batchSize && System.nanoTime() < deadline; i++) {
+                    round(shard);
+                    rounds++;
+                }
+                batches++;
+
+                // Two quiet batches in a row: the hot paths are compiled
+                if (measurable && compiler.getTotalCompilationTime() - compileMs < settledCompileMs) {
+                    settledBatches++;
+                } else {
+                    settledBatches = 0;
+                }
+                if (batches >= minBatches && (!measurable || settledBatches >= 2)) {
+                    break;
+                }
+            }
+            logger.info("JIT warm-up finished: {} rounds in {} ms, {} ms of JIT compilation", rounds,
+                    (System.nanoTime() - start) / 1_000_000,
+                    measurable ? compiler.getTotalCompilationTime() - compileMsBefore : -1);
+        } catch (RuntimeException ex) {
+            // A cold instance is better than none
+            logger.warn("JIT warm-up stopped after {} batches", batches, ex);
+        } finally {
+            WARMING_UP.remove();
+        }
+    }
+
+    /**
+     * One booking (not saved) with its lookups and serialization.
+     */
+    private void round(int shard) {
+        int probeTicketId = shard + 1 + ShardRouter.MAX_SHARDS * ThreadLocalRandom.current().nextInt(PROBE_IDS);
+        serialize(ticketService.warmUpBooking(passenger(), probeTicketId));
+    }
+
+    private void serialize(Ticket ticket) {
+        try {
+            ApiResponse<Ticket> response = new ApiResponse<>(true, "Ticket booked successfully", ticket,
+                    LocalDateTime.now());
+            byte[] json = jsonMapper.writeValueAsBytes(response);
+            jsonMapper.readValue(json, new TypeReference<ApiResponse<Ticket>>() {});
+            byte[] smile = smileConverter.getObjectMapper().writeValueAsBytes(response);
+            smileConverter.getObjectMapper().readValue(smile, new TypeReference<ApiResponse<Ticket>>() {});
+            jsonMapper.readValue(jsonMapper.writeValueAsBytes(passenger()), Passenger.class);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Warm-up serialization failed", ex);
+        }
+    }
+
+    private static Passenger passenger() {
+        Passenger passenger = new Passenger();
+        passenger.setFname("Warmup");
+        passenger.setLname("Booking");
+        passenger.setGender("Other");
+        passenger.setFrom("Delhi");
+        passenger.setTo("Mumbai");
+        passenger.setDoj(LocalDate.now().plusDays(30).toString());
+        passenger.setTrainNum(WARMUP_TRAIN);
+        return passenger;
+    }
+}
@@ -0,0 +1,202 @@
+package in.train.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: many timeouts, O(1) to add, cancel and expire each.
+ *
+ * Time is counted in ticks. The wheel has 4 levels of 64 slots:
+ *  - level 0: one slot per tick             (the next 64 ticks)
+ *  - level 1: one slot per 64 ticks         (the next 4,096 ticks)
+ *  - level 2: one slot per 4,096 ticks      (the next 262,144 ticks)
+ *  - level 3: one slot per 262,144 ticks    (up to 16,777,215 ticks)
+ * With 100 ms ticks that is 6.4 seconds, 6.8 minutes, 7.3 hours and 19 days.
+ *
+ * A timeout goes into the lowest level whose range covers it, in the slot of
+ * its deadline. Each tick empties one level 0 slot: everything in it is due.
+ * Every 64 ticks, one slot of the level above is emptied into the level
+ * below ("cascading"), so a timeout moves down at most 3 times before it
+ * expires. Slots are doubly linked lists, so cancelling a timeout just
+ * unlinks it. No work depends on how many timeouts are waiting, unlike a
+ * priority queue (O(log n)) or polling the database.
+ *
+ * This is the classic scheme of the Linux kernel timer wheel. All methods
+ * are synchronized; each call does constant work (except advance, which
+ * does constant work per tick and per expired timeout).
+ *
+ * @param <T> what expires (e.g. a ticket ID)
+ */
+final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    /**
+     * Longest delay the wheel can hold, in ticks.
+     */
+    static final long MAX_DELAY_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    /**
+     * One scheduled timeout (a node in a slot's list).
+     */
+    static final class Timeout<T> {
+
+        private final T item;
+
+        private final long deadline;
+
+        // Neighbours in the slot list; null once expired or cancelled
+        private Timeout<T> prev;
+
+        private Timeout<T> next;
+
+        private Timeout(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        T item() {
+            return item;
+        }
+
+        long deadline() {
+            return deadline;
+        }
+    }
+
+    // slots[level][slot] is the sentinel of a circular list
+    private final Timeout<T>[][] slots;
+
+    // Next tick to process; deadlines before it are overdue
+    private long nextTick;
+
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long startTick) {
+        slots = new Timeout[LEVELS][SLOTS];
+        for (Timeout<T>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                Timeout<T> sentinel = new Timeout<>(null, 0);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                level[slot] = sentinel;
+            }
+        }
+        nextTick = startTick;
+    }
+
+    /**
+     * Add a timeout that expires when the given tick is processed
+     * (or on the next advance if that tick has already passed).
+     *
+     * @param item         what expires
+     * @param deadlineTick tick at which it expires
+     * @return handle for cancel()
+     */
+    synchronized Timeout<T> schedule(T item, long deadlineTick) {
+        if (deadlineTick - nextTick > MAX_DELAY_TICKS) {
+            throw new IllegalArgumentException("Timeout too far ahead: " + (deadlineTick - nextTick) + " ticks");
+        }
+        Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Remove a timeout before it expires.
+     *
+     * @return false if it had already expired or been cancelled
+     */
+    synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.next == null) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Process every tick up to and including the given one.
+     *
+     * @return the items that expired
+     */
+    synchronized List<T> advance(long tick) {
+        List<T> expired = new ArrayList<>();
+        while (nextTick <= tick) {
+            int index = (int) (nextTick & MASK);
+            // Level 0 went round once: bring the next slot of each level above down
+            if (index == 0) {
+                for (int level = 1; level < LEVELS; level++) {
+                    int levelIndex = (int) ((nextTick >>> (SLOT_BITS * level)) & MASK);
+                    cascade(level, levelIndex);
+                    if (levelIndex != 0) {
+                        break;
+                    }
+                }
+            }
+
+            Timeout<T> sentinel = slots[0][index];
+            while (sentinel.next != sentinel) {
+                Timeout<T> due = sentinel.next;
+                unlink(due);
+                size--;
+                expired.add(due.item);
+            }
+            nextTick++;
+        }
+        return expired;
+    }
+
+    /**
+     * @return timeouts waiting to expire
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    // Put the timeout into the lowest level that reaches its deadline
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadline - nextTick;
+        Timeout<T> sentinel;
+        if (delta < 0) {
+            // Overdue: expire on the next tick processed
+            sentinel = slots[0][(int) (nextTick & MASK)];
+        } else {
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level++;
+            }
+            sentinel = slots[level][(int) ((timeout.deadline >>> (SLOT_BITS * level)) & MASK)];
+        }
+        timeout.prev = sentinel.prev;
+        timeout.next = sentinel;
+        sentinel.prev.next = timeout;
+        sentinel.prev = timeout;
+    }
+
+    // Move every timeout of a slot to the level(s) below
+    private void cascade(int level, int index) {
+        Timeout<T> sentinel = slots[level][index];
+        Timeout<T> timeout = sentinel.next;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        while (timeout != sentinel) {
+            Timeout<T> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,20 @@
+-- Tickets table as it was created by Hibernate (ddl-auto=update) before
+-- migrations were introduced. Existing databases already have it and are
+-- baselined at version 1, so this script only runs on new databases.
+
+CREATE TABLE tickets (
+    ticket_id            INT          NOT NULL AUTO_INCREMENT,
+    passenger_first_name VARCHAR(255) NOT NULL,
+    passenger_last_name  VARCHAR(255) NOT NULL,
+    gender               VARCHAR(255),
+    from_station         VARCHAR(255) NOT NULL,
+    to_station           VARCHAR(255) NOT NULL,
+    journey_date         DATE,
+    train_number         VARCHAR(255) NOT NULL,
+    ticket_cost          DOUBLE,
+    ticket_status        VARCHAR(255),
+    pnr                  VARCHAR(255),
+    booking_time         DATETIME(6),
+    PRIMARY KEY (ticket_id),
+    CONSTRAINT uk_tickets_pnr UNIQUE (pnr)
+);
@@ -0,0 +1,23 @@
+-- 1. Status and gender become one-byte codes (see TicketStatus and Gender):
+--      ticket_status: 0 = CONFIRMED, 1 = CANCELLED
+--      gender:        0 = Male, 1 = Female, 2 = Other
+-- 2. Composite indexes for the provider's query patterns.
+
+ALTER TABLE tickets ADD COLUMN ticket_status_code TINYINT;
+ALTER TABLE tickets ADD COLUMN gender_code TINYINT;
+
+UPDATE tickets
+SET ticket_status_code = CASE ticket_status WHEN 'CANCELLED' THEN 1 ELSE 0 END,
+    gender_code = CASE gender WHEN 'Male' THEN 0 WHEN 'Female' THEN 1 WHEN 'Other' THEN 2 ELSE NULL END;
+
+ALTER TABLE tickets DROP COLUMN ticket_status;
+ALTER TABLE tickets DROP COLUMN gender;
+ALTER TABLE tickets RENAME COLUMN ticket_status_code TO ticket_status;
+ALTER TABLE tickets RENAME COLUMN gender_code TO gender;
+ALTER TABLE tickets MODIFY COLUMN ticket_status TINYINT NOT NULL;
+
+-- Seats sold / cancelled per train and day: equality on all three columns
+CREATE INDEX idx_tickets_train_date_status ON tickets (train_number, journey_date, ticket_status);
+
+-- List endpoint pages in booking order; ticket_id makes the order unique
+CREATE INDEX idx_tickets_booking_time ON tickets (booking_time, ticket_id);
@@ -0,0 +1,27 @@
+-- Archive for tickets of completed journeys.
+-- TicketArchiveService moves rows here from tickets once the journey date
+-- has passed, so the hot table and its indexes only hold current bookings.
+-- Rows keep their ticket_id; archived tickets are read-only.
+
+CREATE TABLE tickets_archive (
+    ticket_id            INT          NOT NULL,
+    passenger_first_name VARCHAR(255) NOT NULL,
+    passenger_last_name  VARCHAR(255) NOT NULL,
+    gender               TINYINT,
+    from_station         VARCHAR(255) NOT NULL,
+    to_station           VARCHAR(255) NOT NULL,
+    journey_date         DATE,
+    train_number         VARCHAR(255) NOT NULL,
+    ticket_cost          DOUBLE,
+    ticket_status        TINYINT      NOT NULL,
+    pnr                  VARCHAR(255),
+    booking_time         DATETIME(6),
+    archived_at          DATETIME(6)  NOT NULL,
+    PRIMARY KEY (ticket_id)
+);
+
+-- PNR lookups that miss the hot table (not unique: PNRs are only unique among live tickets)
+CREATE INDEX idx_tickets_archive_pnr ON tickets_archive (pnr);
+
+-- Lets the archival job find past journeys without scanning the hot table
+CREATE INDEX idx_tickets_journey_date ON tickets (journey_date);
@@ -0,0 +1,11 @@
+-- Shard directory: trains that were moved away from their default shard.
+-- Trains without a row here live on shard floorMod(hash(train_number), shard count).
+-- Only the copy on shard 0 is used; the table exists on every shard because
+-- all shards run the same migrations.
+
+CREATE TABLE train_shards (
+    train_number VARCHAR(255) NOT NULL,
+    shard        INT          NOT NULL,
+    moved_at     DATETIME(6)  NOT NULL,
+    PRIMARY KEY (train_number)
+);
@@ -0,0 +1,3 @@
+-- Optimistic locking: every update of a ticket increments its version and
+-- only succeeds if the version is still the one that was read.
+ALTER TABLE tickets ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
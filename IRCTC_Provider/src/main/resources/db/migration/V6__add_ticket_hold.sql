@@ -0,0 +1,8 @@
+-- Seat holds: a ticket can be HELD while the passenger pays.
+--      ticket_status: 2 = HELD, 3 = EXPIRED (hold not confirmed in time)
+-- held_until is the end of the hold and is only set while the ticket is HELD,
+-- so the index below only points at live holds (TicketHoldExpiry reloads them
+-- at startup and sweeps the ones an instance left behind).
+ALTER TABLE tickets ADD COLUMN held_until DATETIME(6);
+
+CREATE INDEX idx_tickets_held_until ON tickets (held_until);
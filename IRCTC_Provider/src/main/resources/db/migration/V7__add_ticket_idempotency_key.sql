@@ -0,0 +1,8 @@
+-- Idempotency-Key header of the booking request that created the ticket.
+-- A client that retries a booking (e.g. after a timeout, not knowing whether
+-- the first request went through) sends the same key again and gets the
+-- ticket booked the first time instead of a second one.
+-- Null for bookings made without a key; the unique index ignores NULLs.
+ALTER TABLE tickets ADD COLUMN idempotency_key VARCHAR(64);
+
+CREATE UNIQUE INDEX uk_tickets_idempotency_key ON tickets (idempotency_key);
@@ -0,0 +1,201 @@
+package in.train.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import in.train.config.ClientRateLimiter;
+import in.train.config.RateLimitInterceptor;
+import in.train.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of the per-client rate limit on every ticket API request.
+ *
+ * Calls RateLimitInterceptor.preHandle the way the DispatcherServlet does,
+ * with prepared requests so only the limiter itself is measured:
+ *  - one client, allowed (the common case)
+ *  - 10,000 clients in turn (map lookups miss the CPU caches)
+ *  - 8 threads on one client (all compare-and-sets on the same bucket) and
+ *    8 threads on their own clients
+ *  - one client over its limit (429 path, exception without a stack trace)
+ *  - the token bucket alone, without reading the client from the request
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class RateLimiterBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+	private static final int REQUESTS_PER_ROUND = 1_000_000;
+	private static final int THREADS = 8;
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@Test
+	void costPerRequest() throws Exception {
+		// Limits far above what the loop can reach: every request is allowed
+		RateLimitInterceptor open = interceptor(1e9, 1_000_000);
+		RateLimitInterceptor closed = interceptor(0.001, 1);
+
+		MockHttpServletRequest[] oneClient = requests(1);
+		MockHttpServletRequest[] manyClients = requests(10_000);
+		MockHttpServletRequest[] threadClients = requests(THREADS);
+
+		System.out.println();
+		System.out.println("RateLimitInterceptor.preHandle, per request");
+		System.out.printf("%-34s %10s %16s%n", "case", "ns", "bytes allocated");
+		print("1 client, allowed", singleThread(open, oneClient));
+		print("10,000 clients, allowed", singleThread(open, manyClients));
+		print(THREADS + " threads, 1 shared client", threads(open, i -> oneClient[0]));
+		print(THREADS + " threads, 1 client each", threads(open, i -> threadClients[i]));
+		print("1 client, rejected (429)", singleThread(closed, oneClient));
+		// Without the request: the rest above is reading the header from the (mock) request
+		print("ClientRateLimiter alone, allowed", limiterOnly(new ClientRateLimiter(1e9, 1_000_000, 100_000)));
+	}
+
+	private double[] limiterOnly(ClientRateLimiter limiter) {
+		long nanos = 0;
+		long allocated = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			long waited = 0;
+			for (int i = 0; i < REQUESTS_PER_ROUND; i++) {
+				waited += limiter.tryAcquire("partner-0");
+			}
+			long end = System.nanoTime();
+			if (round >= WARMUP_ROUNDS) {
+				nanos += end - start;
+				allocated += allocatedBytes() - allocatedBefore;
+			}
+			assertThat(waited).isZero();
+		}
+		long measured = (long) MEASURED_ROUNDS * REQUESTS_PER_ROUND;
+		return new double[] { (double) nanos / measured, (double) allocated / measured };
+	}
+
+	/**
+	 * @return { ns per request, bytes allocated per request }
+	 */
+	private double[] singleThread(RateLimitInterceptor interceptor, MockHttpServletRequest[] requests) {
+		long nanos = 0;
+		long allocated = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			long allowed = run(interceptor, requests, REQUESTS_PER_ROUND);
+			long end = System.nanoTime();
+			if (round >= WARMUP_ROUNDS) {
+				nanos += end - start;
+				allocated += allocatedBytes() - allocatedBefore;
+			}
+			assertThat(allowed).isBetween(0L, (long) REQUESTS_PER_ROUND);
+		}
+		long measured = (long) MEASURED_ROUNDS * REQUESTS_PER_ROUND;
+		return new double[] { (double) nanos / measured, (double) allocated / measured };
+	}
+
+	/**
+	 * @return { ns per request (wall clock / all requests of all threads), bytes allocated per request }
+	 */
+	private double[] threads(RateLimitInterceptor interceptor, IntFunction<MockHttpServletRequest> requestForThread)
+			throws Exception {
+		long nanos = 0;
+		long allocatedTotal = 0;
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			CountDownLatch ready = new CountDownLatch(THREADS);
+			CountDownLatch go = new CountDownLatch(1);
+			Thread[] threads = new Thread[THREADS];
+			AtomicLong allocated = new AtomicLong();
+			for (int t = 0; t < THREADS; t++) {
+				MockHttpServletRequest[] requests = { requestForThread.apply(t) };
+				threads[t] = new Thread(() -> {
+					ready.countDown();
+					try {
+						go.await();
+					} catch (InterruptedException ex) {
+						return;
+					}
+					long before = allocatedBytes();
+					run(interceptor, requests, REQUESTS_PER_ROUND);
+					allocated.addAndGet(allocatedBytes() - before);
+				});
+				threads[t].start();
+			}
+			ready.await();
+			long start = System.nanoTime();
+			go.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			if (round >= WARMUP_ROUNDS) {
+				nanos += System.nanoTime() - start;
+				allocatedTotal += allocated.get();
+			}
+		}
+		long measured = (long) MEASURED_ROUNDS * REQUESTS_PER_ROUND * THREADS;
+		return new double[] { (double) nanos / measured, (double) allocatedTotal / measured };
+	}
+
+	private long run(RateLimitInterceptor interceptor, MockHttpServletRequest[] requests, int count) {
+		long allowed = 0;
+		for (int i = 0; i < count; i++) {
+			try {
+				if (interceptor.preHandle(requests[i % requests.length], response, null)) {
+					allowed++;
+				}
+			} catch (RateLimitExceededException ex) {
+				// 429
+			}
+		}
+		return allowed;
+	}
+
+	private static RateLimitInterceptor interceptor(double perSecond, int burst) {
+		RateLimitInterceptor interceptor = new RateLimitInterceptor(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(interceptor, "enabled", true);
+		ReflectionTestUtils.setField(interceptor, "clientHeader", "X-API-Key");
+		ReflectionTestUtils.setField(interceptor, "bookingPerSecond", perSecond);
+		ReflectionTestUtils.setField(interceptor, "bookingBurst", burst);
+		ReflectionTestUtils.setField(interceptor, "readPerSecond", perSecond);
+		ReflectionTestUtils.setField(interceptor, "readBurst", burst);
+		ReflectionTestUtils.setField(interceptor, "apiKeys", new String[0]);
+		ReflectionTestUtils.setField(interceptor, "partnerBookingPerSecond", perSecond);
+		ReflectionTestUtils.setField(interceptor, "partnerBookingBurst", burst);
+		ReflectionTestUtils.setField(interceptor, "partnerReadPerSecond", perSecond);
+		ReflectionTestUtils.setField(interceptor, "partnerReadBurst", burst);
+		ReflectionTestUtils.setField(interceptor, "maxClients", 100_000);
+		ReflectionTestUtils.invokeMethod(interceptor, "init");
+		return interceptor;
+	}
+
+	private static MockHttpServletRequest[] requests(int clients) {
+		MockHttpServletRequest[] requests = new MockHttpServletRequest[clients];
+		for (int i = 0; i < clients; i++) {
+			requests[i] = new MockHttpServletRequest("GET", "/api/tickets/42");
+			requests[i].setRemoteAddr("10." + (i >>> 16 & 255) + "." + (i >>> 8 & 255) + "." + (i & 255));
+		}
+		return requests;
+	}
+
+	private static void print(String name, double[] result) {
+		System.out.printf("%-34s %10.1f %16.1f%n", name, result[0], result[1]);
+	}
+
+	// Heap allocated so far by the current thread
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -0,0 +1,243 @@
+package in.train.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Startup time and first request latency of the provider and the consumer,
+ * for each way they can be built:
+ *  - jvm:     the normal Spring Boot jar (mvn package)
+ *  - aot+cds: AOT-processed classes and a CDS archive (mvn package -Paot, target/cds)
+ *  - native:  GraalVM native executable (mvn -Pnative native:compile)
+ *
+ * Every variant is started RUNS times as its own process: first the provider
+ * (embedded database), then a consumer that talks to it. Measured:
+ *  - startup:     process start until /actuator/health answers
+ *  - 1st booking: the first booking request after startup (consumer: through to the provider)
+ *  - 2nd booking: the next one, for comparison
+ * Variants whose artifacts were not built are skipped.
+ *
+ * Build both modules first, then run with:
+ * mvn test -Pbenchmark -Dtest=StartupBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+	private static final int RUNS = 3;
+
+	private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+	private static final Path PROVIDER_TARGET = Path.of("target");
+
+	private static final Path CONSUMER_TARGET = Path.of("..", "MakeMyTrip_Consumer", "target");
+
+	private static final Path LOGS = PROVIDER_TARGET.resolve("startup-benchmark");
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	@Test
+	void startupAndFirstRequest() throws Exception {
+		Files.createDirectories(LOGS);
+		List<Variant> variants = List.of(
+				new Variant("jvm", jar(PROVIDER_TARGET, "IRCTC_Provider"), jar(CONSUMER_TARGET, "MakeMyTrip_Consumer")),
+				new Variant("aot+cds", cds(PROVIDER_TARGET, "IRCTC_Provider"), cds(CONSUMER_TARGET, "MakeMyTrip_Consumer")),
+				new Variant("native", nativeImage(PROVIDER_TARGET, "IRCTC_Provider"),
+						nativeImage(CONSUMER_TARGET, "MakeMyTrip_Consumer")));
+
+		System.out.println();
+		System.out.println("Startup and first request (median of " + RUNS + " runs, ms)");
+		System.out.printf("%-9s %-9s %10s %13s %13s%n", "variant", "service", "startup", "1st booking", "2nd booking");
+		int measured = 0;
+		for (Variant variant : variants) {
+			if (variant.provider == null) {
+				System.out.printf("%-9s not built, skipped%n", variant.name);
+				continue;
+			}
+			long[][] provider = new long[3][RUNS];
+			long[][] consumer = new long[3][RUNS];
+			for (int run = 0; run < RUNS; run++) {
+				measure(variant, run, provider, consumer);
+			}
+			print(variant.name, "provider", provider);
+			if (variant.consumer != null) {
+				print(variant.name, "consumer", consumer);
+			}
+			measured++;
+		}
+
+		// At least the plain jar has to be there
+		assertThat(measured).isPositive();
+	}
+
+	private void measure(Variant variant, int run, long[][] provider, long[][] consumer) throws Exception {
+		int providerPort = freePort();
+		Process providerProcess = null;
+		Process consumerProcess = null;
+		try {
+			long start = System.nanoTime();
+			providerProcess = start(variant.provider, variant.name + "-provider",
+					"--spring.profiles.active=embedded",
+					"--server.port=" + providerPort,
+					"--spring.rsocket.server.port=0");
+			String providerUrl = "http://localhost:" + providerPort;
+			awaitHealthy(providerProcess, providerUrl);
+			provider[0][run] = millisSince(start);
+			provider[1][run] = book(providerUrl + "/api/tickets");
+			provider[2][run] = book(providerUrl + "/api/tickets");
+
+			if (variant.consumer == null) {
+				return;
+			}
+			int consumerPort = freePort();
+			Path scratch = Files.createTempDirectory(LOGS, "consumer");
+			start = System.nanoTime();
+			consumerProcess = start(variant.consumer, variant.name + "-consumer",
+					"--server.port=" + consumerPort,
+					"--irctc.provider.url=" + providerUrl + "/api/tickets",
+					"--irctc.async.queue-dir=" + scratch.resolve("booking-queue"),
+					"--tracing.export.file=" + scratch.resolve("consumer-spans.jsonl"));
+			String consumerUrl = "http://localhost:" + consumerPort;
+			awaitHealthy(consumerProcess, consumerUrl);
+			consumer[0][run] = millisSince(start);
+			consumer[1][run] = book(consumerUrl + "/api/makemytrip/book");
+			consumer[2][run] = book(consumerUrl + "/api/makemytrip/book");
+		} finally {
+			stop(consumerProcess);
+			stop(providerProcess);
+		}
+	}
+
+	private Process start(Command command, String name, String... arguments) throws IOException {
+		List<String> commandLine = new ArrayList<>(command.commandLine);
+		commandLine.addAll(Arrays.asList(arguments));
+		File log = LOGS.resolve(name + ".log").toFile();
+		return new ProcessBuilder(commandLine)
+				.directory(command.workingDirectory.toFile())
+				.redirectErrorStream(true)
+				.redirectOutput(log)
+				.start();
+	}
+
+	private void awaitHealthy(Process process, String baseUrl) throws Exception {
+		HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+				.timeout(Duration.ofSeconds(1))
+				.build();
+		long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+		while (System.nanoTime() < deadline) {
+			if (!process.isAlive()) {
+				throw new IllegalStateException("Process exited during startup, see " + LOGS);
+			}
+			try {
+				if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					return;
+				}
+			} catch (IOException notListeningYet) {
+				// Keep polling
+			}
+			Thread.sleep(5);
+		}
+		throw new IllegalStateException("Not healthy after " + STARTUP_TIMEOUT + ", see " + LOGS);
+	}
+
+	// One booking; returns its latency in ms
+	private long book(String url) throws Exception {
+		String passenger = """
+				{"fname":"Startup","lname":"Bench","gender":"Other","from":"Pune","to":"Nagpur",\
+				"doj":"%s","trainNum":"12135"}""".formatted(LocalDate.now().plusDays(30));
+		HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(passenger))
+				.build();
+		long start = System.nanoTime();
+		HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+		long latency = millisSince(start);
+		assertThat(response.statusCode()).as(response.body()).isBetween(200, 299);
+		return latency;
+	}
+
+	private static void stop(Process process) throws InterruptedException {
+		if (process == null) {
+			return;
+		}
+		process.destroy();
+		if (!process.waitFor(30, TimeUnit.SECONDS)) {
+			process.destroyForcibly().waitFor();
+		}
+	}
+
+	private static void print(String variant, String service, long[][] results) {
+		System.out.printf("%-9s %-9s %10d %13d %13d%n", variant, service, median(results[0]), median(results[1]),
+				median(results[2]));
+	}
+
+	// Plain Spring Boot jar
+	private static Command jar(Path target, String artifactId) {
+		Path jar = target.resolve(artifactId + "-1.0.0.jar");
+		if (!Files.exists(jar)) {
+			return null;
+		}
+		return new Command(target, List.of(java(), "-jar", jar.getFileName().toString()));
+	}
+
+	// Thin jar, run with AOT-generated bean definitions and the training run's class archive
+	private static Command cds(Path target, String artifactId) {
+		Path cds = target.resolve("cds");
+		if (!Files.exists(cds.resolve("application.jsa"))) {
+			return null;
+		}
+		return new Command(cds, List.of(java(), "-XX:SharedArchiveFile=application.jsa", "-Xlog:cds=off",
+				"-Dspring.aot.enabled=true", "-jar", artifactId + "-1.0.0-cds.jar"));
+	}
+
+	private static Command nativeImage(Path target, String artifactId) {
+		Path executable = target.resolve(artifactId);
+		if (!Files.isExecutable(executable)) {
+			return null;
+		}
+		return new Command(target, List.of(executable.toAbsolutePath().toString()));
+	}
+
+	private static String java() {
+		return Path.of(System.getProperty("java.home"), "bin", "java").toString();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static long millisSince(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private record Command(Path workingDirectory, List<String> commandLine) {
+	}
+
+	private record Variant(String name, Command provider, Command consumer) {
+	}
+}
@@ -0,0 +1,143 @@
+package in.train.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketEntity;
+import in.train.repository.TicketRepository;
+import in.train.responce.Ticket;
+import in.train.service.TicketService;
+
+/**
+ * Entity loading versus read-only projections for large result sets.
+ *
+ * Compares what getAllTickets and searchTickets used to do (load TicketEntity,
+ * then copy into Ticket) with the TicketView projection queries they use now,
+ * on 10k-row pages. Reports latency and heap allocated per call.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = { "seed.tickets.count=100000",
+		"spring.datasource.url=jdbc:h2:mem:query_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("embedded")
+class TicketQueryBenchmark {
+
+	private static final int PAGE_SIZE = 10_000;
+	private static final int PAGES = 10;
+	private static final int WARMUP_ROUNDS = 10;
+	private static final int MEASURED_ROUNDS = 30;
+
+	// Same order as TicketRepository.findAllViews(Pageable)
+	private static final Sort BOOKING_ORDER = Sort.by("bookingTime", "ticketId");
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Test
+	void listPages() {
+		Result[] results = compare(
+				page -> ticketRepository.findAll(PageRequest.of(page, PAGE_SIZE, BOOKING_ORDER))
+						.map(TicketQueryBenchmark::toTicket).getContent(),
+				page -> ticketService.getAllTickets(PageRequest.of(page, PAGE_SIZE)).getContent());
+
+		print("GET /api/tickets?pageSize=" + PAGE_SIZE, results);
+		assertThat(results[1].bytesPerCall()).isLessThan(results[0].bytesPerCall());
+	}
+
+	@Test
+	void searchByPassengerName() {
+		Result[] results = compare(
+				round -> ticketRepository
+						.findByPassengerFirstNameContainingIgnoreCaseOrPassengerLastNameContainingIgnoreCase("sha", "sha")
+						.stream().map(TicketQueryBenchmark::toTicket).toList(),
+				round -> ticketService.searchTickets(null, "sha"));
+
+		print("GET /api/tickets/search?passengerName=sha", results);
+		assertThat(results[1].bytesPerCall()).isLessThan(results[0].bytesPerCall());
+	}
+
+	/**
+	 * Run both variants in alternating rounds so they see the same JIT and GC conditions.
+	 */
+	private Result[] compare(IntFunction<List<Ticket>> entities, IntFunction<List<Ticket>> projections) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			entities.apply(round % PAGES);
+			projections.apply(round % PAGES);
+		}
+
+		long[][] nanos = new long[2][MEASURED_ROUNDS];
+		long[] bytes = new long[2];
+		int rows = 0;
+		for (int round = 0; round < MEASURED_ROUNDS; round++) {
+			int page = round % PAGES;
+			int index = 0;
+			for (IntFunction<List<Ticket>> variant : List.of(entities, projections)) {
+				long allocatedBefore = allocatedBytes();
+				long start = System.nanoTime();
+				rows = variant.apply(page).size();
+				nanos[index][round] = System.nanoTime() - start;
+				bytes[index] += allocatedBytes() - allocatedBefore;
+				index++;
+			}
+		}
+		assertThat(rows).isPositive();
+
+		return new Result[] { new Result("entity", rows, nanos[0], bytes[0] / MEASURED_ROUNDS),
+				new Result("projection", rows, nanos[1], bytes[1] / MEASURED_ROUNDS) };
+	}
+
+	private static void print(String title, Result[] results) {
+		System.out.println();
+		System.out.println(title);
+		System.out.printf("%-12s %8s %10s %10s %10s %14s%n", "variant", "rows", "p50 ms", "mean ms", "max ms",
+				"MB allocated");
+		for (Result result : results) {
+			long[] sorted = result.nanos().clone();
+			Arrays.sort(sorted);
+			System.out.printf("%-12s %8d %10.2f %10.2f %10.2f %14.2f%n", result.name(), result.rows(),
+					sorted[sorted.length / 2] / 1e6, Arrays.stream(sorted).average().orElse(0) / 1e6,
+					sorted[sorted.length - 1] / 1e6, result.bytesPerCall() / (1024.0 * 1024.0));
+		}
+	}
+
+	// Heap allocated so far by the current thread (all queries run on it)
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// The entity to Ticket copy the service used before the projections
+	private static Ticket toTicket(TicketEntity entity) {
+		Ticket ticket = new Ticket();
+		ticket.setTicketId(entity.getTicketId());
+		ticket.setPassengerName(entity.getPassengerFirstName() + " " + entity.getPassengerLastName());
+		ticket.setFrom(entity.getFromStation());
+		ticket.setTo(entity.getToStation());
+		ticket.setTrainNum(entity.getTrainNumber());
+		ticket.setTktCost(entity.getTicketCost() + " INR");
+		ticket.setTicketStatus(entity.getTicketStatus().name());
+		ticket.setPnr(entity.getPnr());
+		ticket.setBookingTime(entity.getBookingTime());
+		return ticket;
+	}
+
+	private record Result(String name, int rows, long[] nanos, long bytesPerCall) {
+	}
+
+}
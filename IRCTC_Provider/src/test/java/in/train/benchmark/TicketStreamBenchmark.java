@@ -0,0 +1,237 @@
+package in.train.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.rsocket.server.LocalRSocketServerPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.config.WireFormatConfig;
+import in.train.request.Passenger;
+import in.train.responce.TicketStreamReply;
+import reactor.core.publisher.Flux;
+
+/**
+ * REST versus the RSocket stream endpoint for bulk partners.
+ *
+ * Books tickets and looks up their status, once with one HTTP/1.1 request per
+ * ticket (64 at a time, as a well behaved bulk client would) and once over a
+ * single RSocket connection with one stream per operation. Both paths end in
+ * the same TicketService, so the difference is the per-request protocol cost.
+ *
+ * A few bookings can fail on H2: in MySQL mode it sometimes hands the same
+ * ticket ID to concurrent inserts. They are reported, not treated as errors.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:stream_benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.rsocket.server.port=0",
+		// Measures the protocols, not the per-client rate limits
+		"ratelimit.enabled=false",
+		"ratelimit.api-keys=benchmark:benchmark-key"
+})
+@ActiveProfiles("embedded")
+class TicketStreamBenchmark {
+
+	private static final int BOOKINGS = 2_000;
+	private static final int LOOKUPS = 20_000;
+	private static final int REST_CONCURRENCY = 64;
+	private static final int ROUNDS = 3;
+
+	private static final String[][] ROUTES = { { "Delhi", "Mumbai", "12951" }, { "Chennai", "Bengaluru", "12007" },
+			{ "Kolkata", "Patna", "12309" }, { "Pune", "Hyderabad", "17031" }, { "Jaipur", "Ahmedabad", "12957" } };
+
+	@LocalServerPort
+	private int httpPort;
+
+	@LocalRSocketServerPort
+	private int rsocketPort;
+
+	@Autowired
+	private RSocketRequester.Builder requesterBuilder;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+	private RSocketRequester requester;
+
+	// Bookings that failed in the measured rounds, REST and stream
+	private final long[] failedBookings = new long[2];
+
+	@BeforeEach
+	void connect() {
+		requester = requesterBuilder.setupData("benchmark-key")
+				.dataMimeType(WireFormatConfig.SMILE)
+				.tcp("localhost", rsocketPort);
+	}
+
+	@AfterEach
+	void disconnect() {
+		requester.dispose();
+	}
+
+	@Test
+	void bookAndLookUp() throws Exception {
+		// Warm up both paths (JIT, connection pools)
+		restBook(BOOKINGS / 4);
+		streamBook(BOOKINGS / 4);
+
+		failedBookings[0] = 0;
+		failedBookings[1] = 0;
+		long[][] nanos = new long[4][ROUNDS];
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			List<Integer> restTickets = restBook(BOOKINGS);
+			nanos[0][round] = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			List<Integer> streamTickets = streamBook(BOOKINGS);
+			nanos[1][round] = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			assertThat(restLookUp(restTickets, LOOKUPS)).isEqualTo(LOOKUPS);
+			nanos[2][round] = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			assertThat(streamLookUp(streamTickets, LOOKUPS)).isEqualTo(LOOKUPS);
+			nanos[3][round] = System.nanoTime() - start;
+		}
+
+		System.out.println();
+		System.out.println("Bulk partner traffic, REST (" + REST_CONCURRENCY + " concurrent requests) vs one RSocket stream");
+		System.out.printf("%-8s %-8s %10s %12s %12s%n", "op", "path", "requests", "best ms", "req/s");
+		print("book", "rest", BOOKINGS, nanos[0]);
+		print("book", "stream", BOOKINGS, nanos[1]);
+		print("status", "rest", LOOKUPS, nanos[2]);
+		print("status", "stream", LOOKUPS, nanos[3]);
+		System.out.printf("failed bookings: rest %d, stream %d (of %d each)%n", failedBookings[0], failedBookings[1],
+				BOOKINGS * ROUNDS);
+	}
+
+	private List<Integer> restBook(int count) throws Exception {
+		List<Integer> ticketIds = new CopyOnWriteArrayList<>();
+		rest(count, i -> HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/api/tickets"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(json(passenger(i))))
+				.build(),
+				body -> ticketIds.add(body.get("data").get("ticketId").asInt()));
+		failedBookings[0] += count - ticketIds.size();
+		return ticketIds;
+	}
+
+	private int restLookUp(List<Integer> ticketIds, int count) throws Exception {
+		AtomicInteger found = new AtomicInteger();
+		rest(count, i -> HttpRequest.newBuilder(
+				URI.create("http://localhost:" + httpPort + "/api/tickets/" + ticketIds.get(i % ticketIds.size())))
+				.GET()
+				.build(),
+				body -> found.incrementAndGet());
+		return found.get();
+	}
+
+	/**
+	 * Send count requests, at most REST_CONCURRENCY at a time, and wait for all answers.
+	 */
+	private void rest(int count, IntFunction<HttpRequest> request, Function<JsonNode, Object> onSuccess)
+			throws Exception {
+		Semaphore permits = new Semaphore(REST_CONCURRENCY);
+		List<CompletableFuture<?>> calls = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			permits.acquire();
+			calls.add(httpClient.sendAsync(request.apply(i), HttpResponse.BodyHandlers.ofByteArray())
+					.thenAccept(response -> {
+						if (response.statusCode() == 200) {
+							onSuccess.apply(readTree(response.body()));
+						}
+					})
+					.whenComplete((ignored, error) -> permits.release()));
+		}
+		CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+	}
+
+	private List<Integer> streamBook(int count) {
+		List<Integer> ticketIds = requester.route("tickets.book")
+				.data(Flux.range(0, count).map(TicketStreamBenchmark::passenger))
+				.retrieveFlux(TicketStreamReply.class)
+				.filter(TicketStreamReply::isSuccess)
+				.map(reply -> reply.getTicket().getTicketId())
+				.collectList()
+				.block();
+		failedBookings[1] += count - ticketIds.size();
+		return ticketIds;
+	}
+
+	private long streamLookUp(List<Integer> ticketIds, int count) {
+		return requester.route("tickets.status")
+				.data(Flux.range(0, count).map(i -> ticketIds.get(i % ticketIds.size())))
+				.retrieveFlux(TicketStreamReply.class)
+				.filter(TicketStreamReply::isSuccess)
+				.count()
+				.block();
+	}
+
+	private static void print(String operation, String path, int requests, long[] nanos) {
+		long best = Long.MAX_VALUE;
+		for (long value : nanos) {
+			best = Math.min(best, value);
+		}
+		System.out.printf("%-8s %-8s %10d %12.1f %12.0f%n", operation, path, requests, best / 1e6,
+				requests / (best / 1e9));
+	}
+
+	private byte[] json(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private JsonNode readTree(byte[] body) {
+		try {
+			return objectMapper.readTree(body);
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static Passenger passenger(int i) {
+		String[] route = ROUTES[i % ROUTES.length];
+		Passenger passenger = new Passenger();
+		passenger.setFname("Bulk");
+		passenger.setLname("Partner");
+		passenger.setGender(i % 2 == 0 ? "Male" : "Female");
+		passenger.setFrom(route[0]);
+		passenger.setTo(route[1]);
+		passenger.setDoj("2026-12-30");
+		passenger.setTrainNum(route[2]);
+		return passenger;
+	}
+}
@@ -0,0 +1,158 @@
+package in.train.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import in.train.api.ApiResponse;
+import in.train.config.WireFormatConfig;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+/**
+ * JSON versus Smile for the messages sent between MakeMyTrip and IRCTC.
+ *
+ * Encodes and decodes the booking request (Passenger), the booking response
+ * (ApiResponse<Ticket>) and a batch lookup response (50 tickets) with the
+ * same mappers the application uses. Reports the payload size, the time to
+ * write and read one message and the heap allocated for it.
+ *
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class WireFormatBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+	private static final int MESSAGES_PER_ROUND = 20_000;
+
+	// Spring Boot's defaults for the JSON mapper (ISO dates)
+	private final ObjectMapper jsonMapper = builder().build();
+
+	private final ObjectMapper smileMapper = WireFormatConfig.smileMapper(builder());
+
+	@Test
+	void bookingRequest() throws IOException {
+		compare("POST /api/tickets request (Passenger)", passenger(), Passenger.class);
+	}
+
+	@Test
+	void bookingResponse() throws IOException {
+		ApiResponse<Ticket> response = new ApiResponse<>(true, "Ticket booked successfully", ticket(1),
+				LocalDateTime.now());
+		compare("POST /api/tickets response (ApiResponse<Ticket>)", response,
+				jsonMapper.getTypeFactory().constructParametricType(ApiResponse.class, Ticket.class));
+	}
+
+	@Test
+	void batchResponse() throws IOException {
+		List<Ticket> tickets = new ArrayList<>();
+		for (int i = 1; i <= 50; i++) {
+			tickets.add(ticket(i));
+		}
+		compare("GET /api/tickets/batch response (50 tickets)", tickets,
+				jsonMapper.getTypeFactory().constructCollectionType(List.class, Ticket.class));
+	}
+
+	private void compare(String title, Object message, Class<?> type) throws IOException {
+		compare(title, message, jsonMapper.constructType(type));
+	}
+
+	/**
+	 * Run both formats in alternating rounds so they see the same JIT and GC conditions.
+	 */
+	private void compare(String title, Object message, JavaType type) throws IOException {
+		ObjectMapper[] mappers = { jsonMapper, smileMapper };
+		long[] writeNanos = new long[2];
+		long[] readNanos = new long[2];
+		long[] allocated = new long[2];
+		int[] size = new int[2];
+
+		for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+			boolean measured = round >= WARMUP_ROUNDS;
+			for (int i = 0; i < mappers.length; i++) {
+				ObjectMapper mapper = mappers[i];
+				long allocatedBefore = allocatedBytes();
+
+				long start = System.nanoTime();
+				byte[] payload = null;
+				for (int n = 0; n < MESSAGES_PER_ROUND; n++) {
+					payload = mapper.writeValueAsBytes(message);
+				}
+				long written = System.nanoTime();
+				for (int n = 0; n < MESSAGES_PER_ROUND; n++) {
+					mapper.readValue(payload, type);
+				}
+				long read = System.nanoTime();
+
+				if (measured) {
+					writeNanos[i] += written - start;
+					readNanos[i] += read - written;
+					allocated[i] += allocatedBytes() - allocatedBefore;
+					size[i] = payload.length;
+				}
+			}
+		}
+
+		long messages = (long) MEASURED_ROUNDS * MESSAGES_PER_ROUND;
+		System.out.println();
+		System.out.println(title);
+		System.out.printf("%-8s %10s %12s %12s %16s%n", "format", "bytes", "write us", "read us", "bytes allocated");
+		String[] names = { "json", "smile" };
+		for (int i = 0; i < mappers.length; i++) {
+			System.out.printf("%-8s %10d %12.2f %12.2f %16d%n", names[i], size[i], writeNanos[i] / 1e3 / messages,
+					readNanos[i] / 1e3 / messages, allocated[i] / messages);
+		}
+		System.out.printf("smile is %.0f%% of the json size%n", 100.0 * size[1] / size[0]);
+
+		assertThat(size[1]).isLessThan(size[0]);
+	}
+
+	private static Jackson2ObjectMapperBuilder builder() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+	}
+
+	// Heap allocated so far by the current thread (everything runs on it)
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Ananya");
+		passenger.setLname("Kulkarni");
+		passenger.setGender("Female");
+		passenger.setFrom("Pune");
+		passenger.setTo("Hyderabad");
+		passenger.setDoj("2026-12-24");
+		passenger.setTrainNum("17031");
+		return passenger;
+	}
+
+	private static Ticket ticket(int ticketId) {
+		Ticket ticket = new Ticket();
+		ticket.setTicketId(ticketId);
+		ticket.setPassengerName("Ananya Kulkarni");
+		ticket.setFrom("Pune");
+		ticket.setTo("Hyderabad");
+		ticket.setTrainNum("17031");
+		ticket.setTktCost("650.0 INR");
+		ticket.setTicketStatus("CONFIRMED");
+		ticket.setPnr(String.format("%08d%02d", 4_000_000 + ticketId, ticketId % 16));
+		ticket.setBookingTime(LocalDateTime.of(2026, 10, 1, 9, 30).plusMinutes(ticketId * 7L));
+		return ticket;
+	}
+}
@@ -0,0 +1,165 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:load_shedding;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		// Fixed limit of 10, bookings get 5 of it
+		"shedding.initial-limit=10",
+		"shedding.min-limit=10",
+		"shedding.max-limit=10",
+		"shedding.booking-share=0.5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class LoadSheddingTests {
+
+	private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private LoadSheddingInterceptor loadSheddingInterceptor;
+
+	@Test
+	void bookingsAreShedBeforeReads() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = loadSheddingInterceptor.limiter();
+		// Five slow requests already in flight
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire(1.0)).isTrue();
+		}
+		try {
+			mockMvc.perform(delete("/api/tickets/999999"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string("Retry-After", "1"))
+					.andExpect(jsonPath("$.error").value("Service Unavailable"));
+			// Reads still get through, and give their slot back
+			mockMvc.perform(get("/api/tickets/999999"))
+					.andExpect(status().isNotFound());
+			assertThat(limiter.inFlight()).isEqualTo(5);
+		} finally {
+			for (int i = 0; i < 5; i++) {
+				limiter.release(MILLISECOND, false);
+			}
+		}
+		mockMvc.perform(delete("/api/tickets/999999"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void limitFollowsLatency() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 2.0, 0.2, 0.9);
+
+		// Healthy database and the limit in use: the limit grows
+		runAt(limiter, 0.9, 5 * MILLISECOND, 500);
+		int grown = limiter.limit();
+		assertThat(grown).isGreaterThan(100);
+
+		// The database gets ten times slower: the limit shrinks
+		runAt(limiter, 0.9, 50 * MILLISECOND, 100);
+		int shrunk = limiter.limit();
+		assertThat(shrunk).isLessThan(grown / 2);
+
+		// Requests wait for connections: cut right away
+		limiter.tryAcquire(1.0);
+		limiter.release(50 * MILLISECOND, true);
+		assertThat(limiter.limit()).isLessThan(shrunk);
+
+		// Never below the minimum
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire(1.0);
+			limiter.release(50 * MILLISECOND, true);
+		}
+		assertThat(limiter.limit()).isEqualTo(5);
+	}
+
+	@Test
+	void idleServiceKeepsItsLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 2.0, 0.2, 0.9);
+		runAt(limiter, 0.1, 5 * MILLISECOND, 500);
+		assertThat(limiter.limit()).isEqualTo(20);
+	}
+
+	@Test
+	void resultSizeDependentRequestsDoNotMoveTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 2.0, 0.2, 0.9);
+		runAt(limiter, 0.9, 5 * MILLISECOND, 100);
+		int learned = limiter.limit();
+
+		// A big search takes a second: not a sign of a slow database
+		for (int i = 0; i < 20; i++) {
+			assertThat(limiter.tryAcquire(1.0)).isTrue();
+		}
+		for (int i = 0; i < 20; i++) {
+			limiter.releaseUnsampled(false);
+		}
+		assertThat(limiter.inFlight()).isZero();
+		assertThat(limiter.limit()).isEqualTo(learned);
+
+		// Waiting for connections still counts
+		limiter.tryAcquire(1.0);
+		limiter.releaseUnsampled(true);
+		assertThat(limiter.limit()).isLessThan(learned);
+	}
+
+	@Test
+	void concurrentReleasesKeepTheLimitConsistent() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 5, 200, 2.0, 0.2, 0.9);
+		ExecutorService threads = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++) {
+				workers.add(threads.submit(() -> {
+					for (int i = 0; i < 20_000; i++) {
+						if (limiter.tryAcquire(1.0)) {
+							limiter.release(5 * MILLISECOND, i % 1_000 == 0);
+						}
+					}
+				}));
+			}
+			for (Future<?> worker : workers) {
+				worker.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			threads.shutdown();
+		}
+		assertThat(limiter.inFlight()).isZero();
+		assertThat(limiter.limit()).isBetween(5, 200);
+	}
+
+	// Keeps the given part of the limit in flight while `requests` requests finish with the given latency
+	private static void runAt(AdaptiveConcurrencyLimiter limiter, double load, long latencyNanos, int requests) {
+		for (int i = 0; i < requests; i++) {
+			while (limiter.inFlight() < Math.max(1, (int) (limiter.limit() * load)) && limiter.tryAcquire(1.0)) {
+				// Fill up
+			}
+			limiter.release(latencyNanos, false);
+		}
+		while (limiter.inFlight() > 0) {
+			limiter.release(latencyNanos, false);
+		}
+	}
+}
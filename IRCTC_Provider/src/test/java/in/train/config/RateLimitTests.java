@@ -0,0 +1,133 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:rate_limit;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"ratelimit.read.per-second=0.5",
+		"ratelimit.read.burst=3",
+		"ratelimit.booking.per-second=0.1",
+		"ratelimit.booking.burst=2",
+		"ratelimit.api-keys=runaway:runaway-key, calm:calm-key, steady:steady-key",
+		"ratelimit.partner.read.per-second=0.5",
+		"ratelimit.partner.read.burst=3",
+		"ratelimit.partner.booking.per-second=0.1",
+		"ratelimit.partner.booking.burst=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class RateLimitTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void clientsOverTheirLimitGet429() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", "runaway-key"))
+					.andExpect(status().isNotFound());
+		}
+		mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", "runaway-key"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "2"))
+				.andExpect(jsonPath("$.error").value("Too Many Requests"));
+
+		// Other partners and the booking limit are not affected
+		mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", "calm-key"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(delete("/api/tickets/999999").header("X-API-Key", "runaway-key"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(delete("/api/tickets/999999").header("X-API-Key", "runaway-key"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(delete("/api/tickets/999999").header("X-API-Key", "runaway-key"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string("Retry-After", "10"));
+
+		// Not part of the ticket API
+		mockMvc.perform(get("/api/shards").header("X-API-Key", "runaway-key"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void unknownKeysAreLimitedByAddress() throws Exception {
+		// Made-up keys and a partner's name instead of its key: all one bucket, the caller's address
+		for (String key : new String[] { "guess-1", "guess-2", "steady" }) {
+			mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", key).with(from("10.0.0.7")))
+					.andExpect(status().isNotFound());
+		}
+		mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", "guess-3").with(from("10.0.0.7")))
+				.andExpect(status().isTooManyRequests());
+
+		// The partner itself is not affected, even from the same address
+		mockMvc.perform(get("/api/tickets/999999").header("X-API-Key", "steady-key").with(from("10.0.0.7")))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/tickets/999999").with(from("10.0.0.8")))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void bucketsRefillAtTheConfiguredRate() {
+		ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 100);
+		long now = 0;
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire("partner", now)).isZero();
+		}
+		// Empty: the next token comes back after 100 ms
+		assertThat(limiter.tryAcquire("partner", now)).isEqualTo(SECOND / 10);
+		assertThat(limiter.tryAcquire("partner", now + SECOND / 10)).isZero();
+		assertThat(limiter.tryAcquire("partner", now + SECOND / 10)).isPositive();
+
+		// Idle for a long time: full again, but never more than the burst
+		now += 60 * SECOND;
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.tryAcquire("partner", now)).isZero();
+		}
+		assertThat(limiter.tryAcquire("partner", now)).isPositive();
+	}
+
+	@Test
+	void idleClientsAreEvictedAndNewOnesShareABucketWhenFull() throws Exception {
+		ClientRateLimiter limiter = new ClientRateLimiter(1_000_000, 1, 2);
+		long now = System.nanoTime();
+
+		assertThat(limiter.tryAcquire("a", now)).isZero();
+		assertThat(limiter.tryAcquire("b", now)).isZero();
+		// Map is full: "c" and "d" share the overflow bucket
+		assertThat(limiter.tryAcquire("c", now)).isZero();
+		assertThat(limiter.tryAcquire("d", now)).isPositive();
+		assertThat(limiter.trackedClients()).isEqualTo(2);
+
+		// Buckets are full again after 1 microsecond
+		Thread.sleep(5);
+		assertThat(limiter.evictIdle()).isEqualTo(2);
+		assertThat(limiter.trackedClients()).isZero();
+	}
+
+	private static RequestPostProcessor from(String remoteAddress) {
+		return request -> {
+			request.setRemoteAddr(remoteAddress);
+			return request;
+		};
+	}
+}
@@ -0,0 +1,97 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.exception.TicketNotFoundException;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import in.train.service.TicketService;
+
+@SpringBootTest(properties = {
+		// Own databases and no second-level cache, so every read really goes to a database
+		"spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"datasource.replicas.urls=" + ReplicaRoutingTests.REPLICA_URL,
+		"datasource.replicas.migrate=true",
+		"datasource.replicas.read-your-writes-ms=500",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@ActiveProfiles("embedded")
+class ReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ReadYourWrites readYourWrites;
+
+	private static JdbcTemplate replica;
+
+	@BeforeAll
+	static void connectToReplica() {
+		replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+	}
+
+	@Test
+	void writesGoToThePrimaryAndReadsToTheReplica() {
+		Ticket booked = ticketService.bookTicket(passenger());
+
+		assertThat(count(jdbcTemplate)).isPositive();
+		assertThat(count(replica)).isZero();
+		// The replica has not received the booking (embedded databases do not replicate)
+		assertThat(ticketService.getAllTickets(PageRequest.of(0, 10)).getContent())
+				.extracting(Ticket::getTicketId)
+				.doesNotContain(booked.getTicketId());
+	}
+
+	@Test
+	void justWrittenTicketsAreReadFromThePrimaryUntilTheWindowEnds() throws InterruptedException {
+		Ticket booked = ticketService.bookTicket(passenger());
+
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPnr()).isEqualTo(booked.getPnr());
+		assertThat(ticketService.searchTickets(booked.getPnr(), null)).hasSize(1);
+		ticketService.cancelTicket(booked.getTicketId());
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getTicketStatus()).isEqualTo("CANCELLED");
+
+		Thread.sleep(600);
+
+		assertThatThrownBy(() -> ticketService.getTicketById(booked.getTicketId()))
+				.isInstanceOf(TicketNotFoundException.class);
+		assertThat(ticketService.searchTickets(booked.getPnr(), null)).isEmpty();
+
+		// Nothing is kept once the window has ended
+		readYourWrites.evictExpired();
+		assertThat(readYourWrites.trackedKeys()).isZero();
+	}
+
+	private static Long count(JdbcTemplate template) {
+		return template.queryForObject("SELECT COUNT(*) FROM tickets", Long.class);
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Nisha");
+		passenger.setLname("Pillai");
+		passenger.setGender("Female");
+		passenger.setFrom("Madurai");
+		passenger.setTo("Kochi");
+		passenger.setDoj("2026-12-20");
+		passenger.setTrainNum("16343");
+		return passenger;
+	}
+}
@@ -0,0 +1,32 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import in.train.api.ApiResponse;
+import in.train.entity.TicketEntity;
+import in.train.responce.Ticket;
+
+class RuntimeHintsTests {
+
+	@Test
+	void bodiesEntitiesAndResourcesAreRegistered() throws NoSuchMethodException {
+		RuntimeHints hints = new RuntimeHints();
+		new RuntimeHintsConfig.TicketHints().registerHints(hints, getClass().getClassLoader());
+
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(Ticket.class.getMethod("getHeldUntil")))
+				.accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onMethod(ApiResponse.class.getMethod("getData")))
+				.accepts(hints);
+		assertThat(RuntimeHintsPredicates.reflection().onType(TicketEntity.class)
+				.withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS))
+				.accepts(hints);
+		assertThat(RuntimeHintsPredicates.resource().forResource("ehcache.xml")).accepts(hints);
+		assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/V6__add_ticket_hold.sql"))
+				.accepts(hints);
+	}
+}
@@ -0,0 +1,264 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketStatus;
+import in.train.exception.BadRequestException;
+import in.train.exception.TrainMoveNotFoundException;
+import in.train.repository.TicketRepository;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import in.train.responce.TrainMoveResult;
+import in.train.service.ShardRebalancer;
+import in.train.service.TicketService;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + ShardingTests.SHARD_0_URL,
+		"datasource.shards.urls=" + ShardingTests.SHARD_1_URL,
+		// A move waits one directory reload for bookings of other instances
+		"datasource.shards.directory-refresh-ms=300",
+		"datasource.shards.move-settle-ms=100"
+})
+@ActiveProfiles("embedded")
+class ShardingTests {
+
+	static final String SHARD_0_URL = "jdbc:h2:mem:sharding_0;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	static final String SHARD_1_URL = "jdbc:h2:mem:sharding_1;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private static JdbcTemplate shard0;
+
+	private static JdbcTemplate shard1;
+
+	@BeforeAll
+	static void connectToShards() {
+		shard0 = new JdbcTemplate(new DriverManagerDataSource(SHARD_0_URL, "sa", ""));
+		shard1 = new JdbcTemplate(new DriverManagerDataSource(SHARD_1_URL, "sa", ""));
+	}
+
+	@Test
+	void bookingsGoToTheShardOfTheirTrain() {
+		Ticket first = ticketService.bookTicket(passenger(trainOnShard(0, 0)));
+		Ticket second = ticketService.bookTicket(passenger(trainOnShard(1, 0)));
+
+		assertThat(countByPnr(shard0, first.getPnr())).isEqualTo(1);
+		assertThat(countByPnr(shard1, second.getPnr())).isEqualTo(1);
+		assertThat(countByPnr(shard1, first.getPnr())).isZero();
+		assertThat(first.getPnr()).hasSize(12).endsWith("00");
+		assertThat(second.getPnr()).hasSize(12).endsWith("01");
+		assertThat(shardRouter.shardForTicketId(first.getTicketId())).isZero();
+		assertThat(shardRouter.shardForTicketId(second.getTicketId())).isEqualTo(1);
+	}
+
+	@Test
+	void lookupsByIdAndPnrHitOneShard() {
+		Ticket booked = ticketService.bookTicket(passenger(trainOnShard(1, 1)));
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		assertThat(ticketService.searchTickets(booked.getPnr(), null))
+				.extracting(Ticket::getTicketId)
+				.containsExactly(booked.getTicketId());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPnr()).isEqualTo(booked.getPnr());
+
+		// Cached query results belong to one shard: the same query on shard 0 goes to shard 0
+		assertThat(shardRouter.read(1, () -> ticketRepository.findViewsByPnr(booked.getPnr()))).hasSize(1);
+		assertThat(shardRouter.read(0, () -> ticketRepository.findViewsByPnr(booked.getPnr()))).isEmpty();
+	}
+
+	@Test
+	void listsMergeAllShardsInBookingOrder() {
+		for (int i = 0; i < 3; i++) {
+			ticketService.bookTicket(passenger(trainOnShard(0, 2)));
+			ticketService.bookTicket(passenger(trainOnShard(1, 2)));
+		}
+		long total = count(shard0) + count(shard1);
+
+		Page<Ticket> firstPage = ticketService.getAllTickets(PageRequest.of(0, 4));
+		Page<Ticket> secondPage = ticketService.getAllTickets(PageRequest.of(1, 4));
+
+		assertThat(firstPage.getTotalElements()).isEqualTo(total);
+		assertThat(firstPage.getContent()).hasSize(4);
+		List<Ticket> both = new ArrayList<>(firstPage.getContent());
+		both.addAll(secondPage.getContent());
+		assertThat(both).extracting(Ticket::getBookingTime).isSorted();
+		assertThat(both).extracting(Ticket::getTicketId).doesNotHaveDuplicates();
+		assertThat(ticketService.searchTickets(null, null)).hasSize((int) total);
+	}
+
+	@Test
+	void movedTrainsKeepTheirTicketsReachable() throws Exception {
+		String train = trainOnShard(0, 3);
+		List<Ticket> booked = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			booked.add(ticketService.bookTicket(passenger(train)));
+		}
+		// Cached before the move
+		ticketService.getTicketById(booked.get(0).getTicketId());
+
+		TrainMoveResult started = shardRebalancer.startMove(train, 1);
+		assertThat(started.getStatus()).isEqualTo(TrainMoveResult.RUNNING);
+		TrainMoveResult result = finishedMove(train);
+
+		assertThat(result.getStatus()).isEqualTo(TrainMoveResult.DONE);
+		assertThat(result.getFromShard()).isZero();
+		assertThat(result.getMovedTickets()).isEqualTo(3);
+		assertThat(countByTrain(shard0, train)).isZero();
+		assertThat(countByTrain(shard1, train)).isEqualTo(3);
+		for (Ticket ticket : booked) {
+			assertThat(ticketService.getTicketById(ticket.getTicketId()).getPnr()).isEqualTo(ticket.getPnr());
+			assertThat(ticketService.searchTickets(ticket.getPnr(), null)).hasSize(1);
+		}
+		assertThat(ticketService.getTicketsByIds(booked.stream().map(Ticket::getTicketId).toList())).hasSize(3);
+
+		ticketService.cancelTicket(booked.get(0).getTicketId());
+		assertThat(ticketService.getTicketById(booked.get(0).getTicketId()).getTicketStatus()).isEqualTo("CANCELLED");
+
+		// New bookings of the train go to shard 1 and get an ID of shard 1's series
+		Ticket afterMove = ticketService.bookTicket(passenger(train));
+		assertThat(afterMove.getPnr()).endsWith("01");
+		assertThat(shardRouter.shardForTicketId(afterMove.getTicketId())).isEqualTo(1);
+		assertThat(countByTrain(shard1, train)).isEqualTo(4);
+	}
+
+	@Test
+	void bookingsOfOtherInstancesOnTheOldShardAreMovedAsWell() throws Exception {
+		String train = trainOnShard(0, 4);
+		ticketService.bookTicket(passenger(train));
+
+		shardRebalancer.startMove(train, 1);
+		// First pass done
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		while (countByTrain(shard1, train) == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(shardRebalancer.getMove(train).getStatus()).isEqualTo(TrainMoveResult.RUNNING);
+		// Starting it again returns the running move
+		assertThat(shardRebalancer.startMove(train, 1).getStartedAt())
+				.isEqualTo(shardRebalancer.getMove(train).getStartedAt());
+		// Another instance that has not reloaded the directory yet books on the old shard
+		String pnr = shardRouter.newPnr(0);
+		shard0.update("""
+				INSERT INTO tickets (passenger_first_name, passenger_last_name, from_station, to_station,
+				    journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time)
+				VALUES ('Tara', 'Bose', 'Kolkata', 'Patna', '2026-12-24', ?, 1500, ?, ?, CURRENT_TIMESTAMP)
+				""", train, TicketStatus.CONFIRMED.ordinal(), pnr);
+
+		assertThat(finishedMove(train).getMovedTickets()).isEqualTo(2);
+		assertThat(countByTrain(shard0, train)).isZero();
+		assertThat(countByTrain(shard1, train)).isEqualTo(2);
+		assertThat(ticketService.searchTickets(pnr, null)).hasSize(1);
+	}
+
+	@Test
+	void movesOfOtherInstancesDropCachedTicketsAtTheNextReload() throws Exception {
+		shardRouter.reloadDirectory();
+		Ticket booked = ticketService.bookTicket(passenger(trainOnShard(0, 5)));
+		ticketService.getTicketById(booked.getTicketId());
+		// Cache entries are only read by sessions that started after they were written
+		Thread.sleep(10);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPassengerName()).isEqualTo("Tara Bose");
+		assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+
+		// Another instance moves a train and changes the row with plain SQL
+		shard0.update("INSERT INTO train_shards (train_number, shard, moved_at) VALUES (?, 1, ?)",
+				trainOnShard(0, 6), LocalDateTime.now());
+		shard0.update("UPDATE tickets SET passenger_last_name = 'Sen' WHERE ticket_id = ?", booked.getTicketId());
+
+		shardRouter.reloadDirectory();
+
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPassengerName()).isEqualTo("Tara Sen");
+	}
+
+	@Test
+	void unknownShardsAndMovesAreRejected() {
+		assertThatThrownBy(() -> shardRebalancer.startMove("12345", 2))
+				.isInstanceOf(BadRequestException.class)
+				.hasMessage("Shard 2 does not exist (shards: 0 to 1)");
+		assertThatThrownBy(() -> shardRebalancer.getMove("12345"))
+				.isInstanceOf(TrainMoveNotFoundException.class);
+	}
+
+	private TrainMoveResult finishedMove(String train) throws InterruptedException {
+		long deadline = System.nanoTime() + 5_000_000_000L;
+		TrainMoveResult move = shardRebalancer.getMove(train);
+		while (TrainMoveResult.RUNNING.equals(move.getStatus()) && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+			move = shardRebalancer.getMove(train);
+		}
+		return move;
+	}
+
+	/**
+	 * A train number whose default shard is the given one (skip = pick a different train per test).
+	 */
+	private String trainOnShard(int shard, int skip) {
+		int found = 0;
+		for (int number = 10000; ; number++) {
+			String train = String.valueOf(number);
+			if (shardRouter.shardForTrain(train) == shard && found++ == skip) {
+				return train;
+			}
+		}
+	}
+
+	private static long count(JdbcTemplate shard) {
+		return shard.queryForObject("SELECT COUNT(*) FROM tickets", Long.class);
+	}
+
+	private static long countByPnr(JdbcTemplate shard, String pnr) {
+		return shard.queryForObject("SELECT COUNT(*) FROM tickets WHERE pnr = ?", Long.class, pnr);
+	}
+
+	private static long countByTrain(JdbcTemplate shard, String train) {
+		return shard.queryForObject("SELECT COUNT(*) FROM tickets WHERE train_number = ?", Long.class, train);
+	}
+
+	private static Passenger passenger(String train) {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Tara");
+		passenger.setLname("Bose");
+		passenger.setGender("Female");
+		passenger.setFrom("Kolkata");
+		passenger.setTo("Patna");
+		passenger.setDoj("2026-12-24");
+		passenger.setTrainNum(train);
+		return passenger;
+	}
+}
@@ -0,0 +1,48 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketStatus;
+import in.train.repository.TicketRepository;
+
+// Own database and no second-level cache: the other test contexts share the default
+// in-memory database and cache manager, and must not see these generated rows
+@SpringBootTest(properties = { "seed.tickets.count=2500", "seed.tickets.batch-size=1000", "seed.tickets.trains=50",
+		"spring.datasource.url=jdbc:h2:mem:seeder_test;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false" })
+@ActiveProfiles("embedded")
+class TicketDataSeederTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Test
+	void seedsRequestedNumberOfTicketsWithUniquePnrs() {
+		assertThat(ticketRepository.count()).isEqualTo(2500);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT pnr) FROM tickets", Long.class))
+				.isEqualTo(2500);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT train_number) FROM tickets", Long.class))
+				.isBetween(2L, 50L);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets WHERE ticket_status = ?", Long.class,
+				TicketStatus.CANCELLED.getCode())).isPositive();
+	}
+
+	@Test
+	void seededTicketsAreFoundByPnr() {
+		String pnr = jdbcTemplate.queryForObject("SELECT pnr FROM tickets WHERE ticket_id = 1", String.class);
+
+		assertThat(pnr).hasSize(10);
+		assertThat(ticketRepository.findByPnr(pnr)).hasSize(1);
+	}
+
+}
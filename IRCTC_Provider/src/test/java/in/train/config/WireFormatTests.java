@@ -0,0 +1,100 @@
+package in.train.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.api.ApiResponse;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:wire_format;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class WireFormatTests {
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper jsonMapper;
+
+	@Autowired
+	private Jackson2ObjectMapperBuilder builder;
+
+	@Test
+	void smileClientsBookAndReadInSmile() throws Exception {
+		ObjectMapper smileMapper = WireFormatConfig.smileMapper(builder);
+
+		byte[] booked = mockMvc.perform(post("/api/tickets")
+				.contentType(SMILE)
+				.accept(SMILE, MediaType.APPLICATION_JSON)
+				.content(smileMapper.writeValueAsBytes(passenger())))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(SMILE))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		ApiResponse<Ticket> response = smileMapper.readValue(booked, new TypeReference<ApiResponse<Ticket>>() {});
+		Ticket ticket = response.getData();
+		assertThat(ticket.getPnr()).isNotBlank();
+		assertThat(ticket.getBookingTime()).isNotNull();
+
+		byte[] smile = mockMvc.perform(get("/api/tickets/" + ticket.getTicketId()).accept(SMILE))
+				.andExpect(content().contentTypeCompatibleWith(SMILE))
+				.andReturn().getResponse().getContentAsByteArray();
+		byte[] json = mockMvc.perform(get("/api/tickets/" + ticket.getTicketId()).accept(MediaType.APPLICATION_JSON))
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+				.andReturn().getResponse().getContentAsByteArray();
+
+		// Same ticket in both formats, the Smile one is smaller
+		assertThat(smileMapper.readValue(smile, Ticket.class).getPnr()).isEqualTo(ticket.getPnr());
+		assertThat(jsonMapper.readValue(json, Ticket.class).getPnr()).isEqualTo(ticket.getPnr());
+		assertThat(smile.length).isLessThan(json.length);
+	}
+
+	@Test
+	void clientsWithoutPreferenceStillGetJson() throws Exception {
+		mockMvc.perform(post("/api/tickets")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(jsonMapper.writeValueAsBytes(passenger())))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+		mockMvc.perform(get("/api/tickets").accept(MediaType.ALL))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Farhan");
+		passenger.setLname("Qureshi");
+		passenger.setGender("Male");
+		passenger.setFrom("Lucknow");
+		passenger.setTo("Varanasi");
+		passenger.setDoj("2026-12-22");
+		passenger.setTrainNum("14236");
+		return passenger;
+	}
+}
@@ -0,0 +1,68 @@
+package in.train.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import in.train.service.TicketService;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:ticket_controller;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"lookup.batch.max-ids=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class TicketControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Test
+	void batchLookupIsLimitedToMaxIds() throws Exception {
+		Ticket booked = ticketService.bookTicket(passenger());
+
+		mockMvc.perform(get("/api/tickets/batch").param("ids", booked.getTicketId() + ",999990,999991,999992,999993"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].pnr").value(booked.getPnr()));
+
+		// One ID too many: refused before any lookup
+		mockMvc.perform(get("/api/tickets/batch").param("ids", booked.getTicketId() + ",999990,999991,999992,999993,999994"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("At most 5 ticket IDs per batch, got 6"));
+	}
+
+	@Test
+	void unknownTraceIsNotFound() throws Exception {
+		mockMvc.perform(get("/api/traces/0af7651916cd43dd8448eb211c80319c"))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.message").value("Trace not found with ID: 0af7651916cd43dd8448eb211c80319c"));
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Kiran");
+		passenger.setLname("Das");
+		passenger.setGender("Male");
+		passenger.setFrom("Kolkata");
+		passenger.setTo("Puri");
+		passenger.setDoj("2026-12-31");
+		passenger.setTrainNum("12837");
+		return passenger;
+	}
+}
@@ -0,0 +1,162 @@
+package in.train.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.rsocket.server.LocalRSocketServerPort;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.config.WireFormatConfig;
+import in.train.request.Passenger;
+import in.train.responce.TicketStreamReply;
+import io.rsocket.exceptions.RejectedSetupException;
+import reactor.core.publisher.Flux;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:ticket_stream;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"spring.rsocket.server.port=0",
+		"rpc.stream.max-in-flight=4",
+		"ratelimit.api-keys=bulk:bulk-key, flood:flood-key",
+		"ratelimit.partner.booking.per-second=0.1",
+		"ratelimit.partner.booking.burst=5"
+})
+@ActiveProfiles("embedded")
+class TicketStreamControllerTests {
+
+	@LocalRSocketServerPort
+	private int port;
+
+	@Autowired
+	private RSocketRequester.Builder requesterBuilder;
+
+	private RSocketRequester requester;
+
+	@BeforeEach
+	void connect() {
+		requester = connect("bulk-key");
+	}
+
+	@AfterEach
+	void disconnect() {
+		requester.dispose();
+	}
+
+	@Test
+	void bookingsAndLookupsStreamOverOneConnection() {
+		Passenger invalid = passenger("Kiran");
+		invalid.setTrainNum("12");
+
+		// Spaced out: H2 in MySQL mode can hand the same ticket ID to concurrent inserts
+		List<TicketStreamReply> booked = exchange("tickets.book",
+				Flux.just(passenger("Kiran"), passenger("Lata"), invalid, passenger("Mohan"))
+						.delayElements(Duration.ofMillis(50)));
+
+		assertThat(booked).extracting(TicketStreamReply::isSuccess).containsExactly(true, true, false, true);
+		assertThat(booked.get(2).getError()).startsWith("Validation failed: trainNum");
+
+		List<Integer> ticketIds = booked.stream()
+				.filter(TicketStreamReply::isSuccess)
+				.map(reply -> reply.getTicket().getTicketId())
+				.toList();
+		List<TicketStreamReply> looked = exchange("tickets.status",
+				Flux.concat(Flux.fromIterable(ticketIds), Flux.just(999_999)));
+
+		assertThat(looked).hasSize(4);
+		assertThat(looked.subList(0, 3)).allSatisfy(reply -> {
+			assertThat(reply.isSuccess()).isTrue();
+			assertThat(reply.getTicket().getTicketStatus()).isEqualTo("CONFIRMED");
+		});
+		assertThat(looked.get(3).getError()).isEqualTo("Ticket not found with ID: 999999");
+	}
+
+	@Test
+	void clientOnlySendsWhatTheServerAskedFor() {
+		AtomicLong requested = new AtomicLong();
+		AtomicLong sent = new AtomicLong();
+		AtomicLong maxAhead = new AtomicLong();
+
+		Flux<Integer> ticketIds = Flux.range(1_000_000, 500)
+				.doOnRequest(n -> maxAhead.accumulateAndGet(requested.addAndGet(n) - sent.get(), Math::max))
+				.doOnNext(id -> sent.incrementAndGet());
+
+		assertThat(exchange("tickets.status", ticketIds)).hasSize(500);
+		// rpc.stream.max-in-flight=4 (plus the first request sent with the stream itself)
+		assertThat(maxAhead.get()).isLessThanOrEqualTo(5);
+	}
+
+	@Test
+	void connectionsWithoutAPartnerKeyAreRejected() {
+		for (String apiKey : new String[] { "guessed-key", null }) {
+			RSocketRequester stranger = connect(apiKey);
+			try {
+				assertThatThrownBy(() -> exchange(stranger, "tickets.status", Flux.just(1)))
+						.isInstanceOf(RejectedSetupException.class);
+			} finally {
+				stranger.dispose();
+			}
+		}
+	}
+
+	@Test
+	void streamRequestsCountAgainstThePartnerLimit() {
+		RSocketRequester flood = connect("flood-key");
+		try {
+			List<TicketStreamReply> replies = exchange(flood, "tickets.book",
+					Flux.range(0, 8).map(i -> passenger("Flood" + i)).delayElements(Duration.ofMillis(50)));
+
+			// Burst of 5, then refused like the REST API would refuse them (the stream stays open)
+			assertThat(replies).extracting(TicketStreamReply::isSuccess)
+					.containsExactly(true, true, true, true, true, false, false, false);
+			assertThat(replies.get(5).getError()).startsWith("Too many booking requests, please retry after");
+		} finally {
+			flood.dispose();
+		}
+	}
+
+	private RSocketRequester connect(String apiKey) {
+		RSocketRequester.Builder builder = requesterBuilder.dataMimeType(WireFormatConfig.SMILE);
+		if (apiKey != null) {
+			builder = builder.setupData(apiKey);
+		}
+		return builder.tcp("localhost", port);
+	}
+
+	// Send the stream and collect the replies in request order
+	private List<TicketStreamReply> exchange(String route, Flux<?> requests) {
+		return exchange(requester, route, requests);
+	}
+
+	private static List<TicketStreamReply> exchange(RSocketRequester requester, String route, Flux<?> requests) {
+		return requester.route(route)
+				.data(requests)
+				.retrieveFlux(TicketStreamReply.class)
+				.collectSortedList(Comparator.comparingLong(TicketStreamReply::getSequence))
+				.block();
+	}
+
+	private static Passenger passenger(String firstName) {
+		Passenger passenger = new Passenger();
+		passenger.setFname(firstName);
+		passenger.setLname("Bhat");
+		passenger.setGender("Other");
+		passenger.setFrom("Mangaluru");
+		passenger.setTo("Goa");
+		passenger.setDoj("2026-12-28");
+		passenger.setTrainNum("16345");
+		return passenger;
+	}
+}
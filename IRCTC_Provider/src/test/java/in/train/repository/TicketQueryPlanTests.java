@@ -0,0 +1,106 @@
+package in.train.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketStatus;
+
+/**
+ * Query plan regression check on the embedded database.
+ *
+ * Runs the repository queries, captures the SQL Hibernate generates for them
+ * and asks H2 for the plan (EXPLAIN). Each query must use the index created for
+ * it in the Flyway migrations; a changed query or a dropped index that falls
+ * back to a full table scan fails the build.
+ */
+@SpringBootTest(properties = { "seed.tickets.count=5000",
+		"spring.datasource.url=jdbc:h2:mem:plan_check;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "in.train.repository.TicketQueryPlanTests$SqlCapture" })
+@ActiveProfiles("embedded")
+class TicketQueryPlanTests {
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		SqlCapture.STATEMENTS.clear();
+	}
+
+	@Test
+	void findByIdUsesPrimaryKey() {
+		ticketRepository.findById(42);
+
+		assertThat(plan(lastSelect(), 42)).contains("PRIMARY_KEY").doesNotContain("tableScan");
+	}
+
+	@Test
+	void pnrLookupUsesUniquePnrIndex() {
+		ticketRepository.findViewsByPnr("1000000000");
+
+		assertThat(plan(lastSelect(), "1000000000")).containsIgnoringCase("UK_TICKETS_PNR")
+				.doesNotContain("tableScan");
+	}
+
+	@Test
+	void listPageWalksBookingTimeIndexWithoutSorting() {
+		ticketRepository.findAllViews(PageRequest.of(3, 100));
+
+		String plan = plan(lastSelect(), 300, 100);
+		assertThat(plan).containsIgnoringCase("IDX_TICKETS_BOOKING_TIME").contains("index sorted");
+	}
+
+	@Test
+	void trainDateStatusLookupUsesCompositeIndex() {
+		String sql = "SELECT COUNT(*) FROM tickets WHERE train_number = ? AND journey_date = ? AND ticket_status = ?";
+
+		assertThat(plan(sql, "12951", LocalDate.now(), TicketStatus.CONFIRMED.getCode()))
+				.containsIgnoringCase("IDX_TICKETS_TRAIN_DATE_STATUS")
+				.doesNotContain("tableScan");
+	}
+
+	private String lastSelect() {
+		List<String> selects = SqlCapture.STATEMENTS.stream()
+				.filter(sql -> sql.startsWith("select") && !sql.startsWith("select count"))
+				.toList();
+		assertThat(selects).as("captured SQL").isNotEmpty();
+		return selects.get(selects.size() - 1);
+	}
+
+	private String plan(String sql, Object... parameters) {
+		return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, parameters));
+	}
+
+	/**
+	 * Records every SQL statement Hibernate sends.
+	 */
+	public static class SqlCapture implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import in.train.exception.TicketNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTests {
+
+	private static final int CALLERS = 16;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final SingleFlight<Integer, String> lookups = new SingleFlight<>("id", true, meterRegistry);
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+	@AfterEach
+	void shutDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentLookupsOfTheSameKeyShareOneQuery() throws Exception {
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = startCallers(42, () -> {
+			queries.incrementAndGet();
+			await(release);
+			return "ticket 42";
+		});
+		// Everybody joined the first query before it returns
+		waitFor(() -> flights("follower") == CALLERS - 1);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("ticket 42");
+		}
+		assertThat(queries.get()).isEqualTo(1);
+		assertThat(flights("leader")).isEqualTo(1);
+		assertThat(meterRegistry.get("tickets.lookup.coalescing.ratio").gauge().value())
+				.isEqualTo((CALLERS - 1) / (double) CALLERS);
+
+		// Finished queries are not reused
+		assertThat(lookups.run(42, () -> "ticket 42 again")).isEqualTo("ticket 42 again");
+	}
+
+	@Test
+	void followersGetTheLeadersException() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = startCallers(7, () -> {
+			await(release);
+			throw new TicketNotFoundException("Ticket not found with ID: 7");
+		});
+		waitFor(() -> flights("follower") == CALLERS - 1);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+					.hasCauseInstanceOf(TicketNotFoundException.class)
+					.hasRootCauseMessage("Ticket not found with ID: 7");
+		}
+	}
+
+	@Test
+	void lookupsAfterForgetStartANewQuery() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		Future<String> before = executor.submit(() -> lookups.run(1, () -> {
+			await(release);
+			return "CONFIRMED";
+		}));
+		waitFor(() -> flights("leader") == 1);
+
+		// The ticket was cancelled while the first query was running
+		lookups.forget(1);
+		assertThat(lookups.run(1, () -> "CANCELLED")).isEqualTo("CANCELLED");
+
+		release.countDown();
+		assertThat(before.get(5, TimeUnit.SECONDS)).isEqualTo("CONFIRMED");
+		assertThat(flights("follower")).isZero();
+	}
+
+	private List<Future<String>> startCallers(int key, Supplier<String> query) {
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> lookups.run(key, query)));
+		}
+		return results;
+	}
+
+	private double flights(String role) {
+		return meterRegistry.get("tickets.lookup.flights").tag("role", role).counter().count();
+	}
+
+	private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.exception.TicketNotFoundException;
+import in.train.repository.TicketArchiveRepository;
+import in.train.repository.TicketRepository;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class TicketArchiveTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketArchiveService ticketArchiveService;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Autowired
+	private TicketArchiveRepository ticketArchiveRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void completedJourneysMoveToTheArchive() {
+		Ticket past = ticketService.bookTicket(passenger(LocalDate.now().minusDays(10)));
+		Ticket upcoming = ticketService.bookTicket(passenger(LocalDate.now().plusDays(10)));
+
+		assertThat(ticketArchiveService.archiveCompletedJourneys()).isPositive();
+
+		assertThat(ticketRepository.existsById(past.getTicketId())).isFalse();
+		assertThat(ticketArchiveRepository.existsById(past.getTicketId())).isTrue();
+		assertThat(ticketRepository.existsById(upcoming.getTicketId())).isTrue();
+		assertThat(ticketArchiveRepository.existsById(upcoming.getTicketId())).isFalse();
+	}
+
+	@Test
+	void archivedTicketsAreStillFoundByIdAndPnr() {
+		Ticket past = ticketService.bookTicket(passenger(LocalDate.now().minusDays(5)));
+		Ticket upcoming = ticketService.bookTicket(passenger(LocalDate.now().plusDays(5)));
+		// Cached before archival: the cache must not keep serving the old copy
+		ticketService.getTicketById(past.getTicketId());
+		ticketService.searchTickets(past.getPnr(), null);
+
+		ticketArchiveService.archiveCompletedJourneys();
+
+		Ticket archived = ticketService.getTicketById(past.getTicketId());
+		assertThat(archived.getPnr()).isEqualTo(past.getPnr());
+		assertThat(archived.getPassengerName()).isEqualTo(past.getPassengerName());
+		assertThat(ticketService.searchTickets(past.getPnr(), null))
+				.extracting(Ticket::getTicketId)
+				.containsExactly(past.getTicketId());
+		assertThat(ticketService.getTicketsByIds(List.of(past.getTicketId(), upcoming.getTicketId())))
+				.extracting(Ticket::getTicketId)
+				.containsExactlyInAnyOrder(past.getTicketId(), upcoming.getTicketId());
+	}
+
+	@Test
+	void archiveQueriesAreObservedAsTheirOwnHop() {
+		Ticket past = ticketService.bookTicket(passenger(LocalDate.now().minusDays(4)));
+		ticketArchiveService.archiveCompletedJourneys();
+
+		ticketService.getTicketById(past.getTicketId());
+
+		assertThat(meterRegistry.find("ticket.repository").tag("repository", "ticket-archive-repository").timers())
+				.isNotEmpty();
+		assertThat(meterRegistry.find("ticket.repository").tag("repository", "ticket-repository").timers())
+				.isNotEmpty();
+	}
+
+	@Test
+	void archivedTicketsCannotBeCancelled() {
+		Ticket past = ticketService.bookTicket(passenger(LocalDate.now().minusDays(3)));
+		ticketService.getTicketById(past.getTicketId());
+
+		ticketArchiveService.archiveCompletedJourneys();
+
+		assertThatThrownBy(() -> ticketService.cancelTicket(past.getTicketId()))
+				.isInstanceOf(TicketNotFoundException.class);
+		assertThat(ticketService.getTicketById(past.getTicketId()).getTicketStatus()).isEqualTo("CONFIRMED");
+	}
+
+	private static Passenger passenger(LocalDate journeyDate) {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Kiran");
+		passenger.setLname("Menon");
+		passenger.setGender("Male");
+		passenger.setFrom("Kochi");
+		passenger.setTo("Chennai");
+		passenger.setDoj(journeyDate.toString());
+		passenger.setTrainNum("16345");
+		return passenger;
+	}
+}
@@ -0,0 +1,128 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketEntity;
+import in.train.entity.TicketStatus;
+import in.train.exception.BadRequestException;
+import in.train.repository.TicketRepository;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class TicketConcurrencyTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketRepository ticketRepository;
+
+	@Test
+	void staleUpdatesAreRejected() {
+		Ticket booked = ticketService.bookTicket(passenger());
+		TicketEntity stale = ticketRepository.findById(booked.getTicketId()).orElseThrow();
+
+		ticketService.cancelTicket(booked.getTicketId());
+
+		// Written with the version read before the cancellation
+		stale.setTicketStatus(TicketStatus.CONFIRMED);
+		assertThatThrownBy(() -> ticketRepository.save(stale))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getTicketStatus()).isEqualTo("CANCELLED");
+	}
+
+	@Test
+	void concurrentCancellationsAllSucceedAndUpdateOnce() throws Exception {
+		Ticket booked = ticketService.bookTicket(passenger());
+		ticketService.getTicketById(booked.getTicketId());
+
+		int threads = 8;
+		CyclicBarrier start = new CyclicBarrier(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					ticketService.cancelTicket(booked.getTicketId());
+					return null;
+				}));
+			}
+			// Conflicts are retried, so no request fails
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		TicketEntity cancelled = ticketRepository.findById(booked.getTicketId()).orElseThrow();
+		assertThat(cancelled.getTicketStatus()).isEqualTo(TicketStatus.CANCELLED);
+		// Only the first cancellation changed the row
+		assertThat(cancelled.getVersion()).isEqualTo(1);
+	}
+
+	@Test
+	void repeatedBookingsWithTheSameIdempotencyKeyBookOnce() throws Exception {
+		Ticket first = ticketService.bookTicket(passenger(), "retry-key-1");
+		Ticket again = ticketService.bookTicket(passenger(), "retry-key-1");
+		assertThat(again.getTicketId()).isEqualTo(first.getTicketId());
+		assertThat(again.getPnr()).isEqualTo(first.getPnr());
+
+		// Retries racing each other
+		int threads = 8;
+		CyclicBarrier start = new CyclicBarrier(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Set<Integer> ticketIds = ConcurrentHashMap.newKeySet();
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					ticketIds.add(ticketService.bookTicket(passenger(), "retry-key-2").getTicketId());
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(ticketIds).hasSize(1);
+		assertThat(ticketRepository.findByIdempotencyKey("retry-key-2")).isPresent();
+
+		assertThatThrownBy(() -> ticketService.bookTicket(passenger(), "k".repeat(65)))
+				.isInstanceOf(BadRequestException.class);
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Farhan");
+		passenger.setLname("Ahmed");
+		passenger.setGender("Male");
+		passenger.setFrom("Lucknow");
+		passenger.setTo("Varanasi");
+		passenger.setDoj("2026-12-05");
+		passenger.setTrainNum("14235");
+		return passenger;
+	}
+}
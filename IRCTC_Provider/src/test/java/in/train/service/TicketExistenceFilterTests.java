@@ -0,0 +1,167 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.config.ShardRouter;
+import in.train.exception.TicketNotFoundException;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:existence_filter;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		// Only refreshed when the test says so
+		"lookup.filter.refresh-ms=3600000"
+})
+@ActiveProfiles("embedded")
+class TicketExistenceFilterTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketExistenceFilter existenceFilter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ShardRouter shardRouter;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void ticketsTheFilterNeverSawAreNotLookedUp() {
+		Ticket booked = ticketService.bookTicket(passenger("Nisha"));
+		// Straight into the database, behind this filter's back, and with a booking time the refresh never reads
+		int unseenId = insertLikeOtherInstance(booked, "7700000001", LocalDateTime.now().minusHours(1));
+		Ticket later = ticketService.bookTicket(passenger("Om"));
+		assertThat(later.getTicketId()).isGreaterThan(unseenId);
+		// Two refreshes: IDs up to the later booking are now trusted
+		existenceFilter.refresh();
+		existenceFilter.refresh();
+
+		// Bookings of this instance are known right away
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPnr()).isEqualTo(booked.getPnr());
+		assertThat(ticketService.searchTickets(later.getPnr(), null)).hasSize(1);
+
+		// The row exists, so a "not found" proves the database was not asked
+		double rejectedIdsBefore = rejected("id");
+		double rejectedPnrsBefore = rejected("pnr");
+		assertThatThrownBy(() -> ticketService.getTicketById(unseenId))
+				.isInstanceOf(TicketNotFoundException.class)
+				.satisfies(ex -> assertThat(ex.getStackTrace()).isEmpty());
+		assertThat(ticketService.searchTickets("7700000001", null)).isEmpty();
+		assertThat(ticketService.getTicketsByIds(List.of(booked.getTicketId(), unseenId)))
+				.extracting(Ticket::getTicketId)
+				.containsExactly(booked.getTicketId());
+		assertThat(rejected("id")).isEqualTo(rejectedIdsBefore + 2);
+		assertThat(rejected("pnr")).isEqualTo(rejectedPnrsBefore + 1);
+	}
+
+	@Test
+	void ticketsBookedOnOtherInstancesAreFoundBeforeTheRefresh() {
+		Ticket booked = ticketService.bookTicket(passenger("Pooja"));
+		existenceFilter.refresh();
+		existenceFilter.refresh();
+		// Another instance books the next ID, then this one books a higher one
+		String otherPnr = shardRouter.newPnr(0);
+		int otherId = insertLikeOtherInstance(booked, otherPnr, LocalDateTime.now());
+		Ticket later = ticketService.bookTicket(passenger("Ravi"));
+		assertThat(later.getTicketId()).isGreaterThan(otherId);
+
+		// Above the IDs the refresh has read: asked in the database
+		assertThat(ticketService.getTicketById(otherId).getPnr()).isEqualTo(otherPnr);
+		// PNR booked in the current minute: asked in the database, without a refresh
+		double rejectedPnrsBefore = rejected("pnr");
+		assertThat(ticketService.searchTickets(otherPnr, null)).hasSize(1);
+		assertThat(rejected("pnr")).isEqualTo(rejectedPnrsBefore);
+	}
+
+	@Test
+	void unknownPnrsFromBeforeTheRefreshAreRejectedWithoutAQuery() {
+		existenceFilter.refresh();
+		long minute = System.currentTimeMillis() / 60_000;
+		double rejectedPnrsBefore = rejected("pnr");
+
+		// Booking minutes long before the refresh (and 10 digit PNRs): trusted
+		assertThat(existenceFilter.mightContainPnr(pnr(minute - 30))).isFalse();
+		assertThat(existenceFilter.mightContainPnr(pnr(minute - 500))).isFalse();
+		assertThat(existenceFilter.mightContainPnr("7700000099")).isFalse();
+		// The current minute and the next one may still be booked elsewhere
+		assertThat(existenceFilter.mightContainPnr(pnr(minute))).isTrue();
+		assertThat(existenceFilter.mightContainPnr(pnr(minute + 1))).isTrue();
+		assertThat(rejected("pnr")).isEqualTo(rejectedPnrsBefore + 3);
+	}
+
+	// 12 digit PNR on shard 0 with the given booking minute (since the epoch)
+	private static String pnr(long minute) {
+		return String.format("4242424%03d00", Math.floorMod(minute, ShardRouter.PNR_MINUTE_CYCLE));
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTheConfiguredOne() {
+		TicketExistenceFilter.BloomFilter filter = new TicketExistenceFilter.BloomFilter(50_000, 0.01);
+		SplittableRandom random = new SplittableRandom(42);
+		long[] added = new long[100_000];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = random.nextLong();
+			filter.put(added[i]);
+		}
+
+		for (long hash : added) {
+			assertThat(filter.mightContain(hash)).isTrue();
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(random.nextLong())) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(1_500);
+	}
+
+	// Copy of the given ticket with a new PNR and booking time, inserted with plain SQL; returns its ID
+	private int insertLikeOtherInstance(Ticket ticket, String pnr, LocalDateTime bookingTime) {
+		jdbcTemplate.update("""
+				INSERT INTO tickets (passenger_first_name, passenger_last_name, gender, from_station, to_station,
+				    journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time)
+				SELECT passenger_first_name, passenger_last_name, gender, from_station, to_station,
+				    journey_date, train_number, ticket_cost, ticket_status, ?, ?
+				FROM tickets WHERE ticket_id = ?
+				""", pnr, Timestamp.valueOf(bookingTime), ticket.getTicketId());
+		return jdbcTemplate.queryForObject("SELECT ticket_id FROM tickets WHERE pnr = ?", Integer.class, pnr);
+	}
+
+	private double rejected(String key) {
+		return meterRegistry.get("tickets.filter.rejected").tag("key", key).counter().count();
+	}
+
+	private static Passenger passenger(String firstName) {
+		Passenger passenger = new Passenger();
+		passenger.setFname(firstName);
+		passenger.setLname("Rao");
+		passenger.setGender("Female");
+		passenger.setFrom("Bhopal");
+		passenger.setTo("Indore");
+		passenger.setDoj("2026-12-29");
+		passenger.setTrainNum("12919");
+		return passenger;
+	}
+}
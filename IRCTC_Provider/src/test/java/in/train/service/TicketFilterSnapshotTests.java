@@ -0,0 +1,155 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.exception.TicketNotFoundException;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the shared cache never sees these ticket IDs
+		"spring.datasource.url=jdbc:h2:mem:filter_snapshot;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		// Only refreshed and snapshotted when the test says so
+		"lookup.filter.refresh-ms=3600000",
+		"lookup.filter.refresh-overlap-ms=1000",
+		"lookup.filter.snapshot.enabled=true",
+		"lookup.filter.snapshot.path=" + TicketFilterSnapshotTests.SNAPSHOT,
+		"lookup.filter.snapshot.interval-ms=3600000"
+})
+@ActiveProfiles("embedded")
+class TicketFilterSnapshotTests {
+
+	static final String SNAPSHOT = "target/filter-snapshot-tests/ticket-filter.snapshot";
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketExistenceFilter existenceFilter;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void restartReplaysOnlyTicketsBookedSinceTheSnapshot() {
+		// Only this database's tickets (not a snapshot left by an earlier run)
+		existenceFilter.rebuild();
+		Ticket booked = ticketService.bookTicket(passenger("Ravi"));
+		existenceFilter.refresh();
+		existenceFilter.writeSnapshot();
+
+		// Booked elsewhere after the snapshot: one with an old booking time (not replayed), one current
+		int oldId = insertLikeOtherInstance(booked, "7800000001", LocalDateTime.now().minusHours(1));
+		int newId = insertLikeOtherInstance(booked, "7800000002", LocalDateTime.now());
+
+		// "Restart": the snapshot plus the tickets booked since its watermark
+		assertThat(existenceFilter.restoreSnapshot()).isTrue();
+
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getPnr()).isEqualTo(booked.getPnr());
+		assertThat(ticketService.getTicketById(newId).getPnr()).isEqualTo("7800000002");
+		assertThat(ticketService.searchTickets("7800000002", null)).hasSize(1);
+		// The row exists, so a "not found" proves it was not read again: the tables were not scanned
+		// (once the refresh has read past its ID, IDs above that are still looked up)
+		existenceFilter.refresh();
+		assertThatThrownBy(() -> ticketService.getTicketById(oldId)).isInstanceOf(TicketNotFoundException.class);
+		assertThat(ticketService.searchTickets("7800000001", null)).isEmpty();
+	}
+
+	@Test
+	void damagedSnapshotIsRebuiltFromTheTables() throws IOException {
+		Ticket booked = ticketService.bookTicket(passenger("Sunita"));
+		existenceFilter.writeSnapshot();
+		int oldId = insertLikeOtherInstance(booked, "7800000003", LocalDateTime.now().minusHours(1));
+
+		// One flipped bit in the filter bits
+		try (RandomAccessFile file = new RandomAccessFile(SNAPSHOT, "rw")) {
+			long position = TicketFilterSnapshot.HEADER_BYTES + 100;
+			file.seek(position);
+			int value = file.read();
+			file.seek(position);
+			file.write(value ^ 0x10);
+		}
+		assertThat(existenceFilter.restoreSnapshot()).isFalse();
+
+		existenceFilter.start();
+		assertThat(ticketService.getTicketById(oldId).getPnr()).isEqualTo("7800000003");
+		assertThat(ticketService.searchTickets("7800000003", null)).hasSize(1);
+	}
+
+	@Test
+	void snapshotFileKeepsTheFilterAndItsWatermark(@TempDir Path directory) throws IOException {
+		TicketExistenceFilter.BloomFilter filter = new TicketExistenceFilter.BloomFilter(10_000, 0.01);
+		SplittableRandom random = new SplittableRandom(7);
+		long[] added = new long[20_000];
+		for (int i = 0; i < added.length; i++) {
+			added[i] = random.nextLong();
+			filter.put(added[i]);
+		}
+		LocalDateTime watermark = LocalDateTime.of(2026, 10, 19, 8, 30, 15, 123_456_789);
+		Path file = directory.resolve("nested").resolve("filter.snapshot");
+
+		new TicketFilterSnapshot(filter, 4_242, watermark).write(file);
+		TicketFilterSnapshot read = TicketFilterSnapshot.read(file);
+
+		assertThat(read.highestTicketId()).isEqualTo(4_242);
+		assertThat(read.refreshFrom()).isEqualTo(watermark);
+		assertThat(read.filter().wordCount()).isEqualTo(filter.wordCount());
+		assertThat(read.filter().hashCount()).isEqualTo(filter.hashCount());
+		for (long hash : added) {
+			assertThat(read.filter().mightContain(hash)).isTrue();
+		}
+		// Only the finished file is left behind
+		try (Stream<Path> files = Files.list(file.getParent())) {
+			assertThat(files).containsExactly(file);
+		}
+
+		// Cut off in the middle of the bits
+		try (RandomAccessFile truncated = new RandomAccessFile(file.toFile(), "rw")) {
+			truncated.setLength(truncated.length() / 2);
+		}
+		assertThatThrownBy(() -> TicketFilterSnapshot.read(file)).isInstanceOf(IOException.class);
+	}
+
+	// Copy of the given ticket with a new PNR and booking time, inserted with plain SQL; returns its ID
+	private int insertLikeOtherInstance(Ticket ticket, String pnr, LocalDateTime bookingTime) {
+		jdbcTemplate.update("""
+				INSERT INTO tickets (passenger_first_name, passenger_last_name, gender, from_station, to_station,
+				    journey_date, train_number, ticket_cost, ticket_status, pnr, booking_time)
+				SELECT passenger_first_name, passenger_last_name, gender, from_station, to_station,
+				    journey_date, train_number, ticket_cost, ticket_status, ?, ?
+				FROM tickets WHERE ticket_id = ?
+				""", pnr, Timestamp.valueOf(bookingTime), ticket.getTicketId());
+		return jdbcTemplate.queryForObject("SELECT ticket_id FROM tickets WHERE pnr = ?", Integer.class, pnr);
+	}
+
+	private static Passenger passenger(String firstName) {
+		Passenger passenger = new Passenger();
+		passenger.setFname(firstName);
+		passenger.setLname("Kulkarni");
+		passenger.setGender("Female");
+		passenger.setFrom("Nashik");
+		passenger.setTo("Aurangabad");
+		passenger.setDoj("2026-12-30");
+		passenger.setTrainNum("17617");
+		return passenger;
+	}
+}
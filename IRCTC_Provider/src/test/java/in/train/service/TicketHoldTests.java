@@ -0,0 +1,131 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.entity.TicketStatus;
+import in.train.exception.TicketConflictException;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so status changes are read straight from the table
+		"spring.datasource.url=jdbc:h2:mem:ticket_hold;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"hold.wheel.tick-ms=10"
+})
+@ActiveProfiles("embedded")
+class TicketHoldTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private TicketHoldExpiry holdExpiry;
+
+	@Test
+	void confirmedHoldsDoNotExpire() {
+		Ticket held = ticketService.holdTicket(passenger("Kavya"));
+		assertThat(held.getTicketStatus()).isEqualTo(TicketStatus.HELD.name());
+		assertThat(held.getHeldUntil()).isAfter(LocalDateTime.now());
+		// Lists and searches (read-only projections) show the hold as well, as stored (microseconds)
+		LocalDateTime heldUntil = ticketService.getTicketById(held.getTicketId()).getHeldUntil();
+		assertThat(heldUntil).isNotNull();
+		assertThat(ticketService.searchTickets(held.getPnr(), null))
+				.extracting(Ticket::getHeldUntil)
+				.containsExactly(heldUntil);
+		assertThat(ticketService.searchTickets(null, "Kavya"))
+				.extracting(Ticket::getHeldUntil)
+				.containsExactly(heldUntil);
+
+		Ticket confirmed = ticketService.confirmTicket(held.getTicketId());
+		assertThat(confirmed.getTicketStatus()).isEqualTo(TicketStatus.CONFIRMED.name());
+		assertThat(confirmed.getHeldUntil()).isNull();
+
+		// Confirming again changes nothing
+		assertThat(ticketService.confirmTicket(held.getTicketId()).getTicketStatus())
+				.isEqualTo(TicketStatus.CONFIRMED.name());
+	}
+
+	@Test
+	void unconfirmedHoldsExpireOnTheWheel() throws InterruptedException {
+		Ticket held = ticketService.holdTicket(passenger("Arjun"));
+
+		// Pull the deadline in instead of waiting hold.ttl-minutes
+		holdExpiry.schedule(held.getTicketId(), LocalDateTime.now().plusNanos(50_000_000));
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!TicketStatus.EXPIRED.name().equals(ticketService.getTicketById(held.getTicketId()).getTicketStatus())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+
+		Ticket expired = ticketService.getTicketById(held.getTicketId());
+		assertThat(expired.getTicketStatus()).isEqualTo(TicketStatus.EXPIRED.name());
+		assertThat(expired.getHeldUntil()).isNull();
+		assertThatThrownBy(() -> ticketService.confirmTicket(held.getTicketId()))
+				.isInstanceOf(TicketConflictException.class);
+	}
+
+	@Test
+	void cancelledHoldsAreReleasedRightAway() {
+		Ticket held = ticketService.holdTicket(passenger("Meera"));
+		ticketService.cancelTicket(held.getTicketId());
+
+		assertThat(ticketService.getTicketById(held.getTicketId()).getTicketStatus())
+				.isEqualTo(TicketStatus.CANCELLED.name());
+		assertThatThrownBy(() -> ticketService.confirmTicket(held.getTicketId()))
+				.isInstanceOf(TicketConflictException.class);
+	}
+
+	@Test
+	void timeoutsExpireOnTheirTickAcrossAllLevels() {
+		TimingWheel<Long> wheel = new TimingWheel<>(0);
+		List<TimingWheel.Timeout<Long>> cancelled = new ArrayList<>();
+		// Deadlines on every level, plus some that are cancelled again
+		long[] deadlines = { 0, 1, 63, 64, 65, 4_095, 4_096, 4_097, 262_143, 262_144, 300_001, 1_000_000 };
+		for (long deadline : deadlines) {
+			wheel.schedule(deadline, deadline);
+			cancelled.add(wheel.schedule(-deadline - 1, deadline));
+		}
+		cancelled.forEach(wheel::cancel);
+		assertThat(wheel.size()).isEqualTo(deadlines.length);
+
+		List<Long> expired = new ArrayList<>();
+		for (long tick = 0; tick <= 1_000_000; tick++) {
+			for (Long item : wheel.advance(tick)) {
+				// Never early, never late
+				assertThat(item).isEqualTo(tick);
+				expired.add(item);
+			}
+		}
+		assertThat(expired).containsExactly(0L, 1L, 63L, 64L, 65L, 4_095L, 4_096L, 4_097L, 262_143L, 262_144L,
+				300_001L, 1_000_000L);
+		assertThat(wheel.size()).isZero();
+
+		// Overdue timeouts expire on the next tick
+		wheel.schedule(7L, 10);
+		assertThat(wheel.advance(1_000_001)).containsExactly(7L);
+	}
+
+	private static Passenger passenger(String firstName) {
+		Passenger passenger = new Passenger();
+		passenger.setFname(firstName);
+		passenger.setLname("Iyer");
+		passenger.setGender("Female");
+		passenger.setFrom("Chennai");
+		passenger.setTo("Madurai");
+		passenger.setDoj("2026-12-30");
+		passenger.setTrainNum("12635");
+		return passenger;
+	}
+}
@@ -0,0 +1,59 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.config.ShardRouter;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:pnr_conflict;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@ActiveProfiles("embedded")
+class TicketPnrConflictTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@SpyBean
+	private ShardRouter shardRouter;
+
+	@Test
+	void takenPnrIsReplacedByANewOne() {
+		Ticket first = ticketService.bookTicket(passenger("Manoj"));
+
+		// The next random PNR is the first ticket's, the one after that is free
+		doReturn(first.getPnr()).doCallRealMethod().when(shardRouter).newPnr(anyInt());
+		Ticket second = ticketService.bookTicket(passenger("Geeta"));
+
+		assertThat(second.getPnr()).hasSize(12).isNotEqualTo(first.getPnr());
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets WHERE pnr IN (?, ?)", Long.class,
+				first.getPnr(), second.getPnr())).isEqualTo(2);
+	}
+
+	private static Passenger passenger(String firstName) {
+		Passenger passenger = new Passenger();
+		passenger.setFname(firstName);
+		passenger.setLname("Tiwari");
+		passenger.setGender("Other");
+		passenger.setFrom("Jabalpur");
+		passenger.setTo("Satna");
+		passenger.setDoj("2026-12-18");
+		passenger.setTrainNum("12189");
+		return passenger;
+	}
+}
@@ -0,0 +1,84 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@ActiveProfiles("embedded")
+class TicketServiceCacheTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void repeatedLookupsAreServedFromTheTicketsRegion() {
+		Ticket booked = ticketService.bookTicket(passenger());
+		ticketService.getTicketById(booked.getTicketId());
+		statistics.clear();
+
+		ticketService.getTicketById(booked.getTicketId());
+		ticketService.getTicketById(booked.getTicketId());
+
+		assertThat(statistics.getCacheRegionStatistics("tickets").getHitCount()).isEqualTo(2);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void cancellationUpdatesTheCachedTicket() {
+		Ticket booked = ticketService.bookTicket(passenger());
+		ticketService.getTicketById(booked.getTicketId());
+
+		ticketService.cancelTicket(booked.getTicketId());
+
+		assertThat(ticketService.getTicketById(booked.getTicketId()).getTicketStatus()).isEqualTo("CANCELLED");
+		assertThat(ticketService.searchTickets(booked.getPnr(), null))
+				.extracting(Ticket::getTicketStatus)
+				.containsExactly("CANCELLED");
+	}
+
+	@Test
+	void pnrSearchIsServedFromTheQueryCache() {
+		Ticket booked = ticketService.bookTicket(passenger());
+		statistics.clear();
+
+		ticketService.searchTickets(booked.getPnr(), null);
+		ticketService.searchTickets(booked.getPnr(), null);
+
+		assertThat(statistics.getCacheRegionStatistics("tickets-by-pnr").getMissCount()).isEqualTo(1);
+		assertThat(statistics.getCacheRegionStatistics("tickets-by-pnr").getHitCount()).isEqualTo(1);
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Asha");
+		passenger.setLname("Rao");
+		passenger.setGender("Female");
+		passenger.setFrom("Pune");
+		passenger.setTo("Delhi");
+		passenger.setDoj("2026-12-01");
+		passenger.setTrainNum("12345");
+		return passenger;
+	}
+
+}
@@ -0,0 +1,95 @@
+package in.train.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import in.train.request.Passenger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest(properties = {
+		// Own database and no second-level cache, so the table only holds what the warm-up left behind
+		"spring.datasource.url=jdbc:h2:mem:warmup;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=false",
+		"warmup.enabled=true",
+		"warmup.batch-size=20",
+		"warmup.min-batches=2",
+		"warmup.max-duration-ms=5000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("embedded")
+class TicketServiceWarmupTests {
+
+	@Autowired
+	private TicketService ticketService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TicketServiceWarmup warmup;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void warmupLeavesNothingBehindBeforeTheInstanceIsReady() throws Exception {
+		// The runner has finished: the instance takes traffic
+		mockMvc.perform(get("/actuator/health/readiness"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.status").value("UP"));
+
+		// At least two batches ran, without a single observation
+		assertThat(timerCount("ticket.service")).isZero();
+		assertThat(timerCount("ticket.repository")).isZero();
+
+		// Nothing was saved, and no ticket ID was used up
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tickets", Integer.class)).isZero();
+		Passenger passenger = new Passenger();
+		passenger.setFname("Ravi");
+		passenger.setLname("Kumar");
+		passenger.setGender("Male");
+		passenger.setFrom("Delhi");
+		passenger.setTo("Jaipur");
+		passenger.setDoj("2026-12-30");
+		passenger.setTrainNum("12015");
+		assertThat(ticketService.bookTicket(passenger).getTicketId()).isEqualTo(1);
+
+		// Real requests are observed again
+		assertThat(timerCount("ticket.service")).isPositive();
+	}
+
+	@Test
+	void warmupStopsAtTheDeadlineInTheMiddleOfABatch() {
+		ReflectionTestUtils.setField(warmup, "batchSize", 1_000_000);
+		ReflectionTestUtils.setField(warmup, "maxDurationMs", 300L);
+		try {
+			long start = System.nanoTime();
+			warmup.run(null);
+
+			assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(3_000);
+		} finally {
+			ReflectionTestUtils.setField(warmup, "batchSize", 20);
+			ReflectionTestUtils.setField(warmup, "maxDurationMs", 5_000L);
+		}
+	}
+
+	private long timerCount(String name) {
+		return meterRegistry.find(name).timers().stream().mapToLong(Timer::count).sum();
+	}
+}
@@ -0,0 +1,37 @@
+package in.train.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import in.train.api.ApiResponse;
+import in.train.request.Passenger;
+import in.train.responce.BookingStatus;
+import in.train.responce.SpanRecord;
+import in.train.responce.Ticket;
+
+/**
+ * Hints for the AOT / native image build (mvn -Paot, mvn -Pnative).
+ *
+ * A native image only keeps the reflection it is told about. The bodies
+ * exchanged with the IRCTC Provider and our own clients are read and written
+ * by Jackson (JSON and Smile), including the generic ApiResponse wrapper that
+ * WebClient decodes through a ParameterizedTypeReference, so they are
+ * registered here.
+ */
+@Configuration
+@ImportRuntimeHints(RuntimeHintsConfig.BookingHints.class)
+public class RuntimeHintsConfig {
+
+	static class BookingHints implements RuntimeHintsRegistrar {
+
+		@Override
+		public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+			// Getters, setters and constructors of every body (and the types they contain)
+			new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+					ApiResponse.class, Passenger.class, Ticket.class, BookingStatus.class, SpanRecord.class);
+		}
+	}
+}
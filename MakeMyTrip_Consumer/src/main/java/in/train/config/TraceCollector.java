@@ -0,0 +1,188 @@
+package in.train.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.responce.SpanRecord;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Span exporter that keeps recent traces in memory and writes slow ones to a file.
+ *
+ * Spans of a trace are held until the local root span (the first span of the
+ * request in this service) finishes. At that point the trace is complete for
+ * this service: it is kept in a bounded in-memory store for the /api/traces
+ * endpoints and, if the root took longer than the slow threshold, appended to
+ * the export file as JSON lines (one span per line).
+ */
+public class TraceCollector implements SpanExporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(TraceCollector.class);
+
+	private final String serviceName;
+
+	private final ObjectMapper objectMapper;
+
+	private final Path exportFile;
+
+	private final long slowThresholdMicros;
+
+	private final int maxTraces;
+
+	// Spans whose local root has not finished yet, keyed by trace ID
+	private final Map<String, List<SpanRecord>> open = new LinkedHashMap<>();
+
+	// Completed traces, oldest first, bounded by maxTraces
+	private final LinkedHashMap<String, List<SpanRecord>> completed = new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<SpanRecord>> eldest) {
+			return size() > maxTraces;
+		}
+	};
+
+	/**
+	 * @param serviceName     name recorded on every span
+	 * @param objectMapper    JSON mapper for the export file
+	 * @param exportFile      JSON lines file that receives slow traces (blank to disable)
+	 * @param slowThresholdMs traces faster than this are only kept in memory
+	 * @param maxTraces       how many completed traces are kept in memory
+	 */
+	public TraceCollector(String serviceName, ObjectMapper objectMapper, String exportFile, long slowThresholdMs,
+			int maxTraces) {
+		this.serviceName = serviceName;
+		this.objectMapper = objectMapper;
+		this.exportFile = exportFile == null || exportFile.isBlank() ? null : Paths.get(exportFile);
+		this.slowThresholdMicros = TimeUnit.MILLISECONDS.toMicros(slowThresholdMs);
+		this.maxTraces = maxTraces;
+	}
+
+	@Override
+	public CompletableResultCode export(Collection<SpanData> spans) {
+		List<List<SpanRecord>> slowTraces = new ArrayList<>();
+
+		synchronized (this) {
+			for (SpanData span : spans) {
+				SpanRecord record = toRecord(span);
+				List<SpanRecord> trace = open.computeIfAbsent(record.getTraceId(), id -> new ArrayList<>());
+				trace.add(record);
+
+				// Local root: no parent, or parent lives in another service
+				boolean localRoot = !span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote();
+				if (localRoot) {
+					open.remove(record.getTraceId());
+					completed.put(record.getTraceId(), trace);
+					if (record.getDurationMicros() >= slowThresholdMicros) {
+						slowTraces.add(trace);
+					}
+				}
+			}
+			// Drop spans of traces whose root never arrived
+			while (open.size() > maxTraces) {
+				open.remove(open.keySet().iterator().next());
+			}
+		}
+
+		if (exportFile != null && !slowTraces.isEmpty()) {
+			write(slowTraces);
+		}
+		return CompletableResultCode.ofSuccess();
+	}
+
+	/**
+	 * Spans recorded by this service for one trace, in start order.
+	 *
+	 * @param traceId Trace ID
+	 * @return spans, empty if the trace is unknown or already evicted
+	 */
+	public synchronized List<SpanRecord> getTrace(String traceId) {
+		List<SpanRecord> trace = completed.get(traceId);
+		if (trace == null) {
+			return List.of();
+		}
+		return trace.stream().sorted(Comparator.comparingLong(SpanRecord::getStartEpochMicros)).toList();
+	}
+
+	/**
+	 * Slowest completed traces held in memory, slowest first.
+	 *
+	 * @param limit maximum number of traces
+	 * @return one list of spans per trace, in start order
+	 */
+	public synchronized List<List<SpanRecord>> getSlowestTraces(int limit) {
+		return completed.values().stream()
+				.sorted(Comparator.comparingLong(TraceCollector::rootDuration).reversed())
+				.limit(limit)
+				.map(trace -> trace.stream().sorted(Comparator.comparingLong(SpanRecord::getStartEpochMicros)).toList())
+				.toList();
+	}
+
+	@Override
+	public CompletableResultCode flush() {
+		return CompletableResultCode.ofSuccess();
+	}
+
+	@Override
+	public CompletableResultCode shutdown() {
+		return CompletableResultCode.ofSuccess();
+	}
+
+	private static long rootDuration(List<SpanRecord> trace) {
+		// Root span is the last one recorded for the trace
+		return trace.get(trace.size() - 1).getDurationMicros();
+	}
+
+	private SpanRecord toRecord(SpanData span) {
+		SpanRecord record = new SpanRecord();
+		record.setTraceId(span.getTraceId());
+		record.setSpanId(span.getSpanId());
+		record.setParentSpanId(span.getParentSpanContext().isValid() ? span.getParentSpanId() : "");
+		record.setService(serviceName);
+		record.setName(span.getName());
+		record.setKind(span.getKind().name());
+		record.setStartEpochMicros(TimeUnit.NANOSECONDS.toMicros(span.getStartEpochNanos()));
+		record.setDurationMicros(TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+
+		Map<String, String> tags = new LinkedHashMap<>();
+		span.getAttributes().forEach((key, value) -> tags.put(key.getKey(), String.valueOf(value)));
+		record.setTags(tags);
+		return record;
+	}
+
+	private synchronized void write(List<List<SpanRecord>> traces) {
+		try {
+			if (exportFile.getParent() != null) {
+				Files.createDirectories(exportFile.getParent());
+			}
+			try (BufferedWriter writer = Files.newBufferedWriter(exportFile, StandardCharsets.UTF_8,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+				for (List<SpanRecord> trace : traces) {
+					for (SpanRecord record : trace) {
+						writer.write(objectMapper.writeValueAsString(record));
+						writer.newLine();
+					}
+				}
+			}
+		} catch (IOException ex) {
+			logger.warn("Cannot write traces to {}: {}", exportFile, ex.getMessage());
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package in.train.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * Configuration class for distributed tracing.
+ * 
+ * Spans are created by Micrometer Tracing (OpenTelemetry bridge) for incoming
+ * HTTP requests, @Observed service methods and WebClient calls. The W3C
+ * traceparent header is sent to the Provider so both services share one trace.
+ * Finished spans are handed to TraceCollector.
+ */
+@Configuration
+public class TracingConfig {
+
+	/**
+	 * Enables @Observed on service classes.
+	 * 
+	 * @param observationRegistry registry that creates the spans
+	 * @return ObservedAspect instance
+	 */
+	@Bean
+	public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+		return new ObservedAspect(observationRegistry);
+	}
+
+	/**
+	 * Span exporter that keeps recent traces in memory and writes slow ones to a file.
+	 * 
+	 * @return TraceCollector instance (picked up by the OpenTelemetry auto-configuration)
+	 */
+	@Bean
+	public TraceCollector traceCollector(ObjectMapper objectMapper,
+			@Value("${spring.application.name}") String serviceName,
+			@Value("${tracing.export.file:traces/consumer-spans.jsonl}") String exportFile,
+			@Value("${tracing.export.slow-threshold-ms:500}") long slowThresholdMs,
+			@Value("${tracing.memory.max-traces:1000}") int maxTraces) {
+		return new TraceCollector(serviceName, objectMapper, exportFile, slowThresholdMs, maxTraces);
+	}
+}
@@ -1,28 +1,266 @@
 package in.train.config;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.reactivestreams.Publisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 /**
  * Configuration class for WebClient.
- * 
+ *
  * This class is used in the Consumer service to configure and provide
  * a WebClient.Builder bean, which is used to make HTTP calls to the Provider service.
+ *
+ * Every outbound call is measured per operation (book, get, cancel, ...):
+ *  - irctc.client.requests         latency histogram, tagged with the response status and
+ *                                  its outcome (SUCCESS, CLIENT_ERROR, SERVER_ERROR, ...)
+ *  - irctc.client.request.bytes    bytes sent to the Provider
+ *  - irctc.client.response.bytes   bytes received from the Provider
+ * Reactor Netty adds connect time, data sent/received per URI and connection pool
+ * metrics (reactor.netty.connection.provider.pending.connections.time is the time
+ * spent waiting to acquire a pooled connection). All of them are exposed on
+ * /actuator/prometheus next to the inbound http.server.requests timings.
+ *
+ * Bodies can be JSON or Smile (see WireFormat); the Smile codecs use the
+ * same compact settings as the Provider.
+ *
+ * Callbacks of async bookings go to client URLs and use their own WebClient
+ * (callbackWebClient) without any of these metrics: every client URL would
+ * otherwise become a new metric series.
  */
 @Configuration
 public class WebClientConfig {
 
+	/**
+	 * Request attribute holding the operation name used to tag metrics.
+	 */
+	public static final String OPERATION_ATTRIBUTE = "irctc.operation";
+
+	/**
+	 * Header identifying MakeMyTrip to the Provider's per-client rate limits.
+	 * Set per request on Provider calls only (see setApiKey), so it never
+	 * reaches anybody else, e.g. the callback URLs of async bookings.
+	 */
+	public static final String API_KEY_HEADER = "X-API-Key";
+
+	// Numeric path segments are replaced so ticket IDs do not create new metric series
+	private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
 	/**
 	 * Creates and exposes a WebClient.Builder bean.
-	 * 
+	 *
 	 * This builder can be injected anywhere in the application
 	 * to build WebClient instances for calling external REST APIs.
-	 * 
+	 *
+	 * Calls are also observed, which creates a client span and sends the
+	 * W3C traceparent header so the Provider joins the same trace.
+	 *
+	 * @param meterRegistry       registry the outbound call metrics are recorded in
+	 * @param observationRegistry registry used for tracing the outbound calls
+	 * @param jacksonBuilder      Spring Boot's Jackson builder, used for the Smile codecs
 	 * @return WebClient.Builder instance
 	 */
 	@Bean
-	public WebClient.Builder webClientBuilder() {
-		return WebClient.builder();
+	public WebClient.Builder webClientBuilder(MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+			Jackson2ObjectMapperBuilder jacksonBuilder) {
+		ConnectionProvider connectionProvider = ConnectionProvider.builder("irctc-provider")
+				.metrics(true)
+				.build();
+
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+				.metrics(true, uri -> ID_SEGMENT.matcher(uri).replaceAll("/{id}"));
+
+		ObjectMapper smileMapper = WireFormat.smileMapper(jacksonBuilder);
+
+		return WebClient.builder()
+				.clientConnector(new ReactorClientHttpConnector(httpClient))
+				// Without the explicit media type these codecs would claim application/json
+				.codecs(codecs -> {
+					codecs.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, WireFormat.SMILE));
+					codecs.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, WireFormat.SMILE));
+				})
+				.observationRegistry(observationRegistry)
+				.observationConvention(new DefaultClientRequestObservationConvention() {
+					@Override
+					protected KeyValue uri(ClientRequestObservationContext context) {
+						KeyValue uri = super.uri(context);
+						return KeyValue.of(uri.getKey(), ID_SEGMENT.matcher(uri.getValue()).replaceAll("/{id}"));
+					}
+				})
+				.filter(metricsFilter(meterRegistry));
+	}
+
+	/**
+	 * Creates the WebClient used for the callbacks of async bookings.
+	 *
+	 * Callback URLs are chosen by the clients, so these calls get no API key,
+	 * no Provider connection pool and no per-URI metrics or observations.
+	 * Bodies are always JSON, written with Spring Boot's ObjectMapper.
+	 *
+	 * @param jacksonBuilder Spring Boot's Jackson builder
+	 * @return WebClient for callback URLs
+	 */
+	@Bean
+	public WebClient callbackWebClient(Jackson2ObjectMapperBuilder jacksonBuilder) {
+		ObjectMapper jsonMapper = jacksonBuilder.build();
+		return WebClient.builder()
+				.codecs(codecs -> {
+					codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(jsonMapper));
+					codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(jsonMapper));
+				})
+				.build();
+	}
+
+	/**
+	 * Add the API key to the headers of a Provider call.
+	 *
+	 * @param headers request headers
+	 * @param apiKey  irctc.api-key, nothing is sent when it is empty
+	 */
+	public static void setApiKey(HttpHeaders headers, String apiKey) {
+		if (apiKey != null && !apiKey.isEmpty()) {
+			headers.set(API_KEY_HEADER, apiKey);
+		}
+	}
+
+	/**
+	 * Filter that records latency, status and payload size for each Provider call.
+	 * Latency covers the whole exchange, up to the last byte of the response body.
+	 * Error statuses are recorded with their outcome also when the caller does
+	 * not treat them as errors (pass-through mode hands them to the client).
+	 */
+	private ExchangeFilterFunction metricsFilter(MeterRegistry meterRegistry) {
+		return (request, next) -> {
+			String operation = request.attribute(OPERATION_ATTRIBUTE).map(Object::toString).orElse("other");
+			String method = request.method().name();
+			AtomicLong bytesOut = new AtomicLong();
+			long start = System.nanoTime();
+			// Error bodies can be subscribed more than once, record each call only once
+			AtomicBoolean recorded = new AtomicBoolean();
+
+			ClientRequest countingRequest = ClientRequest.from(request)
+					.body((outputMessage, context) -> request.body()
+							.insert(new ByteCountingRequest(outputMessage, bytesOut), context))
+					.build();
+
+			return next.exchange(countingRequest)
+					.map(response -> {
+						int status = response.statusCode().value();
+						AtomicLong bytesIn = new AtomicLong();
+						return response.mutate()
+								.body(body -> body
+										.doOnNext(buffer -> bytesIn.addAndGet(buffer.readableByteCount()))
+										.doFinally(signal -> {
+											if (recorded.compareAndSet(false, true)) {
+												record(meterRegistry, operation, method, String.valueOf(status),
+														outcome(status), start, bytesOut.get(), bytesIn.get());
+											}
+										}))
+								.build();
+					})
+					.doOnError(error -> {
+						if (recorded.compareAndSet(false, true)) {
+							record(meterRegistry, operation, method, "IO_ERROR", "UNKNOWN", start, bytesOut.get(), 0);
+						}
+					});
+		};
+	}
+
+	/**
+	 * Outcome of a response status, named like the outcome tag of Spring's http.client.requests.
+	 */
+	static String outcome(int status) {
+		HttpStatus.Series series = HttpStatus.Series.resolve(status);
+		if (series == null) {
+			return "UNKNOWN";
+		}
+		return switch (series) {
+			case INFORMATIONAL -> "INFORMATIONAL";
+			case SUCCESSFUL -> "SUCCESS";
+			case REDIRECTION -> "REDIRECTION";
+			case CLIENT_ERROR -> "CLIENT_ERROR";
+			case SERVER_ERROR -> "SERVER_ERROR";
+		};
+	}
+
+	private void record(MeterRegistry meterRegistry, String operation, String method, String status,
+			String outcome, long start, long bytesOut, long bytesIn) {
+		Timer.builder("irctc.client.requests")
+				.description("Calls from MakeMyTrip to the IRCTC Provider")
+				.tag("operation", operation)
+				.tag("method", method)
+				.tag("status", status)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		DistributionSummary.builder("irctc.client.request.bytes")
+				.baseUnit("bytes")
+				.tag("operation", operation)
+				.register(meterRegistry)
+				.record(bytesOut);
+
+		DistributionSummary.builder("irctc.client.response.bytes")
+				.baseUnit("bytes")
+				.tag("operation", operation)
+				.register(meterRegistry)
+				.record(bytesIn);
+	}
+
+	/**
+	 * Counts the request body bytes as they are written to the connection.
+	 */
+	private static class ByteCountingRequest extends ClientHttpRequestDecorator {
+
+		private final AtomicLong bytesOut;
+
+		ByteCountingRequest(ClientHttpRequest delegate, AtomicLong bytesOut) {
+			super(delegate);
+			this.bytesOut = bytesOut;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			return super.writeWith(Flux.from(body).doOnNext(buffer -> bytesOut.addAndGet(buffer.readableByteCount())));
+		}
+
+		@Override
+		public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+			return super.writeAndFlushWith(Flux.from(body)
+					.map(part -> Flux.from(part).doOnNext(buffer -> bytesOut.addAndGet(buffer.readableByteCount()))));
+		}
 	}
 }
@@ -0,0 +1,93 @@
+package in.train.config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Format of the request and response bodies exchanged with the IRCTC Provider.
+ *
+ * With irctc.wire-format=smile (default) tickets and passengers are sent as
+ * Smile, a binary encoding of JSON that is smaller and faster to read and
+ * write. JSON stays the fallback:
+ *  - responses: we accept both, a Provider without Smile support answers in JSON
+ *  - requests: if a Provider rejects a Smile body (415), we switch to JSON
+ *
+ * With irctc.wire-format=json only JSON is used.
+ */
+@Component
+public class WireFormat {
+
+	private static final Logger logger = LoggerFactory.getLogger(WireFormat.class);
+
+	public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@Value("${irctc.wire-format:smile}")
+	private String format;
+
+	// Set once a Provider has answered 415 to a Smile body
+	private final AtomicBoolean smileRejected = new AtomicBoolean();
+
+	/**
+	 * @return content type to send request bodies in
+	 */
+	public MediaType contentType() {
+		return isSmile() && !smileRejected.get() ? SMILE : MediaType.APPLICATION_JSON;
+	}
+
+	/**
+	 * @return response types we accept, most preferred first
+	 */
+	public MediaType[] accept() {
+		return isSmile() ? new MediaType[] { SMILE, MediaType.APPLICATION_JSON }
+				: new MediaType[] { MediaType.APPLICATION_JSON };
+	}
+
+	/**
+	 * Send JSON request bodies from now on.
+	 *
+	 * @param sent content type of the rejected request
+	 * @return true if the request should be sent again as JSON
+	 */
+	public boolean rejected(MediaType sent) {
+		if (!SMILE.equals(sent)) {
+			return false;
+		}
+		if (smileRejected.compareAndSet(false, true)) {
+			logger.warn("IRCTC Provider does not accept Smile request bodies, sending JSON from now on");
+		}
+		return true;
+	}
+
+	private boolean isSmile() {
+		return "smile".equalsIgnoreCase(format);
+	}
+
+	/**
+	 * Smile ObjectMapper with the same settings as the JSON one, plus the compact options
+	 * (same as the Provider's WireFormatConfig): repeated short strings such as station
+	 * names are written once per message and dates are written as numbers.
+	 *
+	 * @param builder Jackson builder to start from
+	 * @return ObjectMapper reading and writing Smile
+	 */
+	public static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+		SmileFactory smileFactory = SmileFactory.builder()
+				.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+				.build();
+		return builder.createXmlMapper(false)
+				.factory(smileFactory)
+				.featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+}
@@ -1,13 +1,22 @@
 package in.train.controller;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import in.train.request.Passenger;
+import in.train.responce.BookingStatus;
 import in.train.responce.Ticket;
+import in.train.service.AsyncBookingService;
 import in.train.service.MakeMyTripService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 /**
@@ -15,8 +24,10 @@ import jakarta.validation.Valid;
  * 
  * This controller exposes endpoints to:
  *  - Book a ticket via Provider service
+ *  - Book a ticket asynchronously and poll its status
  *  - Get ticket details by ticket ID
  *  - Cancel a ticket
+ *  - List and search tickets (streamed straight from the Provider)
  * 
  * It acts as a Consumer that communicates with the IRCTC Provider service
  * using WebClient through MakeMyTripService.
@@ -28,6 +39,9 @@ public class MakeMyTripController {
 	@Autowired
 	private MakeMyTripService service;
 
+	@Autowired
+	private AsyncBookingService asyncBookingService;
+
 	/**
 	 * Book a new ticket.
 	 * 
@@ -43,17 +57,59 @@ public class MakeMyTripController {
 		return new ResponseEntity<>(ticket, HttpStatus.CREATED);
 	}
 
+	/**
+	 * Book a new ticket asynchronously.
+	 * 
+	 * This endpoint validates passenger details, stores the booking in a
+	 * local durable queue and returns immediately. Workers book the ticket
+	 * with the Provider service in the background.
+	 * 
+	 * @param passenger   Passenger request data
+	 * @param callbackUrl optional URL that receives the final status via POST
+	 * @return BookingStatus with tracking ID and HTTP 202 (ACCEPTED)
+	 */
+	@PostMapping("/book/async")
+	public ResponseEntity<BookingStatus> bookTicketAsync(@Valid @RequestBody Passenger passenger,
+			@RequestParam(required = false) String callbackUrl) {
+		BookingStatus status = asyncBookingService.submit(passenger, callbackUrl);
+		return ResponseEntity.status(HttpStatus.ACCEPTED)
+				.header("Location", "/api/makemytrip/book/status/" + status.getTrackingId())
+				.body(status);
+	}
+
+	/**
+	 * Get the status of an async booking.
+	 * 
+	 * Once the state is COMPLETED, the booked Ticket is included.
+	 * 
+	 * @param trackingId Tracking ID returned by /book/async
+	 * @return BookingStatus with HTTP 200 (OK)
+	 */
+	@GetMapping("/book/status/{trackingId}")
+	public ResponseEntity<BookingStatus> getBookingStatus(@PathVariable String trackingId) {
+		BookingStatus status = asyncBookingService.getStatus(trackingId);
+		return new ResponseEntity<>(status, HttpStatus.OK);
+	}
+
 	/**
 	 * Get ticket details by ticket ID.
 	 * 
 	 * This endpoint fetches ticket information from the Provider service
-	 * using the given ticket ID.
+	 * using the given ticket ID. In pass-through mode the Provider response
+	 * is streamed back without being decoded.
 	 * 
 	 * @param ticketId Ticket ID
 	 * @return Ticket details with HTTP 200 (OK)
 	 */
 	@GetMapping("/ticket/{ticketId}")
-	public ResponseEntity<Ticket> getTicket(@PathVariable Integer ticketId) {
+	public ResponseEntity<Ticket> getTicket(@PathVariable Integer ticketId, HttpServletResponse httpResponse)
+			throws IOException {
+		if (service.isPassThrough()) {
+			// Response already written, nothing left for Spring to render
+			service.proxy("get", HttpMethod.GET, uri -> uri.path("/{ticketId}"), Map.of("ticketId", ticketId),
+					httpResponse);
+			return null;
+		}
 		Ticket ticket = service.getTicketById(ticketId);
 		return new ResponseEntity<>(ticket, HttpStatus.OK);
 	}
@@ -62,14 +118,65 @@ public class MakeMyTripController {
 	 * Cancel a ticket by ticket ID.
 	 * 
 	 * This endpoint sends a cancel request to the Provider service
-	 * and returns the response message.
+	 * and returns the response message. In pass-through mode the Provider
+	 * response is streamed back without being decoded.
 	 * 
 	 * @param ticketId Ticket ID
 	 * @return Cancellation response message with HTTP 200 (OK)
 	 */
 	@DeleteMapping("/cancel/{ticketId}")
-	public ResponseEntity<String> cancelTicket(@PathVariable Integer ticketId) {
+	public ResponseEntity<String> cancelTicket(@PathVariable Integer ticketId, HttpServletResponse httpResponse)
+			throws IOException {
+		if (service.isPassThrough()) {
+			// Response already written, nothing left for Spring to render
+			service.proxy("cancel", HttpMethod.DELETE, uri -> uri.path("/{ticketId}"), Map.of("ticketId", ticketId),
+					httpResponse);
+			return null;
+		}
 		String response = service.cancelTicket(ticketId);
 		return new ResponseEntity<>(response, HttpStatus.OK);
 	}
+
+	/**
+	 * Get all tickets with pagination.
+	 * 
+	 * The Provider page is streamed to the client as is, so large pages
+	 * are never decoded or buffered in this service.
+	 * 
+	 * @param pageNo       page number (default 0)
+	 * @param pageSize     page size (default 10)
+	 * @param httpResponse response the Provider page is streamed to
+	 */
+	@GetMapping("/tickets")
+	public void getAllTickets(@RequestParam(defaultValue = "0") int pageNo,
+			@RequestParam(defaultValue = "10") int pageSize, HttpServletResponse httpResponse) throws IOException {
+		service.proxy("list", HttpMethod.GET, uri -> uri
+				.queryParam("pageNo", "{pageNo}")
+				.queryParam("pageSize", "{pageSize}"), Map.of("pageNo", pageNo, "pageSize", pageSize), httpResponse);
+	}
+
+	/**
+	 * Search tickets by PNR or passenger name.
+	 * 
+	 * The Provider result list is streamed to the client as is.
+	 * 
+	 * @param pnr           PNR number (optional)
+	 * @param passengerName passenger first or last name (optional)
+	 * @param httpResponse  response the Provider result is streamed to
+	 */
+	@GetMapping("/tickets/search")
+	public void searchTickets(@RequestParam(required = false) String pnr,
+			@RequestParam(required = false) String passengerName, HttpServletResponse httpResponse)
+			throws IOException {
+		// Only the parameters that are present are in the template
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("pnr", pnr);
+		variables.put("passengerName", passengerName);
+		service.proxy("search", HttpMethod.GET, uri -> uri
+				.path("/search")
+				.queryParamIfPresent("pnr", Optional.ofNullable(pnr).map(value -> "{pnr}"))
+				.queryParamIfPresent("passengerName",
+						Optional.ofNullable(passengerName).map(value -> "{passengerName}")),
+				variables, httpResponse);
+	}
 }
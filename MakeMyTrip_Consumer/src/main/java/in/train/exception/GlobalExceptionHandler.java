@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -41,6 +42,40 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
 	}
 
+	/**
+	 * Handle TraceNotFoundException thrown by the application.
+	 * 
+	 * @param ex TraceNotFoundException
+	 * @return 404 NOT FOUND response with error details
+	 */
+	@ExceptionHandler(TraceNotFoundException.class)
+	public ResponseEntity<Map<String, Object>> handleTraceNotFound(TraceNotFoundException ex) {
+		Map<String, Object> errorResponse = new HashMap<>();
+		errorResponse.put("timestamp", LocalDateTime.now());
+		errorResponse.put("status", HttpStatus.NOT_FOUND.value());
+		errorResponse.put("error", "Not Found");
+		errorResponse.put("message", ex.getMessage());
+
+		return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+	}
+
+	/**
+	 * Handle invalid request values found by the application (e.g. a callback URL that is not allowed).
+	 * 
+	 * @param ex IllegalArgumentException
+	 * @return 400 BAD REQUEST response with error details
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex) {
+		Map<String, Object> errorResponse = new HashMap<>();
+		errorResponse.put("timestamp", LocalDateTime.now());
+		errorResponse.put("status", HttpStatus.BAD_REQUEST.value());
+		errorResponse.put("error", "Bad Request");
+		errorResponse.put("message", ex.getMessage());
+
+		return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+	}
+
 	/**
 	 * Handle validation errors triggered by @Valid annotations.
 	 * 
@@ -87,8 +122,11 @@ public class GlobalExceptionHandler {
 	/**
 	 * Handle all other HTTP errors coming from IRCTC Provider via WebClient.
 	 * 
+	 * An overloaded or rate limited provider still asked us to wait after the
+	 * retries, so its Retry-After is passed on to the client.
+	 * 
 	 * @param ex WebClientResponseException
-	 * @return Response with same HTTP status as provider
+	 * @return Response with same HTTP status (and Retry-After) as provider
 	 */
 	@ExceptionHandler(WebClientResponseException.class)
 	public ResponseEntity<Map<String, Object>> handleWebClientException(WebClientResponseException ex) {
@@ -98,6 +136,11 @@ public class GlobalExceptionHandler {
 		errorResponse.put("error", "Provider Service Error");
 		errorResponse.put("message", "Error communicating with IRCTC provider");
 
+		String retryAfter = ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+		if (retryAfter != null) {
+			return ResponseEntity.status(ex.getStatusCode()).header(HttpHeaders.RETRY_AFTER, retryAfter)
+					.body(errorResponse);
+		}
 		return new ResponseEntity<>(errorResponse, ex.getStatusCode());
 	}
 
@@ -0,0 +1,174 @@
+package in.train.responce;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import in.train.request.Passenger;
+
+/**
+ * Booking Status DTO
+ *
+ * Tracks a ticket booking that was accepted in async mode.
+ * It is returned right away with HTTP 202 (ACCEPTED) and can later be
+ * polled (or pushed to a callback URL) to get the final Ticket.
+ * The same object is stored on disk so queued bookings survive a restart.
+ * Clients and callbacks get a copy without the passenger details
+ * (withoutPassenger); only the stored booking keeps them.
+ */
+public class BookingStatus {
+
+    /**
+     * Lifecycle of an async booking.
+     */
+    public enum State {
+        // Waiting in the queue
+        PENDING,
+        // Picked up by a worker, provider call in progress
+        PROCESSING,
+        // Ticket booked successfully
+        COMPLETED,
+        // Provider rejected the booking or all attempts failed
+        FAILED
+    }
+
+    // Tracking ID returned to the client
+    private String trackingId;
+
+    // Current state of the booking
+    private State state;
+
+    // Passenger details submitted by the client (stored, never sent back)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Passenger passenger;
+
+    // Optional URL that receives this status when the booking finishes
+    private String callbackUrl;
+
+    // Number of provider calls made so far
+    private int attempts;
+
+    // Earliest time of the next provider call after a failed attempt (PENDING only)
+    private LocalDateTime nextAttemptAt;
+
+    // Booked ticket (only when state is COMPLETED)
+    private Ticket ticket;
+
+    // Reason for failure (only when state is FAILED)
+    private String errorMessage;
+
+    // Time when the booking was accepted
+    private LocalDateTime createdAt;
+
+    // Time of the last state change
+    private LocalDateTime updatedAt;
+
+    // ================== Getters and Setters ==================
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public void setTrackingId(String trackingId) {
+        this.trackingId = trackingId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Passenger getPassenger() {
+        return passenger;
+    }
+
+    public void setPassenger(Passenger passenger) {
+        this.passenger = passenger;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(Ticket ticket) {
+        this.ticket = ticket;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Copy to show the client or send to the callback URL: everything except
+     * the passenger's personal details.
+     */
+    public BookingStatus withoutPassenger() {
+        BookingStatus copy = new BookingStatus();
+        copy.setTrackingId(trackingId);
+        copy.setState(state);
+        copy.setCallbackUrl(callbackUrl);
+        copy.setAttempts(attempts);
+        copy.setNextAttemptAt(nextAttemptAt);
+        copy.setTicket(ticket);
+        copy.setErrorMessage(errorMessage);
+        copy.setCreatedAt(createdAt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
+
+    // Returns a string representation of the BookingStatus object (useful for logging and debugging)
+    @Override
+    public String toString() {
+        return "BookingStatus [trackingId=" + trackingId +
+                ", state=" + state +
+                ", attempts=" + attempts +
+                ", updatedAt=" + updatedAt + "]";
+    }
+}
@@ -0,0 +1,119 @@
+package in.train.responce;
+
+import java.util.Map;
+
+/**
+ * Span Record DTO
+ *
+ * One finished tracing span (a timed hop such as a controller call,
+ * a WebClient call to the Provider or a service method).
+ * Spans with the same traceId belong to the same client request,
+ * across both the Consumer and the Provider service.
+ */
+public class SpanRecord {
+
+    // Trace this span belongs to (shared across services via traceparent header)
+    private String traceId;
+
+    // Unique ID of this span
+    private String spanId;
+
+    // Parent span ID (empty for the first span of a trace)
+    private String parentSpanId;
+
+    // Service that recorded the span
+    private String service;
+
+    // Span name, e.g. "http get /api/makemytrip/ticket/{ticketId}"
+    private String name;
+
+    // SERVER, CLIENT or INTERNAL
+    private String kind;
+
+    // Start time in microseconds since epoch
+    private long startEpochMicros;
+
+    // Duration of the span in microseconds
+    private long durationMicros;
+
+    // Tags recorded on the span (status, uri, method, ...)
+    private Map<String, String> tags;
+
+    // Default constructor (required for serialization/deserialization)
+    public SpanRecord() {
+    }
+
+    // ================== Getters and Setters ==================
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public void setSpanId(String spanId) {
+        this.spanId = spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public void setParentSpanId(String parentSpanId) {
+        this.parentSpanId = parentSpanId;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public void setService(String service) {
+        this.service = service;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public long getStartEpochMicros() {
+        return startEpochMicros;
+    }
+
+    public void setStartEpochMicros(long startEpochMicros) {
+        this.startEpochMicros = startEpochMicros;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Map<String, String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,441 @@
+package in.train.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import in.train.exception.TicketNotFoundException;
+import in.train.request.Passenger;
+import in.train.responce.BookingStatus;
+import in.train.responce.BookingStatus.State;
+import in.train.responce.Ticket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Service for async (fire-and-track) ticket booking.
+ *
+ * A booking is accepted immediately, stored in the local durable queue
+ * and handed to a small worker pool. Workers call the IRCTC Provider
+ * through MakeMyTripService at a controlled rate, so bursts of bookings
+ * are smoothed out instead of holding client connections open.
+ * The final result can be polled by tracking ID or pushed to a callback URL.
+ *
+ * The tracking ID is sent to the Provider as the booking's idempotency key.
+ * A booking is retried when the Provider call fails in a way that leaves it
+ * unknown whether the ticket was booked (timeout, 5xx, connection lost) and
+ * when the consumer restarts in the middle of a call (PROCESSING bookings are
+ * queued again); the Provider then returns the ticket of the earlier attempt
+ * instead of booking the passenger twice.
+ *
+ * Retries back off exponentially (irctc.async.retry-backoff-ms, doubled per
+ * attempt up to irctc.async.max-retry-backoff-ms, with jitter), so a provider
+ * outage is not hammered by every queued booking at once. The time of the
+ * next attempt is stored with the booking and kept across restarts.
+ *
+ * Callback URLs come from the client, so only the schemes and hosts in
+ * irctc.async.callback.allowed-schemes / allowed-hosts are accepted (anything
+ * else could make the consumer call internal services). Neither the callback
+ * nor the status response contains the passenger's details.
+ */
+@Service
+public class AsyncBookingService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncBookingService.class);
+
+	private final MakeMyTripService makeMyTripService;
+
+	private final BookingQueueStore store;
+
+	private final WebClient webClient;
+
+	// Tracking IDs waiting for a worker
+	private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+	// Every booking currently known, keyed by tracking ID
+	private final Map<String, BookingStatus> bookings = new ConcurrentHashMap<>();
+
+	// Next time (System.nanoTime) a worker is allowed to call the provider
+	private final AtomicLong nextCallNanos = new AtomicLong(System.nanoTime());
+
+	/**
+	 * Number of worker threads draining the queue.
+	 */
+	@Value("${irctc.async.workers:4}")
+	private int workers;
+
+	/**
+	 * Maximum provider booking calls per second across all workers.
+	 */
+	@Value("${irctc.async.max-rate-per-second:50}")
+	private int maxRatePerSecond;
+
+	/**
+	 * Provider calls per booking before it is marked FAILED.
+	 */
+	@Value("${irctc.async.max-attempts:3}")
+	private int maxAttempts;
+
+	/**
+	 * Wait before the first retry; doubled for every further one.
+	 */
+	@Value("${irctc.async.retry-backoff-ms:1000}")
+	private long retryBackoffMs;
+
+	/**
+	 * Longest wait between two attempts.
+	 */
+	@Value("${irctc.async.max-retry-backoff-ms:30000}")
+	private long maxRetryBackoffMs;
+
+	/**
+	 * How long finished bookings stay available for polling.
+	 */
+	@Value("${irctc.async.retention-minutes:60}")
+	private long retentionMinutes;
+
+	/**
+	 * Schemes a callback URL may use.
+	 */
+	@Value("${irctc.async.callback.allowed-schemes:https}")
+	private String[] allowedCallbackSchemes;
+
+	/**
+	 * Hosts a callback URL may point to ("*.example.com" allows every subdomain);
+	 * empty = no callbacks.
+	 */
+	@Value("${irctc.async.callback.allowed-hosts:}")
+	private String[] allowedCallbackHosts;
+
+	private ExecutorService workerPool;
+
+	// Removes expired bookings and puts backed off retries back in the queue
+	private ScheduledExecutorService scheduler;
+
+	public AsyncBookingService(MakeMyTripService makeMyTripService, BookingQueueStore store,
+			WebClient callbackWebClient) {
+		this.makeMyTripService = makeMyTripService;
+		this.store = store;
+		this.webClient = callbackWebClient;
+	}
+
+	/**
+	 * Reload stored bookings and start the workers.
+	 */
+	@PostConstruct
+	public void start() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "async-booking-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::removeExpired, 1, 1, TimeUnit.MINUTES);
+
+		int recovered = 0;
+		for (BookingStatus status : store.loadAll()) {
+			bookings.put(status.getTrackingId(), status);
+		}
+		// Re-queue unfinished bookings in the order they were accepted, retries when their backoff is over
+		for (BookingStatus status : bookings.values().stream()
+				.filter(status -> status.getState() == State.PENDING || status.getState() == State.PROCESSING)
+				.sorted(Comparator.comparing(BookingStatus::getCreatedAt))
+				.toList()) {
+			status.setState(State.PENDING);
+			enqueue(status);
+			recovered++;
+		}
+		if (recovered > 0) {
+			logger.info("Recovered {} pending async booking(s) from disk", recovered);
+		}
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "async-booking-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		for (int i = 0; i < workers; i++) {
+			workerPool.execute(this::drainQueue);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		// Bookings in flight stay on disk and are retried after restart
+		workerPool.shutdownNow();
+		scheduler.shutdownNow();
+		try {
+			// Let a worker finish writing its booking file
+			workerPool.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Accept a booking for async processing.
+	 *
+	 * @param passenger   Passenger request data
+	 * @param callbackUrl optional URL that receives the final BookingStatus
+	 * @return BookingStatus in PENDING state with its tracking ID
+	 * @throws IllegalArgumentException if the callback URL is not allowed
+	 */
+	public BookingStatus submit(Passenger passenger, String callbackUrl) {
+		if (callbackUrl != null && !callbackUrl.isBlank()) {
+			checkCallbackUrl(callbackUrl);
+		}
+
+		BookingStatus status = new BookingStatus();
+		status.setTrackingId(UUID.randomUUID().toString());
+		status.setState(State.PENDING);
+		status.setPassenger(passenger);
+		status.setCallbackUrl(callbackUrl);
+		status.setCreatedAt(LocalDateTime.now());
+		status.setUpdatedAt(status.getCreatedAt());
+
+		// Persist before acknowledging so an accepted booking is never lost
+		store.save(status);
+		bookings.put(status.getTrackingId(), status);
+		queue.add(status.getTrackingId());
+
+		logger.info("Accepted async booking {} for passenger: {} {}", status.getTrackingId(),
+				passenger.getFname(), passenger.getLname());
+		return status.withoutPassenger();
+	}
+
+	/**
+	 * Get the current status of an async booking.
+	 *
+	 * @param trackingId Tracking ID
+	 * @return BookingStatus
+	 */
+	public BookingStatus getStatus(String trackingId) {
+		BookingStatus status = bookings.get(trackingId);
+		if (status == null) {
+			throw new TicketNotFoundException("Booking not found with tracking ID: " + trackingId);
+		}
+		return status.withoutPassenger();
+	}
+
+	/**
+	 * Check a client-supplied callback URL against the allowed schemes and hosts.
+	 *
+	 * @param callbackUrl URL to check
+	 * @throws IllegalArgumentException if it is malformed or not allowed
+	 */
+	void checkCallbackUrl(String callbackUrl) {
+		URI uri;
+		try {
+			uri = new URI(callbackUrl);
+		} catch (URISyntaxException ex) {
+			throw new IllegalArgumentException("Invalid callback URL: " + callbackUrl);
+		}
+		String scheme = uri.getScheme();
+		String host = uri.getHost();
+		boolean schemeAllowed = scheme != null && Arrays.stream(allowedCallbackSchemes)
+				.anyMatch(allowed -> allowed.trim().equalsIgnoreCase(scheme));
+		if (!schemeAllowed || host == null || uri.getUserInfo() != null || !callbackHostAllowed(host)) {
+			throw new IllegalArgumentException("Callback URL not allowed: " + callbackUrl);
+		}
+	}
+
+	private boolean callbackHostAllowed(String host) {
+		String candidate = host.toLowerCase(Locale.ROOT);
+		for (String allowed : allowedCallbackHosts) {
+			String pattern = allowed.trim().toLowerCase(Locale.ROOT);
+			if (pattern.startsWith("*.") ? candidate.endsWith(pattern.substring(1)) : candidate.equals(pattern)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Worker loop: take the next booking and process it until shutdown.
+	 */
+	private void drainQueue() {
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				String trackingId = queue.take();
+				BookingStatus status = bookings.get(trackingId);
+				if (status != null) {
+					awaitRateSlot();
+					process(status);
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException ex) {
+				logger.error("Unexpected error in async booking worker", ex);
+			}
+		}
+	}
+
+	/**
+	 * Book the ticket with the provider and record the outcome.
+	 */
+	private void process(BookingStatus status) {
+		status.setAttempts(status.getAttempts() + 1);
+		status.setNextAttemptAt(null);
+		update(status, State.PROCESSING);
+
+		try {
+			// Same key on every attempt: the Provider books it at most once
+			Ticket ticket = makeMyTripService.bookTicket(status.getPassenger(), status.getTrackingId());
+			status.setTicket(ticket);
+			status.setErrorMessage(null);
+			update(status, State.COMPLETED);
+			logger.info("Async booking {} completed with ticket ID: {}", status.getTrackingId(),
+					ticket.getTicketId());
+
+		} catch (WebClientResponseException ex) {
+			// Still rate limited after the Retry-After retries: try again from the queue
+			if (ex.getStatusCode().is4xxClientError() && ex.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+				// Provider rejected the booking, retrying will not help
+				status.setErrorMessage("Provider rejected booking with status " + ex.getStatusCode().value());
+				update(status, State.FAILED);
+			} else {
+				retryOrFail(status, ex.getMessage());
+			}
+
+		} catch (RuntimeException ex) {
+			// Provider unreachable, timeout or unexpected error (may or may not have been booked)
+			retryOrFail(status, ex.getMessage());
+		}
+
+		if (status.getState() == State.COMPLETED || status.getState() == State.FAILED) {
+			notifyCallback(status);
+		}
+	}
+
+	/**
+	 * Put the booking back in the queue after its backoff, or mark it FAILED once out of attempts.
+	 */
+	private void retryOrFail(BookingStatus status, String errorMessage) {
+		status.setErrorMessage(errorMessage);
+		if (status.getAttempts() < maxAttempts) {
+			long backoffMs = backoffMs(status.getAttempts());
+			logger.warn("Async booking {} attempt {} failed, will retry in {} ms: {}", status.getTrackingId(),
+					status.getAttempts(), backoffMs, errorMessage);
+			status.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+			update(status, State.PENDING);
+			enqueue(status);
+		} else {
+			logger.error("Async booking {} failed after {} attempts: {}", status.getTrackingId(),
+					status.getAttempts(), errorMessage);
+			update(status, State.FAILED);
+		}
+	}
+
+	/**
+	 * Wait before the next attempt: retry-backoff-ms doubled per failed attempt,
+	 * capped at max-retry-backoff-ms, and a random half of it taken off so
+	 * bookings that failed together do not retry together.
+	 */
+	long backoffMs(int failedAttempts) {
+		long backoff = Math.min(maxRetryBackoffMs, retryBackoffMs << Math.min(failedAttempts - 1, 30));
+		return backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+	}
+
+	/**
+	 * Queue a PENDING booking now, or once its next attempt is due.
+	 */
+	private void enqueue(BookingStatus status) {
+		long delayMs = status.getNextAttemptAt() == null ? 0
+				: Duration.between(LocalDateTime.now(), status.getNextAttemptAt()).toMillis();
+		if (delayMs > 0) {
+			scheduler.schedule(() -> queue.add(status.getTrackingId()), delayMs, TimeUnit.MILLISECONDS);
+		} else {
+			queue.add(status.getTrackingId());
+		}
+	}
+
+	/**
+	 * Change the booking state and persist it.
+	 */
+	private void update(BookingStatus status, State state) {
+		status.setState(state);
+		status.setUpdatedAt(LocalDateTime.now());
+		store.save(status);
+	}
+
+	/**
+	 * Block the calling worker until the shared rate limit allows another provider call.
+	 */
+	private void awaitRateSlot() {
+		long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, maxRatePerSecond);
+		// Reserve the next free slot; slots are spaced evenly across workers
+		long slot = nextCallNanos.getAndUpdate(next -> Math.max(next, System.nanoTime()) + interval);
+		long wait = slot - System.nanoTime();
+		if (wait > 0) {
+			LockSupport.parkNanos(wait);
+		}
+	}
+
+	/**
+	 * Push the final status (without the passenger) to the client's callback URL,
+	 * if one was given. Failures are only logged; the status endpoint still has the result.
+	 */
+	private void notifyCallback(BookingStatus status) {
+		if (status.getCallbackUrl() == null || status.getCallbackUrl().isBlank()) {
+			return;
+		}
+		try {
+			// Checked again: the allow-list may have changed since the booking was stored
+			checkCallbackUrl(status.getCallbackUrl());
+		} catch (IllegalArgumentException ex) {
+			logger.warn("Callback for async booking {} skipped: {}", status.getTrackingId(), ex.getMessage());
+			return;
+		}
+		webClient.post()
+				.uri(status.getCallbackUrl())
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(status.withoutPassenger())
+				.retrieve()
+				.toBodilessEntity()
+				.timeout(Duration.ofSeconds(10))
+				.subscribe(response -> logger.debug("Callback delivered for async booking {}", status.getTrackingId()),
+						error -> logger.warn("Callback for async booking {} failed: {}", status.getTrackingId(),
+								error.getMessage()));
+	}
+
+	/**
+	 * Drop finished bookings older than the retention period.
+	 */
+	private void removeExpired() {
+		LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+		bookings.values().removeIf(status -> {
+			boolean finished = status.getState() == State.COMPLETED || status.getState() == State.FAILED;
+			if (finished && status.getUpdatedAt().isBefore(cutoff)) {
+				store.delete(status.getTrackingId());
+				return true;
+			}
+			return false;
+		});
+	}
+}
@@ -0,0 +1,135 @@
+package in.train.service;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import in.train.responce.BookingStatus;
+
+/**
+ * Local durable storage for async bookings.
+ *
+ * Each booking is kept as one JSON file named after its tracking ID.
+ * Files are replaced atomically, so a crash never leaves a half written
+ * booking behind, and pending bookings are picked up again on restart.
+ *
+ * A new version is written to a temp file and flushed to the disk before it
+ * replaces the old one, and the directory is flushed after the rename: the
+ * rename alone may reach the disk before the file's content (or not at all)
+ * when the machine loses power.
+ */
+@Component
+public class BookingQueueStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(BookingQueueStore.class);
+
+	private static final String SUFFIX = ".json";
+
+	private final ObjectMapper objectMapper;
+
+	private final Path directory;
+
+	public BookingQueueStore(ObjectMapper objectMapper,
+			@Value("${irctc.async.queue-dir:booking-queue}") String directory) {
+		this.objectMapper = objectMapper;
+		this.directory = Paths.get(directory);
+		try {
+			Files.createDirectories(this.directory);
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot create booking queue directory " + directory, ex);
+		}
+	}
+
+	/**
+	 * Write (or overwrite) the booking file.
+	 *
+	 * @param status booking to store
+	 */
+	public void save(BookingStatus status) {
+		Path target = fileFor(status.getTrackingId());
+		Path temp = directory.resolve(status.getTrackingId() + ".tmp");
+		try {
+			// A plain stream (not a FileChannel): interrupting a worker at shutdown must not abort the write
+			try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+				// Not writeValue(out): it closes the stream before it can be synced
+				out.write(objectMapper.writeValueAsBytes(status));
+				out.getFD().sync();
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			syncDirectory();
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot store booking " + status.getTrackingId(), ex);
+		}
+	}
+
+	/**
+	 * Flush the directory entries (the rename) to the disk.
+	 */
+	private void syncDirectory() {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ex) {
+			// Directories cannot be opened on some platforms (Windows); the file itself is on the disk
+			logger.debug("Cannot flush booking queue directory {}: {}", directory, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Remove the booking file.
+	 *
+	 * @param trackingId Tracking ID
+	 */
+	public void delete(String trackingId) {
+		try {
+			Files.deleteIfExists(fileFor(trackingId));
+		} catch (IOException ex) {
+			logger.warn("Cannot delete booking file for {}: {}", trackingId, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Read every stored booking. Unreadable files are skipped and logged.
+	 *
+	 * @return all bookings found in the queue directory
+	 */
+	public List<BookingStatus> loadAll() {
+		List<BookingStatus> bookings = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+			for (Path file : files) {
+				try {
+					bookings.add(objectMapper.readValue(file.toFile(), BookingStatus.class));
+				} catch (IOException ex) {
+					logger.error("Skipping unreadable booking file {}: {}", file, ex.getMessage());
+				}
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Cannot read booking queue directory " + directory, ex);
+		}
+		return bookings;
+	}
+
+	private Path fileFor(String trackingId) {
+		return directory.resolve(trackingId + SUFFIX);
+	}
+}
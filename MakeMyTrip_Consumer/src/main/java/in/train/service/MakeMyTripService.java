@@ -1,40 +1,95 @@
 package in.train.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import in.train.api.ApiResponse;
+import in.train.config.WebClientConfig;
+import in.train.config.WireFormat;
 import in.train.exception.TicketNotFoundException;
 import in.train.request.Passenger;
 import in.train.responce.Ticket;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Service class for MakeMyTrip Consumer.
  * 
  * This service communicates with the IRCTC Provider microservice
- * using Spring WebClient to:
+ * using Spring WebClient (spread across provider instances by
+ * ProviderLoadBalancer) to:
  *  - Book a ticket
  *  - Fetch ticket details by ID
  *  - Cancel a ticket
+ *  - Stream provider responses straight to the client (pass-through mode)
+ * 
+ * When the Provider is overloaded (503) or rate limits us (429) it sends
+ * Retry-After; ProviderLoadBalancer then retries the call after that time
+ * instead of failing it straight away.
  */
 @Service
 public class MakeMyTripService {
 
+	// Provider response headers copied to the client in pass-through mode
+	private static final List<String> PASS_THROUGH_HEADERS = List.of(HttpHeaders.CONTENT_TYPE,
+			HttpHeaders.CONTENT_LENGTH, HttpHeaders.CACHE_CONTROL, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+			HttpHeaders.RETRY_AFTER);
+
+	/**
+	 * Header the Provider uses to recognise a repeated booking request.
+	 */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
 	private final WebClient webClient;
 
+	// Groups concurrent ticket lookups into batch calls to the Provider
+	private final TicketLookupBatcher ticketLookupBatcher;
+
+	// Picks which Provider instance each call goes to
+	private final ProviderLoadBalancer loadBalancer;
+
+	// JSON or Smile bodies
+	private final WireFormat wireFormat;
+
 	/**
-	 * Provider service base URL (configured in application.properties/yml)
+	 * When true, get and cancel responses are streamed from the Provider
+	 * without being decoded into Ticket objects.
 	 */
-	@Value("${irctc.provider.url}")
-	private String providerUrl;
+	@Value("${irctc.passthrough.enabled:false}")
+	private boolean passThrough;
 
-	public MakeMyTripService(WebClient.Builder webClientBuilder) {
+	/**
+	 * Sent to the Provider as X-API-Key, it rate limits MakeMyTrip as a partner.
+	 */
+	@Value("${irctc.api-key:}")
+	private String apiKey;
+
+	public MakeMyTripService(WebClient.Builder webClientBuilder, TicketLookupBatcher ticketLookupBatcher,
+			ProviderLoadBalancer loadBalancer, WireFormat wireFormat) {
 		this.webClient = webClientBuilder.build();
+		this.ticketLookupBatcher = ticketLookupBatcher;
+		this.loadBalancer = loadBalancer;
+		this.wireFormat = wireFormat;
 	}
 
 	/**
@@ -42,20 +97,42 @@ public class MakeMyTripService {
 	 * 
 	 * This method sends a POST request with passenger details
 	 * and expects an ApiResponse<Ticket> from the Provider.
+	 * The passenger is sent as Smile unless the Provider only takes JSON.
 	 * 
 	 * @param passenger Passenger request data
 	 * @return Booked Ticket details
 	 */
+	@Observed(name = "makemytrip.service")
 	public Ticket bookTicket(Passenger passenger) {
+		return bookTicket(passenger, null);
+	}
+
+	/**
+	 * Book a ticket with an idempotency key.
+	 * 
+	 * The key is sent as the Idempotency-Key header. When the same booking is
+	 * sent again with the same key (a retry after a timeout or a 5xx, when it
+	 * is unknown whether the Provider already booked it), the Provider returns
+	 * the ticket of the first request instead of booking a second one.
+	 * 
+	 * @param passenger      Passenger request data
+	 * @param idempotencyKey same value for every attempt of one booking (null = none)
+	 * @return Booked Ticket details
+	 */
+	@Observed(name = "makemytrip.service")
+	public Ticket bookTicket(Passenger passenger, String idempotencyKey) {
 		try {
-			ApiResponse<Ticket> response = webClient
-					.post()
-					.uri(providerUrl)
-					.contentType(MediaType.APPLICATION_JSON)
-					.bodyValue(passenger)
-					.retrieve()
-					.bodyToMono(new ParameterizedTypeReference<ApiResponse<Ticket>>() {})
-					.block();
+			MediaType contentType = wireFormat.contentType();
+			ApiResponse<Ticket> response;
+			try {
+				response = book(passenger, idempotencyKey, contentType);
+			} catch (WebClientResponseException.UnsupportedMediaType ex) {
+				// Provider without Smile support: send the same booking again as JSON
+				if (!wireFormat.rejected(contentType)) {
+					throw ex;
+				}
+				response = book(passenger, idempotencyKey, MediaType.APPLICATION_JSON);
+			}
 
 			// Return only the actual Ticket data from ApiResponse
 			return response.getData();
@@ -72,23 +149,56 @@ public class MakeMyTripService {
 		}
 	}
 
+	private ApiResponse<Ticket> book(Passenger passenger, String idempotencyKey, MediaType contentType) {
+		return loadBalancer.execute(providerUrl -> webClient
+				.post()
+				.uri(providerUrl)
+				.attribute(WebClientConfig.OPERATION_ATTRIBUTE, "book")
+				.headers(headers -> {
+					WebClientConfig.setApiKey(headers, apiKey);
+					if (idempotencyKey != null) {
+						headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+					}
+				})
+				.contentType(contentType)
+				.accept(wireFormat.accept())
+				.bodyValue(passenger)
+				.retrieve()
+				.bodyToMono(new ParameterizedTypeReference<ApiResponse<Ticket>>() {}))
+				.block();
+	}
+
 	/**
 	 * Get ticket details by ticket ID via IRCTC Provider service.
 	 * 
+	 * When batching is enabled, lookups made at the same time are
+	 * combined into a single batch call by TicketLookupBatcher.
+	 * 
 	 * @param ticketId Ticket ID
 	 * @return Ticket details
 	 */
+	@Observed(name = "makemytrip.service")
 	public Ticket getTicketById(Integer ticketId) {
 		try {
-			return webClient.get()
+			if (ticketLookupBatcher.isEnabled()) {
+				return ticketLookupBatcher.getTicket(ticketId);
+			}
+
+			return loadBalancer.execute(providerUrl -> webClient.get()
 					.uri(providerUrl + "/" + ticketId)
+					.attribute(WebClientConfig.OPERATION_ATTRIBUTE, "get")
+					.headers(headers -> WebClientConfig.setApiKey(headers, apiKey))
+					.accept(wireFormat.accept())
 					.retrieve()
-					.bodyToMono(Ticket.class)
+					.bodyToMono(Ticket.class))
 					.block();
 
 		} catch (WebClientResponseException.NotFound ex) {
 			// 404 Not Found from Provider
 			throw new TicketNotFoundException("Ticket not found with ID: " + ticketId);
+		} catch (TicketNotFoundException ex) {
+			// Ticket missing from a batch response
+			throw ex;
 		} catch (WebClientException ex) {
 			// Client-side WebClient error
 			throw ex;
@@ -104,13 +214,16 @@ public class MakeMyTripService {
 	 * @param ticketId Ticket ID
 	 * @return Cancellation response message
 	 */
+	@Observed(name = "makemytrip.service")
 	public String cancelTicket(Integer ticketId) {
 		try {
-			return webClient
+			return loadBalancer.execute(providerUrl -> webClient
 					.delete()
 					.uri(providerUrl + "/" + ticketId)
+					.attribute(WebClientConfig.OPERATION_ATTRIBUTE, "cancel")
+					.headers(headers -> WebClientConfig.setApiKey(headers, apiKey))
 					.retrieve()
-					.bodyToMono(String.class)
+					.bodyToMono(String.class))
 					.block();
 
 		} catch (WebClientResponseException.NotFound ex) {
@@ -124,4 +237,61 @@ public class MakeMyTripService {
 			throw new RuntimeException("Error cancelling ticket: " + ex.getMessage());
 		}
 	}
+
+	public boolean isPassThrough() {
+		return passThrough;
+	}
+
+	/**
+	 * Forward a request to the IRCTC Provider and stream its response back as is.
+	 * 
+	 * The provider body is copied buffer by buffer to the client response and
+	 * is never decoded, so no Ticket objects are created. The provider status
+	 * code and content headers are kept.
+	 * 
+	 * Client values go into the URI as template variables ({name}), which are
+	 * fully encoded on expansion, so a value with &, = or + cannot add or change
+	 * provider query parameters.
+	 * 
+	 * @param operation    operation name used to tag metrics
+	 * @param method       HTTP method to use
+	 * @param uri          builds the provider URI template from the chosen provider base URL
+	 * @param uriVariables values of the template variables
+	 * @param response     client response the provider bytes are written to
+	 */
+	@Observed(name = "makemytrip.service")
+	public void proxy(String operation, HttpMethod method, Function<UriComponentsBuilder, UriComponentsBuilder> uri,
+			Map<String, ?> uriVariables, HttpServletResponse response) throws IOException {
+
+		ResponseEntity<Flux<DataBuffer>> upstream = loadBalancer.execute(providerUrl -> webClient
+				.method(method)
+				.uri(uri.apply(UriComponentsBuilder.fromHttpUrl(providerUrl)).encode().buildAndExpand(uriVariables)
+						.toUri())
+				.attribute(WebClientConfig.OPERATION_ATTRIBUTE, operation)
+				.headers(headers -> WebClientConfig.setApiKey(headers, apiKey))
+				.retrieve()
+				// Error statuses are passed through to the client as well
+				.onStatus(status -> true, clientResponse -> Mono.empty())
+				.toEntityFlux(DataBuffer.class))
+				.block();
+
+		response.setStatus(upstream.getStatusCode().value());
+		for (String name : PASS_THROUGH_HEADERS) {
+			List<String> values = upstream.getHeaders().get(name);
+			if (values != null) {
+				values.forEach(value -> response.addHeader(name, value));
+			}
+		}
+
+		if (upstream.getBody() == null) {
+			return;
+		}
+
+		// Copy each buffer to the servlet output stream and release it right away
+		OutputStream outputStream = response.getOutputStream();
+		DataBufferUtils.write(upstream.getBody(), outputStream)
+				.doOnNext(DataBufferUtils::release)
+				.blockLast();
+		outputStream.flush();
+	}
 }
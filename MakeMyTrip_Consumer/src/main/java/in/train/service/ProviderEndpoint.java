@@ -0,0 +1,102 @@
+package in.train.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One IRCTC Provider instance known to the consumer.
+ *
+ * Holds the live statistics ProviderLoadBalancer uses to pick an instance:
+ * requests in flight, a moving average of response time and the
+ * passive health state.
+ */
+public class ProviderEndpoint {
+
+	// Base URL of this provider instance, e.g. http://localhost:8080/api/tickets
+	private final String url;
+
+	// Requests sent to this instance that have not completed yet
+	private final AtomicInteger outstanding = new AtomicInteger();
+
+	// Failures in a row (connection errors and 5xx responses)
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	// Exponentially weighted moving average of response time in milliseconds
+	private volatile double latencyEwmaMillis;
+
+	// Time (System.nanoTime) until which this instance is taken out of rotation
+	private volatile long ejectedUntilNanos;
+
+	public ProviderEndpoint(String url) {
+		this.url = url;
+	}
+
+	/**
+	 * Load score used for comparing two instances. Lower is better.
+	 * Instances that are slow or busy both score higher.
+	 */
+	double score() {
+		return (latencyEwmaMillis + 1) * (outstanding.get() + 1);
+	}
+
+	boolean isAvailable(long nowNanos) {
+		return nowNanos >= ejectedUntilNanos;
+	}
+
+	void requestStarted() {
+		outstanding.incrementAndGet();
+	}
+
+	void requestFinished() {
+		outstanding.decrementAndGet();
+	}
+
+	/**
+	 * Fold a new response time into the moving average.
+	 */
+	void recordLatency(double millis, double alpha) {
+		double current = latencyEwmaMillis;
+		// First sample seeds the average directly
+		latencyEwmaMillis = current == 0 ? millis : current + alpha * (millis - current);
+	}
+
+	void recordSuccess() {
+		consecutiveFailures.set(0);
+	}
+
+	/**
+	 * Record a failure and eject the instance once too many happen in a row.
+	 *
+	 * @return true if this failure caused the instance to be ejected
+	 */
+	boolean recordFailure(int ejectAfterFailures, long ejectForNanos, long nowNanos) {
+		if (consecutiveFailures.incrementAndGet() >= ejectAfterFailures) {
+			ejectedUntilNanos = nowNanos + ejectForNanos;
+			return true;
+		}
+		return false;
+	}
+
+	// Getters
+
+	public String getUrl() {
+		return url;
+	}
+
+	public int getOutstanding() {
+		return outstanding.get();
+	}
+
+	public double getLatencyEwmaMillis() {
+		return latencyEwmaMillis;
+	}
+
+	public int getConsecutiveFailures() {
+		return consecutiveFailures.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ProviderEndpoint [url=" + url + ", outstanding=" + outstanding + ", latencyEwmaMillis="
+				+ latencyEwmaMillis + ", consecutiveFailures=" + consecutiveFailures + "]";
+	}
+}
@@ -0,0 +1,291 @@
+package in.train.service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Client-side load balancer for the IRCTC Provider instances.
+ *
+ * Every call to the provider goes through {@link #execute(Function)}, which:
+ *  - Picks an instance (power-of-two-choices or least-outstanding-requests)
+ *  - Tracks requests in flight and a latency moving average per instance
+ *  - Takes an instance out of rotation after repeated failures (passive health check)
+ *  - Honors Retry-After: a provider that sheds load (503) or rate limits (429)
+ *    refuses the request before doing any work, so the call is sent again
+ *    (to the instance chosen then) after the time the provider asked for.
+ *    Such a refusal is back-pressure from a healthy instance: it never counts
+ *    towards ejection, otherwise every instance of an overloaded cluster
+ *    would be ejected one after the other
+ */
+@Component
+public class ProviderLoadBalancer {
+
+	private static final Logger logger = LoggerFactory.getLogger(ProviderLoadBalancer.class);
+
+	/**
+	 * Strategy used to pick an instance.
+	 */
+	public enum Strategy {
+		// Compare two random instances and take the less loaded one
+		P2C,
+		// Scan every instance and take the least loaded one
+		LEAST_OUTSTANDING
+	}
+
+	private final List<ProviderEndpoint> endpoints;
+
+	private final Strategy strategy;
+
+	private final double ewmaAlpha;
+
+	private final int ejectAfterFailures;
+
+	private final long ejectForNanos;
+
+	private final int retryAfterMaxRetries;
+
+	private final Duration retryAfterMaxWait;
+
+	// Retries refused calls after their Retry-After time
+	private final Retry retryAfter;
+
+	/**
+	 * @param urls               comma separated provider base URLs (irctc.provider.urls,
+	 *                           falls back to the single irctc.provider.url)
+	 * @param strategy           instance selection strategy
+	 * @param ewmaAlpha          weight of the newest sample in the latency average (0..1)
+	 * @param ejectAfterFailures failures in a row before an instance is ejected
+	 * @param ejectForMs         how long an ejected instance stays out of rotation
+	 * @param retryMaxRetries    retries of a call refused with Retry-After (0 = fail right away)
+	 * @param retryMaxWaitMs     longest Retry-After honored; a longer one fails the call
+	 */
+	public ProviderLoadBalancer(@Value("${irctc.provider.urls:${irctc.provider.url}}") String[] urls,
+			@Value("${irctc.lb.strategy:P2C}") Strategy strategy,
+			@Value("${irctc.lb.ewma-alpha:0.3}") double ewmaAlpha,
+			@Value("${irctc.lb.eject-after-failures:3}") int ejectAfterFailures,
+			@Value("${irctc.lb.eject-duration-ms:10000}") long ejectForMs,
+			@Value("${irctc.retry-after.max-retries:2}") int retryMaxRetries,
+			@Value("${irctc.retry-after.max-wait-ms:5000}") long retryMaxWaitMs) {
+
+		this.endpoints = Arrays.stream(urls)
+				.map(String::trim)
+				.filter(url -> !url.isEmpty())
+				.map(ProviderEndpoint::new)
+				.toList();
+		if (endpoints.isEmpty()) {
+			throw new IllegalArgumentException("At least one IRCTC provider URL must be configured");
+		}
+		this.strategy = strategy;
+		this.ewmaAlpha = ewmaAlpha;
+		this.ejectAfterFailures = ejectAfterFailures;
+		this.ejectForNanos = TimeUnit.MILLISECONDS.toNanos(ejectForMs);
+		this.retryAfterMaxRetries = retryMaxRetries;
+		this.retryAfterMaxWait = Duration.ofMillis(retryMaxWaitMs);
+		this.retryAfter = Retry.from(signals -> signals.concatMap(signal -> {
+			Duration wait = retryAfter(signal.failure());
+			if (wait == null || signal.totalRetries() >= retryAfterMaxRetries) {
+				// Not refused, or out of patience: the caller gets the original error
+				return Mono.error(signal.failure());
+			}
+			logger.debug("IRCTC provider asked to retry after {} ms", wait.toMillis());
+			return Mono.delay(wait);
+		}));
+
+		logger.info("IRCTC provider instances: {} (strategy {})",
+				endpoints.stream().map(ProviderEndpoint::getUrl).toList(), strategy);
+	}
+
+	/**
+	 * Run a provider call against the chosen instance.
+	 *
+	 * @param call builds the request for a given provider base URL
+	 * @return result of the call, with instance statistics recorded on completion
+	 *         (the call is retried when the provider answers with Retry-After)
+	 */
+	public <T> Mono<T> execute(Function<String, Mono<T>> call) {
+		return Mono.defer(() -> {
+			ProviderEndpoint endpoint = choose();
+			long start = System.nanoTime();
+			endpoint.requestStarted();
+
+			return call.apply(endpoint.getUrl())
+					.doOnSuccess(result -> onResult(endpoint, start, result))
+					.doOnError(error -> onError(endpoint, start, error))
+					.doFinally(signal -> endpoint.requestFinished());
+		}).retryWhen(retryAfter);
+	}
+
+	/**
+	 * How long to wait before sending a refused call again.
+	 *
+	 * @return the provider's Retry-After (seconds or HTTP date) of a 503 or 429
+	 *         response, or null if the call must not be retried
+	 */
+	Duration retryAfter(Throwable error) {
+		if (!(error instanceof WebClientResponseException responseException)) {
+			return null;
+		}
+		int status = responseException.getStatusCode().value();
+		String value = responseException.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+		if ((status != HttpStatus.SERVICE_UNAVAILABLE.value() && status != HttpStatus.TOO_MANY_REQUESTS.value())
+				|| value == null) {
+			// Without Retry-After a 503 may come from a booking that was processed: never repeat it
+			return null;
+		}
+
+		Duration wait;
+		try {
+			wait = Duration.ofSeconds(Long.parseLong(value.trim()));
+		} catch (NumberFormatException notSeconds) {
+			try {
+				wait = Duration.between(ZonedDateTime.now(),
+						ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+			} catch (DateTimeParseException notDate) {
+				return null;
+			}
+		}
+		if (wait.isNegative()) {
+			return Duration.ZERO;
+		}
+		return wait.compareTo(retryAfterMaxWait) > 0 ? null : wait;
+	}
+
+	/**
+	 * Pick the instance for the next request.
+	 */
+	ProviderEndpoint choose() {
+		if (endpoints.size() == 1) {
+			return endpoints.get(0);
+		}
+
+		List<ProviderEndpoint> candidates = availableEndpoints();
+
+		if (candidates.size() == 1) {
+			return candidates.get(0);
+		}
+
+		if (strategy == Strategy.LEAST_OUTSTANDING) {
+			ProviderEndpoint best = candidates.get(0);
+			for (ProviderEndpoint endpoint : candidates) {
+				if (endpoint.score() < best.score()) {
+					best = endpoint;
+				}
+			}
+			return best;
+		}
+
+		// Power of two choices: two distinct random instances, keep the better one
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(candidates.size());
+		int second = random.nextInt(candidates.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+		ProviderEndpoint a = candidates.get(first);
+		ProviderEndpoint b = candidates.get(second);
+		return a.score() <= b.score() ? a : b;
+	}
+
+	/**
+	 * Instances currently in rotation. If every instance is ejected, all of them
+	 * are returned so requests still have somewhere to go.
+	 */
+	private List<ProviderEndpoint> availableEndpoints() {
+		long now = System.nanoTime();
+		List<ProviderEndpoint> available = new ArrayList<>(endpoints.size());
+		for (ProviderEndpoint endpoint : endpoints) {
+			if (endpoint.isAvailable(now)) {
+				available.add(endpoint);
+			}
+		}
+		return available.isEmpty() ? endpoints : available;
+	}
+
+	/**
+	 * Pass-through calls hand every status back as a result, so an error
+	 * status in the result is counted like the same error of any other call.
+	 */
+	private void onResult(ProviderEndpoint endpoint, long start, Object result) {
+		if (result instanceof ResponseEntity<?> entity && entity.getStatusCode().isError()) {
+			onError(endpoint, start, WebClientResponseException.create(entity.getStatusCode(), "",
+					entity.getHeaders(), null, null, null));
+			return;
+		}
+		onSuccess(endpoint, start);
+	}
+
+	private void onSuccess(ProviderEndpoint endpoint, long start) {
+		endpoint.recordLatency(elapsedMillis(start), ewmaAlpha);
+		endpoint.recordSuccess();
+	}
+
+	private void onError(ProviderEndpoint endpoint, long start, Throwable error) {
+		if (isBackPressure(error)) {
+			// Neither a failure nor a success, and its quick answer says nothing about the latency
+			return;
+		}
+		endpoint.recordLatency(elapsedMillis(start), ewmaAlpha);
+
+		if (!isInstanceFailure(error)) {
+			// 4xx means the instance is healthy and answered, e.g. ticket not found
+			endpoint.recordSuccess();
+			return;
+		}
+
+		if (endpoint.recordFailure(ejectAfterFailures, ejectForNanos, System.nanoTime())) {
+			logger.warn("Ejecting IRCTC provider {} after {} consecutive failures", endpoint.getUrl(),
+					endpoint.getConsecutiveFailures());
+		}
+	}
+
+	/**
+	 * 503 or 429 with Retry-After: the instance refused the request on purpose.
+	 */
+	private boolean isBackPressure(Throwable error) {
+		if (!(error instanceof WebClientResponseException responseException)) {
+			return false;
+		}
+		int status = responseException.getStatusCode().value();
+		return (status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.TOO_MANY_REQUESTS.value())
+				&& responseException.getHeaders().getFirst(HttpHeaders.RETRY_AFTER) != null;
+	}
+
+	/**
+	 * Connection problems and 5xx responses (other than back-pressure) count against the instance.
+	 */
+	private boolean isInstanceFailure(Throwable error) {
+		if (error instanceof WebClientResponseException responseException) {
+			return responseException.getStatusCode().is5xxServerError();
+		}
+		return error instanceof WebClientRequestException;
+	}
+
+	private static double elapsedMillis(long start) {
+		return (System.nanoTime() - start) / 1_000_000.0;
+	}
+
+	public List<ProviderEndpoint> getEndpoints() {
+		return endpoints;
+	}
+}
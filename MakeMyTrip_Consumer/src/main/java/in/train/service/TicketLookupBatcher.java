@@ -0,0 +1,201 @@
+package in.train.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import in.train.config.WebClientConfig;
+import in.train.config.WireFormat;
+import in.train.exception.TicketNotFoundException;
+import in.train.responce.Ticket;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Collects ticket lookups that arrive close together and sends them
+ * to the IRCTC Provider as one batch call.
+ *
+ * Lookups are held for a short window (or until the batch is full),
+ * duplicate ticket IDs share the same pending result, and the provider
+ * response is fanned back out to every waiting caller.
+ */
+@Component
+public class TicketLookupBatcher {
+
+	private static final Logger logger = LoggerFactory.getLogger(TicketLookupBatcher.class);
+
+	private final WebClient webClient;
+
+	// Picks which Provider instance each batch call goes to
+	private final ProviderLoadBalancer loadBalancer;
+
+	// JSON or Smile responses
+	private final WireFormat wireFormat;
+
+	// Single thread that fires the end-of-window flush
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "ticket-lookup-batcher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Guards pending and flushScheduled
+	private final Object lock = new Object();
+
+	// Lookups waiting for the next batch, one entry per distinct ticket ID
+	private Map<Integer, CompletableFuture<Ticket>> pending = new HashMap<>();
+
+	// True while an end-of-window flush is already queued
+	private boolean flushScheduled;
+
+	/**
+	 * Turns batching on or off. When off, MakeMyTripService calls the provider directly.
+	 */
+	@Value("${irctc.batch.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * How long the first lookup of a batch waits for others to join it.
+	 */
+	@Value("${irctc.batch.window-ms:5}")
+	private long windowMs;
+
+	/**
+	 * Maximum number of distinct ticket IDs sent in one batch call.
+	 */
+	@Value("${irctc.batch.max-size:50}")
+	private int maxSize;
+
+	/**
+	 * Sent to the Provider as X-API-Key.
+	 */
+	@Value("${irctc.api-key:}")
+	private String apiKey;
+
+	public TicketLookupBatcher(WebClient.Builder webClientBuilder, ProviderLoadBalancer loadBalancer,
+			WireFormat wireFormat) {
+		this.webClient = webClientBuilder.build();
+		this.loadBalancer = loadBalancer;
+		this.wireFormat = wireFormat;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get ticket details by ticket ID, sharing the provider call with
+	 * other lookups made in the same window.
+	 *
+	 * @param ticketId Ticket ID
+	 * @return Ticket details
+	 */
+	public Ticket getTicket(Integer ticketId) {
+		try {
+			return lookup(ticketId).join();
+		} catch (CompletionException ex) {
+			// Re-throw the real cause so callers see the same exceptions as a direct call
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Queue a lookup and return the pending result.
+	 *
+	 * @param ticketId Ticket ID
+	 * @return future completed when the batch containing this ID returns
+	 */
+	CompletableFuture<Ticket> lookup(Integer ticketId) {
+		CompletableFuture<Ticket> result;
+		Map<Integer, CompletableFuture<Ticket>> fullBatch = null;
+
+		synchronized (lock) {
+			// Same ticket ID in the same window shares one result
+			result = pending.computeIfAbsent(ticketId, id -> new CompletableFuture<>());
+
+			if (pending.size() >= maxSize) {
+				// Batch is full, send it right away
+				fullBatch = pending;
+				pending = new HashMap<>();
+			} else if (!flushScheduled) {
+				// First lookup of a new window
+				flushScheduled = true;
+				scheduler.schedule(this::flushWindow, windowMs, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		if (fullBatch != null) {
+			send(fullBatch);
+		}
+		return result;
+	}
+
+	/**
+	 * Send whatever has been collected when the window closes.
+	 */
+	private void flushWindow() {
+		Map<Integer, CompletableFuture<Ticket>> batch;
+		synchronized (lock) {
+			batch = pending;
+			pending = new HashMap<>();
+			flushScheduled = false;
+		}
+		if (!batch.isEmpty()) {
+			send(batch);
+		}
+	}
+
+	/**
+	 * Call the provider batch endpoint and complete every waiting lookup.
+	 *
+	 * @param batch pending lookups keyed by ticket ID
+	 */
+	private void send(Map<Integer, CompletableFuture<Ticket>> batch) {
+		String ids = batch.keySet().stream()
+				.map(String::valueOf)
+				.collect(Collectors.joining(","));
+
+		logger.debug("Sending batch lookup for {} ticket(s)", batch.size());
+
+		loadBalancer.execute(providerUrl -> webClient.get()
+				.uri(providerUrl + "/batch?ids=" + ids)
+				.attribute(WebClientConfig.OPERATION_ATTRIBUTE, "batch-get")
+				.headers(headers -> WebClientConfig.setApiKey(headers, apiKey))
+				.accept(wireFormat.accept())
+				.retrieve()
+				.bodyToMono(new ParameterizedTypeReference<List<Ticket>>() {}))
+				.defaultIfEmpty(List.of())
+				.subscribe(tickets -> {
+					// Hand each ticket to the callers waiting for it
+					for (Ticket ticket : tickets) {
+						CompletableFuture<Ticket> waiting = batch.remove(ticket.getTicketId());
+						if (waiting != null) {
+							waiting.complete(ticket);
+						}
+					}
+					// Anything left was not returned by the provider
+					batch.forEach((ticketId, waiting) -> waiting.completeExceptionally(
+							new TicketNotFoundException("Ticket not found with ID: " + ticketId)));
+				}, error -> batch.values().forEach(waiting -> waiting.completeExceptionally(error)));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+}
@@ -0,0 +1,332 @@
+package in.train.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import in.train.api.ApiResponse;
+import in.train.config.WebClientConfig;
+import in.train.config.WireFormat;
+import in.train.request.Passenger;
+import in.train.responce.BookingStatus;
+import in.train.responce.BookingStatus.State;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Async bookings against a stub provider: recovery after a restart, which
+ * failures are retried, and the callback.
+ */
+class AsyncBookingServiceTests {
+
+	static {
+		// Without TCP_NODELAY the JDK stub server adds ~40ms to every response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@TempDir
+	Path queueDir;
+
+	private StubProvider provider;
+
+	private AsyncBookingService service;
+
+	@AfterEach
+	void stop() {
+		if (service != null) {
+			service.stop();
+		}
+		if (provider != null) {
+			provider.stop();
+		}
+	}
+
+	@Test
+	void bookingInterruptedByARestartIsSentAgainWithTheSameIdempotencyKey() throws IOException {
+		provider = new StubProvider();
+		// Left PROCESSING on disk: the consumer stopped during the provider call
+		BookingStatus interrupted = new BookingStatus();
+		interrupted.setTrackingId("3f0c2a9e-resumed");
+		interrupted.setState(State.PROCESSING);
+		interrupted.setPassenger(passenger());
+		interrupted.setAttempts(1);
+		interrupted.setCreatedAt(LocalDateTime.now());
+		interrupted.setUpdatedAt(interrupted.getCreatedAt());
+		new BookingQueueStore(jsonMapper, queueDir.toString()).save(interrupted);
+
+		service = start();
+
+		BookingStatus status = awaitFinished("3f0c2a9e-resumed");
+		assertEquals(State.COMPLETED, status.getState());
+		// The provider returns the ticket of the first attempt if it was booked
+		assertEquals(List.of("3f0c2a9e-resumed"), provider.idempotencyKeys);
+	}
+
+	@Test
+	void failuresThatMayHaveBookedAreRetriedWithTheSameKey() throws IOException {
+		provider = new StubProvider(500, 504);
+		service = start();
+
+		BookingStatus accepted = service.submit(passenger(), null);
+		BookingStatus status = awaitFinished(accepted.getTrackingId());
+
+		assertEquals(State.COMPLETED, status.getState());
+		assertEquals(3, status.getAttempts());
+		assertNull(status.getNextAttemptAt());
+		assertEquals(List.of(accepted.getTrackingId(), accepted.getTrackingId(), accepted.getTrackingId()),
+				provider.idempotencyKeys);
+		// Backoff of 100 ms, then 200 ms, each minus up to half of it
+		assertTrue(provider.callGapMillis(0) >= 50, "first retry after " + provider.callGapMillis(0) + " ms");
+		assertTrue(provider.callGapMillis(1) >= 100, "second retry after " + provider.callGapMillis(1) + " ms");
+	}
+
+	@Test
+	void backedOffBookingWaitsForItsNextAttemptAfterARestart() throws IOException {
+		provider = new StubProvider();
+		BookingStatus backedOff = new BookingStatus();
+		backedOff.setTrackingId("7d1e4b20-backed-off");
+		backedOff.setState(State.PENDING);
+		backedOff.setPassenger(passenger());
+		backedOff.setAttempts(1);
+		backedOff.setNextAttemptAt(LocalDateTime.now().plusNanos(300_000_000));
+		backedOff.setCreatedAt(LocalDateTime.now());
+		backedOff.setUpdatedAt(backedOff.getCreatedAt());
+		new BookingQueueStore(jsonMapper, queueDir.toString()).save(backedOff);
+
+		long started = System.nanoTime();
+		service = start();
+		BookingStatus status = awaitFinished("7d1e4b20-backed-off");
+
+		assertEquals(State.COMPLETED, status.getState());
+		assertTrue(System.nanoTime() - started >= 250_000_000L, "sent before the stored next attempt");
+	}
+
+	@Test
+	void backoffDoublesUpToTheMaximum() {
+		AsyncBookingService backoff = new AsyncBookingService(null, null, null);
+		ReflectionTestUtils.setField(backoff, "retryBackoffMs", 1000L);
+		ReflectionTestUtils.setField(backoff, "maxRetryBackoffMs", 30_000L);
+
+		for (int attempt = 1; attempt <= 40; attempt++) {
+			long full = Math.min(30_000, 1000L << Math.min(attempt - 1, 30));
+			long wait = backoff.backoffMs(attempt);
+			assertTrue(wait >= full / 2 && wait <= full, "attempt " + attempt + ": " + wait + " ms");
+		}
+	}
+
+	@Test
+	void rejectedBookingIsNotRetried() throws IOException {
+		provider = new StubProvider(400);
+		service = start();
+
+		BookingStatus accepted = service.submit(passenger(), null);
+		BookingStatus status = awaitFinished(accepted.getTrackingId());
+
+		assertEquals(State.FAILED, status.getState());
+		assertEquals(1, status.getAttempts());
+		assertEquals(1, provider.idempotencyKeys.size());
+	}
+
+	@Test
+	void callbackGetsTheResultWithoutThePassenger() throws IOException {
+		provider = new StubProvider();
+		service = start("127.0.0.1");
+
+		BookingStatus accepted = service.submit(passenger(), provider.baseUrl() + "/callback");
+		assertNull(accepted.getPassenger());
+		await(() -> !provider.callbacks.isEmpty());
+
+		String callback = provider.callbacks.get(0);
+		assertTrue(callback.contains(accepted.getTrackingId()), callback);
+		assertTrue(callback.contains("COMPLETED"), callback);
+		assertFalse(callback.contains("passenger\""), callback);
+		assertFalse(callback.contains("Aditi"), callback);
+		assertNull(service.getStatus(accepted.getTrackingId()).getPassenger());
+		// The provider API key goes to the provider only
+		assertEquals(List.of("makemytrip"), provider.apiKeys);
+		assertNull(provider.callbackApiKeys.get(0));
+	}
+
+	@Test
+	void callbackUrlsOutsideTheAllowListAreRefused() throws IOException {
+		provider = new StubProvider();
+		service = start("127.0.0.1", "*.partner.example");
+
+		for (String url : List.of("http://169.254.169.254/latest/meta-data", "http://localhost:8080/actuator",
+				"ftp://127.0.0.1/callback", "http://user@127.0.0.1/callback", "/callback", "http://[::1")) {
+			assertThrows(IllegalArgumentException.class, () -> service.submit(passenger(), url), url);
+		}
+		// Nothing was queued for the refused bookings
+		try (Stream<Path> files = Files.list(queueDir)) {
+			assertEquals(0, files.count());
+		}
+
+		service.checkCallbackUrl("http://hooks.partner.example/booked");
+		service.checkCallbackUrl("HTTP://127.0.0.1:9000/callback");
+	}
+
+	private AsyncBookingService start(String... callbackHosts) {
+		WireFormat wireFormat = new WireFormat();
+		ReflectionTestUtils.setField(wireFormat, "format", "json");
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { provider.baseUrl() + "/api/tickets" },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 10, 10_000, 2, 5_000);
+		var webClientBuilder = new WebClientConfig().webClientBuilder(new SimpleMeterRegistry(),
+				ObservationRegistry.NOOP, Jackson2ObjectMapperBuilder.json());
+		MakeMyTripService makeMyTripService = new MakeMyTripService(webClientBuilder,
+				new TicketLookupBatcher(webClientBuilder, loadBalancer, wireFormat), loadBalancer, wireFormat);
+		ReflectionTestUtils.setField(makeMyTripService, "apiKey", "makemytrip");
+
+		AsyncBookingService asyncBookingService = new AsyncBookingService(makeMyTripService,
+				new BookingQueueStore(jsonMapper, queueDir.toString()),
+				new WebClientConfig().callbackWebClient(Jackson2ObjectMapperBuilder.json()));
+		ReflectionTestUtils.setField(asyncBookingService, "workers", 1);
+		ReflectionTestUtils.setField(asyncBookingService, "maxRatePerSecond", 1000);
+		ReflectionTestUtils.setField(asyncBookingService, "maxAttempts", 3);
+		ReflectionTestUtils.setField(asyncBookingService, "retryBackoffMs", 100L);
+		ReflectionTestUtils.setField(asyncBookingService, "maxRetryBackoffMs", 1000L);
+		ReflectionTestUtils.setField(asyncBookingService, "retentionMinutes", 60L);
+		ReflectionTestUtils.setField(asyncBookingService, "allowedCallbackSchemes", new String[] { "http" });
+		ReflectionTestUtils.setField(asyncBookingService, "allowedCallbackHosts", callbackHosts);
+		asyncBookingService.start();
+		return asyncBookingService;
+	}
+
+	private BookingStatus awaitFinished(String trackingId) {
+		await(() -> {
+			State state = service.getStatus(trackingId).getState();
+			return state == State.COMPLETED || state == State.FAILED;
+		});
+		return service.getStatus(trackingId);
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + 10_000_000_000L;
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("Condition not met within 10 s");
+			}
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new AssertionError(ex);
+			}
+		}
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Aditi");
+		passenger.setLname("Rao");
+		passenger.setGender("Female");
+		passenger.setFrom("Chennai");
+		passenger.setTo("Bengaluru");
+		passenger.setDoj("2026-12-26");
+		passenger.setTrainNum("12007");
+		return passenger;
+	}
+
+	/**
+	 * Stand-in for the IRCTC Provider booking endpoint and for a client's callback receiver.
+	 * Answers bookings with the given error statuses first, then books.
+	 */
+	private class StubProvider {
+
+		private final HttpServer server;
+
+		private final Queue<Integer> failures = new ConcurrentLinkedQueue<>();
+
+		private final List<String> idempotencyKeys = new CopyOnWriteArrayList<>();
+
+		private final List<String> callbacks = new CopyOnWriteArrayList<>();
+
+		private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+
+		private final List<String> callbackApiKeys = new CopyOnWriteArrayList<>();
+
+		// System.nanoTime() of every booking call
+		private final List<Long> callTimes = new CopyOnWriteArrayList<>();
+
+		StubProvider(Integer... failureStatuses) throws IOException {
+			failures.addAll(List.of(failureStatuses));
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.createContext("/api/tickets", this::book);
+			server.createContext("/callback", this::callback);
+			server.start();
+		}
+
+		private void book(HttpExchange exchange) throws IOException {
+			callTimes.add(System.nanoTime());
+			idempotencyKeys.add(exchange.getRequestHeaders().getFirst(MakeMyTripService.IDEMPOTENCY_KEY_HEADER));
+			apiKeys.add(exchange.getRequestHeaders().getFirst(WebClientConfig.API_KEY_HEADER));
+			exchange.getRequestBody().readAllBytes();
+			Integer failure = failures.poll();
+			if (failure != null) {
+				exchange.sendResponseHeaders(failure, -1);
+				exchange.close();
+				return;
+			}
+			Ticket ticket = new Ticket();
+			ticket.setTicketId(11);
+			ticket.setTicketStatus("CONFIRMED");
+			ticket.setPnr("400000001100");
+			byte[] bytes = jsonMapper.writeValueAsBytes(
+					new ApiResponse<>(true, "Ticket booked successfully", ticket, LocalDateTime.now()));
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+
+		private void callback(HttpExchange exchange) throws IOException {
+			callbackApiKeys.add(exchange.getRequestHeaders().getFirst(WebClientConfig.API_KEY_HEADER));
+			callbacks.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		}
+
+		long callGapMillis(int call) {
+			return (callTimes.get(call + 1) - callTimes.get(call)) / 1_000_000;
+		}
+
+		String baseUrl() {
+			return "http://127.0.0.1:" + server.getAddress().getPort();
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,215 @@
+package in.train.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import in.train.api.ApiResponse;
+import in.train.config.WebClientConfig;
+import in.train.config.WireFormat;
+import in.train.controller.MakeMyTripController;
+import in.train.request.Passenger;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Smile content negotiation with providers that do and do not support it,
+ * and the provider URIs of pass-through calls.
+ */
+class MakeMyTripServiceWireFormatTests {
+
+	static {
+		// Without TCP_NODELAY the JDK stub server adds ~40ms to every response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private static final String SMILE = "application/x-jackson-smile";
+	private static final String JSON = "application/json";
+
+	private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private final ObjectMapper smileMapper = WireFormat.smileMapper(Jackson2ObjectMapperBuilder.json());
+
+	private StubProvider stub;
+
+	@AfterEach
+	void stopStub() {
+		stub.stop();
+	}
+
+	@Test
+	void smileProviderIsCalledInSmile() throws IOException {
+		stub = new StubProvider(true);
+		MakeMyTripService service = service(stub.url());
+
+		Ticket booked = service.bookTicket(passenger());
+		Ticket fetched = service.getTicketById(booked.getTicketId());
+
+		assertEquals("Aditi", stub.passengers.get(0).getFname());
+		assertEquals(List.of(SMILE), stub.requestTypes);
+		assertEquals(List.of(SMILE, SMILE), stub.responseTypes);
+		assertEquals(LocalDateTime.of(2026, 10, 1, 9, 30), fetched.getBookingTime());
+		// Identifies MakeMyTrip to the provider's rate limits
+		assertEquals(List.of("makemytrip", "makemytrip"), stub.apiKeys);
+	}
+
+	@Test
+	void jsonOnlyProviderGetsJsonAfterRejectingSmile() throws IOException {
+		stub = new StubProvider(false);
+		MakeMyTripService service = service(stub.url());
+
+		assertNotNull(service.bookTicket(passenger()).getPnr());
+		assertNotNull(service.bookTicket(passenger()).getPnr());
+		Ticket fetched = service.getTicketById(7);
+
+		// Only the first booking is tried in Smile, then the consumer sticks to JSON
+		assertEquals(List.of(SMILE, JSON, JSON), stub.requestTypes);
+		assertEquals(List.of(JSON, JSON, JSON), stub.responseTypes);
+		assertEquals(LocalDateTime.of(2026, 10, 1, 9, 30), fetched.getBookingTime());
+	}
+
+	@Test
+	void passThroughQueryValuesAreEncoded() throws IOException {
+		stub = new StubProvider(false);
+		MakeMyTripController controller = new MakeMyTripController();
+		ReflectionTestUtils.setField(controller, "service", service(stub.url()));
+
+		controller.searchTickets("4000000707&pnr=1", "Ravi+Kumar Sen", new MockHttpServletResponse());
+		controller.searchTickets(null, "Das", new MockHttpServletResponse());
+		controller.getAllTickets(2, 20, new MockHttpServletResponse());
+
+		// & = + and spaces stay part of their value instead of changing the provider query
+		assertEquals(List.of("pnr=4000000707%26pnr%3D1&passengerName=Ravi%2BKumar%20Sen", "passengerName=Das",
+				"pageNo=2&pageSize=20"), stub.queries);
+	}
+
+	private MakeMyTripService service(String url) {
+		WireFormat wireFormat = new WireFormat();
+		ReflectionTestUtils.setField(wireFormat, "format", "smile");
+
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { url },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 10_000, 2, 5_000);
+		var webClientBuilder = new WebClientConfig().webClientBuilder(new SimpleMeterRegistry(),
+				ObservationRegistry.NOOP, Jackson2ObjectMapperBuilder.json());
+		// Batching stays off (its @Value is not injected here), lookups go straight to the provider
+		TicketLookupBatcher batcher = new TicketLookupBatcher(webClientBuilder, loadBalancer, wireFormat);
+		MakeMyTripService service = new MakeMyTripService(webClientBuilder, batcher, loadBalancer, wireFormat);
+		ReflectionTestUtils.setField(service, "apiKey", "makemytrip");
+		return service;
+	}
+
+	private static Passenger passenger() {
+		Passenger passenger = new Passenger();
+		passenger.setFname("Aditi");
+		passenger.setLname("Rao");
+		passenger.setGender("Female");
+		passenger.setFrom("Chennai");
+		passenger.setTo("Bengaluru");
+		passenger.setDoj("2026-12-26");
+		passenger.setTrainNum("12007");
+		return passenger;
+	}
+
+	private static Ticket ticket(int ticketId) {
+		Ticket ticket = new Ticket();
+		ticket.setTicketId(ticketId);
+		ticket.setPassengerName("Aditi Rao");
+		ticket.setFrom("Chennai");
+		ticket.setTo("Bengaluru");
+		ticket.setTrainNum("12007");
+		ticket.setTktCost("450.0 INR");
+		ticket.setTicketStatus("CONFIRMED");
+		ticket.setPnr("4000000707");
+		ticket.setBookingTime(LocalDateTime.of(2026, 10, 1, 9, 30));
+		return ticket;
+	}
+
+	/**
+	 * Stand-in for the IRCTC Provider book and get endpoints, with or without Smile support.
+	 * Records the content types it received and answered with, the API keys sent and the raw queries.
+	 */
+	private class StubProvider {
+
+		private final HttpServer server;
+
+		private final boolean smile;
+
+		private final List<Passenger> passengers = new CopyOnWriteArrayList<>();
+
+		private final List<String> requestTypes = new CopyOnWriteArrayList<>();
+
+		private final List<String> responseTypes = new CopyOnWriteArrayList<>();
+
+		private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+
+		private final List<String> queries = new CopyOnWriteArrayList<>();
+
+		StubProvider(boolean smile) throws IOException {
+			this.smile = smile;
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.createContext("/api/tickets", this::handle);
+			server.start();
+		}
+
+		private void handle(HttpExchange exchange) throws IOException {
+			apiKeys.add(exchange.getRequestHeaders().getFirst(WebClientConfig.API_KEY_HEADER));
+			if ("POST".equals(exchange.getRequestMethod())) {
+				String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+				requestTypes.add(contentType);
+				if (contentType.startsWith(SMILE) && !smile) {
+					exchange.sendResponseHeaders(415, -1);
+					exchange.close();
+					return;
+				}
+				ObjectMapper mapper = contentType.startsWith(SMILE) ? smileMapper : jsonMapper;
+				passengers.add(mapper.readValue(exchange.getRequestBody(), Passenger.class));
+				respond(exchange, new ApiResponse<>(true, "Ticket booked successfully", ticket(7),
+						LocalDateTime.now()));
+			} else {
+				if (exchange.getRequestURI().getRawQuery() != null) {
+					queries.add(exchange.getRequestURI().getRawQuery());
+				}
+				respond(exchange, ticket(7));
+			}
+		}
+
+		private void respond(HttpExchange exchange, Object body) throws IOException {
+			String accept = exchange.getRequestHeaders().getFirst("Accept");
+			String type = smile && accept != null && accept.contains(SMILE) ? SMILE : JSON;
+			responseTypes.add(type);
+			byte[] bytes = (type.equals(SMILE) ? smileMapper : jsonMapper).writeValueAsBytes(body);
+			exchange.getResponseHeaders().add("Content-Type", type);
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+
+		String url() {
+			return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/tickets";
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package in.train.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.sun.net.httpserver.HttpServer;
+
+import in.train.config.WebClientConfig;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs the load balancer against several local stub providers.
+ */
+class ProviderLoadBalancerTests {
+
+	static {
+		// Without TCP_NODELAY the JDK stub server adds ~40ms to every response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final List<StubProvider> stubs = new ArrayList<>();
+
+	private final WebClient webClient = WebClient.builder().build();
+
+	@AfterEach
+	void stopStubs() {
+		stubs.forEach(StubProvider::stop);
+	}
+
+	@Test
+	void slowInstanceReceivesLessTraffic() throws IOException {
+		StubProvider fast = start(0);
+		StubProvider slow = start(40);
+
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { fast.url(), slow.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 10_000, 2, 5_000);
+
+		// Warm up connections so the latency averages reflect steady state
+		fire(loadBalancer, 50, 8);
+		fast.hits.set(0);
+		slow.hits.set(0);
+
+		fire(loadBalancer, 300, 8);
+
+		assertEquals(300, fast.hits.get() + slow.hits.get());
+		assertTrue(fast.hits.get() > slow.hits.get() * 3,
+				"fast=" + fast.hits.get() + " slow=" + slow.hits.get());
+	}
+
+	@Test
+	void leastOutstandingSpreadsEvenlyAcrossEqualInstances() throws IOException {
+		StubProvider first = start(5);
+		StubProvider second = start(5);
+		StubProvider third = start(5);
+
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(
+				new String[] { first.url(), second.url(), third.url() },
+				ProviderLoadBalancer.Strategy.LEAST_OUTSTANDING, 0.3, 3, 10_000, 2, 5_000);
+
+		fire(loadBalancer, 300, 9);
+
+		for (StubProvider stub : List.of(first, second, third)) {
+			assertTrue(stub.hits.get() > 50, "hits=" + stub.hits.get());
+		}
+	}
+
+	@Test
+	void deadInstanceIsEjected() throws IOException {
+		StubProvider live = start(0);
+		StubProvider dead = start(0);
+		dead.stop();
+
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { live.url(), dead.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 60_000, 2, 5_000);
+
+		// Failures while the dead instance is being detected
+		int failures = 0;
+		for (int i = 0; i < 20; i++) {
+			if (call(loadBalancer, i) == null) {
+				failures++;
+			}
+		}
+		assertTrue(failures <= 3, "failures=" + failures);
+
+		// Once ejected, every request goes to the live instance
+		int before = live.hits.get();
+		for (int i = 0; i < 50; i++) {
+			assertEquals(i, call(loadBalancer, i).getTicketId());
+		}
+		assertEquals(before + 50, live.hits.get());
+	}
+
+	@Test
+	void overloadedProviderIsRetriedAfterRetryAfter() throws IOException {
+		StubProvider overloaded = start(0);
+		overloaded.shed.set(1);
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { overloaded.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 10_000, 2, 5_000);
+
+		// Shed once, then answered after the 1 second the provider asked for
+		long start = System.nanoTime();
+		assertEquals(7, call(loadBalancer, 7).getTicketId());
+		assertTrue(System.nanoTime() - start >= 1_000_000_000L, "retried before Retry-After");
+		assertEquals(2, overloaded.hits.get());
+
+		// Still overloaded after all retries: the caller gets the 503
+		overloaded.shed.set(3);
+		assertNull(call(loadBalancer, 8));
+		assertEquals(5, overloaded.hits.get());
+		// Three refusals in a row, but back-pressure is not a failure: the instance stays in rotation
+		ProviderEndpoint endpoint = loadBalancer.getEndpoints().get(0);
+		assertEquals(0, endpoint.getConsecutiveFailures());
+		assertTrue(endpoint.isAvailable(System.nanoTime()));
+
+		// Retry-After longer than the caller wants to wait: no retry at all
+		ProviderLoadBalancer impatient = new ProviderLoadBalancer(new String[] { overloaded.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 10_000, 2, 500);
+		overloaded.shed.set(1);
+		assertNull(call(impatient, 9));
+		assertEquals(6, overloaded.hits.get());
+	}
+
+	@Test
+	void passedThroughServerErrorsCountAgainstTheInstance() throws IOException {
+		StubProvider broken = start(0);
+		broken.fail.set(3);
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { broken.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 3, 60_000, 2, 5_000);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		WebClient providerClient = new WebClientConfig()
+				.webClientBuilder(meterRegistry, ObservationRegistry.NOOP, Jackson2ObjectMapperBuilder.json())
+				.build();
+
+		// Like MakeMyTripService.proxy: the 500 is a result handed to the client, not an error
+		for (int i = 0; i < 3; i++) {
+			ResponseEntity<Flux<DataBuffer>> response = loadBalancer.execute(url -> providerClient.get()
+					.uri(url + "/1")
+					.attribute(WebClientConfig.OPERATION_ATTRIBUTE, "get")
+					.retrieve()
+					.onStatus(status -> true, clientResponse -> Mono.empty())
+					.toEntityFlux(DataBuffer.class))
+					.block();
+			assertEquals(500, response.getStatusCode().value());
+			DataBufferUtils.write(response.getBody(), OutputStream.nullOutputStream())
+					.doOnNext(DataBufferUtils::release)
+					.blockLast();
+		}
+
+		ProviderEndpoint endpoint = loadBalancer.getEndpoints().get(0);
+		assertEquals(3, endpoint.getConsecutiveFailures());
+		assertFalse(endpoint.isAvailable(System.nanoTime()));
+		// Recorded once the body is done, which can be just after the last buffer was written
+		long deadline = System.nanoTime() + 1_000_000_000L;
+		while (serverErrors(meterRegistry) < 3 && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertEquals(3, serverErrors(meterRegistry));
+	}
+
+	private static long serverErrors(SimpleMeterRegistry meterRegistry) {
+		var timer = meterRegistry.find("irctc.client.requests")
+				.tag("status", "500")
+				.tag("outcome", "SERVER_ERROR")
+				.timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private void fire(ProviderLoadBalancer loadBalancer, int requests, int concurrency) {
+		Flux.range(0, requests)
+				.flatMap(id -> loadBalancer.execute(url -> webClient.get()
+						.uri(url + "/" + id)
+						.retrieve()
+						.bodyToMono(Ticket.class)), concurrency)
+				.blockLast();
+	}
+
+	private Ticket call(ProviderLoadBalancer loadBalancer, int id) {
+		try {
+			return loadBalancer.execute(url -> webClient.get()
+					.uri(url + "/" + id)
+					.retrieve()
+					.bodyToMono(Ticket.class))
+					.block();
+		} catch (RuntimeException ex) {
+			return null;
+		}
+	}
+
+	private StubProvider start(long delayMs) throws IOException {
+		StubProvider stub = new StubProvider(delayMs);
+		stubs.add(stub);
+		return stub;
+	}
+
+	/**
+	 * Minimal stand-in for the IRCTC Provider GET /api/tickets/{id} endpoint.
+	 */
+	private static class StubProvider {
+
+		private final HttpServer server;
+
+		private final AtomicInteger hits = new AtomicInteger();
+
+		// Requests still to be shed with 503 + Retry-After
+		private final AtomicInteger shed = new AtomicInteger();
+
+		// Requests still to be answered with a plain 500
+		private final AtomicInteger fail = new AtomicInteger();
+
+		private final String url;
+
+		StubProvider(long delayMs) throws IOException {
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.createContext("/api/tickets/", exchange -> {
+				hits.incrementAndGet();
+				if (shed.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+					exchange.getResponseHeaders().add("Retry-After", "1");
+					exchange.sendResponseHeaders(503, -1);
+					exchange.close();
+					return;
+				}
+				if (fail.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+					byte[] error = "{\"status\":500}".getBytes(StandardCharsets.UTF_8);
+					exchange.sendResponseHeaders(500, error.length);
+					try (OutputStream out = exchange.getResponseBody()) {
+						out.write(error);
+					}
+					return;
+				}
+				try {
+					Thread.sleep(delayMs);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				String path = exchange.getRequestURI().getPath();
+				String id = path.substring(path.lastIndexOf('/') + 1);
+				byte[] body = ("{\"ticketId\":" + id + ",\"ticketStatus\":\"CONFIRMED\"}")
+						.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+			});
+			server.start();
+			url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/tickets";
+		}
+
+		String url() {
+			return url;
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package in.train.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import in.train.config.WebClientConfig;
+import in.train.config.WireFormat;
+import in.train.exception.TicketNotFoundException;
+import in.train.responce.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Lookup batching against a stub provider batch endpoint: which lookups share
+ * a call, and how missing tickets and provider errors reach the callers.
+ */
+class TicketLookupBatcherTests {
+
+	static {
+		// Without TCP_NODELAY the JDK stub server adds ~40ms to every response
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+	}
+
+	private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	private StubProvider provider;
+
+	private TicketLookupBatcher batcher;
+
+	@AfterEach
+	void stop() {
+		batcher.shutdown();
+		provider.stop();
+	}
+
+	@Test
+	void lookupsInOneWindowShareOneCall() throws Exception {
+		provider = new StubProvider();
+		batcher = batcher(200, 50);
+
+		// Several threads, each ticket ID asked for twice
+		List<CompletableFuture<Ticket>> lookups = new ArrayList<>();
+		List<CompletableFuture<CompletableFuture<Ticket>>> submitted = IntStream.range(0, 10)
+				.mapToObj(i -> CompletableFuture.supplyAsync(() -> batcher.lookup(1 + i % 5)))
+				.toList();
+		for (CompletableFuture<CompletableFuture<Ticket>> lookup : submitted) {
+			lookups.add(lookup.get(5, TimeUnit.SECONDS));
+		}
+
+		for (int i = 0; i < lookups.size(); i++) {
+			assertEquals(1 + i % 5, lookups.get(i).get(5, TimeUnit.SECONDS).getTicketId());
+		}
+		// Duplicates wait for the same result, and every distinct ID is sent once
+		assertSame(lookups.get(0), lookups.get(5));
+		assertEquals(1, provider.calls.get());
+		assertEquals(List.of(Set.of(1, 2, 3, 4, 5)), provider.batches);
+		assertEquals(List.of("makemytrip"), provider.apiKeys);
+	}
+
+	@Test
+	void fullBatchIsSentWithoutWaitingForTheWindow() throws Exception {
+		provider = new StubProvider();
+		batcher = batcher(60_000, 3);
+
+		List<CompletableFuture<Ticket>> lookups = List.of(batcher.lookup(1), batcher.lookup(2), batcher.lookup(3));
+		for (CompletableFuture<Ticket> lookup : lookups) {
+			lookup.get(5, TimeUnit.SECONDS);
+		}
+		// The next lookup starts a new batch
+		CompletableFuture<Ticket> next = batcher.lookup(4);
+
+		assertEquals(List.of(Set.of(1, 2, 3)), provider.batches);
+		assertFalse(next.isDone());
+	}
+
+	@Test
+	void ticketsMissingFromTheResponseAreNotFound() throws IOException {
+		provider = new StubProvider(7);
+		batcher = batcher(20, 50);
+
+		CompletableFuture<Ticket> missing = batcher.lookup(7);
+		assertEquals(8, batcher.getTicket(8).getTicketId());
+
+		TicketNotFoundException ex = assertThrows(TicketNotFoundException.class, () -> batcher.getTicket(7));
+		assertEquals("Ticket not found with ID: 7", ex.getMessage());
+		assertTrue(missing.isCompletedExceptionally());
+	}
+
+	@Test
+	void providerErrorsReachEveryWaitingLookup() throws Exception {
+		provider = new StubProvider();
+		provider.failWith = 500;
+		batcher = batcher(50, 50);
+
+		CompletableFuture<Ticket> first = batcher.lookup(1);
+		CompletableFuture<Ticket> second = batcher.lookup(2);
+
+		for (CompletableFuture<Ticket> lookup : List.of(first, second)) {
+			ExecutionException ex = assertThrows(ExecutionException.class, () -> lookup.get(5, TimeUnit.SECONDS));
+			WebClientResponseException cause = assertInstanceOf(WebClientResponseException.class, ex.getCause());
+			assertEquals(500, cause.getStatusCode().value());
+		}
+		// Thrown as is by the blocking call
+		assertThrows(WebClientResponseException.class, () -> batcher.getTicket(3));
+	}
+
+	private TicketLookupBatcher batcher(long windowMs, int maxSize) {
+		WireFormat wireFormat = new WireFormat();
+		ReflectionTestUtils.setField(wireFormat, "format", "json");
+		ProviderLoadBalancer loadBalancer = new ProviderLoadBalancer(new String[] { provider.url() },
+				ProviderLoadBalancer.Strategy.P2C, 0.3, 10, 10_000, 0, 5_000);
+		var webClientBuilder = new WebClientConfig().webClientBuilder(new SimpleMeterRegistry(),
+				ObservationRegistry.NOOP, Jackson2ObjectMapperBuilder.json());
+
+		TicketLookupBatcher ticketLookupBatcher = new TicketLookupBatcher(webClientBuilder, loadBalancer, wireFormat);
+		ReflectionTestUtils.setField(ticketLookupBatcher, "enabled", true);
+		ReflectionTestUtils.setField(ticketLookupBatcher, "windowMs", windowMs);
+		ReflectionTestUtils.setField(ticketLookupBatcher, "maxSize", maxSize);
+		ReflectionTestUtils.setField(ticketLookupBatcher, "apiKey", "makemytrip");
+		return ticketLookupBatcher;
+	}
+
+	/**
+	 * Stand-in for the IRCTC Provider GET /api/tickets/batch endpoint.
+	 * Returns a ticket for every requested ID except the missing ones.
+	 */
+	private class StubProvider {
+
+		private final HttpServer server;
+
+		private final Set<Integer> missing;
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+
+		private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+
+		// Status every call is answered with instead, 0 = answer normally
+		private volatile int failWith;
+
+		StubProvider(Integer... missing) throws IOException {
+			this.missing = Set.of(missing);
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.setExecutor(Executors.newCachedThreadPool());
+			server.createContext("/api/tickets/batch", this::batch);
+			server.start();
+		}
+
+		private void batch(HttpExchange exchange) throws IOException {
+			calls.incrementAndGet();
+			apiKeys.add(exchange.getRequestHeaders().getFirst(WebClientConfig.API_KEY_HEADER));
+			if (failWith != 0) {
+				exchange.sendResponseHeaders(failWith, -1);
+				exchange.close();
+				return;
+			}
+			String ids = exchange.getRequestURI().getQuery().substring("ids=".length());
+			Set<Integer> requested = Arrays.stream(ids.split(","))
+					.map(Integer::valueOf)
+					.collect(Collectors.toCollection(TreeSet::new));
+			batches.add(requested);
+
+			List<Ticket> tickets = new ArrayList<>();
+			for (Integer ticketId : requested) {
+				if (!missing.contains(ticketId)) {
+					Ticket ticket = new Ticket();
+					ticket.setTicketId(ticketId);
+					ticket.setTicketStatus("CONFIRMED");
+					tickets.add(ticket);
+				}
+			}
+			byte[] bytes = jsonMapper.writeValueAsBytes(tickets);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		}
+
+		String url() {
+			return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/tickets";
+		}
+
+		void stop() {
+			server.stop(0);
+		}
+	}
+}